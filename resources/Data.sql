@@ -18,6 +18,21 @@ create table ticket(
  FOREIGN KEY (PARKING_NUMBER)
  REFERENCES parking(PARKING_NUMBER));
 
+create table spot_lease(
+ PARKING_NUMBER int PRIMARY KEY,
+ GATE_ID varchar(20) NOT NULL,
+ LEASE_EXPIRY DATETIME NOT NULL,
+ FOREIGN KEY (PARKING_NUMBER)
+ REFERENCES parking(PARKING_NUMBER));
+
+create table reservation(
+ ID int PRIMARY KEY AUTO_INCREMENT,
+ VEHICLE_REG_NUMBER varchar(10) NOT NULL,
+ TYPE varchar(10) NOT NULL,
+ START_TIME DATETIME NOT NULL,
+ END_TIME DATETIME NOT NULL,
+ CLAIMED bool NOT NULL);
+
 insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(1,true,'CAR');
 insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(2,true,'CAR');
 insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(3,true,'CAR');
@@ -45,6 +60,21 @@ create table ticket(
  FOREIGN KEY (PARKING_NUMBER)
  REFERENCES parking(PARKING_NUMBER));
 
+create table spot_lease(
+ PARKING_NUMBER int PRIMARY KEY,
+ GATE_ID varchar(20) NOT NULL,
+ LEASE_EXPIRY DATETIME NOT NULL,
+ FOREIGN KEY (PARKING_NUMBER)
+ REFERENCES parking(PARKING_NUMBER));
+
+create table reservation(
+ ID int PRIMARY KEY AUTO_INCREMENT,
+ VEHICLE_REG_NUMBER varchar(10) NOT NULL,
+ TYPE varchar(10) NOT NULL,
+ START_TIME DATETIME NOT NULL,
+ END_TIME DATETIME NOT NULL,
+ CLAIMED bool NOT NULL);
+
 insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(1,true,'CAR');
 insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(2,true,'CAR');
 insert into parking(PARKING_NUMBER,AVAILABLE,TYPE) values(3,true,'CAR');
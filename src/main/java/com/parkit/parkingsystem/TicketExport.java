@@ -0,0 +1,56 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ExportFormat;
+import com.parkit.parkingsystem.constants.Facility;
+import com.parkit.parkingsystem.dao.FacilityRouter;
+import com.parkit.parkingsystem.dao.TicketExportDAO;
+import com.parkit.parkingsystem.model.TicketExportReport;
+import com.parkit.parkingsystem.service.TicketExportService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+
+/**
+ * Exporte l'historique des tickets d'un parking dans un répertoire :
+ * 
+ * java com.parkit.parkingsystem.TicketExport export/facility-1
+ * 
+ * Sans période indiquée, les tickets sortis depuis le dernier export sont
+ * exportés. La période est indiquée par les propriétés système
+ * parkit.export.from et parkit.export.to (yyyy-MM-dd HH:mm:ss), le format par
+ * parkit.export.format (csv ou columnar) et le nombre de tickets par fichier
+ * par parkit.export.ticketsPerFile.
+ */
+public class TicketExport {
+    private static final Logger logger = LogManager.getLogger("TicketExport");
+    // Les sorties de la dernière minute peuvent être en cours d'enregistrement.
+    private static final long EXPORT_LAG_MILLIS = 60000;
+
+    public static void main(String args[]) throws Exception {
+	FacilityRouter facilityRouter = FacilityRouter.load();
+	try {
+	    int facilityId = Integer.getInteger("parkit.facility", Facility.DEFAULT_ID);
+	    TicketExportDAO ticketExportDAO = new TicketExportDAO();
+	    ticketExportDAO.dataBaseConfig = facilityRouter.getDataBaseConfig(facilityId);
+	    TicketExportService ticketExportService = new TicketExportService(ticketExportDAO, Paths.get(args[0]),
+		    ExportFormat.valueOf(System.getProperty("parkit.export.format", "csv").toUpperCase()),
+		    Long.getLong("parkit.export.ticketsPerFile", 1000000));
+	    String from = System.getProperty("parkit.export.from");
+	    String to = System.getProperty("parkit.export.to");
+	    TicketExportReport report;
+	    if (from != null && to != null) {
+		logger.info("Exporting tickets from " + from + " to " + to);
+		report = ticketExportService.export(Timestamp.valueOf(from), Timestamp.valueOf(to));
+	    } else {
+		logger.info("Exporting tickets since last export");
+		report = ticketExportService
+			.exportSinceLastExport(new Timestamp(System.currentTimeMillis() - EXPORT_LAG_MILLIS));
+	    }
+	    System.out.println(report);
+	} finally {
+	    facilityRouter.shutdown();
+	}
+    }
+}
@@ -0,0 +1,44 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.Facility;
+import com.parkit.parkingsystem.dao.FacilityRouter;
+import com.parkit.parkingsystem.dao.MigrationRunner;
+import com.parkit.parkingsystem.dao.TicketImportDAO;
+import com.parkit.parkingsystem.model.TicketImportReport;
+import com.parkit.parkingsystem.service.TicketImportService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Paths;
+
+/**
+ * Importe l'historique des tickets d'un parking depuis des fichiers CSV :
+ * 
+ * java com.parkit.parkingsystem.TicketImport tickets-2019.csv tickets-2020.csv
+ * 
+ * Le parking est indiqué par la propriété système parkit.facility, le nombre
+ * de lots enregistrés en parallèle par parkit.import.workers et le nombre de
+ * tickets par transaction par parkit.import.batch.
+ */
+public class TicketImport {
+    private static final Logger logger = LogManager.getLogger("TicketImport");
+
+    public static void main(String args[]) throws Exception {
+	FacilityRouter facilityRouter = FacilityRouter.load();
+	try {
+	    int facilityId = Integer.getInteger("parkit.facility", Facility.DEFAULT_ID);
+	    new MigrationRunner(facilityRouter.getDataBaseConfig(facilityId)).migrate();
+	    TicketImportDAO ticketImportDAO = new TicketImportDAO();
+	    ticketImportDAO.dataBaseConfig = facilityRouter.getDataBaseConfig(facilityId);
+	    TicketImportService ticketImportService = new TicketImportService(ticketImportDAO,
+		    Integer.getInteger("parkit.import.workers", 4), Integer.getInteger("parkit.import.batch", 5000));
+	    for (String file : args) {
+		logger.info("Importing " + file);
+		TicketImportReport report = ticketImportService.importFile(Paths.get(file));
+		System.out.println(report);
+	    }
+	} finally {
+	    facilityRouter.shutdown();
+	}
+    }
+}
@@ -1,43 +1,196 @@
 package com.parkit.parkingsystem.config;
 
+import com.parkit.parkingsystem.constants.Facility;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * La classe DataBaseConfig configure la connection à la base de donnée.
  * 
+ * Elle est aussi l'unité de travail des DAO qui l'utilisent : pendant
+ * execute, toutes les connexions demandées par le thread courant sont la même
+ * connexion, validée une seule fois à la fin ou annulée en cas d'erreur.
+ * 
  * @author Dylan
- *
+ * 
  */
-public class DataBaseConfig {
+public class DataBaseConfig implements UnitOfWork {
 
     private static final Logger logger = LogManager.getLogger("DataBaseConfig");
 
+    /*
+     * La transaction en cours du thread. Elle est statique afin d'être lue sans
+     * initialisation de l'instance, elle indique donc la configuration qui l'a
+     * ouverte.
+     */
+    private static final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+
+    private int queryTimeout;
+
     /**
-     * Permet la connection à la base de donnée, avec l'url de la base de donnée, le
-     * nom d'utilisateur et le mot de passe.
+     * Permet la connection à la base de donnée. Pendant une transaction, la
+     * connexion de la transaction est renvoyée.
      * 
      * @return la connexion à la base de donnée.
      * @throws ClassNotFoundException si le chemin de la classe est introuvable.
      * @throws SQLException           si la liaison avec la base de donnée échoue.
      */
     public Connection getConnection() throws ClassNotFoundException, SQLException {
+	Transaction transaction = getTransaction();
+	return transaction != null ? transaction.connection : openConnection();
+    }
+
+    /**
+     * Permet d'ouvrir une nouvelle connexion à la base de donnée, avec l'url de la
+     * base de donnée, le nom d'utilisateur et le mot de passe.
+     * 
+     * @return la connexion à la base de donnée.
+     * @throws ClassNotFoundException si le chemin de la classe est introuvable.
+     * @throws SQLException           si la liaison avec la base de donnée échoue.
+     */
+    protected Connection openConnection() throws ClassNotFoundException, SQLException {
 	logger.info("Create DB connection");
 	Class.forName("com.mysql.cj.jdbc.Driver");
 	return DriverManager.getConnection("jdbc:mysql://localhost:3306/prod?useTimezone=true&serverTimezone=UTC", "root", "rootroot");
     }
 
     /**
-     * Permet de fermer la connection à la base de donnée.
+     * Permet la connexion à la base de donnée pour une lecture non critique, qui
+     * peut tolérer un léger retard sur les dernières écritures. Par défaut la
+     * connexion est ouverte sur la base principale.
+     * 
+     * @return la connexion à la base de donnée.
+     * @throws ClassNotFoundException si le chemin de la classe est introuvable.
+     * @throws SQLException           si la liaison avec la base de donnée échoue.
+     */
+    public Connection getReadConnection() throws ClassNotFoundException, SQLException {
+	return getConnection();
+    }
+
+    /**
+     * Récupère l'identifiant du parking (site) dont les données sont stockées dans
+     * cette base de donnée.
+     * 
+     * @return l'identifiant du parking.
+     */
+    public int getFacilityId() {
+	return Facility.DEFAULT_ID;
+    }
+
+    /**
+     * Récupère le temps maximum d'exécution d'une requête, en secondes. 0
+     * indique l'absence de limite.
+     * 
+     * @return le temps maximum d'exécution d'une requête.
+     */
+    public int getQueryTimeout() {
+	return queryTimeout;
+    }
+
+    /**
+     * Permet de limiter le temps d'exécution des requêtes, afin qu'une base de
+     * donnée lente ne bloque pas la borne.
+     * 
+     * @param queryTimeout le temps maximum d'exécution d'une requête, en
+     *                     secondes, 0 pour aucune limite.
+     */
+    public void setQueryTimeout(int queryTimeout) {
+	this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Exécute un traitement dans une transaction. Si une transaction est déjà en
+     * cours sur ce thread, le traitement en fait partie. Sinon une connexion est
+     * ouverte, puis validée si le traitement réussit et annulée s'il échoue ; les
+     * actions différées par afterCommit sont exécutées après la validation.
+     * 
+     * @param <T>  le type du résultat.
+     * @param work le traitement.
+     * @return le résultat du traitement.
+     * @throws Exception l'erreur du traitement, ou de la validation.
+     */
+    @Override
+    public <T> T execute(Callable<T> work) throws Exception {
+	if (getTransaction() != null) {
+	    return work.call();
+	}
+	Connection con = openConnection();
+	Transaction transaction = new Transaction(this, con);
+	T result;
+	try {
+	    con.setAutoCommit(false);
+	    currentTransaction.set(transaction);
+	    result = work.call();
+	    con.commit();
+	} catch (Exception ex) {
+	    try {
+		con.rollback();
+	    } catch (SQLException e) {
+		ex.addSuppressed(e);
+	    }
+	    throw ex;
+	} finally {
+	    currentTransaction.remove();
+	    try {
+		con.setAutoCommit(true);
+	    } finally {
+		closeConnection(con);
+	    }
+	}
+	for (Runnable action : transaction.afterCommit) {
+	    action.run();
+	}
+	return result;
+    }
+
+    /**
+     * Indique si le thread courant est dans une transaction de cette
+     * configuration. Les DAO propagent alors leurs erreurs d'écriture afin que la
+     * transaction soit annulée.
+     * 
+     * @return true pendant une transaction, false sinon.
+     */
+    public final boolean isInTransaction() {
+	return getTransaction() != null;
+    }
+
+    /**
+     * Permet d'exécuter une action une fois les écritures validées, par exemple
+     * prévenir des destinataires. Hors transaction l'action est exécutée
+     * immédiatement ; elle est abandonnée si la transaction est annulée.
+     * 
+     * @param action l'action.
+     */
+    public final void afterCommit(Runnable action) {
+	Transaction transaction = getTransaction();
+	if (transaction == null) {
+	    action.run();
+	} else {
+	    transaction.afterCommit.add(action);
+	}
+    }
+
+    private Transaction getTransaction() {
+	Transaction transaction = currentTransaction.get();
+	return transaction != null && transaction.owner == this ? transaction : null;
+    }
+
+    /**
+     * Permet de fermer la connection à la base de donnée. La connexion d'une
+     * transaction en cours est fermée à la fin de la transaction.
      * 
      * @param con la connexion à fermer.
      * @throws SQLException si la liaison avec la base de donnée pour fermer la
      *                      connexion échoue.
      */
     public void closeConnection(Connection con) throws SQLException {
-	if (con != null) {
+	Transaction transaction = getTransaction();
+	if (con != null && (transaction == null || transaction.connection != con)) {
 	    try {
 		con.close();
 		logger.info("Closing DB connection");
@@ -79,4 +232,16 @@ public class DataBaseConfig {
 	    }
 	}
     }
+
+    // La connexion d'une transaction et les actions à exécuter après sa validation.
+    private static final class Transaction {
+	private final DataBaseConfig owner;
+	private final Connection connection;
+	private final List<Runnable> afterCommit = new ArrayList<>();
+
+	private Transaction(DataBaseConfig owner, Connection connection) {
+	    this.owner = owner;
+	    this.connection = connection;
+	}
+    }
 }
@@ -0,0 +1,212 @@
+package com.parkit.parkingsystem.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La classe PooledDataBaseConfig configure la connexion à la base de donnée
+ * d'un parking (site) avec un pool de connexions. Les connexions fournies sont
+ * rendues au pool lors de leur fermeture au lieu d'être réellement fermées.
+ * 
+ * @author Dylan
+ * 
+ */
+public class PooledDataBaseConfig extends DataBaseConfig {
+
+    private static final Logger logger = LogManager.getLogger("PooledDataBaseConfig");
+    private static final long BORROW_TIMEOUT_MILLIS = 5000;
+    /*
+     * Sans ces propriétés, Connector/J prépare les requêtes côté client et
+     * oublie chaque requête à sa fermeture, le StartupService les préparerait
+     * alors pour rien. Le cache doit contenir toutes les requêtes de
+     * DBConstants.
+     */
+    private static final String[] STATEMENT_CACHE_PROPERTIES = { "useServerPrepStmts=true", "cachePrepStmts=true",
+	    "prepStmtCacheSize=64" };
+
+    private final int facilityId;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxPoolSize;
+    private final BlockingDeque<Connection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    /**
+     * 
+     * @param facilityId  l'identifiant du parking stocké dans cette base.
+     * @param url         l'url JDBC de la base de donnée. Pour MySQL, le cache
+     *                    des requêtes préparées côté serveur y est activé,
+     *                    sauf si l'url le configure déjà.
+     * @param user        le nom d'utilisateur.
+     * @param password    le mot de passe.
+     * @param maxPoolSize le nombre maximum de connexions ouvertes.
+     */
+    public PooledDataBaseConfig(int facilityId, String url, String user, String password, int maxPoolSize) {
+	this.facilityId = facilityId;
+	this.url = withStatementCache(url);
+	this.user = user;
+	this.password = password;
+	this.maxPoolSize = maxPoolSize;
+	this.permits = new Semaphore(maxPoolSize, true);
+    }
+
+    @Override
+    public int getFacilityId() {
+	return facilityId;
+    }
+
+    /**
+     * Récupère l'url JDBC de la base de donnée.
+     * 
+     * @return l'url de la base de donnée.
+     */
+    public String getUrl() {
+	return url;
+    }
+
+    /**
+     * Récupère le nombre maximum de connexions ouvertes.
+     * 
+     * @return la taille maximum du pool.
+     */
+    public int getMaxPoolSize() {
+	return maxPoolSize;
+    }
+
+    /**
+     * Emprunte une connexion au pool. Une connexion inactive est réutilisée si
+     * possible, sinon une nouvelle connexion est ouverte tant que la taille
+     * maximum du pool n'est pas atteinte.
+     * 
+     * @return la connexion à la base de donnée.
+     * @throws ClassNotFoundException si le driver est introuvable.
+     * @throws SQLException           si aucune connexion n'est disponible ou si la
+     *                                connexion échoue.
+     */
+    @Override
+    protected Connection openConnection() throws ClassNotFoundException, SQLException {
+	try {
+	    if (!permits.tryAcquire(BORROW_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+		throw new SQLException("No connection available in pool for facility " + facilityId);
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SQLException("Interrupted while waiting for a connection", e);
+	}
+	try {
+	    Connection connection = idleConnections.pollFirst();
+	    while (connection != null && connection.isClosed()) {
+		connection = idleConnections.pollFirst();
+	    }
+	    if (connection == null) {
+		logger.info("Create DB connection for facility " + facilityId);
+		Class.forName("com.mysql.cj.jdbc.Driver");
+		connection = DriverManager.getConnection(url, user, password);
+	    }
+	    return wrap(connection);
+	} catch (ClassNotFoundException | SQLException | RuntimeException e) {
+	    permits.release();
+	    throw e;
+	}
+    }
+
+    /**
+     * Ferme toutes les connexions inactives du pool.
+     */
+    public void shutdown() {
+	Connection connection;
+	while ((connection = idleConnections.pollFirst()) != null) {
+	    try {
+		connection.close();
+	    } catch (SQLException e) {
+		logger.error("Error while closing pooled connection", e);
+	    }
+	}
+    }
+
+    private static String withStatementCache(String url) {
+	if (!url.startsWith("jdbc:mysql:")) {
+	    return url;
+	}
+	StringBuilder result = new StringBuilder(url);
+	for (String property : STATEMENT_CACHE_PROPERTIES) {
+	    if (!url.contains(property.substring(0, property.indexOf('=') + 1))) {
+		result.append(result.indexOf("?") < 0 ? '?' : '&').append(property);
+	    }
+	}
+	return result.toString();
+    }
+
+    private void release(Connection connection) {
+	try {
+	    if (!connection.getAutoCommit()) {
+		connection.rollback();
+		connection.setAutoCommit(true);
+	    }
+	    idleConnections.offerFirst(connection);
+	} catch (SQLException e) {
+	    logger.error("Error while returning connection to pool", e);
+	    try {
+		connection.close();
+	    } catch (SQLException ce) {
+		logger.error("Error while closing connection", ce);
+	    }
+	} finally {
+	    permits.release();
+	}
+    }
+
+    private Connection wrap(Connection connection) {
+	return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+		new Class<?>[] { Connection.class }, new PooledConnectionHandler(connection));
+    }
+
+    /*
+     * Intercepte la fermeture de la connexion afin de la rendre au pool. Une même
+     * connexion empruntée n'est rendue qu'une seule fois.
+     */
+    private final class PooledConnectionHandler implements InvocationHandler {
+	private final Connection connection;
+	private boolean released;
+
+	private PooledConnectionHandler(Connection connection) {
+	    this.connection = connection;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+	    String name = method.getName();
+	    if ("close".equals(name)) {
+		if (!released) {
+		    released = true;
+		    release(connection);
+		}
+		return null;
+	    }
+	    if ("isClosed".equals(name)) {
+		return released || connection.isClosed();
+	    }
+	    if (released) {
+		throw new SQLException("Connection already returned to pool");
+	    }
+	    try {
+		return method.invoke(connection, args);
+	    } catch (InvocationTargetException e) {
+		throw e.getCause();
+	    }
+	}
+    }
+}
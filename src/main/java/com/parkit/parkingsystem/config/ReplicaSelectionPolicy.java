@@ -0,0 +1,19 @@
+package com.parkit.parkingsystem.config;
+
+/**
+ * L'interface ReplicaSelectionPolicy choisit le réplica interrogé pour une
+ * lecture, afin de répartir la charge entre les réplicas.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface ReplicaSelectionPolicy {
+
+    /**
+     * Permet de choisir un réplica.
+     * 
+     * @param replicaCount le nombre de réplicas.
+     * @return l'indice du réplica choisi, entre 0 et replicaCount - 1.
+     */
+    int select(int replicaCount);
+}
@@ -0,0 +1,178 @@
+package com.parkit.parkingsystem.config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * La classe ReplicatedDataBaseConfig configure une base principale et ses
+ * réplicas en lecture. Les écritures et les lectures critiques sont envoyées à
+ * la base principale, les lectures non critiques sont réparties entre les
+ * réplicas selon la ReplicaSelectionPolicy. Un réplica dont le retard de
+ * réplication dépasse le seuil autorisé est ignoré, la lecture est alors faite
+ * sur la base principale.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ReplicatedDataBaseConfig extends DataBaseConfig {
+
+    private static final Logger logger = LogManager.getLogger("ReplicatedDataBaseConfig");
+    private static final String REPLICA_STATUS = "SHOW SLAVE STATUS";
+    private static final String REPLICA_LAG_COLUMN = "Seconds_Behind_Master";
+
+    private final DataBaseConfig primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaSelectionPolicy replicaSelectionPolicy;
+    private final long maxReplicaLagSeconds;
+    private final long lagCheckIntervalMillis;
+
+    /**
+     * 
+     * @param primary                la configuration de la base principale.
+     * @param replicas               les configurations des réplicas.
+     * @param replicaSelectionPolicy la répartition des lectures entre réplicas.
+     * @param maxReplicaLagSeconds   le retard de réplication maximum toléré.
+     * @param lagCheckIntervalMillis l'intervalle entre deux mesures du retard
+     *                               d'un réplica.
+     */
+    public ReplicatedDataBaseConfig(DataBaseConfig primary, List<DataBaseConfig> replicas,
+	    ReplicaSelectionPolicy replicaSelectionPolicy, long maxReplicaLagSeconds, long lagCheckIntervalMillis) {
+	this.primary = primary;
+	for (DataBaseConfig replica : replicas) {
+	    this.replicas.add(new Replica(replica));
+	}
+	this.replicaSelectionPolicy = replicaSelectionPolicy;
+	this.maxReplicaLagSeconds = maxReplicaLagSeconds;
+	this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+    }
+
+    @Override
+    public int getFacilityId() {
+	return primary.getFacilityId();
+    }
+
+    /**
+     * Récupère la configuration de la base principale.
+     * 
+     * @return la configuration de la base principale.
+     */
+    public DataBaseConfig getPrimary() {
+	return primary;
+    }
+
+    /**
+     * Récupère les configurations des réplicas.
+     * 
+     * @return les configurations des réplicas.
+     */
+    public List<DataBaseConfig> getReplicas() {
+	List<DataBaseConfig> result = new ArrayList<>();
+	for (Replica replica : replicas) {
+	    result.add(replica.dataBaseConfig);
+	}
+	return result;
+    }
+
+    @Override
+    protected Connection openConnection() throws ClassNotFoundException, SQLException {
+	return primary.getConnection();
+    }
+
+    /**
+     * Permet la connexion à un réplica pour une lecture non critique. Chaque
+     * réplica est essayé au plus une fois, s'il est en retard ou injoignable la
+     * connexion est ouverte sur la base principale. Pendant une transaction, la
+     * lecture est faite sur la connexion de la transaction.
+     * 
+     * @return la connexion à un réplica à jour, ou à la base principale.
+     * @throws ClassNotFoundException si le chemin de la classe est introuvable.
+     * @throws SQLException           si la liaison avec la base principale échoue.
+     */
+    @Override
+    public Connection getReadConnection() throws ClassNotFoundException, SQLException {
+	if (isInTransaction()) {
+	    return getConnection();
+	}
+	for (int attempt = 0; attempt < replicas.size(); attempt++) {
+	    Replica replica = replicas.get(replicaSelectionPolicy.select(replicas.size()));
+	    long now = System.currentTimeMillis();
+	    if (replica.isStale(now)) {
+		continue;
+	    }
+	    Connection con = null;
+	    try {
+		con = replica.dataBaseConfig.getConnection();
+		if (replica.isLagCheckDue(now)) {
+		    replica.checkLag(con, now);
+		}
+		if (replica.lagSeconds <= maxReplicaLagSeconds) {
+		    return con;
+		}
+		closeConnection(con);
+	    } catch (SQLException e) {
+		logger.error("Replica unavailable, falling back", e);
+		replica.markUnavailable(now);
+		closeConnection(con);
+	    }
+	}
+	return primary.getConnection();
+    }
+
+    /*
+     * Etat d'un réplica : son dernier retard de réplication mesuré. Une seule
+     * mesure est faite à la fois, les autres lectures utilisent la dernière valeur
+     * connue.
+     */
+    private final class Replica {
+	private final DataBaseConfig dataBaseConfig;
+	private final AtomicBoolean checking = new AtomicBoolean();
+	private volatile long lagSeconds = Long.MAX_VALUE;
+	private volatile long lastCheckMillis;
+
+	private Replica(DataBaseConfig dataBaseConfig) {
+	    this.dataBaseConfig = dataBaseConfig;
+	}
+
+	private boolean isLagCheckDue(long now) {
+	    return now - lastCheckMillis >= lagCheckIntervalMillis;
+	}
+
+	private boolean isStale(long now) {
+	    return lagSeconds > maxReplicaLagSeconds && !isLagCheckDue(now);
+	}
+
+	private void markUnavailable(long now) {
+	    lagSeconds = Long.MAX_VALUE;
+	    lastCheckMillis = now;
+	}
+
+	private void checkLag(Connection con, long now) throws SQLException {
+	    if (!checking.compareAndSet(false, true)) {
+		return;
+	    }
+	    try (Statement statement = con.createStatement();
+		    ResultSet rs = statement.executeQuery(REPLICA_STATUS)) {
+		long lag = 0;
+		if (rs.next()) {
+		    lag = rs.getLong(REPLICA_LAG_COLUMN);
+		    if (rs.wasNull()) {
+			// La réplication est arrêtée.
+			lag = Long.MAX_VALUE;
+		    }
+		}
+		lagSeconds = lag;
+		lastCheckMillis = now;
+	    } finally {
+		checking.set(false);
+	    }
+	}
+    }
+}
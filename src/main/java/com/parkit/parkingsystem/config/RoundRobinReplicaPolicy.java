@@ -0,0 +1,19 @@
+package com.parkit.parkingsystem.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * La classe RoundRobinReplicaPolicy interroge les réplicas chacun leur tour.
+ * 
+ * @author Dylan
+ * 
+ */
+public class RoundRobinReplicaPolicy implements ReplicaSelectionPolicy {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public int select(int replicaCount) {
+	return (counter.getAndIncrement() & Integer.MAX_VALUE) % replicaCount;
+    }
+}
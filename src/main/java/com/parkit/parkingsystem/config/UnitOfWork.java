@@ -0,0 +1,36 @@
+package com.parkit.parkingsystem.config;
+
+import java.util.concurrent.Callable;
+
+/**
+ * L'interface UnitOfWork exécute ensemble les lectures et écritures d'un
+ * traitement, par exemple l'entrée d'un véhicule, afin qu'elles soient toutes
+ * validées ou toutes annulées.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface UnitOfWork {
+
+    /**
+     * Exécute chaque traitement directement, chaque écriture étant validée
+     * séparément.
+     */
+    UnitOfWork NONE = new UnitOfWork() {
+	@Override
+	public <T> T execute(Callable<T> work) throws Exception {
+	    return work.call();
+	}
+    };
+
+    /**
+     * Exécute un traitement.
+     * 
+     * @param <T>  le type du résultat.
+     * @param work le traitement.
+     * @return le résultat du traitement.
+     * @throws Exception si le traitement échoue, ses écritures sont alors
+     *                   annulées.
+     */
+    <T> T execute(Callable<T> work) throws Exception;
+}
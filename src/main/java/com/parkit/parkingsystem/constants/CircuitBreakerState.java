@@ -0,0 +1,7 @@
+package com.parkit.parkingsystem.constants;
+
+public enum CircuitBreakerState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+}
@@ -3,11 +3,39 @@ package com.parkit.parkingsystem.constants;
 public class DBConstants {
 
     public static final String GET_NEXT_PARKING_SPOT = "select min(PARKING_NUMBER) from parking where AVAILABLE = true and TYPE = ?";
-    public static final String UPDATE_PARKING_SPOT = "update parking set available = ? where PARKING_NUMBER = ?";
+    public static final String UPDATE_PARKING_SPOT = "update parking set available = ? where PARKING_NUMBER = ? and AVAILABLE <> ?";
+    public static final String GET_AVAILABLE_PARKING_SPOTS = "select PARKING_NUMBER, TYPE from parking where AVAILABLE = true";
+    public static final String GET_NEXT_PARKING_SPOT_AFTER = "select min(PARKING_NUMBER) from parking where AVAILABLE = true and TYPE = ? and PARKING_NUMBER > ?";
+    public static final String GET_PARKING_SPOTS = "select PARKING_NUMBER, TYPE from parking";
+    public static final String GET_PARKING_SPOT_TYPE = "select TYPE from parking where PARKING_NUMBER = ?";
+    public static final String GET_PARKING_OCCUPANCY = "select TYPE, AVAILABLE, count(*) from parking group by TYPE, AVAILABLE";
+    public static final String GET_PARKING_TYPES = "select NAME, RATE_PER_HOUR, FALLBACK_TYPES from parking_type order by MENU_ORDER";
 
     public static final String SAVE_TICKET = "insert into ticket(PARKING_NUMBER, VEHICLE_REG_NUMBER, PRICE, IN_TIME, OUT_TIME) values(?,?,?,?,?)";
     public static final String UPDATE_TICKET = "UPDATE ticket SET PRICE = ?, OUT_TIME = ? where ID = ?";
-    public static final String GET_TICKET = "select t.ID, t.PARKING_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME, p.TYPE from ticket t,parking p where p.parking_number = t.parking_number and t.VEHICLE_REG_NUMBER= ? order by t.IN_TIME";
+    public static final String GET_TICKET = "select ID, PARKING_NUMBER, PRICE, IN_TIME, OUT_TIME, (select count(*) from ticket where VEHICLE_REG_NUMBER = ? and OUT_TIME IS NOT NULL) from ticket where VEHICLE_REG_NUMBER = ? order by IN_TIME";
     public static final String GET_VEHICLE_REG_NUMBER = "select count(*) from ticket where VEHICLE_REG_NUMBER = ? and OUT_TIME IS NOT NULL"; 
-}
+    public static final String COUNT_OPEN_TICKETS = "select count(*) from ticket where OUT_TIME IS NULL";
+    public static final String COUNT_OPEN_TICKETS_FOR_SPOT = "select count(*) from ticket where PARKING_NUMBER = ? and OUT_TIME IS NULL";
+
+    public static final String DELETE_EXPIRED_SPOT_LEASES = "delete from spot_lease where LEASE_EXPIRY < ?";
+    public static final String RENEW_SPOT_LEASES = "update spot_lease set LEASE_EXPIRY = ? where GATE_ID = ?";
+    public static final String GET_UNLEASED_PARKING_SPOTS = "select p.PARKING_NUMBER from parking p left join spot_lease l on l.PARKING_NUMBER = p.PARKING_NUMBER where p.AVAILABLE = true and p.TYPE = ? and l.PARKING_NUMBER is null order by p.PARKING_NUMBER";
+    public static final String SAVE_SPOT_LEASE = "insert into spot_lease(PARKING_NUMBER, GATE_ID, LEASE_EXPIRY) values(?,?,?)";
+    public static final String GET_LEASED_PARKING_SPOTS = "select l.PARKING_NUMBER, l.GATE_ID from spot_lease l, parking p where p.PARKING_NUMBER = l.PARKING_NUMBER and p.AVAILABLE = true and p.TYPE = ? order by l.PARKING_NUMBER";
+    public static final String TRANSFER_SPOT_LEASE = "update spot_lease set GATE_ID = ?, LEASE_EXPIRY = ? where PARKING_NUMBER = ? and GATE_ID = ?";
+    public static final String CLAIM_LEASED_PARKING_SPOT = "update parking set AVAILABLE = false where PARKING_NUMBER = ? and AVAILABLE = true and exists (select 1 from spot_lease where spot_lease.PARKING_NUMBER = parking.PARKING_NUMBER and spot_lease.GATE_ID = ?)";
+
+    public static final String SAVE_RESERVATION = "insert into reservation(VEHICLE_REG_NUMBER, TYPE, START_TIME, END_TIME, CLAIMED) values(?,?,?,?,false)";
+    public static final String GET_ACTIVE_RESERVATIONS = "select ID, VEHICLE_REG_NUMBER, TYPE, START_TIME, END_TIME from reservation where CLAIMED = false and END_TIME > ?";
+    public static final String CLAIM_RESERVATION = "update reservation set CLAIMED = true where ID = ?";
 
+    public static final String CREATE_SCHEMA_VERSION = "create table if not exists schema_version(VERSION int PRIMARY KEY, DESCRIPTION varchar(100) NOT NULL, CHECKSUM bigint NOT NULL, INSTALLED_ON DATETIME NOT NULL)";
+    public static final String GET_SCHEMA_VERSIONS = "select VERSION, CHECKSUM from schema_version order by VERSION";
+    public static final String SAVE_SCHEMA_VERSION = "insert into schema_version(VERSION, DESCRIPTION, CHECKSUM, INSTALLED_ON) values(?,?,?,?)";
+
+    public static final String GET_PARKING_NUMBERS = "select PARKING_NUMBER from parking";
+    public static final String GET_TICKET_IMPORT_RANGES = "select FIRST_LINE, LAST_LINE from ticket_import where SOURCE = ?";
+    public static final String SAVE_TICKET_IMPORT_RANGE = "insert into ticket_import(SOURCE, FIRST_LINE, LAST_LINE, ROW_COUNT, IMPORTED_ON) values(?,?,?,?,?)";
+    public static final String EXPORT_TICKETS = "select t.ID, t.PARKING_NUMBER, p.TYPE, t.VEHICLE_REG_NUMBER, t.PRICE, t.IN_TIME, t.OUT_TIME from ticket t, parking p where p.PARKING_NUMBER = t.PARKING_NUMBER and t.OUT_TIME > ? and t.OUT_TIME <= ? order by t.OUT_TIME, t.ID";
+}
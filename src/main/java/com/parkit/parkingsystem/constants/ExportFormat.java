@@ -0,0 +1,14 @@
+package com.parkit.parkingsystem.constants;
+
+/**
+ * Les formats des fichiers d'export de l'historique des tickets, tous deux
+ * compressés en gzip : CSV, ou colonnes binaires lues par
+ * ColumnarTicketReader.
+ * 
+ * @author Dylan
+ * 
+ */
+public enum ExportFormat {
+    CSV,
+    COLUMNAR
+}
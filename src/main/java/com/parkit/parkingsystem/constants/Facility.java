@@ -0,0 +1,5 @@
+package com.parkit.parkingsystem.constants;
+
+public class Facility {
+    public static final int DEFAULT_ID = 1;
+}
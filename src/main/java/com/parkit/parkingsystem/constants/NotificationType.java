@@ -0,0 +1,17 @@
+package com.parkit.parkingsystem.constants;
+
+/**
+ * Les différents types de messages émis à destination de l'utilisateur lors de
+ * l'entrée et de la sortie d'un véhicule.
+ *
+ * @author Dylan
+ *
+ */
+public enum NotificationType {
+    ENTRY_RECORDED,
+    RECURRING_USER,
+    FREE_PARKING,
+    DISCOUNT_APPLIED,
+    EXIT_RECORDED,
+    TICKET_UPDATE_FAILED
+}
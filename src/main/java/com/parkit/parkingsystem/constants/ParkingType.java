@@ -1,6 +1,176 @@
 package com.parkit.parkingsystem.constants;
 
-public enum ParkingType {
-    CAR,
-    BIKE
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe ParkingType est un type de place de parking. CAR et BIKE existent
+ * toujours, les autres types (EV, VAN, DISABLED...) sont des données lues dans
+ * la table parking_type par le ParkingTypeDAO au démarrage. Chaque type a son
+ * tarif horaire, et peut se replier sur d'autres types lorsque ses places sont
+ * toutes occupées.
+ * 
+ * Les types sont numérotés dans l'ordre de leur définition : ordinal() permet
+ * de ranger les données d'un type dans un tableau, comme pour une énumération.
+ * 
+ * @author Dylan
+ * 
+ */
+public final class ParkingType implements Comparable<ParkingType> {
+
+    // La colonne TYPE des tables parking et reservation.
+    private static final int MAX_NAME_LENGTH = 10;
+
+    private static final Object lock = new Object();
+    private static volatile ParkingType[] types = new ParkingType[0];
+    private static volatile Map<String, ParkingType> typesByName = Collections.emptyMap();
+
+    public static final ParkingType CAR = define("CAR", Fare.CAR_RATE_PER_HOUR);
+    public static final ParkingType BIKE = define("BIKE", Fare.BIKE_RATE_PER_HOUR);
+
+    private final String name;
+    private final int ordinal;
+    private volatile double ratePerHour;
+    private volatile List<ParkingType> fallbacks = Collections.emptyList();
+
+    private ParkingType(String name, int ordinal, double ratePerHour) {
+	this.name = name;
+	this.ordinal = ordinal;
+	this.ratePerHour = ratePerHour;
+    }
+
+    /**
+     * Permet de définir un type de place, ou de changer le tarif d'un type déjà
+     * défini.
+     * 
+     * @param name        le nom du type, en majuscules.
+     * @param ratePerHour le tarif horaire.
+     * @return le type de place.
+     * @throws IllegalArgumentException si le nom ou le tarif est incorrect.
+     */
+    public static ParkingType define(String name, double ratePerHour) {
+	if (name == null || name.isEmpty() || name.length() > MAX_NAME_LENGTH || !name.equals(name.toUpperCase())) {
+	    throw new IllegalArgumentException("Invalid parking type name: " + name);
+	}
+	if (!(ratePerHour >= 0)) {
+	    throw new IllegalArgumentException("Invalid rate for parking type " + name + ": " + ratePerHour);
+	}
+	synchronized (lock) {
+	    ParkingType parkingType = typesByName.get(name);
+	    if (parkingType != null) {
+		parkingType.ratePerHour = ratePerHour;
+		return parkingType;
+	    }
+	    parkingType = new ParkingType(name, types.length, ratePerHour);
+	    ParkingType[] newTypes = Arrays.copyOf(types, types.length + 1);
+	    newTypes[parkingType.ordinal] = parkingType;
+	    Map<String, ParkingType> newTypesByName = new HashMap<>(typesByName);
+	    newTypesByName.put(name, parkingType);
+	    types = newTypes;
+	    typesByName = newTypesByName;
+	    return parkingType;
+	}
+    }
+
+    /**
+     * Récupère tous les types de place, dans l'ordre de leur définition.
+     * 
+     * @return une copie de la liste des types.
+     */
+    public static ParkingType[] values() {
+	return types.clone();
+    }
+
+    /**
+     * Récupère un type de place par son nom.
+     * 
+     * @param name le nom du type.
+     * @return le type de place.
+     * @throws IllegalArgumentException si aucun type ne porte ce nom.
+     * @throws NullPointerException     si le nom est null.
+     */
+    public static ParkingType valueOf(String name) {
+	if (name == null) {
+	    throw new NullPointerException("Name is null");
+	}
+	ParkingType parkingType = typesByName.get(name);
+	if (parkingType == null) {
+	    throw new IllegalArgumentException("Unknown parking type: " + name);
+	}
+	return parkingType;
+    }
+
+    /**
+     * Récupère le nom du type, tel qu'enregistré en base de donnée.
+     * 
+     * @return le nom du type.
+     */
+    public String name() {
+	return name;
+    }
+
+    /**
+     * Récupère le numéro du type, de 0 au nombre de types moins un.
+     * 
+     * @return le numéro du type.
+     */
+    public int ordinal() {
+	return ordinal;
+    }
+
+    /**
+     * Récupère le tarif horaire du type.
+     * 
+     * @return le tarif horaire.
+     */
+    public double getRatePerHour() {
+	return ratePerHour;
+    }
+
+    /**
+     * Récupère le tarif à la minute du type.
+     * 
+     * @return le tarif à la minute.
+     */
+    public double getRatePerMinute() {
+	return ratePerHour / 60;
+    }
+
+    /**
+     * Récupère les types sur lesquels se replier lorsque toutes les places de ce
+     * type sont occupées, dans l'ordre de préférence.
+     * 
+     * @return les types de repli, vide par défaut.
+     */
+    public List<ParkingType> getFallbacks() {
+	return fallbacks;
+    }
+
+    /**
+     * Permet d'indiquer les types sur lesquels se replier lorsque toutes les
+     * places de ce type sont occupées, par exemple CAR pour BIKE.
+     * 
+     * @param fallbacks les types de repli, dans l'ordre de préférence.
+     * @throws IllegalArgumentException si le type se trouve parmi ses replis.
+     */
+    public void setFallbacks(List<ParkingType> fallbacks) {
+	if (fallbacks.contains(this)) {
+	    throw new IllegalArgumentException("Parking type " + name + " cannot fall back on itself");
+	}
+	this.fallbacks = Collections.unmodifiableList(new ArrayList<>(fallbacks));
+    }
+
+    @Override
+    public int compareTo(ParkingType other) {
+	return Integer.compare(ordinal, other.ordinal);
+    }
+
+    @Override
+    public String toString() {
+	return name;
+    }
 }
@@ -0,0 +1,7 @@
+package com.parkit.parkingsystem.constants;
+
+public enum PendingOperationType {
+    UPDATE_PARKING,
+    SAVE_TICKET,
+    UPDATE_TICKET
+}
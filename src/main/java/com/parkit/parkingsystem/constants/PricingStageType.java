@@ -0,0 +1,9 @@
+package com.parkit.parkingsystem.constants;
+
+public enum PricingStageType {
+    FREE_PERIOD,
+    BASE_TARIFF,
+    LOYALTY_DISCOUNT,
+    DAILY_CAP,
+    PROMO_CODE
+}
@@ -0,0 +1,22 @@
+package com.parkit.parkingsystem.constants;
+
+/**
+ * Les étapes d'une entrée ou d'une sortie de véhicule mesurées par le
+ * RequestTracer.
+ * 
+ * @author Dylan
+ * 
+ */
+public enum TraceStage {
+    INPUT,
+    SPOT_LOOKUP,
+    RESERVATION_CHECK,
+    UPDATE_PARKING,
+    SAVE_TICKET,
+    LOYALTY_QUERY,
+    GET_TICKET,
+    FARE_CALCULATION,
+    UPDATE_TICKET,
+    COMMIT,
+    NOTIFICATION
+}
@@ -0,0 +1,290 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.PooledDataBaseConfig;
+import com.parkit.parkingsystem.config.ReplicatedDataBaseConfig;
+import com.parkit.parkingsystem.config.RoundRobinReplicaPolicy;
+import com.parkit.parkingsystem.config.UnitOfWork;
+import com.parkit.parkingsystem.constants.Facility;
+import com.parkit.parkingsystem.util.CircuitBreaker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * La classe FacilityRouter associe chaque parking (site) à sa propre base de
+ * donnée et fournit les DAO correspondants. Chaque base dispose de son propre
+ * pool de connexions.
+ * 
+ * La configuration est lue dans le fichier facilities.properties :
+ * 
+ * <pre>
+ * facility.ids=1,2
+ * facility.1.url=jdbc:mysql://localhost:3306/prod?useTimezone=true&amp;serverTimezone=UTC
+ * facility.1.user=root
+ * facility.1.password=rootroot
+ * facility.1.poolSize=10
+ * facility.1.queryTimeoutSeconds=2
+ * facility.1.replica.1.url=jdbc:mysql://localhost:3316/prod?useTimezone=true&amp;serverTimezone=UTC
+ * facility.1.maxReplicaLagSeconds=5
+ * facility.1.offline.journal=/var/lib/parkit/facility-1.journal
+ * </pre>
+ * 
+ * Les réplicas en lecture d'un parking sont optionnels, leur nom d'utilisateur,
+ * mot de passe et taille de pool sont par défaut ceux de la base principale.
+ * Lorsqu'un journal est indiqué, la borne continue de fonctionner quand la
+ * base est indisponible, les écritures étant mises en attente dans le journal.
+ * 
+ * @author Dylan
+ * 
+ */
+public class FacilityRouter {
+
+    private static final Logger logger = LogManager.getLogger("FacilityRouter");
+    private static final String CONFIGURATION_FILE = "facilities.properties";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final long DEFAULT_MAX_REPLICA_LAG_SECONDS = 5;
+    private static final long LAG_CHECK_INTERVAL_MILLIS = 1000;
+    private static final int DEFAULT_QUERY_TIMEOUT_SECONDS = 2;
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 3;
+    private static final long CIRCUIT_OPEN_DURATION_MILLIS = 5000;
+    private static final long DRAIN_INTERVAL_MILLIS = 1000;
+
+    private final Map<Integer, DataBaseConfig> dataBaseConfigs = new TreeMap<>();
+    private final Map<Integer, ParkingSpotDAO> parkingSpotDAOs = new TreeMap<>();
+    private final Map<Integer, TicketDAO> ticketDAOs = new TreeMap<>();
+    private final Map<Integer, ParkingSpotCatalog> parkingSpotCatalogs = new TreeMap<>();
+    private final Map<Integer, OfflineBuffer> offlineBuffers = new TreeMap<>();
+
+    /**
+     * Permet de charger la configuration des parkings depuis le fichier
+     * facilities.properties. Si le fichier est absent, un seul parking utilisant
+     * la configuration par défaut est déclaré.
+     * 
+     * @return le routeur des parkings.
+     * @throws IOException si la lecture du fichier échoue.
+     */
+    public static FacilityRouter load() throws IOException {
+	try (InputStream in = FacilityRouter.class.getClassLoader().getResourceAsStream(CONFIGURATION_FILE)) {
+	    if (in == null) {
+		logger.info("No " + CONFIGURATION_FILE + " found, using default facility");
+		FacilityRouter router = new FacilityRouter();
+		router.register(Facility.DEFAULT_ID, new DataBaseConfig());
+		return router;
+	    }
+	    Properties properties = new Properties();
+	    properties.load(in);
+	    return fromProperties(properties);
+	}
+    }
+
+    /**
+     * Permet de créer le routeur à partir des propriétés de configuration.
+     * 
+     * @param properties les propriétés décrivant chaque parking.
+     * @return le routeur des parkings.
+     * @throws IllegalArgumentException si la configuration d'un parking est
+     *                                  incomplète.
+     */
+    public static FacilityRouter fromProperties(Properties properties) {
+	FacilityRouter router = new FacilityRouter();
+	String ids = properties.getProperty("facility.ids", String.valueOf(Facility.DEFAULT_ID));
+	for (String id : ids.split(",")) {
+	    int facilityId = Integer.parseInt(id.trim());
+	    String prefix = "facility." + facilityId + ".";
+	    String url = properties.getProperty(prefix + "url");
+	    if (url == null) {
+		throw new IllegalArgumentException("Missing " + prefix + "url in facility configuration");
+	    }
+	    String user = properties.getProperty(prefix + "user");
+	    String password = properties.getProperty(prefix + "password");
+	    int poolSize = Integer
+		    .parseInt(properties.getProperty(prefix + "poolSize", String.valueOf(DEFAULT_POOL_SIZE)));
+	    DataBaseConfig primary = new PooledDataBaseConfig(facilityId, url, user, password, poolSize);
+	    List<DataBaseConfig> replicas = new ArrayList<>();
+	    for (int n = 1; properties.getProperty(prefix + "replica." + n + ".url") != null; n++) {
+		String replicaPrefix = prefix + "replica." + n + ".";
+		replicas.add(new PooledDataBaseConfig(facilityId, properties.getProperty(replicaPrefix + "url"),
+			properties.getProperty(replicaPrefix + "user", user),
+			properties.getProperty(replicaPrefix + "password", password), Integer.parseInt(
+				properties.getProperty(replicaPrefix + "poolSize", String.valueOf(poolSize)))));
+	    }
+	    DataBaseConfig dataBaseConfig = primary;
+	    if (!replicas.isEmpty()) {
+		long maxReplicaLagSeconds = Long.parseLong(properties.getProperty(prefix + "maxReplicaLagSeconds",
+			String.valueOf(DEFAULT_MAX_REPLICA_LAG_SECONDS)));
+		dataBaseConfig = new ReplicatedDataBaseConfig(primary, replicas, new RoundRobinReplicaPolicy(),
+			maxReplicaLagSeconds, LAG_CHECK_INTERVAL_MILLIS);
+	    }
+	    dataBaseConfig.setQueryTimeout(Integer.parseInt(properties.getProperty(prefix + "queryTimeoutSeconds",
+		    String.valueOf(DEFAULT_QUERY_TIMEOUT_SECONDS))));
+	    router.register(facilityId, dataBaseConfig);
+	    String journal = properties.getProperty(prefix + "offline.journal");
+	    if (journal != null) {
+		try {
+		    router.enableOfflineMode(facilityId, new PendingOperationJournal(Paths.get(journal)));
+		} catch (IOException e) {
+		    throw new UncheckedIOException("Unable to load " + journal, e);
+		}
+	    }
+	}
+	return router;
+    }
+
+    /**
+     * Permet de déclarer un parking et sa base de donnée.
+     * 
+     * @param facilityId     l'identifiant du parking.
+     * @param dataBaseConfig la configuration de la base de donnée du parking.
+     */
+    public void register(int facilityId, DataBaseConfig dataBaseConfig) {
+	ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+	parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+	ParkingSpotCatalog parkingSpotCatalog = new ParkingSpotCatalog(dataBaseConfig);
+	TicketDAO ticketDAO = new TicketDAO();
+	ticketDAO.dataBaseConfig = dataBaseConfig;
+	ticketDAO.parkingSpotCatalog = parkingSpotCatalog;
+	dataBaseConfigs.put(facilityId, dataBaseConfig);
+	parkingSpotCatalogs.put(facilityId, parkingSpotCatalog);
+	parkingSpotDAOs.put(facilityId, parkingSpotDAO);
+	ticketDAOs.put(facilityId, ticketDAO);
+    }
+
+    /**
+     * Permet à la borne d'un parking de continuer à fonctionner quand sa base de
+     * donnée est lente ou indisponible. Les DAO du parking sont remplacés par des
+     * DAO passant par un OfflineBuffer, les écritures en attente sont rejouées en
+     * arrière-plan.
+     * 
+     * @param facilityId l'identifiant du parking.
+     * @param journal    le journal des écritures en attente du parking.
+     * @throws IOException              si la lecture du journal échoue.
+     * @throws IllegalArgumentException si le parking est inconnu.
+     */
+    public void enableOfflineMode(int facilityId, PendingOperationJournal journal) throws IOException {
+	DataBaseConfig dataBaseConfig = route(dataBaseConfigs, facilityId);
+	OfflineBuffer offlineBuffer = new OfflineBuffer(route(parkingSpotDAOs, facilityId),
+		route(ticketDAOs, facilityId), journal,
+		new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_DURATION_MILLIS));
+	offlineBuffer.start(DRAIN_INTERVAL_MILLIS);
+	ParkingSpotDAO parkingSpotDAO = new ResilientParkingSpotDAO(offlineBuffer);
+	parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+	TicketDAO ticketDAO = new ResilientTicketDAO(offlineBuffer);
+	ticketDAO.dataBaseConfig = dataBaseConfig;
+	parkingSpotDAOs.put(facilityId, parkingSpotDAO);
+	ticketDAOs.put(facilityId, ticketDAO);
+	offlineBuffers.put(facilityId, offlineBuffer);
+    }
+
+    /**
+     * Récupère les identifiants des parkings déclarés.
+     * 
+     * @return les identifiants des parkings.
+     */
+    public Set<Integer> getFacilityIds() {
+	return Collections.unmodifiableSet(dataBaseConfigs.keySet());
+    }
+
+    /**
+     * Récupère la configuration de la base de donnée d'un parking.
+     * 
+     * @param facilityId l'identifiant du parking.
+     * @return la configuration de la base de donnée.
+     * @throws IllegalArgumentException si le parking est inconnu.
+     */
+    public DataBaseConfig getDataBaseConfig(int facilityId) {
+	return route(dataBaseConfigs, facilityId);
+    }
+
+    /**
+     * Récupère le ParkingSpotDAO connecté à la base de donnée d'un parking.
+     * 
+     * @param facilityId l'identifiant du parking.
+     * @return le ParkingSpotDAO du parking.
+     * @throws IllegalArgumentException si le parking est inconnu.
+     */
+    public ParkingSpotDAO getParkingSpotDAO(int facilityId) {
+	return route(parkingSpotDAOs, facilityId);
+    }
+
+    /**
+     * Récupère le catalogue des places d'un parking, partagé par son TicketDAO.
+     * 
+     * @param facilityId l'identifiant du parking.
+     * @return le catalogue des places du parking.
+     * @throws IllegalArgumentException si le parking est inconnu.
+     */
+    public ParkingSpotCatalog getParkingSpotCatalog(int facilityId) {
+	return route(parkingSpotCatalogs, facilityId);
+    }
+
+    /**
+     * Récupère l'unité de travail des DAO d'un parking : sa base de donnée, ou
+     * aucune transaction si le mode hors ligne est actif, les écritures de
+     * l'OfflineBuffer étant mises en attente une à une.
+     * 
+     * @param facilityId l'identifiant du parking.
+     * @return l'unité de travail du parking.
+     * @throws IllegalArgumentException si le parking est inconnu.
+     */
+    public UnitOfWork getUnitOfWork(int facilityId) {
+	DataBaseConfig dataBaseConfig = route(dataBaseConfigs, facilityId);
+	return offlineBuffers.containsKey(facilityId) ? UnitOfWork.NONE : dataBaseConfig;
+    }
+
+    /**
+     * Récupère le TicketDAO connecté à la base de donnée d'un parking.
+     * 
+     * @param facilityId l'identifiant du parking.
+     * @return le TicketDAO du parking.
+     * @throws IllegalArgumentException si le parking est inconnu.
+     */
+    public TicketDAO getTicketDAO(int facilityId) {
+	return route(ticketDAOs, facilityId);
+    }
+
+    /**
+     * Arrête le rejeu des écritures en attente et ferme les connexions inactives
+     * des pools de chaque parking. Les écritures non rejouées restent dans leur
+     * journal.
+     */
+    public void shutdown() {
+	for (OfflineBuffer offlineBuffer : offlineBuffers.values()) {
+	    offlineBuffer.close();
+	}
+	for (DataBaseConfig dataBaseConfig : dataBaseConfigs.values()) {
+	    shutdown(dataBaseConfig);
+	}
+    }
+
+    private static void shutdown(DataBaseConfig dataBaseConfig) {
+	if (dataBaseConfig instanceof PooledDataBaseConfig) {
+	    ((PooledDataBaseConfig) dataBaseConfig).shutdown();
+	} else if (dataBaseConfig instanceof ReplicatedDataBaseConfig) {
+	    ReplicatedDataBaseConfig replicated = (ReplicatedDataBaseConfig) dataBaseConfig;
+	    shutdown(replicated.getPrimary());
+	    for (DataBaseConfig replica : replicated.getReplicas()) {
+		shutdown(replica);
+	    }
+	}
+    }
+
+    private static <T> T route(Map<Integer, T> routes, int facilityId) {
+	T target = routes.get(facilityId);
+	if (target == null) {
+	    throw new IllegalArgumentException("Unknown facility: " + facilityId);
+	}
+	return target;
+    }
+}
@@ -0,0 +1,207 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * La classe MigrationRunner met à jour le schéma de la base de donnée au
+ * démarrage. Chaque script de db/migration porte un numéro de version
+ * (V2__query_indexes.sql) et n'est exécuté qu'une fois : la version, la
+ * description et la somme de contrôle de chaque script exécuté sont
+ * enregistrées dans la table schema_version. Un script modifié après avoir été
+ * exécuté arrête la migration.
+ * 
+ * Les scripts sont exécutés dans l'ordre des versions, leurs instructions sont
+ * séparées par un point-virgule en fin de ligne et les lignes commençant par --
+ * sont ignorées.
+ * 
+ * @author Dylan
+ * 
+ */
+public class MigrationRunner {
+
+    private static final Logger logger = LogManager.getLogger("MigrationRunner");
+    private static final String LOCATION = "/db/migration/";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    /*
+     * Les scripts à exécuter, un nouveau script doit être ajouté à cette liste.
+     */
+    public static final List<String> SCRIPTS = Arrays.asList("V1__initial_schema.sql", "V2__query_indexes.sql",
+	    "V3__ticket_import.sql", "V4__parking_types.sql");
+
+    private final DataBaseConfig dataBaseConfig;
+    private final List<String> scripts;
+
+    /**
+     * 
+     * @param dataBaseConfig la configuration de la base de donnée à mettre à
+     *                       jour.
+     */
+    public MigrationRunner(DataBaseConfig dataBaseConfig) {
+	this(dataBaseConfig, SCRIPTS);
+    }
+
+    /**
+     * 
+     * @param dataBaseConfig la configuration de la base de donnée à mettre à
+     *                       jour.
+     * @param scripts        les noms des scripts de db/migration, dans l'ordre
+     *                       des versions.
+     */
+    public MigrationRunner(DataBaseConfig dataBaseConfig, List<String> scripts) {
+	this.dataBaseConfig = dataBaseConfig;
+	this.scripts = scripts;
+    }
+
+    /**
+     * Exécute les scripts qui ne l'ont pas encore été.
+     * 
+     * @return le nombre de scripts exécutés.
+     * @throws IllegalStateException si un script a été modifié après avoir été
+     *                               exécuté ou si son exécution échoue.
+     * @throws Exception             si la base de donnée est indisponible ou si
+     *                               un script ne peut pas être lu.
+     */
+    public int migrate() throws Exception {
+	Connection con = null;
+	int applied = 0;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    try (Statement statement = con.createStatement()) {
+		statement.execute(DBConstants.CREATE_SCHEMA_VERSION);
+	    }
+	    Map<Integer, Long> appliedChecksums = getAppliedChecksums(con);
+	    for (String script : scripts) {
+		Matcher matcher = SCRIPT_NAME.matcher(script);
+		if (!matcher.matches()) {
+		    throw new IllegalArgumentException("Invalid migration script name: " + script);
+		}
+		int version = Integer.parseInt(matcher.group(1));
+		String sql = read(script);
+		long checksum = checksum(sql);
+		Long appliedChecksum = appliedChecksums.get(version);
+		if (appliedChecksum == null) {
+		    logger.info("Applying migration " + script);
+		    try {
+			execute(con, sql);
+			saveVersion(con, version, matcher.group(2).replace('_', ' '), checksum);
+		    } catch (SQLException e) {
+			throw new IllegalStateException("Migration " + script + " failed", e);
+		    }
+		    applied++;
+		} else if (appliedChecksum != checksum) {
+		    throw new IllegalStateException("Migration " + script + " was modified after being applied");
+		}
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error migrating database schema", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeConnection(con);
+	}
+	return applied;
+    }
+
+    private Map<Integer, Long> getAppliedChecksums(Connection con) throws Exception {
+	Map<Integer, Long> appliedChecksums = new HashMap<>();
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	try {
+	    ps = con.prepareStatement(DBConstants.GET_SCHEMA_VERSIONS);
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		appliedChecksums.put(rs.getInt(1), rs.getLong(2));
+	    }
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	}
+	return appliedChecksums;
+    }
+
+    private void saveVersion(Connection con, int version, String description, long checksum) throws Exception {
+	PreparedStatement ps = null;
+	try {
+	    ps = con.prepareStatement(DBConstants.SAVE_SCHEMA_VERSION);
+	    ps.setInt(1, version);
+	    ps.setString(2, description);
+	    ps.setLong(3, checksum);
+	    ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+	    ps.execute();
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	}
+    }
+
+    private static void execute(Connection con, String sql) throws Exception {
+	try (Statement statement = con.createStatement()) {
+	    for (String instruction : split(sql)) {
+		statement.execute(instruction);
+	    }
+	}
+    }
+
+    private static List<String> split(String sql) {
+	List<String> instructions = new ArrayList<>();
+	StringBuilder instruction = new StringBuilder();
+	for (String line : sql.split("\n")) {
+	    String trimmed = line.trim();
+	    if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+		continue;
+	    }
+	    if (trimmed.endsWith(";")) {
+		instruction.append(trimmed, 0, trimmed.length() - 1);
+		instructions.add(instruction.toString());
+		instruction.setLength(0);
+	    } else {
+		instruction.append(trimmed).append(' ');
+	    }
+	}
+	if (instruction.length() > 0) {
+	    instructions.add(instruction.toString().trim());
+	}
+	return instructions;
+    }
+
+    private static String read(String script) throws IOException {
+	try (InputStream inputStream = MigrationRunner.class.getResourceAsStream(LOCATION + script)) {
+	    if (inputStream == null) {
+		throw new IOException("Migration script not found: " + script);
+	    }
+	    ByteArrayOutputStream content = new ByteArrayOutputStream();
+	    byte[] buffer = new byte[4096];
+	    int read;
+	    while ((read = inputStream.read(buffer)) != -1) {
+		content.write(buffer, 0, read);
+	    }
+	    return new String(content.toByteArray(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+	}
+    }
+
+    private static long checksum(String sql) {
+	CRC32 crc32 = new CRC32();
+	crc32.update(sql.getBytes(StandardCharsets.UTF_8));
+	return crc32.getValue();
+    }
+}
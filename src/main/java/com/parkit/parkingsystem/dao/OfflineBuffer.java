@@ -0,0 +1,542 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.CircuitBreakerState;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.constants.PendingOperationType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.PendingOperation;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.CircuitBreaker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La classe OfflineBuffer permet à la borne de continuer à fonctionner quand la
+ * base de donnée est lente ou indisponible.
+ * 
+ * Les appels à la base de donnée passent par un CircuitBreaker. Quand le
+ * circuit est ouvert, ou que des écritures sont déjà en attente, les écritures
+ * sont ajoutées au PendingOperationJournal et les places sont attribuées à
+ * partir d'un état local des places libres. Le journal est rejoué dans l'ordre
+ * au retour de la base de donnée. Une écriture en conflit avec l'état de la
+ * base (véhicule déjà présent, place occupée par un autre ticket, ticket déjà
+ * clos) est conservée dans le fichier de conflits du journal.
+ * 
+ * @author Dylan
+ * 
+ */
+public class OfflineBuffer implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("OfflineBuffer");
+
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final TicketDAO ticketDAO;
+    private final PendingOperationJournal journal;
+    private final CircuitBreaker circuitBreaker;
+    /*
+     * Les places libres connues localement, et les tickets ouverts pendant
+     * l'indisponibilité de la base qui n'ont pas encore été rejoués.
+     */
+    private final Map<ParkingType, TreeSet<Integer>> freeSpots = new TreeMap<>();
+    private final Map<String, Ticket> pendingTickets = new HashMap<>();
+    private boolean seeded;
+    private ScheduledExecutorService executorService;
+
+    /**
+     * 
+     * @param parkingSpotDAO le ParkingSpotDAO connecté à la base de donnée.
+     * @param ticketDAO      le TicketDAO connecté à la base de donnée.
+     * @param journal        le journal des écritures en attente.
+     * @param circuitBreaker le circuit protégeant les appels à la base de donnée.
+     */
+    public OfflineBuffer(ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO, PendingOperationJournal journal,
+	    CircuitBreaker circuitBreaker) {
+	this.parkingSpotDAO = parkingSpotDAO;
+	this.ticketDAO = ticketDAO;
+	this.journal = journal;
+	this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Permet de recharger le journal puis de rejouer régulièrement les écritures
+     * en attente.
+     * 
+     * @param drainIntervalMillis l'intervalle entre deux tentatives de rejeu.
+     * @throws IOException si la lecture du journal échoue.
+     */
+    public void start(long drainIntervalMillis) throws IOException {
+	recover();
+	executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "offline-buffer-drain");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+	executorService.scheduleWithFixedDelay(() -> {
+	    try {
+		drain();
+	    } catch (RuntimeException e) {
+		logger.error("Unexpected error while draining pending operations", e);
+	    }
+	}, drainIntervalMillis, drainIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Permet de recharger le journal après un redémarrage : les tickets ouverts
+     * hors ligne sont de nouveau connus, puis l'état local des places est lu en
+     * base de donnée si elle est disponible.
+     * 
+     * @throws IOException si la lecture du journal échoue.
+     */
+    public void recover() throws IOException {
+	journal.load();
+	synchronized (this) {
+	    pendingTickets.clear();
+	    for (PendingOperation operation : journal.getOperations()) {
+		if (operation.getType() == PendingOperationType.SAVE_TICKET) {
+		    pendingTickets.put(operation.getVehicleRegNumber(), operation.toTicket());
+		} else if (operation.getType() == PendingOperationType.UPDATE_TICKET) {
+		    pendingTickets.remove(operation.getVehicleRegNumber());
+		}
+	    }
+	}
+	if (!journal.isEmpty()) {
+	    logger.warn(journal.size() + " pending operations to replay");
+	}
+	reseed();
+    }
+
+    /**
+     * Récupère la prochaine place disponible, en base de donnée si possible, sinon
+     * dans l'état local des places libres.
+     * 
+     * @param parkingType le type de véhicule voulant stationner.
+     * @return le numéro de la place disponible, 0 si aucune place n'est libre.
+     * @throws Exception si la base est indisponible et que l'état local des
+     *                   places n'a jamais pu être chargé.
+     */
+    public int getNextAvailableSlot(ParkingType parkingType) throws Exception {
+	if (isOnline()) {
+	    try {
+		int parkingNumber = parkingSpotDAO.getNextAvailableSlot(parkingType);
+		circuitBreaker.recordSuccess();
+		return parkingNumber;
+	    } catch (Exception e) {
+		circuitBreaker.recordFailure();
+	    }
+	}
+	synchronized (this) {
+	    if (!seeded) {
+		throw new Exception("Database unavailable and no local parking state");
+	    }
+	    int parkingNumber = first(parkingType);
+	    List<ParkingType> fallbacks = parkingType.getFallbacks();
+	    for (int i = 0; parkingNumber == 0 && i < fallbacks.size(); i++) {
+		parkingNumber = first(fallbacks.get(i));
+	    }
+	    return parkingNumber;
+	}
+    }
+
+    private int first(ParkingType parkingType) {
+	TreeSet<Integer> spots = freeSpots.get(parkingType);
+	return spots == null || spots.isEmpty() ? 0 : spots.first();
+    }
+
+    /**
+     * Récupère le type d'une place, dans l'état local des places libres puis en
+     * base de donnée.
+     * 
+     * @param parkingNumber le numéro de la place.
+     * @return le type de la place, null si la place n'existe pas.
+     * @throws Exception si la place n'est pas libre localement et que la base de
+     *                   donnée est indisponible.
+     */
+    public ParkingType getParkingType(int parkingNumber) throws Exception {
+	synchronized (this) {
+	    for (Map.Entry<ParkingType, TreeSet<Integer>> spots : freeSpots.entrySet()) {
+		if (spots.getValue().contains(parkingNumber)) {
+		    return spots.getKey();
+		}
+	    }
+	}
+	return parkingSpotDAO.getParkingType(parkingNumber);
+    }
+
+    /**
+     * Permet de mettre à jour la disponibilité d'une place, l'écriture est mise en
+     * attente si la base de donnée est indisponible.
+     * 
+     * @param parkingSpot la place de parking avec sa nouvelle disponibilité.
+     * @return true une fois l'écriture faite ou mise en attente.
+     * @throws Exception si l'écriture dans le journal échoue.
+     */
+    public boolean updateParking(ParkingSpot parkingSpot) throws Exception {
+	return updateParking(parkingSpot, parkingSpot.isAvailable());
+    }
+
+    /**
+     * Permet de mettre à jour la disponibilité d'une place sans modifier la place,
+     * l'écriture est mise en attente si la base de donnée est indisponible.
+     * 
+     * @param parkingSpot la place de parking.
+     * @param available   la nouvelle disponibilité de la place.
+     * @return true une fois l'écriture faite ou mise en attente, false si la
+     *         place avait déjà cette disponibilité en base de donnée, ou n'est
+     *         plus libre dans l'état local des places.
+     * @throws Exception si l'écriture dans le journal échoue.
+     */
+    public boolean updateParking(ParkingSpot parkingSpot, boolean available) throws Exception {
+	if (isOnline()) {
+	    try {
+		boolean updated = parkingSpotDAO.updateAvailability(parkingSpot, available);
+		circuitBreaker.recordSuccess();
+		// Dans les deux cas la place a désormais cette disponibilité en base.
+		track(parkingSpot.getParkingType(), parkingSpot.getId(), available);
+		return updated;
+	    } catch (Exception e) {
+		circuitBreaker.recordFailure();
+	    }
+	}
+	return bufferUpdateParking(parkingSpot, available);
+    }
+
+    /**
+     * Permet d'occuper une place louée par la borne. Hors ligne, la location ne
+     * peut pas être vérifiée : la place est alors occupée comme par
+     * updateParking, si elle est encore libre dans l'état local des places.
+     * 
+     * @param parkingSpot la place de parking louée.
+     * @param gateId      la borne.
+     * @return true si la place est occupée ou son occupation mise en attente.
+     * @throws Exception si l'écriture dans le journal échoue.
+     */
+    public boolean claimLeasedSpot(ParkingSpot parkingSpot, String gateId) throws Exception {
+	if (isOnline()) {
+	    try {
+		boolean claimed = parkingSpotDAO.claimLeasedSpot(parkingSpot, gateId);
+		circuitBreaker.recordSuccess();
+		if (claimed) {
+		    track(parkingSpot.getParkingType(), parkingSpot.getId(), false);
+		}
+		return claimed;
+	    } catch (Exception e) {
+		circuitBreaker.recordFailure();
+	    }
+	}
+	return bufferUpdateParking(parkingSpot, false);
+    }
+
+    private boolean bufferUpdateParking(ParkingSpot parkingSpot, boolean available) throws IOException {
+	/*
+	 * Hors ligne, la place est retirée de l'état local avant la mise en attente :
+	 * deux entrées ne peuvent donc pas occuper la même place libre.
+	 */
+	if (!available && !reserve(parkingSpot.getParkingType(), parkingSpot.getId())) {
+	    return false;
+	}
+	try {
+	    return buffer(PendingOperation.updateParking(parkingSpot, available));
+	} catch (IOException e) {
+	    if (!available) {
+		track(parkingSpot.getParkingType(), parkingSpot.getId(), true);
+	    }
+	    throw e;
+	}
+    }
+
+    /**
+     * Permet d'enregistrer un ticket, l'écriture est mise en attente si la base de
+     * donnée est indisponible.
+     * 
+     * @param ticket le ticket à enregistrer.
+     * @return le ticket enregistré.
+     * @throws Exception si l'écriture dans le journal échoue.
+     */
+    public Ticket saveTicket(Ticket ticket) throws Exception {
+	if (isOnline()) {
+	    try {
+		ticketDAO.saveTicket(ticket);
+		circuitBreaker.recordSuccess();
+		return ticket;
+	    } catch (Exception e) {
+		circuitBreaker.recordFailure();
+	    }
+	}
+	buffer(PendingOperation.ofTicket(PendingOperationType.SAVE_TICKET, ticket));
+	synchronized (this) {
+	    pendingTickets.put(ticket.getVehicleRegNumber(), ticket);
+	}
+	return ticket;
+    }
+
+    /**
+     * Récupère le ticket d'un véhicule, parmi les tickets ouverts hors ligne puis
+     * en base de donnée.
+     * 
+     * @param vehicleRegNumber le numéro d'immatriculation du véhicule.
+     * @return le ticket du véhicule.
+     * @throws Exception si le ticket n'est pas en attente et que la base de donnée
+     *                   est indisponible.
+     */
+    public Ticket getTicket(String vehicleRegNumber) throws Exception {
+	synchronized (this) {
+	    Ticket ticket = pendingTickets.get(vehicleRegNumber);
+	    if (ticket != null) {
+		return ticket;
+	    }
+	}
+	if (!circuitBreaker.allowRequest()) {
+	    throw new Exception("Database unavailable, unable to retrieve the ticket");
+	}
+	try {
+	    Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
+	    circuitBreaker.recordSuccess();
+	    return ticket;
+	} catch (Exception e) {
+	    circuitBreaker.recordFailure();
+	    throw e;
+	}
+    }
+
+    /**
+     * Permet de mettre à jour un ticket à la sortie du véhicule. Un ticket ouvert
+     * hors ligne, ou une base de donnée indisponible, met l'écriture en attente.
+     * 
+     * @param ticket le ticket avec le prix et le temps de sortie.
+     * @return true une fois l'écriture faite ou mise en attente.
+     * @throws Exception si l'écriture dans le journal échoue.
+     */
+    public boolean updateTicket(Ticket ticket) throws Exception {
+	boolean pendingTicket;
+	synchronized (this) {
+	    pendingTicket = pendingTickets.remove(ticket.getVehicleRegNumber()) != null;
+	}
+	if (!pendingTicket && isOnline()) {
+	    if (ticketDAO.updateTicket(ticket)) {
+		circuitBreaker.recordSuccess();
+		return true;
+	    }
+	    circuitBreaker.recordFailure();
+	}
+	return buffer(PendingOperation.ofTicket(PendingOperationType.UPDATE_TICKET, ticket));
+    }
+
+    /**
+     * Vérifie si l'utilisateur est déjà venu. Cette lecture n'est pas tentée
+     * quand la base de donnée est indisponible, la réduction n'est alors pas
+     * appliquée.
+     * 
+     * @param vehicleRegNumber le numéro d'immatriculation de l'utilisateur.
+     * @return true si l'utilisateur est déjà venu.
+     * @throws Exception si une erreur est rencontrée lors de la recherche.
+     */
+    public boolean getTicketUserPresentInDB(String vehicleRegNumber) throws Exception {
+	if (circuitBreaker.getState() != CircuitBreakerState.CLOSED) {
+	    return false;
+	}
+	return ticketDAO.getTicketUserPresentInDB(vehicleRegNumber);
+    }
+
+    /**
+     * Permet de rejouer dans l'ordre les écritures en attente. Le rejeu s'arrête
+     * à la première erreur de la base de donnée, l'écriture sera retentée au
+     * prochain appel.
+     */
+    public void drain() {
+	boolean replayed = false;
+	PendingOperation operation;
+	while ((operation = journal.peek()) != null) {
+	    if (!circuitBreaker.allowRequest()) {
+		return;
+	    }
+	    try {
+		String conflict = replay(operation);
+		circuitBreaker.recordSuccess();
+		if (conflict != null) {
+		    logger.warn("Conflict replaying " + operation + ": " + conflict);
+		    journal.recordConflict(operation, conflict);
+		}
+		journal.removeFirst();
+		replayed = true;
+	    } catch (Exception e) {
+		circuitBreaker.recordFailure();
+		logger.error("Unable to replay " + operation, e);
+		compact(replayed);
+		return;
+	    }
+	}
+	if (replayed) {
+	    logger.info("All pending operations replayed");
+	}
+	compact(replayed);
+	if (replayed || !isSeeded()) {
+	    reseed();
+	}
+    }
+
+    /**
+     * Récupère le ParkingSpotDAO sur lequel les écritures sont rejouées.
+     * 
+     * @return le ParkingSpotDAO du parking.
+     */
+    public ParkingSpotDAO getParkingSpotDAO() {
+	return parkingSpotDAO;
+    }
+
+    /**
+     * Indique si des écritures sont en attente de rejeu.
+     * 
+     * @return le nombre d'écritures en attente.
+     */
+    public int getPendingCount() {
+	return journal.size();
+    }
+
+    @Override
+    public void close() {
+	if (executorService != null) {
+	    executorService.shutdownNow();
+	}
+    }
+
+    private void compact(boolean replayed) {
+	if (!replayed) {
+	    return;
+	}
+	try {
+	    journal.compact();
+	} catch (IOException e) {
+	    logger.error("Unable to compact the pending operation journal", e);
+	}
+    }
+
+    /*
+     * Tant que des écritures sont en attente, les suivantes sont aussi mises en
+     * attente afin de conserver leur ordre.
+     */
+    private boolean isOnline() {
+	return journal.isEmpty() && circuitBreaker.allowRequest();
+    }
+
+    private boolean buffer(PendingOperation operation) throws IOException {
+	journal.append(operation);
+	if (operation.getType() == PendingOperationType.UPDATE_PARKING) {
+	    track(operation.getParkingType(), operation.getParkingNumber(), operation.isAvailable());
+	}
+	return true;
+    }
+
+    private synchronized void track(ParkingType parkingType, int parkingNumber, boolean available) {
+	if (!seeded) {
+	    return;
+	}
+	TreeSet<Integer> spots = freeSpots.computeIfAbsent(parkingType, type -> new TreeSet<>());
+	if (available) {
+	    spots.add(parkingNumber);
+	} else {
+	    spots.remove(parkingNumber);
+	}
+    }
+
+    /*
+     * Sans état local, la place ne peut pas avoir été attribuée hors ligne et
+     * n'est pas vérifiée.
+     */
+    private synchronized boolean reserve(ParkingType parkingType, int parkingNumber) {
+	if (!seeded) {
+	    return true;
+	}
+	TreeSet<Integer> spots = freeSpots.get(parkingType);
+	return spots != null && spots.remove(parkingNumber);
+    }
+
+    private synchronized boolean isSeeded() {
+	return seeded;
+    }
+
+    /*
+     * Lit les places libres en base de donnée puis y applique les mises à jour
+     * encore en attente.
+     */
+    private void reseed() {
+	if (!circuitBreaker.allowRequest()) {
+	    return;
+	}
+	List<ParkingSpot> availableSpots;
+	try {
+	    availableSpots = parkingSpotDAO.getAvailableSlots();
+	    circuitBreaker.recordSuccess();
+	} catch (Exception e) {
+	    circuitBreaker.recordFailure();
+	    logger.error("Unable to load available parking spots", e);
+	    return;
+	}
+	synchronized (this) {
+	    freeSpots.clear();
+	    seeded = true;
+	    for (ParkingSpot parkingSpot : availableSpots) {
+		track(parkingSpot.getParkingType(), parkingSpot.getId(), true);
+	    }
+	    for (PendingOperation operation : journal.getOperations()) {
+		if (operation.getType() == PendingOperationType.UPDATE_PARKING) {
+		    track(operation.getParkingType(), operation.getParkingNumber(), operation.isAvailable());
+		}
+	    }
+	}
+    }
+
+    /*
+     * Rejoue une écriture et renvoie la raison du conflit, null si l'écriture est
+     * cohérente avec la base de donnée. Un ticket en conflit sur sa place est tout
+     * de même enregistré, le véhicule étant bien présent dans le parking.
+     */
+    private String replay(PendingOperation operation) throws Exception {
+	switch (operation.getType()) {
+	case UPDATE_PARKING:
+	    if (operation.isAvailable() && ticketDAO.countOpenTicketsForSpot(operation.getParkingNumber()) > 0) {
+		return "Parking spot still held by an open ticket";
+	    }
+	    /*
+	     * Une place déjà occupée entre temps par une autre borne n'est pas un
+	     * conflit ici, il est relevé au rejeu du ticket qui suit.
+	     */
+	    parkingSpotDAO.updateAvailability(operation.toParkingSpot(), operation.isAvailable());
+	    return null;
+	case SAVE_TICKET:
+	    if (isOpen(ticketDAO.getTicket(operation.getVehicleRegNumber()))) {
+		return "Vehicle already has an open ticket";
+	    }
+	    String conflict = ticketDAO.countOpenTicketsForSpot(operation.getParkingNumber()) > 0
+		    ? "Parking spot already held by another open ticket"
+		    : null;
+	    ticketDAO.saveTicket(operation.toTicket());
+	    return conflict;
+	default:
+	    Ticket ticket = ticketDAO.getTicket(operation.getVehicleRegNumber());
+	    if (!isOpen(ticket)) {
+		return "No open ticket for vehicle";
+	    }
+	    ticket.setPrice(operation.getPrice());
+	    ticket.setOutTimestamp(new Timestamp(operation.getOutTime()));
+	    if (!ticketDAO.updateTicket(ticket)) {
+		throw new Exception("Error replaying ticket update");
+	    }
+	    return null;
+	}
+    }
+
+    private static boolean isOpen(Ticket ticket) {
+	return ticket != null && ticket.getId() > 0 && ticket.getOutTimestamp() == null;
+    }
+}
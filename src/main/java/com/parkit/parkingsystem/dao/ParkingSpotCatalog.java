@@ -0,0 +1,134 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * La classe ParkingSpotCatalog garde en mémoire le numéro et le type de chaque
+ * place d'un parking. Les places ne changent pas pendant l'exécution, une seule
+ * instance de ParkingSpot est donc partagée par place, par les tickets et les
+ * entrées de véhicules. Ces instances ne doivent pas être modifiées : la
+ * disponibilité d'une place est indiquée à chaque mise à jour du ParkingSpotDAO
+ * et non par la place elle-même.
+ * 
+ * Le catalogue est chargé à la première lecture, et rechargé si un numéro de
+ * place est inconnu, par exemple après l'ajout de places en base de donnée.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ParkingSpotCatalog {
+
+    private static final Logger logger = LogManager.getLogger("ParkingSpotCatalog");
+
+    private final DataBaseConfig dataBaseConfig;
+    private volatile Map<Integer, ParkingSpot> parkingSpots;
+
+    /**
+     * 
+     * @param dataBaseConfig la configuration de la base de donnée du parking.
+     */
+    public ParkingSpotCatalog(DataBaseConfig dataBaseConfig) {
+	this.dataBaseConfig = dataBaseConfig;
+    }
+
+    /**
+     * Récupère la place partagée correspondant à un numéro. Le catalogue est
+     * rechargé une fois si le numéro est inconnu.
+     * 
+     * @param parkingNumber le numéro de la place.
+     * @return la place, ou null si elle n'existe pas en base de donnée.
+     * @throws Exception si une erreur est rencontrée lors du chargement.
+     */
+    public ParkingSpot getParkingSpot(int parkingNumber) throws Exception {
+	Map<Integer, ParkingSpot> current = parkingSpots;
+	ParkingSpot parkingSpot = current == null ? null : current.get(parkingNumber);
+	if (parkingSpot == null) {
+	    parkingSpot = reload(current).get(parkingNumber);
+	}
+	return parkingSpot;
+    }
+
+    /**
+     * Récupère toutes les places du parking, par numéro croissant.
+     * 
+     * @return les places partagées.
+     * @throws Exception si une erreur est rencontrée lors du chargement.
+     */
+    public Collection<ParkingSpot> getParkingSpots() throws Exception {
+	Map<Integer, ParkingSpot> current = parkingSpots;
+	return current == null ? reload(null).values() : current.values();
+    }
+
+    /**
+     * Charge le catalogue, utilisé au démarrage pour que la première entrée ne
+     * paie pas la lecture de la table parking.
+     * 
+     * @return le nombre de places du parking.
+     * @throws Exception si une erreur est rencontrée lors du chargement.
+     */
+    public int load() throws Exception {
+	return getParkingSpots().size();
+    }
+
+    /*
+     * Un seul rechargement à la fois : si un autre thread a déjà remplacé le
+     * catalogue lu par l'appelant, celui-ci est réutilisé.
+     */
+    private synchronized Map<Integer, ParkingSpot> reload(Map<Integer, ParkingSpot> stale) throws Exception {
+	if (parkingSpots != stale) {
+	    return parkingSpots;
+	}
+	Map<Integer, ParkingSpot> loaded = new TreeMap<>();
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_PARKING_SPOTS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		int parkingNumber = rs.getInt(1);
+		ParkingSpot parkingSpot = stale == null ? null : stale.get(parkingNumber);
+		ParkingType parkingType = ParkingType.valueOf(rs.getString(2));
+		if (parkingSpot == null || parkingSpot.getParkingType() != parkingType) {
+		    parkingSpot = new ParkingSpot(parkingNumber, parkingType, false, dataBaseConfig.getFacilityId());
+		}
+		loaded.put(parkingNumber, parkingSpot);
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error loading parking spot catalog", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	parkingSpots = Collections.unmodifiableMap(loaded);
+	logger.info("Loaded " + loaded.size() + " parking spots");
+	return parkingSpots;
+    }
+
+    /**
+     * Récupère le nombre de places connues, sans charger le catalogue.
+     * 
+     * @return le nombre de places, 0 si le catalogue n'est pas chargé.
+     */
+    public int size() {
+	Map<Integer, ParkingSpot> current = parkingSpots;
+	return current == null ? 0 : current.size();
+    }
+}
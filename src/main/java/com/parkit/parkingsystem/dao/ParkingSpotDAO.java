@@ -3,6 +3,8 @@ package com.parkit.parkingsystem.dao;
 import com.parkit.parkingsystem.config.DataBaseConfig;
 import com.parkit.parkingsystem.constants.DBConstants;
 import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.jfr.DaoCallEvent;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,28 +12,51 @@ import org.apache.logging.log4j.Logger;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * La classe ParkingSpotDAO permet de communiquer avec la base de donnée,
  * vérifier et mettre à jour la disponibilité des places de parking.
  * 
  * @author Dylan
- *
+ * 
  */
 public class ParkingSpotDAO {
     private static final Logger logger = LogManager.getLogger("ParkingSpotDAO");
+    /*
+     * Une branche par type, de rang %d, réunies par union all et triées par rang.
+     * Ce modèle n'est pas une requête, il n'est donc pas dans DBConstants dont
+     * chaque requête est préparée au démarrage.
+     */
+    private static final String NEXT_PARKING_SPOT_OF_RANK = "select %d, min(PARKING_NUMBER) from parking"
+	    + " where AVAILABLE = true and TYPE = ?";
     /*
      * DataBaseConfig est la configuration qui permet la connection à la base de
      * donnée.
      */
     public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+    private final List<ParkingSpotListener> parkingSpotListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Permet d'être prévenu de chaque changement de disponibilité d'une place en
+     * base de donnée.
+     * 
+     * @param parkingSpotListener le destinataire des changements.
+     */
+    public void addParkingSpotListener(ParkingSpotListener parkingSpotListener) {
+	parkingSpotListeners.add(parkingSpotListener);
+    }
 
     /**
      * Permet de vérifier si il y a une place de parking disponible, pour le type de
      * véhicule spécifié par l'utilisateur.
      * 
      * Connexion à la base de donnée. PrepareStatement avec la requête SQL
-     * next_parking_slot présente dans la DBConstants.
+     * next_parking_slot présente dans la DBConstants. Si le type a des types de
+     * repli, la plus petite place libre de chaque type est lue par la même
+     * requête, et la première trouvée dans l'ordre de préférence est choisie.
      * 
      * @see DBConstants
      * 
@@ -41,19 +66,128 @@ public class ParkingSpotDAO {
      *                   la base de donnée.
      */
     public int getNextAvailableSlot(ParkingType parkingType) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("ParkingSpotDAO", "getNextAvailableSlot");
+	event.begin();
 	Connection con = null;
 	PreparedStatement ps = null;
 	ResultSet rs = null;
 	int result = -1;
 	try {
 	    con = dataBaseConfig.getConnection();
-	    ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT);
+	    List<ParkingType> fallbacks = parkingType.getFallbacks();
+	    if (fallbacks.isEmpty()) {
+		ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT);
+		ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+		ps.setString(1, parkingType.toString());
+		rs = ps.executeQuery();
+		if (rs.next()) {
+		    result = rs.getInt(1);
+		}
+	    } else {
+		ps = con.prepareStatement(getNextParkingSpotWithFallbacks(fallbacks.size() + 1));
+		ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+		ps.setString(1, parkingType.toString());
+		for (int i = 0; i < fallbacks.size(); i++) {
+		    ps.setString(i + 2, fallbacks.get(i).toString());
+		}
+		rs = ps.executeQuery();
+		result = 0;
+		while (result <= 0 && rs.next()) {
+		    result = rs.getInt(2);
+		}
+	    }
+
+	} catch (Exception ex) {
+	    logger.error("Error fetching next available slot", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	    event.record(null, parkingType, result, result > 0 ? 1 : 0);
+	}
+	return result;
+    }
+
+    private static String getNextParkingSpotWithFallbacks(int parkingTypes) {
+	StringBuilder sql = new StringBuilder();
+	for (int rank = 0; rank < parkingTypes; rank++) {
+	    if (rank > 0) {
+		sql.append(" union all ");
+	    }
+	    sql.append(String.format(NEXT_PARKING_SPOT_OF_RANK, rank));
+	}
+	return sql.append(" order by 1").toString();
+    }
+
+    /**
+     * Permet de récupérer le type d'une place de parking, qui peut être un type de
+     * repli du type demandé à l'entrée.
+     * 
+     * Connexion à la base de donnée. PrepareStatement avec la requête SQL
+     * get_parking_spot_type présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @param parkingNumber le numéro de la place.
+     * @return le type de la place, null si la place n'existe pas.
+     * @throws Exception si une erreur est rencontrée lors de la lecture dans la
+     *                   base de donnée.
+     */
+    public ParkingType getParkingType(int parkingNumber) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_PARKING_SPOT_TYPE);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setInt(1, parkingNumber);
+	    rs = ps.executeQuery();
+	    return rs.next() ? ParkingType.valueOf(rs.getString(1)) : null;
+	} catch (Exception ex) {
+	    logger.error("Error fetching parking spot type", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+
+    /**
+     * Permet de récupérer la première place disponible dont le numéro est
+     * supérieur à celui indiqué, pour le type de véhicule spécifié.
+     * 
+     * Connexion à la base de donnée. PrepareStatement avec la requête SQL
+     * next_parking_slot_after présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @param parkingType   le type de véhicule voulant stationner.
+     * @param parkingNumber le numéro de place à partir duquel chercher.
+     * @return result le numéro de la place disponible, 0 si aucune place n'est
+     *         disponible après ce numéro.
+     * @throws Exception si une erreur est rencontrée lors de la verification dans
+     *                   la base de donnée.
+     */
+    public int getNextAvailableSlotAfter(ParkingType parkingType, int parkingNumber) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("ParkingSpotDAO", "getNextAvailableSlotAfter");
+	event.begin();
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	int result = -1;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_NEXT_PARKING_SPOT_AFTER);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
 	    ps.setString(1, parkingType.toString());
+	    ps.setInt(2, parkingNumber);
 	    rs = ps.executeQuery();
 	    if (rs.next()) {
 		result = rs.getInt(1);
 	    }
-
 	} catch (Exception ex) {
 	    logger.error("Error fetching next available slot", ex);
 	    throw ex;
@@ -61,44 +195,255 @@ public class ParkingSpotDAO {
 	    dataBaseConfig.closeResultSet(rs);
 	    dataBaseConfig.closePreparedStatement(ps);
 	    dataBaseConfig.closeConnection(con);
+	    event.record(null, parkingType, result, result > 0 ? 1 : 0);
 	}
 	return result;
     }
 
     /**
      * Permet de mettre à jour la disponibilité de la place de parking dans la base
-     * de donnée.
+     * de donnée, avec la disponibilité indiquée par la place.
+     * 
+     * @param parkingSpot les informations de la place de parking avec le numéro,
+     *                    le type de véhicule et sa nouvelle disponibilité.
+     * @return true si les informations ont bien été mis à jour, else dans le cas
+     *         contraire.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour.
+     */
+    public boolean updateParking(ParkingSpot parkingSpot) throws Exception {
+	return updateParking(parkingSpot, parkingSpot.isAvailable());
+    }
+
+    /**
+     * Permet de mettre à jour la disponibilité de la place de parking dans la base
+     * de donnée. La place n'est pas modifiée, elle peut donc être partagée par le
+     * ParkingSpotCatalog. Dans une transaction une erreur est propagée afin que
+     * la transaction soit annulée.
+     * 
+     * @see #updateAvailability(ParkingSpot, boolean)
+     * 
+     * @param parkingSpot les informations de la place de parking avec le numéro et
+     *                    le type de véhicule.
+     * @param available   la nouvelle disponibilité de la place.
+     * @return true si la disponibilité de la place a changé, false si la place
+     *         avait déjà cette disponibilité, par exemple une place prise entre
+     *         temps par une autre borne, ou en cas d'erreur.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour dans
+     *                   une transaction.
+     */
+    public boolean updateParking(ParkingSpot parkingSpot, boolean available) throws Exception {
+	try {
+	    return updateAvailability(parkingSpot, available);
+	} catch (Exception ex) {
+	    if (dataBaseConfig.isInTransaction()) {
+		throw ex;
+	    }
+	    return false;
+	}
+    }
+
+    /**
+     * Permet de mettre à jour la disponibilité de la place de parking dans la base
+     * de donnée, seulement si la place n'a pas déjà cette disponibilité : deux
+     * bornes ne peuvent donc pas occuper la même place. Une erreur est toujours
+     * propagée.
      * 
      * Connexion à la base donnée. PrepareStatement avec la requête SQL
-     * update_parking_spot présente dans DBConstants.
+     * update_parking_spot présente dans DBConstants. Les ParkingSpotListener sont
+     * prévenus si la disponibilité de la place a changé, après la validation de la
+     * transaction en cours.
      * 
      * @see DBConstants
      * 
      * @param parkingSpot les informations de la place de parking avec le numéro et
      *                    le type de véhicule.
-     * @return true si les informations ont bien été mis à jour, else dans le cas
-     *         contraire.
+     * @param available   la nouvelle disponibilité de la place.
+     * @return true si la disponibilité de la place a changé, false si la place
+     *         avait déjà cette disponibilité.
      * @throws Exception si une erreur est rencontrée lors de la mise à jour.
      */
-    public boolean updateParking(ParkingSpot parkingSpot) throws Exception {
-
+    public boolean updateAvailability(ParkingSpot parkingSpot, boolean available) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("ParkingSpotDAO", "updateParking");
+	event.begin();
 	Connection con = null;
 	PreparedStatement ps = null;
-	
+	int rows = 0;
 	try {
 	    con = dataBaseConfig.getConnection();
 	    ps = con.prepareStatement(DBConstants.UPDATE_PARKING_SPOT);
-	    ps.setBoolean(1, parkingSpot.isAvailable());
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setBoolean(1, available);
 	    ps.setInt(2, parkingSpot.getId());
-	    ps.executeUpdate();
-	    
-	    return true;
+	    ps.setBoolean(3, available);
+	    rows = ps.executeUpdate();
+	    if (rows == 1) {
+		fireParkingSpotUpdated(parkingSpot, available);
+	    }
+	    return rows == 1;
 	} catch (Exception ex) {
 	    logger.error("Error updating parking info", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	    event.record(null, parkingSpot, rows);
+	}
+    }
+
+    /**
+     * Permet de récupérer le nombre de places libres et occupées pour chaque type
+     * d'emplacement. Cette lecture non critique peut être faite sur un réplica.
+     * 
+     * Connexion à la base de donnée. PrepareStatement avec la requête SQL
+     * get_parking_occupancy présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @return l'occupation des places du parking.
+     * @throws Exception si une erreur est rencontrée lors de la lecture dans la
+     *                   base de donnée.
+     */
+    public ParkingOccupancy getParkingOccupancy() throws Exception {
+	return getParkingOccupancy(false);
+    }
+
+    /**
+     * Permet de récupérer le nombre de places libres et occupées pour chaque type
+     * d'emplacement, sur la base principale si demandé. Une occupation qui sert
+     * de point de départ à des compteurs tenus à jour ensuite doit être lue sur
+     * la base principale, un réplica en retard fausserait les compteurs
+     * jusqu'au redémarrage.
+     * 
+     * @param primary true pour lire sur la base principale.
+     * @return l'occupation des places du parking.
+     * @throws Exception si une erreur est rencontrée lors de la lecture dans la
+     *                   base de donnée.
+     */
+    public ParkingOccupancy getParkingOccupancy(boolean primary) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	try {
+	    con = primary ? dataBaseConfig.getConnection() : dataBaseConfig.getReadConnection();
+	    ps = con.prepareStatement(DBConstants.GET_PARKING_OCCUPANCY);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		ParkingType parkingType = ParkingType.valueOf(rs.getString(1));
+		if (rs.getBoolean(2)) {
+		    parkingOccupancy.setAvailableSpots(parkingType, rs.getInt(3));
+		} else {
+		    parkingOccupancy.setOccupiedSpots(parkingType, rs.getInt(3));
+		}
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching parking occupancy", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return parkingOccupancy;
+    }
+
+    /**
+     * Permet de récupérer toutes les places de parking disponibles, afin de
+     * constituer l'état local des places utilisé lorsque la base de donnée est
+     * indisponible.
+     * 
+     * Connexion à la base de donnée. PrepareStatement avec la requête SQL
+     * get_available_parking_spots présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @return les places de parking disponibles.
+     * @throws Exception si une erreur est rencontrée lors de la lecture dans la
+     *                   base de donnée.
+     */
+    public List<ParkingSpot> getAvailableSlots() throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	List<ParkingSpot> result = new ArrayList<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_AVAILABLE_PARKING_SPOTS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		result.add(new ParkingSpot(rs.getInt(1), ParkingType.valueOf(rs.getString(2)), true,
+			dataBaseConfig.getFacilityId()));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching available parking spots", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
+    }
+
+    /**
+     * Permet d'occuper une place louée par une borne. La place n'est occupée que
+     * si elle est encore disponible et louée par cette borne.
+     * 
+     * Connexion à la base de donnée. PrepareStatement avec la requête SQL
+     * claim_leased_parking_spot présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @param parkingSpot la place de parking louée.
+     * @param gateId      la borne.
+     * @return true si la place est occupée, false si elle ne l'est pas.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour.
+     */
+    public boolean claimLeasedSpot(ParkingSpot parkingSpot, String gateId) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("ParkingSpotDAO", "claimLeasedSpot");
+	event.begin();
+	Connection con = null;
+	PreparedStatement ps = null;
+	int rows = 0;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.CLAIM_LEASED_PARKING_SPOT);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setInt(1, parkingSpot.getId());
+	    ps.setString(2, gateId);
+	    rows = ps.executeUpdate();
+	    if (rows == 1) {
+		fireParkingSpotUpdated(parkingSpot, false);
+		return true;
+	    }
 	    return false;
+	} catch (Exception ex) {
+	    logger.error("Error claiming leased parking spot", ex);
+	    throw ex;
 	} finally {
 	    dataBaseConfig.closePreparedStatement(ps);
 	    dataBaseConfig.closeConnection(con);
+	    event.record(null, parkingSpot, rows);
 	}
     }
+
+    /*
+     * Les ParkingSpotListener ne sont prévenus qu'une fois la mise à jour validée,
+     * une transaction annulée ne change donc pas l'occupation qu'ils suivent.
+     */
+    private void fireParkingSpotUpdated(ParkingSpot parkingSpot, boolean available) {
+	ParkingSpot updated = new ParkingSpot(parkingSpot.getId(), parkingSpot.getParkingType(), available,
+		parkingSpot.getFacilityId());
+	dataBaseConfig.afterCommit(() -> {
+	    for (ParkingSpotListener parkingSpotListener : parkingSpotListeners) {
+		try {
+		    parkingSpotListener.onParkingSpotUpdated(updated);
+		} catch (RuntimeException e) {
+		    logger.error("Parking spot listener failed", e);
+		}
+	    }
+	});
+    }
 }
@@ -0,0 +1,22 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * L'interface ParkingSpotListener est prévenue par le ParkingSpotDAO à chaque
+ * changement de disponibilité d'une place en base de donnée.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface ParkingSpotListener {
+
+    /**
+     * Appelée une fois la disponibilité de la place modifiée en base de donnée.
+     * Une mise à jour qui ne change pas la disponibilité de la place n'est pas
+     * signalée.
+     * 
+     * @param parkingSpot la place de parking, avec sa nouvelle disponibilité.
+     */
+    void onParkingSpotUpdated(ParkingSpot parkingSpot);
+}
@@ -0,0 +1,84 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe ParkingTypeDAO lit les types de place de la table parking_type,
+ * avec leur tarif horaire et leurs types de repli.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ParkingTypeDAO {
+
+    private static final Logger logger = LogManager.getLogger("ParkingTypeDAO");
+    /*
+     * DataBaseConfig est la configuration qui permet la connection à la base de
+     * donnée.
+     */
+    public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+    /**
+     * Permet de définir les types de place enregistrés en base de donnée. Un type
+     * déjà défini, comme CAR ou BIKE, prend le tarif et les replis de la table.
+     * Doit être appelée au démarrage, avant la création des services qui
+     * comptent les places par type.
+     * 
+     * Connexion à la base de donnée. PrepareStatement avec la requête SQL
+     * get_parking_types présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @return les types de place de la table, dans l'ordre du menu.
+     * @throws IllegalArgumentException si un type ou un repli est incorrect.
+     * @throws Exception                si une erreur est rencontrée lors de la
+     *                                  lecture dans la base de donnée.
+     */
+    public List<ParkingType> loadParkingTypes() throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	Map<ParkingType, String> fallbackNames = new LinkedHashMap<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_PARKING_TYPES);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		fallbackNames.put(ParkingType.define(rs.getString(1), rs.getDouble(2)), rs.getString(3));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching parking types", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	// Les replis sont lus une fois tous les types définis.
+	for (Map.Entry<ParkingType, String> entry : fallbackNames.entrySet()) {
+	    List<ParkingType> fallbacks = new ArrayList<>();
+	    if (entry.getValue() != null) {
+		for (String name : entry.getValue().split(",")) {
+		    if (!name.trim().isEmpty()) {
+			fallbacks.add(ParkingType.valueOf(name.trim()));
+		    }
+		}
+	    }
+	    entry.getKey().setFallbacks(fallbacks);
+	}
+	return new ArrayList<>(fallbackNames.keySet());
+    }
+}
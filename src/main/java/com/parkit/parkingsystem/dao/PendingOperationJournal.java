@@ -0,0 +1,190 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.constants.PendingOperationType;
+import com.parkit.parkingsystem.model.PendingOperation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * La classe PendingOperationJournal conserve sur disque, dans l'ordre, les
+ * écritures en attente pendant l'indisponibilité de la base de donnée. Chaque
+ * écriture est synchronisée sur le disque avant d'être confirmée, le journal
+ * est donc rechargé intact après un arrêt brutal. Une écriture rejouée est
+ * marquée en fin de fichier, le fichier n'est réécrit qu'une fois par rejeu par
+ * compact(). Les écritures rejetées lors du rejeu sont conservées dans un
+ * fichier de conflits.
+ * 
+ * @author Dylan
+ * 
+ */
+public class PendingOperationJournal {
+
+    private static final String SEPARATOR = ";";
+    // Marque le rejeu de la plus ancienne écriture encore en attente.
+    private static final String REPLAYED = "REPLAYED";
+
+    private final Path file;
+    private final Path conflictFile;
+    private final Deque<PendingOperation> operations = new ArrayDeque<>();
+
+    /**
+     * 
+     * @param file le fichier du journal.
+     */
+    public PendingOperationJournal(Path file) {
+	this.file = file;
+	this.conflictFile = file.resolveSibling(file.getFileName() + ".conflicts");
+    }
+
+    /**
+     * Permet de recharger les écritures en attente présentes sur le disque.
+     * 
+     * @throws IOException si la lecture du journal échoue.
+     */
+    public synchronized void load() throws IOException {
+	operations.clear();
+	if (!Files.exists(file)) {
+	    return;
+	}
+	try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+	    String line;
+	    while ((line = reader.readLine()) != null) {
+		if (REPLAYED.equals(line)) {
+		    operations.pollFirst();
+		} else if (!line.isEmpty()) {
+		    operations.addLast(parse(line));
+		}
+	    }
+	}
+    }
+
+    /**
+     * Permet d'ajouter une écriture en fin de journal, elle est synchronisée sur
+     * le disque avant le retour de la méthode.
+     * 
+     * @param operation l'écriture en attente.
+     * @throws IOException si l'écriture sur le disque échoue.
+     */
+    public synchronized void append(PendingOperation operation) throws IOException {
+	write(file, format(operation), StandardOpenOption.APPEND);
+	operations.addLast(operation);
+    }
+
+    /**
+     * Récupère la plus ancienne écriture en attente.
+     * 
+     * @return l'écriture, null si le journal est vide.
+     */
+    public synchronized PendingOperation peek() {
+	return operations.peekFirst();
+    }
+
+    /**
+     * Retire la plus ancienne écriture une fois rejouée. Une marque est ajoutée en
+     * fin de fichier et synchronisée sur le disque, le coût ne dépend donc pas du
+     * nombre d'écritures encore en attente.
+     * 
+     * @throws IOException si l'écriture sur le disque échoue.
+     */
+    public synchronized void removeFirst() throws IOException {
+	write(file, REPLAYED + "\n", StandardOpenOption.APPEND);
+	operations.pollFirst();
+    }
+
+    /**
+     * Réécrit le fichier avec les seules écritures encore en attente, sans les
+     * écritures rejouées ni leurs marques. Le nouveau fichier remplace l'ancien en
+     * une seule opération.
+     * 
+     * @throws IOException si l'écriture sur le disque échoue.
+     */
+    public synchronized void compact() throws IOException {
+	StringBuilder content = new StringBuilder();
+	for (PendingOperation operation : operations) {
+	    content.append(format(operation));
+	}
+	Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+	write(tmp, content.toString(), StandardOpenOption.TRUNCATE_EXISTING);
+	Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Conserve une écriture rejetée lors du rejeu, avec la raison du rejet.
+     * 
+     * @param operation l'écriture rejetée.
+     * @param reason    la raison du rejet.
+     * @throws IOException si l'écriture sur le disque échoue.
+     */
+    public synchronized void recordConflict(PendingOperation operation, String reason) throws IOException {
+	write(conflictFile, reason + SEPARATOR + format(operation), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Récupère une copie des écritures en attente, de la plus ancienne à la plus
+     * récente.
+     * 
+     * @return les écritures en attente.
+     */
+    public synchronized List<PendingOperation> getOperations() {
+	return new ArrayList<>(operations);
+    }
+
+    /**
+     * Indique si des écritures sont en attente.
+     * 
+     * @return true si le journal est vide.
+     */
+    public synchronized boolean isEmpty() {
+	return operations.isEmpty();
+    }
+
+    /**
+     * Récupère le nombre d'écritures en attente.
+     * 
+     * @return le nombre d'écritures en attente.
+     */
+    public synchronized int size() {
+	return operations.size();
+    }
+
+    private static void write(Path target, String content, StandardOpenOption mode) throws IOException {
+	try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		mode)) {
+	    channel.write(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+	    channel.force(true);
+	}
+    }
+
+    private static String format(PendingOperation operation) throws UnsupportedEncodingException {
+	String vehicleRegNumber = operation.getVehicleRegNumber() == null ? ""
+		: URLEncoder.encode(operation.getVehicleRegNumber(), "UTF-8");
+	return operation.getType() + SEPARATOR + operation.getParkingNumber() + SEPARATOR
+		+ operation.getParkingType() + SEPARATOR + operation.isAvailable() + SEPARATOR + vehicleRegNumber
+		+ SEPARATOR + operation.getPrice() + SEPARATOR + operation.getInTime() + SEPARATOR
+		+ operation.getOutTime() + "\n";
+    }
+
+    private static PendingOperation parse(String line) throws UnsupportedEncodingException {
+	String[] fields = line.split(SEPARATOR, -1);
+	return new PendingOperation(PendingOperationType.valueOf(fields[0]), Integer.parseInt(fields[1]),
+		"null".equals(fields[2]) ? null : ParkingType.valueOf(fields[2]), Boolean.parseBoolean(fields[3]),
+		fields[4].isEmpty() ? null : URLDecoder.decode(fields[4], "UTF-8"), Double.parseDouble(fields[5]),
+		Long.parseLong(fields[6]), Long.parseLong(fields[7]));
+    }
+}
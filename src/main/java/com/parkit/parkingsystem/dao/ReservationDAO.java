@@ -0,0 +1,141 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.Reservation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * La classe ReservationDAO permet de communiquer avec la base de donnée,
+ * enregistrer une réservation, récupérer les réservations à venir et indiquer
+ * qu'une réservation a été utilisée.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ReservationDAO {
+
+    private static final Logger logger = LogManager.getLogger("ReservationDAO");
+    /*
+     * DataBaseConfig est la configuration qui permet la connection à la base de
+     * donnée.
+     */
+    public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+    /**
+     * Permet de sauvegarder une réservation dans la base de donnée, l'ID généré
+     * est indiqué sur la réservation.
+     * 
+     * @see DBConstants
+     * 
+     * @param reservation la réservation à sauvegarder.
+     * @return la réservation enregistrée.
+     * @throws Exception si une erreur est rencontrée lors de la sauvegarde.
+     */
+    public Reservation saveReservation(Reservation reservation) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.SAVE_RESERVATION, Statement.RETURN_GENERATED_KEYS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setString(1, reservation.getVehicleRegNumber());
+	    ps.setString(2, reservation.getParkingType().toString());
+	    ps.setTimestamp(3, reservation.getStartTimestamp());
+	    ps.setTimestamp(4, reservation.getEndTimestamp());
+	    ps.executeUpdate();
+	    rs = ps.getGeneratedKeys();
+	    if (rs.next()) {
+		reservation.setId(rs.getInt(1));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error saving reservation", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return reservation;
+    }
+
+    /**
+     * Permet de récupérer les réservations non utilisées qui ne sont pas encore
+     * terminées.
+     * 
+     * @see DBConstants
+     * 
+     * @param now la date courante.
+     * @return les réservations à venir ou en cours.
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public List<Reservation> getActiveReservations(Timestamp now) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	List<Reservation> result = new ArrayList<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_ACTIVE_RESERVATIONS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setTimestamp(1, now);
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		Reservation reservation = new Reservation();
+		reservation.setId(rs.getInt(1));
+		reservation.setVehicleRegNumber(rs.getString(2));
+		reservation.setParkingType(ParkingType.valueOf(rs.getString(3)));
+		reservation.setStartTimestamp(rs.getTimestamp(4));
+		reservation.setEndTimestamp(rs.getTimestamp(5));
+		result.add(reservation);
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching active reservations", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
+    }
+
+    /**
+     * Permet d'indiquer qu'une réservation a été utilisée par l'entrée du
+     * véhicule.
+     * 
+     * @see DBConstants
+     * 
+     * @param reservation la réservation utilisée.
+     * @return true si la réservation a été mise à jour.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour.
+     */
+    public boolean claimReservation(Reservation reservation) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.CLAIM_RESERVATION);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setInt(1, reservation.getId());
+	    return ps.executeUpdate() == 1;
+	} catch (Exception ex) {
+	    logger.error("Error claiming reservation", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+}
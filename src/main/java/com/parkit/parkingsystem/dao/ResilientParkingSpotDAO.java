@@ -0,0 +1,54 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+/**
+ * La classe ResilientParkingSpotDAO attribue et met à jour les places de
+ * parking au travers de l'OfflineBuffer, afin que la borne reste disponible
+ * quand la base de donnée est lente ou indisponible.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ResilientParkingSpotDAO extends ParkingSpotDAO {
+
+    private final OfflineBuffer offlineBuffer;
+
+    /**
+     * 
+     * @param offlineBuffer le tampon des écritures en attente du parking.
+     */
+    public ResilientParkingSpotDAO(OfflineBuffer offlineBuffer) {
+	this.offlineBuffer = offlineBuffer;
+    }
+
+    /**
+     * Les ParkingSpotListener sont prévenus par le ParkingSpotDAO de l'OfflineBuffer,
+     * une fois les écritures en attente rejouées en base de donnée.
+     */
+    @Override
+    public void addParkingSpotListener(ParkingSpotListener parkingSpotListener) {
+	offlineBuffer.getParkingSpotDAO().addParkingSpotListener(parkingSpotListener);
+    }
+
+    @Override
+    public int getNextAvailableSlot(ParkingType parkingType) throws Exception {
+	return offlineBuffer.getNextAvailableSlot(parkingType);
+    }
+
+    @Override
+    public ParkingType getParkingType(int parkingNumber) throws Exception {
+	return offlineBuffer.getParkingType(parkingNumber);
+    }
+
+    @Override
+    public boolean updateParking(ParkingSpot parkingSpot, boolean available) throws Exception {
+	return offlineBuffer.updateParking(parkingSpot, available);
+    }
+
+    @Override
+    public boolean claimLeasedSpot(ParkingSpot parkingSpot, String gateId) throws Exception {
+	return offlineBuffer.claimLeasedSpot(parkingSpot, gateId);
+    }
+}
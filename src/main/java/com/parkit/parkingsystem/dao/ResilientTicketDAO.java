@@ -0,0 +1,44 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * La classe ResilientTicketDAO enregistre et met à jour les tickets au travers
+ * de l'OfflineBuffer, afin que la borne reste disponible quand la base de
+ * donnée est lente ou indisponible.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ResilientTicketDAO extends TicketDAO {
+
+    private final OfflineBuffer offlineBuffer;
+
+    /**
+     * 
+     * @param offlineBuffer le tampon des écritures en attente du parking.
+     */
+    public ResilientTicketDAO(OfflineBuffer offlineBuffer) {
+	this.offlineBuffer = offlineBuffer;
+    }
+
+    @Override
+    public Ticket saveTicket(Ticket ticket) throws Exception {
+	return offlineBuffer.saveTicket(ticket);
+    }
+
+    @Override
+    public Ticket getTicket(String vehicleRegNumber) throws Exception {
+	return offlineBuffer.getTicket(vehicleRegNumber);
+    }
+
+    @Override
+    public boolean updateTicket(Ticket ticket) throws Exception {
+	return offlineBuffer.updateTicket(ticket);
+    }
+
+    @Override
+    public boolean getTicketUserPresentInDB(String vehicleRegNumber) throws Exception {
+	return offlineBuffer.getTicketUserPresentInDB(vehicleRegNumber);
+    }
+}
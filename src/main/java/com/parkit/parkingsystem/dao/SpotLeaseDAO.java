@@ -0,0 +1,223 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe SpotLeaseDAO permet de communiquer avec la base de donnée afin de
+ * louer des blocs de places de parking à chaque borne. Une place louée ne peut
+ * être attribuée que par la borne qui la loue, jusqu'à l'expiration de la
+ * location.
+ * 
+ * @author Dylan
+ * 
+ */
+public class SpotLeaseDAO {
+
+    private static final Logger logger = LogManager.getLogger("SpotLeaseDAO");
+    /*
+     * DataBaseConfig est la configuration qui permet la connection à la base de
+     * donnée.
+     */
+    public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+    /**
+     * Permet de supprimer les locations expirées, les places redeviennent
+     * disponibles pour toutes les bornes.
+     * 
+     * @param now la date courante.
+     * @return le nombre de locations supprimées.
+     * @throws Exception si une erreur est rencontrée lors de la suppression.
+     */
+    public int deleteExpiredLeases(Timestamp now) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.DELETE_EXPIRED_SPOT_LEASES);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setTimestamp(1, now);
+	    return ps.executeUpdate();
+	} catch (Exception ex) {
+	    logger.error("Error deleting expired spot leases", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+
+    /**
+     * Permet de prolonger toutes les locations d'une borne.
+     * 
+     * @param gateId la borne.
+     * @param expiry la nouvelle date d'expiration.
+     * @return le nombre de locations prolongées.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour.
+     */
+    public int renewLeases(String gateId, Timestamp expiry) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.RENEW_SPOT_LEASES);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setTimestamp(1, expiry);
+	    ps.setString(2, gateId);
+	    return ps.executeUpdate();
+	} catch (Exception ex) {
+	    logger.error("Error renewing spot leases", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+
+    /**
+     * Permet de récupérer les places disponibles qui ne sont louées par aucune
+     * borne, par numéro croissant.
+     * 
+     * @param parkingType le type de véhicule.
+     * @param maxSpots    le nombre maximum de places à récupérer.
+     * @return les numéros des places.
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public List<Integer> getUnleasedAvailableSpots(ParkingType parkingType, int maxSpots) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	List<Integer> result = new ArrayList<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_UNLEASED_PARKING_SPOTS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setMaxRows(maxSpots);
+	    ps.setString(1, parkingType.toString());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		result.add(rs.getInt(1));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching unleased parking spots", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
+    }
+
+    /**
+     * Permet de louer une place à une borne.
+     * 
+     * @param parkingNumber le numéro de la place.
+     * @param gateId        la borne.
+     * @param expiry        la date d'expiration de la location.
+     * @return true si la place est louée, false si une autre borne l'a louée
+     *         entre-temps.
+     * @throws Exception si une erreur est rencontrée lors de l'enregistrement.
+     */
+    public boolean saveLease(int parkingNumber, String gateId, Timestamp expiry) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.SAVE_SPOT_LEASE);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setInt(1, parkingNumber);
+	    ps.setString(2, gateId);
+	    ps.setTimestamp(3, expiry);
+	    ps.execute();
+	    return true;
+	} catch (SQLIntegrityConstraintViolationException ex) {
+	    return false;
+	} catch (Exception ex) {
+	    logger.error("Error saving spot lease", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+
+    /**
+     * Permet de récupérer les places disponibles louées, avec la borne qui les
+     * loue.
+     * 
+     * @param parkingType le type de véhicule.
+     * @return la borne de chaque place louée, par numéro de place croissant.
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public Map<Integer, String> getLeasedAvailableSpots(ParkingType parkingType) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	Map<Integer, String> result = new LinkedHashMap<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_LEASED_PARKING_SPOTS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setString(1, parkingType.toString());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		result.put(rs.getInt(1), rs.getString(2));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching leased parking spots", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
+    }
+
+    /**
+     * Permet de transférer la location d'une place d'une borne à une autre.
+     * 
+     * @param parkingNumber le numéro de la place.
+     * @param fromGateId    la borne qui loue actuellement la place.
+     * @param toGateId      la borne qui reprend la location.
+     * @param expiry        la date d'expiration de la location.
+     * @return true si la location est transférée, false si la place n'est plus
+     *         louée par fromGateId.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour.
+     */
+    public boolean transferLease(int parkingNumber, String fromGateId, String toGateId, Timestamp expiry)
+	    throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.TRANSFER_SPOT_LEASE);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setString(1, toGateId);
+	    ps.setTimestamp(2, expiry);
+	    ps.setInt(3, parkingNumber);
+	    ps.setString(4, fromGateId);
+	    return ps.executeUpdate() == 1;
+	} catch (Exception ex) {
+	    logger.error("Error transferring spot lease", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+}
@@ -2,7 +2,7 @@ package com.parkit.parkingsystem.dao;
 
 import com.parkit.parkingsystem.config.DataBaseConfig;
 import com.parkit.parkingsystem.constants.DBConstants;
-import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.jfr.DaoCallEvent;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import com.parkit.parkingsystem.model.Ticket;
 import org.apache.logging.log4j.LogManager;
@@ -19,7 +19,7 @@ import java.sql.Timestamp;
  * d'un ticket.
  * 
  * @author Dylan
- *
+ * 
  */
 public class TicketDAO {
 
@@ -29,6 +29,11 @@ public class TicketDAO {
      * donnée.
      */
     public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+    /*
+     * Le catalogue des places du parking, créé à la première lecture d'un ticket
+     * s'il n'est pas fourni par le FacilityRouter.
+     */
+    public ParkingSpotCatalog parkingSpotCatalog;
 
     /**
      * Permet de sauvegarder un ticket dans la base de donnée.
@@ -46,11 +51,15 @@ public class TicketDAO {
      * @throws Exception si une erreur lors de la sauvegarde du ticket.
      */
     public Ticket saveTicket(Ticket ticket) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("TicketDAO", "saveTicket");
+	event.begin();
 	Connection con = null;
 	PreparedStatement ps = null;
+	int rows = 0;
 	try {
 	    con = dataBaseConfig.getConnection();
 	    ps = con.prepareStatement(DBConstants.SAVE_TICKET);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
 
 	    ps.setInt(1, ticket.getParkingSpot().getId());
 	    ps.setString(2, ticket.getVehicleRegNumber());
@@ -59,11 +68,14 @@ public class TicketDAO {
 	    ps.setTimestamp(5,
 		    (ticket.getOutTimestamp() == null) ? null : (new Timestamp(ticket.getOutTimestamp().getTime())));
 	    ps.execute();
+	    rows = 1;
 	} catch (Exception ex) {
 	    logger.error("Error fetching next available slot", ex);
+	    throw ex;
 	} finally {
 	    dataBaseConfig.closePreparedStatement(ps);
 	    dataBaseConfig.closeConnection(con);
+	    event.record(ticket.getVehicleRegNumber(), ticket.getParkingSpot(), rows);
 	}
 	return ticket;
     }
@@ -74,49 +86,77 @@ public class TicketDAO {
      * Connexion à la base de donnée. PrepareStatement avec la requête SQL
      * get_ticket présente dans la DBConstants. Prépare la requête de recherche avec
      * le numéro d'immatriculation. Récupère les informations du ticket lié au
-     * numéro d'immatriculation. Indique sur le ticket les informations du parking
-     * avec le numéro et le type de véhicule, l'ID généré par la base de donnée, la
-     * plaque d'immatriculation, le prix à payer, le temps d'entrée ainsi que le
-     * temps de sortie. Une erreur si le ticket n'est pas trouvé. Ferme les
-     * connections dans le finally afin de s'assurer de l'exécution de celles-ci.
+     * numéro d'immatriculation. Indique sur le ticket la place partagée du
+     * ParkingSpotCatalog, sans jointure avec la table parking, l'ID généré par la
+     * base de donnée, la plaque d'immatriculation, le prix à payer, le temps
+     * d'entrée ainsi que le temps de sortie. La même requête indique si le
+     * véhicule avait déjà un ticket terminé, pour la réduction fidélité. Un
+     * ticket vide, sans place ni heure d'entrée, si aucun ticket n'est trouvé.
+     * Ferme les connections dans le finally afin de s'assurer de
+     * l'exécution de celles-ci.
      * 
      * @see DBConstants
      * 
      * @param vehicleRegNumber le numéro d'immatriculation du véhicule.
-     * @return le ticket avec toutes les informations.
+     * @return le ticket avec toutes les informations, vide si le véhicule n'est
+     *         jamais venu.
      * @throws Exception si une erreur est rencontrée lors de la recherche du
      *                   ticket.
      */
     public Ticket getTicket(String vehicleRegNumber) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("TicketDAO", "getTicket");
+	event.begin();
 	Connection con = null;
 	PreparedStatement ps = null;
 	ResultSet rs = null;
 	Ticket ticket = new Ticket();
+	int parkingNumber = 0;
 	try {
 	    con = dataBaseConfig.getConnection();
 	    ps = con.prepareStatement(DBConstants.GET_TICKET, ResultSet.TYPE_SCROLL_SENSITIVE,
 		    ResultSet.CONCUR_READ_ONLY);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
 	    ps.setString(1, vehicleRegNumber);
+	    ps.setString(2, vehicleRegNumber);
 	    rs = ps.executeQuery();
 	    if (rs.last()) {
-		ParkingSpot parkingSpot = new ParkingSpot(rs.getInt(2), ParkingType.valueOf(rs.getString(6)), false);
+		parkingNumber = rs.getInt(2);
 		ticket.setId(rs.getInt(1));
-		ticket.setParkingSpot(parkingSpot);
+		ticket.setFacilityId(dataBaseConfig.getFacilityId());
 		ticket.setVehicleRegNumber(vehicleRegNumber);
 		ticket.setPrice(rs.getDouble(3));
 		ticket.setInTimestamp(rs.getTimestamp(4));
 		ticket.setOutTimestamp(rs.getTimestamp(5));
+		// Un ticket déjà terminé est compté parmi les tickets terminés.
+		ticket.setRecurringUser(rs.getInt(6) > (ticket.getOutTimestamp() == null ? 0 : 1));
 	    }
 	} catch (Exception ex) {
 	    logger.error("Error unable to retrieve the ticket corresponding to the registration number", ex);
+	    throw ex;
 	} finally {
 	    dataBaseConfig.closeResultSet(rs);
 	    dataBaseConfig.closePreparedStatement(ps);
 	    dataBaseConfig.closeConnection(con);
+	    event.record(vehicleRegNumber, null, parkingNumber, parkingNumber > 0 ? 1 : 0);
+	}
+	if (parkingNumber > 0) {
+	    // La connexion est rendue avant un éventuel chargement du catalogue.
+	    ParkingSpot parkingSpot = getParkingSpotCatalog().getParkingSpot(parkingNumber);
+	    if (parkingSpot == null) {
+		throw new IllegalStateException("Unknown parking spot " + parkingNumber);
+	    }
+	    ticket.setParkingSpot(parkingSpot);
 	}
 	return ticket;
     }
 
+    private ParkingSpotCatalog getParkingSpotCatalog() {
+	if (parkingSpotCatalog == null) {
+	    parkingSpotCatalog = new ParkingSpotCatalog(dataBaseConfig);
+	}
+	return parkingSpotCatalog;
+    }
+
     /**
      * Permet de mettre à jour un ticket.
      * 
@@ -127,9 +167,10 @@ public class TicketDAO {
      * échoue. Ferme les connections dans le finally afin de s'assurer de
      * l'exécutions de celles-ci. Si les deux informations sont bien à jour alors
      * true est indiqué, sinon il renvoie false pour indiquer que la mise à jour ne
-     * s'est pas faite.
+     * s'est pas faite. Dans une transaction l'erreur est propagée afin que la
+     * transaction soit annulée.
+     * 
      * 
-     *
      * @see DBConstants
      * 
      * @param ticket le ticket de l'utilisateur retrouvé en base de donnée avec le
@@ -139,22 +180,30 @@ public class TicketDAO {
      *                   ticket.
      */
     public boolean updateTicket(Ticket ticket) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("TicketDAO", "updateTicket");
+	event.begin();
 	Connection con = null;
 	PreparedStatement ps = null;
+	int rows = 0;
 	try {
 	    con = dataBaseConfig.getConnection();
 	    ps = con.prepareStatement(DBConstants.UPDATE_TICKET);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
 	    ps.setDouble(1, ticket.getPrice());
 	    ps.setTimestamp(2, ticket.getOutTimestamp());
 	    ps.setInt(3, ticket.getId());
-	    ps.executeUpdate();
+	    rows = ps.executeUpdate();
 	    return true;
 	} catch (Exception ex) {
 	    logger.error("Error saving ticket info", ex);
+	    if (dataBaseConfig.isInTransaction()) {
+		throw ex;
+	    }
 	    return false;
 	} finally {
 	    dataBaseConfig.closePreparedStatement(ps);
 	    dataBaseConfig.closeConnection(con);
+	    event.record(ticket.getVehicleRegNumber(), ticket.getParkingSpot(), rows);
 	}
 
     }
@@ -170,7 +219,8 @@ public class TicketDAO {
      * d'immatriculation. Si il y a au moins une ligne de trouvée cela renvoie true
      * pour confirmer que l'utilisateur est bien présent. Une erreur si la recherche
      * échoue. Ferme les connections dans le finally afin de s'assurer de
-     * l'exécution de celles-ci.
+     * l'exécution de celles-ci. Cette lecture non critique peut être faite sur un
+     * réplica.
      * 
      * @see DBConstants
      * 
@@ -181,14 +231,17 @@ public class TicketDAO {
      */
 
     public boolean getTicketUserPresentInDB(String vehicleRegNumber) throws Exception {
+	DaoCallEvent event = new DaoCallEvent("TicketDAO", "getTicketUserPresentInDB");
+	event.begin();
 	Connection con = null;
 	PreparedStatement ps = null;
 	ResultSet rs = null;
 	boolean result = false;
 	int numberRow = -1;
 	try {
-	    con = dataBaseConfig.getConnection();
+	    con = dataBaseConfig.getReadConnection();
 	    ps = con.prepareStatement(DBConstants.GET_VEHICLE_REG_NUMBER);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
 	    ps.setString(1, vehicleRegNumber);
 	    rs = ps.executeQuery();
 
@@ -203,12 +256,87 @@ public class TicketDAO {
 	} catch (Exception ex) {
 	    logger.error("Error when looking for an old ticket", ex);
 
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	    event.record(vehicleRegNumber, null, 0, numberRow >= 0 ? 1 : 0);
+	}
+	return result;
+
+    }
+
+    /**
+     * Permet de compter les tickets en cours, c'est à dire les véhicules présents
+     * dans le parking. Cette lecture non critique peut être faite sur un réplica.
+     * 
+     * Connexion à la base de donnée. PreparedStatement avec la requête SQL
+     * COUNT_OPEN_TICKETS présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @return le nombre de tickets sans temps de sortie.
+     * @throws Exception si une erreur est rencontrée lors de la recherche.
+     */
+    public int countOpenTickets() throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	int result = 0;
+	try {
+	    con = dataBaseConfig.getReadConnection();
+	    ps = con.prepareStatement(DBConstants.COUNT_OPEN_TICKETS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    rs = ps.executeQuery();
+	    if (rs.next()) {
+		result = rs.getInt(1);
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error counting open tickets", ex);
+	    throw ex;
 	} finally {
 	    dataBaseConfig.closeResultSet(rs);
 	    dataBaseConfig.closePreparedStatement(ps);
 	    dataBaseConfig.closeConnection(con);
 	}
 	return result;
+    }
 
+    /**
+     * Permet de compter les tickets en cours sur une place de parking, afin de
+     * détecter une place attribuée deux fois.
+     * 
+     * Connexion à la base de donnée. PreparedStatement avec la requête SQL
+     * COUNT_OPEN_TICKETS_FOR_SPOT présente dans la DBConstants.
+     * 
+     * @see DBConstants
+     * 
+     * @param parkingNumber le numéro de la place de parking.
+     * @return le nombre de tickets sans temps de sortie sur cette place.
+     * @throws Exception si une erreur est rencontrée lors de la recherche.
+     */
+    public int countOpenTicketsForSpot(int parkingNumber) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	int result = 0;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.COUNT_OPEN_TICKETS_FOR_SPOT);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setInt(1, parkingNumber);
+	    rs = ps.executeQuery();
+	    if (rs.next()) {
+		result = rs.getInt(1);
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error counting open tickets for parking spot", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
     }
 }
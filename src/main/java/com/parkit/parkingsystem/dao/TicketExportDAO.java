@@ -0,0 +1,85 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+/**
+ * La classe TicketExportDAO permet de lire l'historique des tickets pour
+ * l'export. Les tickets sont lus avec un curseur en avant seulement, par
+ * paquets de FETCH_SIZE lignes, et transmis un à un au TicketExportHandler :
+ * la mémoire utilisée ne dépend pas du nombre de tickets.
+ * 
+ * Avec MySQL, l'url JDBC doit contenir useCursorFetch=true, sans quoi le driver
+ * charge tout le résultat en mémoire avant de renvoyer la première ligne.
+ * 
+ * @author Dylan
+ * 
+ */
+public class TicketExportDAO {
+
+    private static final Logger logger = LogManager.getLogger("TicketExportDAO");
+    private static final int FETCH_SIZE = 1000;
+    /*
+     * DataBaseConfig est la configuration qui permet la connection à la base de
+     * donnée.
+     */
+    public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+    /**
+     * Permet de lire les tickets sortis après from et au plus tard à to, par date
+     * de sortie croissante. La lecture se fait sur la connexion de lecture, sans
+     * limite de temps.
+     * 
+     * @param from    la date de sortie après laquelle les tickets sont lus.
+     * @param to      la dernière date de sortie lue.
+     * @param handler le destinataire des tickets.
+     * @return le nombre de tickets lus.
+     * @throws Exception si une erreur est rencontrée lors de la lecture ou de
+     *                   l'écriture d'un ticket.
+     */
+    public long exportTickets(Timestamp from, Timestamp to, TicketExportHandler handler) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	long count = 0;
+	try {
+	    con = dataBaseConfig.getReadConnection();
+	    ps = con.prepareStatement(DBConstants.EXPORT_TICKETS, ResultSet.TYPE_FORWARD_ONLY,
+		    ResultSet.CONCUR_READ_ONLY);
+	    ps.setFetchSize(FETCH_SIZE);
+	    ps.setTimestamp(1, from);
+	    ps.setTimestamp(2, to);
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		Ticket ticket = new Ticket();
+		ticket.setId(rs.getInt(1));
+		ticket.setParkingSpot(new ParkingSpot(rs.getInt(2), ParkingType.valueOf(rs.getString(3)), false));
+		ticket.setVehicleRegNumber(rs.getString(4));
+		ticket.setPrice(rs.getDouble(5));
+		ticket.setInTimestamp(rs.getTimestamp(6));
+		ticket.setOutTimestamp(rs.getTimestamp(7));
+		ticket.setFacilityId(dataBaseConfig.getFacilityId());
+		handler.onTicket(ticket);
+		count++;
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error exporting tickets", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return count;
+    }
+}
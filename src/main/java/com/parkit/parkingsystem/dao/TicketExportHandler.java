@@ -0,0 +1,24 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.io.IOException;
+
+/**
+ * L'interface TicketExportHandler reçoit un à un les tickets lus par le
+ * TicketExportDAO, sans que l'ensemble des tickets ne soit gardé en mémoire.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface TicketExportHandler {
+
+    /**
+     * Appelée pour chaque ticket, dans l'ordre des dates de sortie.
+     * 
+     * @param ticket le ticket, avec le type de sa place.
+     * @throws IOException si le ticket ne peut pas être écrit, la lecture est
+     *                     alors interrompue.
+     */
+    void onTicket(Ticket ticket) throws IOException;
+}
@@ -0,0 +1,182 @@
+package com.parkit.parkingsystem.dao;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.model.Ticket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * La classe TicketImportDAO permet d'enregistrer en masse les tickets importés
+ * depuis un fichier. Chaque lot de tickets est inséré par des requêtes de
+ * plusieurs lignes, dans une seule transaction qui enregistre aussi les lignes
+ * du fichier traitées : un import interrompu reprend après les lots déjà
+ * enregistrés, sans doublon.
+ * 
+ * @author Dylan
+ * 
+ */
+public class TicketImportDAO {
+
+    private static final Logger logger = LogManager.getLogger("TicketImportDAO");
+    private static final int ROWS_PER_STATEMENT = 100;
+    /*
+     * DataBaseConfig est la configuration qui permet la connection à la base de
+     * donnée.
+     */
+    public DataBaseConfig dataBaseConfig = new DataBaseConfig();
+
+    /**
+     * Permet de récupérer les numéros des places du parking.
+     * 
+     * @return les numéros des places.
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public Set<Integer> getParkingNumbers() throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	Set<Integer> result = new HashSet<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_PARKING_NUMBERS);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		result.add(rs.getInt(1));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching parking numbers", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
+    }
+
+    /**
+     * Permet de récupérer les lignes d'un fichier déjà importées.
+     * 
+     * @param source le nom du fichier.
+     * @return la dernière ligne de chaque lot importé, par première ligne.
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public NavigableMap<Long, Long> getImportedRanges(String source) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	ResultSet rs = null;
+	NavigableMap<Long, Long> result = new TreeMap<>();
+	try {
+	    con = dataBaseConfig.getConnection();
+	    ps = con.prepareStatement(DBConstants.GET_TICKET_IMPORT_RANGES);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setString(1, source);
+	    rs = ps.executeQuery();
+	    while (rs.next()) {
+		result.put(rs.getLong(1), rs.getLong(2));
+	    }
+	} catch (Exception ex) {
+	    logger.error("Error fetching imported ranges", ex);
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closeResultSet(rs);
+	    dataBaseConfig.closePreparedStatement(ps);
+	    dataBaseConfig.closeConnection(con);
+	}
+	return result;
+    }
+
+    /**
+     * Permet d'enregistrer un lot de tickets et les lignes du fichier dont il est
+     * issu, dans une seule transaction.
+     * 
+     * @param source    le nom du fichier.
+     * @param firstLine la première ligne du lot.
+     * @param lastLine  la dernière ligne du lot.
+     * @param tickets   les tickets valides du lot.
+     * @throws Exception si une erreur est rencontrée lors de l'enregistrement,
+     *                   aucun ticket du lot n'est alors enregistré.
+     */
+    public void saveTickets(String source, long firstLine, long lastLine, List<Ticket> tickets) throws Exception {
+	Connection con = null;
+	PreparedStatement ps = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    con.setAutoCommit(false);
+	    int fullStatements = tickets.size() / ROWS_PER_STATEMENT;
+	    if (fullStatements > 0) {
+		ps = con.prepareStatement(saveTicketsStatement(ROWS_PER_STATEMENT));
+		ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+		for (int i = 0; i < fullStatements; i++) {
+		    setTickets(ps, tickets.subList(i * ROWS_PER_STATEMENT, (i + 1) * ROWS_PER_STATEMENT));
+		    ps.addBatch();
+		}
+		ps.executeBatch();
+		dataBaseConfig.closePreparedStatement(ps);
+		ps = null;
+	    }
+	    List<Ticket> remaining = tickets.subList(fullStatements * ROWS_PER_STATEMENT, tickets.size());
+	    if (!remaining.isEmpty()) {
+		ps = con.prepareStatement(saveTicketsStatement(remaining.size()));
+		ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+		setTickets(ps, remaining);
+		ps.execute();
+		dataBaseConfig.closePreparedStatement(ps);
+		ps = null;
+	    }
+	    ps = con.prepareStatement(DBConstants.SAVE_TICKET_IMPORT_RANGE);
+	    ps.setQueryTimeout(dataBaseConfig.getQueryTimeout());
+	    ps.setString(1, source);
+	    ps.setLong(2, firstLine);
+	    ps.setLong(3, lastLine);
+	    ps.setInt(4, tickets.size());
+	    ps.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+	    ps.execute();
+	    con.commit();
+	} catch (Exception ex) {
+	    logger.error("Error saving imported tickets", ex);
+	    if (con != null) {
+		con.rollback();
+	    }
+	    throw ex;
+	} finally {
+	    dataBaseConfig.closePreparedStatement(ps);
+	    if (con != null) {
+		con.setAutoCommit(true);
+	    }
+	    dataBaseConfig.closeConnection(con);
+	}
+    }
+
+    // La requête SAVE_TICKET, répétée pour enregistrer plusieurs tickets.
+    private static String saveTicketsStatement(int rows) {
+	StringBuilder statement = new StringBuilder(DBConstants.SAVE_TICKET);
+	for (int i = 1; i < rows; i++) {
+	    statement.append(",(?,?,?,?,?)");
+	}
+	return statement.toString();
+    }
+
+    private static void setTickets(PreparedStatement ps, List<Ticket> tickets) throws Exception {
+	int index = 1;
+	for (Ticket ticket : tickets) {
+	    ps.setInt(index++, ticket.getParkingSpot().getId());
+	    ps.setString(index++, ticket.getVehicleRegNumber());
+	    ps.setDouble(index++, ticket.getPrice());
+	    ps.setTimestamp(index++, ticket.getInTimestamp());
+	    ps.setTimestamp(index++, ticket.getOutTimestamp());
+	}
+    }
+}
@@ -0,0 +1,86 @@
+package com.parkit.parkingsystem.jfr;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * L'évènement JFR d'un appel à ParkingSpotDAO ou TicketDAO, avec sa durée et
+ * le nombre de lignes lues ou modifiées.
+ * 
+ * @author Dylan
+ * 
+ */
+@Name("com.parkit.parkingsystem.DaoCall")
+@Label("DAO Call")
+@Category({ "Parkit", "Database" })
+@Description("Appel d'un DAO du parking")
+@StackTrace(false)
+@Enabled(false)
+public class DaoCallEvent extends jdk.jfr.Event {
+
+    @Label("DAO")
+    String dao;
+    @Label("Operation")
+    String operation;
+    @Label("Plate Hash")
+    String plateHash;
+    @Label("Parking Type")
+    String parkingType;
+    @Label("Spot Number")
+    int spotNumber;
+    @Label("Rows")
+    @Description("Nombre de lignes lues ou modifiées")
+    int rows;
+
+    /**
+     * 
+     * @param dao       le nom du DAO.
+     * @param operation la méthode appelée.
+     */
+    public DaoCallEvent(String dao, String operation) {
+	this.dao = dao;
+	this.operation = operation;
+    }
+
+    /**
+     * Termine l'appel et l'enregistre si l'évènement est actif. Les champs ne sont
+     * calculés qu'alors, un enregistrement arrêté ne coûte donc rien.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation, ou null.
+     * @param type             le type de place, ou null.
+     * @param parkingNumber    le numéro de la place, ou 0.
+     * @param rowCount         le nombre de lignes lues ou modifiées.
+     */
+    public void record(String vehicleRegNumber, ParkingType type, int parkingNumber, int rowCount) {
+	end();
+	if (shouldCommit()) {
+	    plateHash = PlateHash.of(vehicleRegNumber);
+	    parkingType = type == null ? null : type.name();
+	    spotNumber = parkingNumber;
+	    rows = rowCount;
+	    commit();
+	}
+    }
+
+    /**
+     * Termine l'appel portant sur une place et l'enregistre si l'évènement est
+     * actif.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation, ou null.
+     * @param parkingSpot      la place, ou null.
+     * @param rowCount         le nombre de lignes lues ou modifiées.
+     */
+    public void record(String vehicleRegNumber, ParkingSpot parkingSpot, int rowCount) {
+	if (parkingSpot == null) {
+	    record(vehicleRegNumber, null, 0, rowCount);
+	} else {
+	    record(vehicleRegNumber, parkingSpot.getParkingType(), parkingSpot.getId(), rowCount);
+	}
+    }
+}
@@ -0,0 +1,61 @@
+package com.parkit.parkingsystem.jfr;
+
+import com.parkit.parkingsystem.model.Ticket;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * L'évènement JFR du calcul du prix d'un ticket par le FareCalculatorService.
+ * 
+ * @author Dylan
+ * 
+ */
+@Name("com.parkit.parkingsystem.FareCalculation")
+@Label("Fare Calculation")
+@Category({ "Parkit", "Pricing" })
+@Description("Calcul du prix d'un ticket")
+@StackTrace(false)
+@Enabled(false)
+public class FareCalculationEvent extends jdk.jfr.Event {
+
+    @Label("Plate Hash")
+    String plateHash;
+    @Label("Parking Type")
+    String parkingType;
+    @Label("Spot Number")
+    int spotNumber;
+    @Label("Parked Duration")
+    @Timespan(Timespan.MILLISECONDS)
+    long parkedMillis;
+    @Label("Price")
+    double price;
+    @Label("Recurring User")
+    boolean recurringUser;
+
+    /**
+     * Termine le calcul et l'enregistre si l'évènement est actif.
+     * 
+     * @param ticket le ticket dont le prix vient d'être calculé.
+     */
+    public void record(Ticket ticket) {
+	end();
+	if (shouldCommit()) {
+	    plateHash = PlateHash.of(ticket.getVehicleRegNumber());
+	    if (ticket.getParkingSpot() != null) {
+		parkingType = ticket.getParkingSpot().getParkingType().name();
+		spotNumber = ticket.getParkingSpot().getId();
+	    }
+	    if (ticket.getOutTimestamp() != null) {
+		parkedMillis = ticket.getOutTimestamp().getTime() - ticket.getInTimestamp().getTime();
+	    }
+	    price = ticket.getPrice();
+	    recurringUser = ticket.isRecurringUser();
+	    commit();
+	}
+    }
+}
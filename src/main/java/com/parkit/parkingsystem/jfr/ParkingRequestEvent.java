@@ -0,0 +1,69 @@
+package com.parkit.parkingsystem.jfr;
+
+import com.parkit.parkingsystem.model.Ticket;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * L'évènement JFR d'une entrée ou d'une sortie de véhicule, de la saisie à
+ * l'envoi des messages.
+ * 
+ * @author Dylan
+ * 
+ */
+@Name("com.parkit.parkingsystem.ParkingRequest")
+@Label("Parking Request")
+@Category({ "Parkit", "Gate" })
+@Description("Entrée ou sortie d'un véhicule")
+@StackTrace(false)
+@Enabled(false)
+public class ParkingRequestEvent extends jdk.jfr.Event {
+
+    @Label("Request")
+    @Description("entry ou exit")
+    String request;
+    @Label("Plate Hash")
+    String plateHash;
+    @Label("Parking Type")
+    String parkingType;
+    @Label("Spot Number")
+    int spotNumber;
+    @Label("Price")
+    double price;
+    @Label("Succeeded")
+    boolean succeeded;
+
+    /**
+     * 
+     * @param request le nom de la requête, entry ou exit.
+     */
+    public ParkingRequestEvent(String request) {
+	this.request = request;
+    }
+
+    /**
+     * Termine la requête et l'enregistre si l'évènement est actif.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation, ou null si elle n'a pas
+     *                         été saisie.
+     * @param ticket           le ticket enregistré, ou null si la requête a
+     *                         échoué.
+     */
+    public void record(String vehicleRegNumber, Ticket ticket) {
+	end();
+	if (shouldCommit()) {
+	    plateHash = PlateHash.of(vehicleRegNumber);
+	    if (ticket != null && ticket.getParkingSpot() != null) {
+		parkingType = ticket.getParkingSpot().getParkingType().name();
+		spotNumber = ticket.getParkingSpot().getId();
+		price = ticket.getPrice();
+	    }
+	    succeeded = ticket != null;
+	    commit();
+	}
+    }
+}
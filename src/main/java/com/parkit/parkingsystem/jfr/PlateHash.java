@@ -0,0 +1,43 @@
+package com.parkit.parkingsystem.jfr;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * La classe PlateHash remplace la plaque d'immatriculation dans les évènements
+ * JFR : les enregistrements sortent des serveurs de production, la plaque n'y
+ * figure donc pas en clair. Les 8 premiers octets du SHA-256 suffisent pour
+ * suivre un même véhicule d'un évènement à l'autre.
+ * 
+ * @author Dylan
+ * 
+ */
+public final class PlateHash {
+
+    private PlateHash() {
+    }
+
+    /**
+     * Calcule l'empreinte d'une plaque d'immatriculation.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation, ou null.
+     * @return l'empreinte en hexadécimal, ou null si la plaque est null.
+     */
+    public static String of(String vehicleRegNumber) {
+	if (vehicleRegNumber == null) {
+	    return null;
+	}
+	try {
+	    byte[] digest = MessageDigest.getInstance("SHA-256")
+		    .digest(vehicleRegNumber.getBytes(StandardCharsets.UTF_8));
+	    StringBuilder hash = new StringBuilder(16);
+	    for (int i = 0; i < 8; i++) {
+		hash.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+	    }
+	    return hash.toString();
+	} catch (NoSuchAlgorithmException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+}
@@ -0,0 +1,50 @@
+package com.parkit.parkingsystem.jfr;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.service.SpotAllocationStrategy;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * L'évènement JFR du choix d'une place par la SpotAllocationStrategy.
+ * 
+ * @author Dylan
+ * 
+ */
+@Name("com.parkit.parkingsystem.SpotAllocation")
+@Label("Spot Allocation")
+@Category({ "Parkit", "Allocation" })
+@Description("Choix d'une place libre")
+@StackTrace(false)
+@Enabled(false)
+public class SpotAllocationEvent extends jdk.jfr.Event {
+
+    @Label("Strategy")
+    String strategy;
+    @Label("Parking Type")
+    String parkingType;
+    @Label("Spot Number")
+    @Description("La place choisie, 0 ou moins si le parking est complet")
+    int spotNumber;
+
+    /**
+     * Termine le choix et l'enregistre si l'évènement est actif.
+     * 
+     * @param allocationStrategy la stratégie ayant choisi la place.
+     * @param type               le type de place demandé.
+     * @param parkingNumber      la place choisie.
+     */
+    public void record(SpotAllocationStrategy allocationStrategy, ParkingType type, int parkingNumber) {
+	end();
+	if (shouldCommit()) {
+	    strategy = allocationStrategy.getClass().getSimpleName();
+	    parkingType = type.name();
+	    spotNumber = parkingNumber;
+	    commit();
+	}
+    }
+}
@@ -0,0 +1,49 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * La classe AvailabilityChange décrit le changement de disponibilité d'une
+ * place, avec le nombre de places encore libres pour son type d'emplacement.
+ * 
+ * @author Dylan
+ * 
+ */
+public final class AvailabilityChange {
+
+    private final ParkingType parkingType;
+    private final int parkingNumber;
+    private final boolean available;
+    private final int availableSpots;
+
+    /**
+     * 
+     * @param parkingType    le type d'emplacement.
+     * @param parkingNumber  le numéro de la place.
+     * @param available      true si la place vient d'être libérée, false si elle
+     *                       vient d'être occupée.
+     * @param availableSpots le nombre de places libres du type d'emplacement.
+     */
+    public AvailabilityChange(ParkingType parkingType, int parkingNumber, boolean available, int availableSpots) {
+	this.parkingType = parkingType;
+	this.parkingNumber = parkingNumber;
+	this.available = available;
+	this.availableSpots = availableSpots;
+    }
+
+    public ParkingType getParkingType() {
+	return parkingType;
+    }
+
+    public int getParkingNumber() {
+	return parkingNumber;
+    }
+
+    public boolean isAvailable() {
+	return available;
+    }
+
+    public int getAvailableSpots() {
+	return availableSpots;
+    }
+}
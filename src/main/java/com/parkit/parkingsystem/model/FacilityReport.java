@@ -0,0 +1,87 @@
+package com.parkit.parkingsystem.model;
+
+/**
+ * La classe FacilityReport regroupe l'état d'un parking (site) : l'occupation
+ * des places et le nombre de tickets en cours. Si le parking n'a pas pu être
+ * interrogé, le rapport contient le message d'erreur.
+ * 
+ * @author Dylan
+ * 
+ */
+public class FacilityReport {
+    private final int facilityId;
+    private ParkingOccupancy parkingOccupancy;
+    private int openTickets;
+    private String error;
+
+    /**
+     * 
+     * @param facilityId l'identifiant du parking.
+     */
+    public FacilityReport(int facilityId) {
+	this.facilityId = facilityId;
+    }
+
+    /**
+     * Récupère l'identifiant du parking.
+     * 
+     * @return l'identifiant du parking.
+     */
+    public int getFacilityId() {
+	return facilityId;
+    }
+
+    /**
+     * Récupère l'occupation des places du parking.
+     * 
+     * @return l'occupation des places, null si le parking n'a pas répondu.
+     */
+    public ParkingOccupancy getParkingOccupancy() {
+	return parkingOccupancy;
+    }
+
+    /**
+     * Initie l'occupation des places du parking.
+     * 
+     * @param parkingOccupancy l'occupation des places.
+     */
+    public void setParkingOccupancy(ParkingOccupancy parkingOccupancy) {
+	this.parkingOccupancy = parkingOccupancy;
+    }
+
+    /**
+     * Récupère le nombre de tickets en cours (véhicules présents).
+     * 
+     * @return le nombre de tickets en cours.
+     */
+    public int getOpenTickets() {
+	return openTickets;
+    }
+
+    /**
+     * Initie le nombre de tickets en cours (véhicules présents).
+     * 
+     * @param openTickets le nombre de tickets en cours.
+     */
+    public void setOpenTickets(int openTickets) {
+	this.openTickets = openTickets;
+    }
+
+    /**
+     * Récupère le message d'erreur si le parking n'a pas pu être interrogé.
+     * 
+     * @return le message d'erreur, null si le rapport est complet.
+     */
+    public String getError() {
+	return error;
+    }
+
+    /**
+     * Initie le message d'erreur si le parking n'a pas pu être interrogé.
+     * 
+     * @param error le message d'erreur.
+     */
+    public void setError(String error) {
+	this.error = error;
+    }
+}
@@ -0,0 +1,125 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.NotificationType;
+
+import java.sql.Timestamp;
+
+/**
+ * La classe Notification représente un message destiné à l'utilisateur, émis
+ * par les services lors de l'entrée ou de la sortie d'un véhicule. Le message
+ * n'est mis en forme qu'au moment de son affichage par le NotificationSink.
+ *
+ * @author Dylan
+ *
+ */
+public class Notification {
+    private final NotificationType type;
+    private final String vehicleRegNumber;
+    private final int parkingNumber;
+    private final double price;
+    private final Timestamp timestamp;
+
+    /**
+     *
+     * @param type             le type de message.
+     * @param vehicleRegNumber le numéro d'immatriculation concerné.
+     * @param parkingNumber    le numéro de la place de parking concernée.
+     * @param price            le prix du ticket.
+     * @param timestamp        le temps d'entrée ou de sortie enregistré.
+     */
+    public Notification(NotificationType type, String vehicleRegNumber, int parkingNumber, double price,
+	    Timestamp timestamp) {
+	this.type = type;
+	this.vehicleRegNumber = vehicleRegNumber;
+	this.parkingNumber = parkingNumber;
+	this.price = price;
+	this.timestamp = timestamp == null ? null : new Timestamp(timestamp.getTime());
+    }
+
+    /**
+     * Permet de créer un message sans information de ticket.
+     *
+     * @param type le type de message.
+     * @return le message.
+     */
+    public static Notification of(NotificationType type) {
+	return new Notification(type, null, 0, 0.0, null);
+    }
+
+    /**
+     * Récupère le type de message.
+     *
+     * @return le type de message.
+     */
+    public NotificationType getType() {
+	return type;
+    }
+
+    /**
+     * Récupère le numéro d'immatriculation concerné.
+     *
+     * @return le numéro d'immatriculation.
+     */
+    public String getVehicleRegNumber() {
+	return vehicleRegNumber;
+    }
+
+    /**
+     * Récupère le numéro de la place de parking concernée.
+     *
+     * @return le numéro de parking.
+     */
+    public int getParkingNumber() {
+	return parkingNumber;
+    }
+
+    /**
+     * Récupère le prix du ticket.
+     *
+     * @return le prix du ticket.
+     */
+    public double getPrice() {
+	return price;
+    }
+
+    /**
+     * Récupère le temps d'entrée ou de sortie enregistré.
+     *
+     * @return le temps enregistré.
+     */
+    public Timestamp getTimestamp() {
+	return timestamp == null ? null : new Timestamp(timestamp.getTime());
+    }
+
+    /**
+     * Met en forme le message à afficher à l'utilisateur.
+     *
+     * @return le texte du message.
+     */
+    public String getMessage() {
+	switch (type) {
+	case ENTRY_RECORDED:
+	    return "Generated Ticket and saved in DB" + System.lineSeparator()
+		    + "Please park your vehicle in spot number: " + parkingNumber + System.lineSeparator()
+		    + "Recorded in-time for vehicle number: " + vehicleRegNumber + " is: " + timestamp;
+	case RECURRING_USER:
+	    return "You have already come at least once, if you stay more than 30min you will benefit from a 5% discount when you go out";
+	case FREE_PARKING:
+	    return "You are staying less than 30 minutes, it's free";
+	case DISCOUNT_APPLIED:
+	    return "You are entitled to a 5% discount applied immediately for your recurring use of our parking";
+	case EXIT_RECORDED:
+	    return "Please pay the parking fare: " + price + "€" + System.lineSeparator()
+		    + "Recorded out-time for vehicle number: " + vehicleRegNumber + " is: " + timestamp;
+	case TICKET_UPDATE_FAILED:
+	    return "Unable to update ticket information. Error occurred";
+	default:
+	    return type.toString();
+	}
+    }
+
+    @Override
+    public String toString() {
+	return getMessage();
+    }
+}
@@ -0,0 +1,68 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * La classe ParkingOccupancy indique, pour chaque type d'emplacement, le nombre
+ * de places libres et occupées d'un parking.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ParkingOccupancy {
+    private final Map<ParkingType, Integer> availableSpots = new TreeMap<>();
+    private final Map<ParkingType, Integer> occupiedSpots = new TreeMap<>();
+
+    /**
+     * Récupère le nombre de places libres pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre de places libres.
+     */
+    public int getAvailableSpots(ParkingType parkingType) {
+	return availableSpots.getOrDefault(parkingType, 0);
+    }
+
+    /**
+     * Initie le nombre de places libres pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @param count       le nombre de places libres.
+     */
+    public void setAvailableSpots(ParkingType parkingType, int count) {
+	availableSpots.put(parkingType, count);
+    }
+
+    /**
+     * Récupère le nombre de places occupées pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre de places occupées.
+     */
+    public int getOccupiedSpots(ParkingType parkingType) {
+	return occupiedSpots.getOrDefault(parkingType, 0);
+    }
+
+    /**
+     * Initie le nombre de places occupées pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @param count       le nombre de places occupées.
+     */
+    public void setOccupiedSpots(ParkingType parkingType, int count) {
+	occupiedSpots.put(parkingType, count);
+    }
+
+    /**
+     * Récupère le nombre total de places pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre total de places.
+     */
+    public int getCapacity(ParkingType parkingType) {
+	return getAvailableSpots(parkingType) + getOccupiedSpots(parkingType);
+    }
+}
@@ -1,18 +1,21 @@
 package com.parkit.parkingsystem.model;
 
+import com.parkit.parkingsystem.constants.Facility;
 import com.parkit.parkingsystem.constants.ParkingType;
 
 /**
  * La classe ParkingSpot permet d'indiquer le numéro de parking, le type de
- * véhicule et la disponibilité de cet emplacement.
+ * véhicule, la disponibilité de cet emplacement ainsi que le parking (site)
+ * auquel il appartient.
  * 
  * @author Dylan
- *
+ * 
  */
 public class ParkingSpot {
     private int number;
     private ParkingType parkingType;
     private boolean isAvailable;
+    private int facilityId;
 
     /**
      * 
@@ -22,9 +25,22 @@ public class ParkingSpot {
      * @param isAvailable si l'emplacement est disponible.
      */
     public ParkingSpot(int number, ParkingType parkingType, boolean isAvailable) {
+	this(number, parkingType, isAvailable, Facility.DEFAULT_ID);
+    }
+
+    /**
+     * 
+     * @param number      le numéro de parking.
+     * @param parkingType le type d'emplacement de parking, si c'est pour une
+     *                    voiture ou moto.
+     * @param isAvailable si l'emplacement est disponible.
+     * @param facilityId  l'identifiant du parking (site) de l'emplacement.
+     */
+    public ParkingSpot(int number, ParkingType parkingType, boolean isAvailable, int facilityId) {
 	this.number = number;
 	this.parkingType = parkingType;
 	this.isAvailable = isAvailable;
+	this.facilityId = facilityId;
     }
 
     /**
@@ -81,6 +97,24 @@ public class ParkingSpot {
 	isAvailable = available;
     }
 
+    /**
+     * Récupère l'identifiant du parking (site) de l'emplacement.
+     * 
+     * @return l'identifiant du parking.
+     */
+    public int getFacilityId() {
+	return facilityId;
+    }
+
+    /**
+     * Initie l'identifiant du parking (site) de l'emplacement.
+     * 
+     * @param facilityId l'identifiant du parking.
+     */
+    public void setFacilityId(int facilityId) {
+	this.facilityId = facilityId;
+    }
+
     @Override
     public boolean equals(Object o) {
 	if (this == o) {
@@ -90,11 +124,11 @@ public class ParkingSpot {
 	    return false;
 	}
 	ParkingSpot that = (ParkingSpot) o;
-	return number == that.number;
+	return number == that.number && facilityId == that.facilityId;
     }
 
     @Override
     public int hashCode() {
-	return number;
+	return 31 * facilityId + number;
     }
 }
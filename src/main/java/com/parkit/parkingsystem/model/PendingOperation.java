@@ -0,0 +1,149 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.constants.PendingOperationType;
+
+import java.sql.Timestamp;
+
+/**
+ * La classe PendingOperation représente une écriture en base de donnée qui n'a
+ * pas pu être faite pendant l'indisponibilité de la base. Elle est conservée
+ * dans le journal local puis rejouée dans l'ordre au retour de la base.
+ * 
+ * @author Dylan
+ * 
+ */
+public class PendingOperation {
+    private final PendingOperationType type;
+    private final int parkingNumber;
+    private final ParkingType parkingType;
+    private final boolean available;
+    private final String vehicleRegNumber;
+    private final double price;
+    private final long inTime;
+    private final long outTime;
+
+    /**
+     * 
+     * @param type             le type d'écriture.
+     * @param parkingNumber    le numéro de la place de parking.
+     * @param parkingType      le type d'emplacement.
+     * @param available        la disponibilité de la place.
+     * @param vehicleRegNumber le numéro d'immatriculation du véhicule.
+     * @param price            le prix du ticket.
+     * @param inTime           le temps d'entrée en millisecondes, 0 si inconnu.
+     * @param outTime          le temps de sortie en millisecondes, 0 si inconnu.
+     */
+    public PendingOperation(PendingOperationType type, int parkingNumber, ParkingType parkingType,
+	    boolean available, String vehicleRegNumber, double price, long inTime, long outTime) {
+	this.type = type;
+	this.parkingNumber = parkingNumber;
+	this.parkingType = parkingType;
+	this.available = available;
+	this.vehicleRegNumber = vehicleRegNumber;
+	this.price = price;
+	this.inTime = inTime;
+	this.outTime = outTime;
+    }
+
+    /**
+     * Permet de créer la mise à jour de la disponibilité d'une place.
+     * 
+     * @param parkingSpot la place de parking avec sa nouvelle disponibilité.
+     * @return l'écriture en attente.
+     */
+    public static PendingOperation updateParking(ParkingSpot parkingSpot) {
+	return updateParking(parkingSpot, parkingSpot.isAvailable());
+    }
+
+    /**
+     * Permet de créer la mise à jour de la disponibilité d'une place.
+     * 
+     * @param parkingSpot la place de parking.
+     * @param available   la nouvelle disponibilité de la place.
+     * @return l'écriture en attente.
+     */
+    public static PendingOperation updateParking(ParkingSpot parkingSpot, boolean available) {
+	return new PendingOperation(PendingOperationType.UPDATE_PARKING, parkingSpot.getId(),
+		parkingSpot.getParkingType(), available, null, 0.0, 0, 0);
+    }
+
+    /**
+     * Permet de créer l'enregistrement d'un ticket ou sa mise à jour à la sortie.
+     * 
+     * @param type   SAVE_TICKET ou UPDATE_TICKET.
+     * @param ticket le ticket.
+     * @return l'écriture en attente.
+     */
+    public static PendingOperation ofTicket(PendingOperationType type, Ticket ticket) {
+	ParkingSpot parkingSpot = ticket.getParkingSpot();
+	return new PendingOperation(type, parkingSpot.getId(), parkingSpot.getParkingType(), false,
+		ticket.getVehicleRegNumber(), ticket.getPrice(), toMillis(ticket.getInTimestamp()),
+		toMillis(ticket.getOutTimestamp()));
+    }
+
+    private static long toMillis(Timestamp timestamp) {
+	return timestamp == null ? 0 : timestamp.getTime();
+    }
+
+    /**
+     * Récupère la place de parking concernée, avec la disponibilité à écrire.
+     * 
+     * @return la place de parking.
+     */
+    public ParkingSpot toParkingSpot() {
+	return new ParkingSpot(parkingNumber, parkingType, available);
+    }
+
+    /**
+     * Récupère le ticket concerné.
+     * 
+     * @return le ticket.
+     */
+    public Ticket toTicket() {
+	Ticket ticket = new Ticket();
+	ticket.setParkingSpot(new ParkingSpot(parkingNumber, parkingType, false));
+	ticket.setVehicleRegNumber(vehicleRegNumber);
+	ticket.setPrice(price);
+	ticket.setInTimestamp(inTime == 0 ? null : new Timestamp(inTime));
+	ticket.setOutTimestamp(outTime == 0 ? null : new Timestamp(outTime));
+	return ticket;
+    }
+
+    public PendingOperationType getType() {
+	return type;
+    }
+
+    public int getParkingNumber() {
+	return parkingNumber;
+    }
+
+    public ParkingType getParkingType() {
+	return parkingType;
+    }
+
+    public boolean isAvailable() {
+	return available;
+    }
+
+    public String getVehicleRegNumber() {
+	return vehicleRegNumber;
+    }
+
+    public double getPrice() {
+	return price;
+    }
+
+    public long getInTime() {
+	return inTime;
+    }
+
+    public long getOutTime() {
+	return outTime;
+    }
+
+    @Override
+    public String toString() {
+	return type + " spot=" + parkingNumber + " vehicle=" + vehicleRegNumber;
+    }
+}
@@ -0,0 +1,126 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.PricingStageType;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * La classe PricingStage décrit une étape du calcul du prix d'un ticket : la
+ * période gratuite, le tarif de base, la réduction fidélité, le plafond
+ * journalier ou les codes promotionnels.
+ * 
+ * @author Dylan
+ * 
+ */
+public final class PricingStage {
+
+    private final PricingStageType type;
+    private final long amount;
+    private final Map<String, Integer> promoCodes;
+
+    private PricingStage(PricingStageType type, long amount, Map<String, Integer> promoCodes) {
+	this.type = type;
+	this.amount = amount;
+	this.promoCodes = promoCodes;
+    }
+
+    /**
+     * Permet de créer la période gratuite, un stationnement qui ne la dépasse pas
+     * est gratuit et les étapes suivantes sont ignorées.
+     * 
+     * @param minutes la durée gratuite en minutes.
+     * @return l'étape.
+     */
+    public static PricingStage freePeriod(int minutes) {
+	if (minutes < 0) {
+	    throw new IllegalArgumentException("Free period must not be negative: " + minutes);
+	}
+	return new PricingStage(PricingStageType.FREE_PERIOD, minutes, Collections.emptyMap());
+    }
+
+    /**
+     * Permet de créer le tarif de base, à la minute selon le type de véhicule.
+     * 
+     * @return l'étape.
+     */
+    public static PricingStage baseTariff() {
+	return new PricingStage(PricingStageType.BASE_TARIFF, 0, Collections.emptyMap());
+    }
+
+    /**
+     * Permet de créer la réduction accordée aux utilisateurs déjà venus.
+     * 
+     * @param percent le pourcentage de réduction.
+     * @return l'étape.
+     */
+    public static PricingStage loyaltyDiscount(int percent) {
+	return new PricingStage(PricingStageType.LOYALTY_DISCOUNT, checkPercent(percent), Collections.emptyMap());
+    }
+
+    /**
+     * Permet de créer le plafond journalier, le prix ne dépasse pas le plafond
+     * multiplié par le nombre de jours commencés.
+     * 
+     * @param centsPerDay le plafond en centimes par jour.
+     * @return l'étape.
+     */
+    public static PricingStage dailyCap(long centsPerDay) {
+	if (centsPerDay < 0) {
+	    throw new IllegalArgumentException("Daily cap must not be negative: " + centsPerDay);
+	}
+	return new PricingStage(PricingStageType.DAILY_CAP, centsPerDay, Collections.emptyMap());
+    }
+
+    /**
+     * Permet de créer les codes promotionnels, chacun donnant un pourcentage de
+     * réduction.
+     * 
+     * @param percentByCode le pourcentage de réduction de chaque code.
+     * @return l'étape.
+     */
+    public static PricingStage promoCodes(Map<String, Integer> percentByCode) {
+	Map<String, Integer> promoCodes = new HashMap<>();
+	for (Map.Entry<String, Integer> entry : percentByCode.entrySet()) {
+	    promoCodes.put(entry.getKey(), checkPercent(entry.getValue()));
+	}
+	return new PricingStage(PricingStageType.PROMO_CODE, 0, Collections.unmodifiableMap(promoCodes));
+    }
+
+    private static int checkPercent(int percent) {
+	if (percent < 0 || percent > 100) {
+	    throw new IllegalArgumentException("Percentage must be between 0 and 100: " + percent);
+	}
+	return percent;
+    }
+
+    /**
+     * Récupère le type de l'étape.
+     * 
+     * @return le type de l'étape.
+     */
+    public PricingStageType getType() {
+	return type;
+    }
+
+    /**
+     * Récupère le paramètre de l'étape : des minutes pour la période gratuite, un
+     * pourcentage pour la réduction fidélité, des centimes pour le plafond
+     * journalier.
+     * 
+     * @return le paramètre de l'étape.
+     */
+    public long getAmount() {
+	return amount;
+    }
+
+    /**
+     * Récupère le pourcentage de réduction de chaque code promotionnel.
+     * 
+     * @return les codes promotionnels, vide pour les autres étapes.
+     */
+    public Map<String, Integer> getPromoCodes() {
+	return promoCodes;
+    }
+}
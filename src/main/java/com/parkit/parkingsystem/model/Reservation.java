@@ -0,0 +1,111 @@
+package com.parkit.parkingsystem.model;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+import java.sql.Timestamp;
+
+/**
+ * La classe Reservation permet d'indiquer l'ID de la réservation, le type
+ * d'emplacement réservé, la plaque d'immatriculation du véhicule ainsi que le
+ * début et la fin de la période réservée.
+ * 
+ * @author Dylan
+ * 
+ */
+public class Reservation {
+    private int id;
+    private ParkingType parkingType;
+    private String vehicleRegNumber;
+    private Timestamp startTimestamp;
+    private Timestamp endTimestamp;
+
+    /**
+     * Récupère l'ID de la réservation.
+     * 
+     * @return l'ID de la réservation.
+     */
+    public int getId() {
+	return id;
+    }
+
+    /**
+     * Initie l'ID de la réservation.
+     * 
+     * @param id l'ID de la réservation.
+     */
+    public void setId(int id) {
+	this.id = id;
+    }
+
+    /**
+     * Récupère le type d'emplacement réservé.
+     * 
+     * @return le type d'emplacement.
+     */
+    public ParkingType getParkingType() {
+	return parkingType;
+    }
+
+    /**
+     * Initie le type d'emplacement réservé.
+     * 
+     * @param parkingType le type d'emplacement.
+     */
+    public void setParkingType(ParkingType parkingType) {
+	this.parkingType = parkingType;
+    }
+
+    /**
+     * Récupère la plaque d'immatriculation du véhicule.
+     * 
+     * @return la plaque d'immatriculation.
+     */
+    public String getVehicleRegNumber() {
+	return vehicleRegNumber;
+    }
+
+    /**
+     * Initie la plaque d'immatriculation du véhicule.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     */
+    public void setVehicleRegNumber(String vehicleRegNumber) {
+	this.vehicleRegNumber = vehicleRegNumber;
+    }
+
+    /**
+     * Récupère le début de la période réservée.
+     * 
+     * @return le début de la période.
+     */
+    public Timestamp getStartTimestamp() {
+	return startTimestamp;
+    }
+
+    /**
+     * Initie le début de la période réservée.
+     * 
+     * @param startTimestamp le début de la période.
+     */
+    public void setStartTimestamp(Timestamp startTimestamp) {
+	this.startTimestamp = startTimestamp;
+    }
+
+    /**
+     * Récupère la fin de la période réservée, exclue de la période.
+     * 
+     * @return la fin de la période.
+     */
+    public Timestamp getEndTimestamp() {
+	return endTimestamp;
+    }
+
+    /**
+     * Initie la fin de la période réservée, exclue de la période.
+     * 
+     * @param endTimestamp la fin de la période.
+     */
+    public void setEndTimestamp(Timestamp endTimestamp) {
+	this.endTimestamp = endTimestamp;
+    }
+}
@@ -1,5 +1,7 @@
 package com.parkit.parkingsystem.model;
 
+import com.parkit.parkingsystem.constants.Facility;
+
 import java.sql.Timestamp;
 
 /**
@@ -8,7 +10,7 @@ import java.sql.Timestamp;
  * payer, le temps d'entrée dans le parking ainsi que le temps de sortie.
  * 
  * @author Dylan
- *
+ * 
  */
 public class Ticket {
     private int id;
@@ -17,7 +19,10 @@ public class Ticket {
     private double price;
     private Timestamp inTimestamp;
     private Timestamp outTimestamp;
-    
+    private int facilityId = Facility.DEFAULT_ID;
+    private boolean recurringUser;
+    private String promoCode;
+    private long[] priceContributions;
 
    
 
@@ -132,5 +137,78 @@ public class Ticket {
     public void setOutTimestamp(Timestamp outTimestamp) {
 	this.outTimestamp = outTimestamp;
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Récupère l'identifiant du parking (site) où le ticket a été émis.
+     * 
+     * @return l'identifiant du parking.
+     */
+    public int getFacilityId() {
+	return facilityId;
+    }
+
+    /**
+     * Initie l'identifiant du parking (site) où le ticket a été émis.
+     * 
+     * @param facilityId l'identifiant du parking.
+     */
+    public void setFacilityId(int facilityId) {
+	this.facilityId = facilityId;
+    }
+
+    /**
+     * Indique si le véhicule avait déjà un ticket terminé avant ce ticket, lu avec
+     * le ticket afin d'éviter une requête de plus à la sortie.
+     * 
+     * @return true si l'utilisateur est déjà venu.
+     */
+    public boolean isRecurringUser() {
+	return recurringUser;
+    }
+
+    /**
+     * Initie si le véhicule avait déjà un ticket terminé avant ce ticket.
+     * 
+     * @param recurringUser true si l'utilisateur est déjà venu.
+     */
+    public void setRecurringUser(boolean recurringUser) {
+	this.recurringUser = recurringUser;
+    }
+
+    /**
+     * Récupère le code promotionnel indiqué à la sortie.
+     * 
+     * @return le code promotionnel, ou null.
+     */
+    public String getPromoCode() {
+	return promoCode;
+    }
+
+    /**
+     * Initie le code promotionnel indiqué à la sortie.
+     * 
+     * @param promoCode le code promotionnel, ou null.
+     */
+    public void setPromoCode(String promoCode) {
+	this.promoCode = promoCode;
+    }
+
+    /**
+     * Récupère la contribution au prix, en centimes, de chaque étape du
+     * PricingPipeline qui a calculé le prix, dans l'ordre des étapes.
+     * 
+     * @return les contributions, ou null si le prix n'a pas été calculé.
+     */
+    public long[] getPriceContributions() {
+	return priceContributions;
+    }
+
+    /**
+     * Initie la contribution au prix de chaque étape du PricingPipeline.
+     * 
+     * @param priceContributions les contributions en centimes.
+     */
+    public void setPriceContributions(long[] priceContributions) {
+	this.priceContributions = priceContributions;
+    }
+}
@@ -0,0 +1,90 @@
+package com.parkit.parkingsystem.model;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * La classe TicketExportReport regroupe le résultat d'un export de l'historique
+ * des tickets : la période exportée, les fichiers écrits, le nombre de tickets
+ * et la durée de l'export.
+ * 
+ * @author Dylan
+ * 
+ */
+public class TicketExportReport {
+    private final Timestamp from;
+    private final Timestamp to;
+    private final List<Path> files;
+    private final long exportedTickets;
+    private final long durationMillis;
+
+    /**
+     * 
+     * @param from            la date de sortie après laquelle les tickets sont
+     *                        exportés.
+     * @param to              la dernière date de sortie exportée.
+     * @param files           les fichiers écrits.
+     * @param exportedTickets le nombre de tickets exportés.
+     * @param durationMillis  la durée de l'export.
+     */
+    public TicketExportReport(Timestamp from, Timestamp to, List<Path> files, long exportedTickets,
+	    long durationMillis) {
+	this.from = from;
+	this.to = to;
+	this.files = files;
+	this.exportedTickets = exportedTickets;
+	this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Récupère la date de sortie après laquelle les tickets sont exportés.
+     * 
+     * @return le début de la période, exclu.
+     */
+    public Timestamp getFrom() {
+	return from;
+    }
+
+    /**
+     * Récupère la dernière date de sortie exportée.
+     * 
+     * @return la fin de la période, incluse.
+     */
+    public Timestamp getTo() {
+	return to;
+    }
+
+    /**
+     * Récupère les fichiers écrits, dans l'ordre des dates de sortie.
+     * 
+     * @return les fichiers.
+     */
+    public List<Path> getFiles() {
+	return files;
+    }
+
+    /**
+     * Récupère le nombre de tickets exportés.
+     * 
+     * @return le nombre de tickets.
+     */
+    public long getExportedTickets() {
+	return exportedTickets;
+    }
+
+    /**
+     * Récupère la durée de l'export.
+     * 
+     * @return la durée en millisecondes.
+     */
+    public long getDurationMillis() {
+	return durationMillis;
+    }
+
+    @Override
+    public String toString() {
+	return String.format("%s to %s: %d tickets exported in %d files, %.1f s", from, to, exportedTickets,
+		files.size(), durationMillis / 1000.0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.parkit.parkingsystem.model;
+
+/**
+ * La classe TicketImportReport regroupe le résultat de l'import d'un fichier de
+ * tickets : le nombre de tickets enregistrés, de lignes refusées et de lignes
+ * déjà importées lors d'un import précédent, et la durée de l'import.
+ * 
+ * @author Dylan
+ * 
+ */
+public class TicketImportReport {
+    private final String source;
+    private final long importedTickets;
+    private final long rejectedLines;
+    private final long skippedLines;
+    private final long durationMillis;
+
+    /**
+     * 
+     * @param source          le nom du fichier.
+     * @param importedTickets le nombre de tickets enregistrés.
+     * @param rejectedLines   le nombre de lignes refusées.
+     * @param skippedLines    le nombre de lignes déjà importées.
+     * @param durationMillis  la durée de l'import.
+     */
+    public TicketImportReport(String source, long importedTickets, long rejectedLines, long skippedLines,
+	    long durationMillis) {
+	this.source = source;
+	this.importedTickets = importedTickets;
+	this.rejectedLines = rejectedLines;
+	this.skippedLines = skippedLines;
+	this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Récupère le nom du fichier importé.
+     * 
+     * @return le nom du fichier.
+     */
+    public String getSource() {
+	return source;
+    }
+
+    /**
+     * Récupère le nombre de tickets enregistrés.
+     * 
+     * @return le nombre de tickets enregistrés.
+     */
+    public long getImportedTickets() {
+	return importedTickets;
+    }
+
+    /**
+     * Récupère le nombre de lignes refusées.
+     * 
+     * @return le nombre de lignes refusées.
+     */
+    public long getRejectedLines() {
+	return rejectedLines;
+    }
+
+    /**
+     * Récupère le nombre de lignes ignorées car importées lors d'un import
+     * précédent.
+     * 
+     * @return le nombre de lignes déjà importées.
+     */
+    public long getSkippedLines() {
+	return skippedLines;
+    }
+
+    /**
+     * Récupère la durée de l'import.
+     * 
+     * @return la durée en millisecondes.
+     */
+    public long getDurationMillis() {
+	return durationMillis;
+    }
+
+    /**
+     * Récupère le débit de l'import.
+     * 
+     * @return le nombre de tickets enregistrés par seconde.
+     */
+    public double getTicketsPerSecond() {
+	return durationMillis == 0 ? 0 : importedTickets * 1000.0 / durationMillis;
+    }
+
+    @Override
+    public String toString() {
+	return String.format("%s: %d tickets imported, %d lines rejected, %d lines already imported, %.1f s (%.0f tickets/s)",
+		source, importedTickets, rejectedLines, skippedLines, durationMillis / 1000.0, getTicketsPerSecond());
+    }
+}
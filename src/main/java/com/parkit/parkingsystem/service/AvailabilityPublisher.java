@@ -0,0 +1,202 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.dao.ParkingSpotListener;
+import com.parkit.parkingsystem.model.AvailabilityChange;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La classe AvailabilityPublisher transmet aux abonnés (bornes, panneaux
+ * d'affichage) chaque changement de disponibilité signalé par le
+ * ParkingSpotDAO, afin qu'ils n'aient pas à interroger le parking.
+ * 
+ * Chaque abonnement a sa propre file bornée et son propre thread : la
+ * publication ne fait que déposer le changement dans les files et ne bloque
+ * jamais l'entrée ou la sortie d'un véhicule. Les changements d'une même place
+ * encore en attente sont fusionnés, seul le dernier est transmis. Un abonné
+ * dont la file est pleine est résilié.
+ * 
+ * Le nombre de places libres est lu dans les OccupancyCounters, qui doivent
+ * être branchés sur le ParkingSpotDAO avant l'AvailabilityPublisher.
+ * 
+ * @author Dylan
+ * 
+ */
+public class AvailabilityPublisher implements ParkingSpotListener, AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("AvailabilityPublisher");
+
+    private final OccupancyCounters occupancyCounters;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * 
+     * @param occupancyCounters les compteurs de places du parking.
+     */
+    public AvailabilityPublisher(OccupancyCounters occupancyCounters) {
+	this.occupancyCounters = occupancyCounters;
+    }
+
+    /**
+     * Permet d'abonner un destinataire aux changements de disponibilité.
+     * 
+     * @param availabilitySubscriber le destinataire des changements.
+     * @param capacity               le nombre maximum de places dont les
+     *                               changements peuvent être en attente.
+     * @return l'abonnement, à fermer pour se désabonner.
+     */
+    public Subscription subscribe(AvailabilitySubscriber availabilitySubscriber, int capacity) {
+	Subscription subscription = new Subscription(availabilitySubscriber, capacity);
+	subscriptions.add(subscription);
+	return subscription;
+    }
+
+    /**
+     * Récupère le nombre d'abonnés.
+     * 
+     * @return le nombre d'abonnés.
+     */
+    public int getSubscriberCount() {
+	return subscriptions.size();
+    }
+
+    @Override
+    public void onParkingSpotUpdated(ParkingSpot parkingSpot) {
+	AvailabilityChange availabilityChange = new AvailabilityChange(parkingSpot.getParkingType(),
+		parkingSpot.getId(), parkingSpot.isAvailable(),
+		occupancyCounters.getAvailableSpots(parkingSpot.getParkingType()));
+	for (Subscription subscription : subscriptions) {
+	    subscription.offer(availabilityChange);
+	}
+    }
+
+    /**
+     * Résilie tous les abonnements.
+     */
+    @Override
+    public void close() {
+	for (Subscription subscription : subscriptions) {
+	    subscription.close();
+	}
+    }
+
+    /**
+     * La classe Subscription est l'abonnement d'un destinataire, avec sa file
+     * et son thread.
+     */
+    public final class Subscription implements AutoCloseable {
+
+	private final AvailabilitySubscriber availabilitySubscriber;
+	private final int capacity;
+	private final Map<Integer, AvailabilityChange> pending = new LinkedHashMap<>();
+	private final Thread worker;
+	private boolean closed;
+	private boolean evicted;
+
+	private Subscription(AvailabilitySubscriber availabilitySubscriber, int capacity) {
+	    this.availabilitySubscriber = availabilitySubscriber;
+	    this.capacity = capacity;
+	    this.worker = new Thread(this::drain, "availability-subscriber");
+	    this.worker.setDaemon(true);
+	    this.worker.start();
+	}
+
+	/**
+	 * Indique si l'abonnement a été résilié car la file était pleine.
+	 * 
+	 * @return true si l'abonné a été résilié.
+	 */
+	public synchronized boolean isEvicted() {
+	    return evicted;
+	}
+
+	private void offer(AvailabilityChange availabilityChange) {
+	    boolean evict = false;
+	    synchronized (this) {
+		if (closed) {
+		    return;
+		}
+		if (pending.remove(availabilityChange.getParkingNumber()) == null && pending.size() == capacity) {
+		    evict = true;
+		    evicted = true;
+		    closed = true;
+		    pending.clear();
+		} else {
+		    pending.put(availabilityChange.getParkingNumber(), availabilityChange);
+		}
+		notifyAll();
+	    }
+	    if (evict) {
+		subscriptions.remove(this);
+		logger.warn("Availability subscriber evicted, it fell more than " + capacity + " changes behind");
+		try {
+		    availabilitySubscriber.onEvicted();
+		} catch (RuntimeException e) {
+		    logger.error("Error while evicting availability subscriber", e);
+		}
+	    }
+	}
+
+	/*
+	 * Transmet les changements en attente par lots, jusqu'à la fermeture de
+	 * l'abonnement.
+	 */
+	private void drain() {
+	    try {
+		while (true) {
+		    List<AvailabilityChange> batch;
+		    synchronized (this) {
+			while (pending.isEmpty() && !closed) {
+			    wait();
+			}
+			if (closed) {
+			    break;
+			}
+			batch = new ArrayList<>(pending.values());
+			pending.clear();
+		    }
+		    for (AvailabilityChange availabilityChange : batch) {
+			deliver(availabilityChange);
+		    }
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+
+	private void deliver(AvailabilityChange availabilityChange) {
+	    try {
+		availabilitySubscriber.onAvailabilityChanged(availabilityChange);
+	    } catch (RuntimeException e) {
+		logger.error("Error while publishing availability change", e);
+	    }
+	}
+
+	/**
+	 * Résilie l'abonnement, les changements encore en attente sont abandonnés.
+	 */
+	@Override
+	public void close() {
+	    synchronized (this) {
+		closed = true;
+		notifyAll();
+	    }
+	    subscriptions.remove(this);
+	    if (Thread.currentThread() != worker) {
+		try {
+		    worker.join(TimeUnit.SECONDS.toMillis(1));
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	}
+    }
+}
@@ -0,0 +1,134 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.model.AvailabilityChange;
+import com.parkit.parkingsystem.util.JsonWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * La classe AvailabilitySocketServer abonne à l'AvailabilityPublisher chaque
+ * client connecté en local, et lui envoie chaque changement de disponibilité en
+ * JSON, sur une ligne :
+ * 
+ * {"type":"CAR","parkingNumber":3,"available":false,"availableSpots":12}
+ * 
+ * Un client trop lent est résilié par l'AvailabilityPublisher et sa connexion
+ * est fermée.
+ * 
+ * @author Dylan
+ * 
+ */
+public class AvailabilitySocketServer implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("AvailabilitySocketServer");
+
+    private final AvailabilityPublisher availabilityPublisher;
+    private final ServerSocket serverSocket;
+    private final int capacity;
+    private final Thread acceptor;
+
+    /**
+     * 
+     * @param availabilityPublisher l'AvailabilityPublisher du parking.
+     * @param address               l'adresse d'écoute, le port 0 choisit un port
+     *                              libre.
+     * @param capacity              le nombre maximum de places dont les
+     *                              changements peuvent être en attente pour un
+     *                              client.
+     * @throws IOException si l'adresse ne peut pas être ouverte.
+     */
+    public AvailabilitySocketServer(AvailabilityPublisher availabilityPublisher, InetSocketAddress address,
+	    int capacity) throws IOException {
+	this.availabilityPublisher = availabilityPublisher;
+	this.capacity = capacity;
+	this.serverSocket = new ServerSocket();
+	this.serverSocket.bind(address);
+	this.acceptor = new Thread(this::accept, "availability-socket");
+	this.acceptor.setDaemon(true);
+	this.acceptor.start();
+    }
+
+    /**
+     * Récupère le port d'écoute du serveur.
+     * 
+     * @return le port d'écoute.
+     */
+    public int getPort() {
+	return serverSocket.getLocalPort();
+    }
+
+    private void accept() {
+	while (!serverSocket.isClosed()) {
+	    try {
+		Socket socket = serverSocket.accept();
+		socket.setTcpNoDelay(true);
+		SocketSubscriber socketSubscriber = new SocketSubscriber(socket);
+		socketSubscriber.subscription = availabilityPublisher.subscribe(socketSubscriber, capacity);
+	    } catch (IOException e) {
+		if (!serverSocket.isClosed()) {
+		    logger.error("Error while accepting availability subscriber", e);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Arrête d'accepter de nouveaux clients.
+     */
+    @Override
+    public void close() {
+	try {
+	    serverSocket.close();
+	} catch (IOException e) {
+	    logger.error("Error while closing availability socket", e);
+	}
+    }
+
+    private static final class SocketSubscriber implements AvailabilitySubscriber {
+
+	private final Socket socket;
+	private final Writer writer;
+	private volatile AvailabilityPublisher.Subscription subscription;
+
+	private SocketSubscriber(Socket socket) throws IOException {
+	    this.socket = socket;
+	    this.writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void onAvailabilityChanged(AvailabilityChange availabilityChange) {
+	    try {
+		writer.write(new JsonWriter().beginObject().name("type")
+			.value(availabilityChange.getParkingType().toString()).name("parkingNumber")
+			.value(availabilityChange.getParkingNumber()).name("available")
+			.value(availabilityChange.isAvailable()).name("availableSpots")
+			.value(availabilityChange.getAvailableSpots()).endObject().toString());
+		writer.write('\n');
+		writer.flush();
+	    } catch (IOException e) {
+		logger.info("Availability subscriber disconnected: " + socket.getRemoteSocketAddress());
+		onEvicted();
+		if (subscription != null) {
+		    subscription.close();
+		}
+	    }
+	}
+
+	@Override
+	public void onEvicted() {
+	    try {
+		socket.close();
+	    } catch (IOException e) {
+		logger.error("Error while closing availability subscriber", e);
+	    }
+	}
+    }
+}
@@ -0,0 +1,30 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.model.AvailabilityChange;
+
+/**
+ * L'interface AvailabilitySubscriber reçoit les changements de disponibilité
+ * des places publiés par l'AvailabilityPublisher.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface AvailabilitySubscriber {
+
+    /**
+     * Appelée pour chaque changement de disponibilité, depuis le thread de
+     * l'abonnement.
+     * 
+     * @param availabilityChange le changement de disponibilité.
+     */
+    void onAvailabilityChanged(AvailabilityChange availabilityChange);
+
+    /**
+     * Appelée quand l'abonnement est résilié car l'abonné ne suivait plus le
+     * rythme des changements. Elle est appelée depuis le thread qui publie, alors
+     * que l'abonné peut être encore bloqué dans onAvailabilityChanged : elle doit
+     * seulement libérer ses ressources, par exemple fermer sa connexion.
+     */
+    default void onEvicted() {
+    }
+}
@@ -0,0 +1,101 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.dao.FacilityRouter;
+import com.parkit.parkingsystem.model.FacilityReport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * La classe FacilityReportService construit l'état de tous les parkings (sites)
+ * en interrogeant leurs bases de donnée en parallèle.
+ * 
+ * @author Dylan
+ * 
+ */
+public class FacilityReportService implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("FacilityReportService");
+
+    private final FacilityRouter facilityRouter;
+    private final ExecutorService executorService;
+    private final long timeoutMillis;
+
+    /**
+     * 
+     * @param facilityRouter le routeur donnant accès à la base de chaque parking.
+     * @param timeoutMillis  le temps maximum d'attente de la réponse d'un parking.
+     */
+    public FacilityReportService(FacilityRouter facilityRouter, long timeoutMillis) {
+	this.facilityRouter = facilityRouter;
+	this.timeoutMillis = timeoutMillis;
+	this.executorService = Executors.newFixedThreadPool(Math.max(1, facilityRouter.getFacilityIds().size()),
+		runnable -> {
+		    Thread thread = new Thread(runnable, "facility-report");
+		    thread.setDaemon(true);
+		    return thread;
+		});
+    }
+
+    /**
+     * Permet de récupérer l'état de chaque parking. Les parkings sont interrogés
+     * en parallèle, un parking qui ne répond pas ou en erreur est indiqué dans son
+     * rapport sans bloquer les autres.
+     * 
+     * @return les rapports, indexés par identifiant de parking.
+     */
+    public Map<Integer, FacilityReport> getReports() {
+	List<Integer> facilityIds = new ArrayList<>(facilityRouter.getFacilityIds());
+	List<Future<FacilityReport>> futures = new ArrayList<>();
+	for (Integer facilityId : facilityIds) {
+	    futures.add(executorService.submit(() -> buildReport(facilityId)));
+	}
+	long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+	Map<Integer, FacilityReport> reports = new TreeMap<>();
+	for (int i = 0; i < facilityIds.size(); i++) {
+	    int facilityId = facilityIds.get(i);
+	    Future<FacilityReport> future = futures.get(i);
+	    try {
+		reports.put(facilityId, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+	    } catch (TimeoutException e) {
+		future.cancel(true);
+		reports.put(facilityId, failedReport(facilityId, "Timeout"));
+	    } catch (ExecutionException e) {
+		reports.put(facilityId, failedReport(facilityId, String.valueOf(e.getCause())));
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		reports.put(facilityId, failedReport(facilityId, "Interrupted"));
+	    }
+	}
+	return reports;
+    }
+
+    private FacilityReport buildReport(int facilityId) throws Exception {
+	FacilityReport report = new FacilityReport(facilityId);
+	report.setParkingOccupancy(facilityRouter.getParkingSpotDAO(facilityId).getParkingOccupancy());
+	report.setOpenTickets(facilityRouter.getTicketDAO(facilityId).countOpenTickets());
+	return report;
+    }
+
+    private FacilityReport failedReport(int facilityId, String error) {
+	logger.error("Unable to build report for facility " + facilityId + ": " + error);
+	FacilityReport report = new FacilityReport(facilityId);
+	report.setError(error);
+	return report;
+    }
+
+    @Override
+    public void close() {
+	executorService.shutdownNow();
+    }
+}
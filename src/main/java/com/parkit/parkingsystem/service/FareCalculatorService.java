@@ -1,20 +1,101 @@
 package com.parkit.parkingsystem.service;
 
-import com.parkit.parkingsystem.constants.Fare;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.jfr.FareCalculationEvent;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.ConsoleNotificationSink;
+import com.parkit.parkingsystem.util.NotificationSink;
+
+import java.sql.Timestamp;
+import java.time.Clock;
 
 /**
  * La classe FareCalculatorService permet de calculer le prix du ticket selon le
- * temps passé dans le parking et le type de véhicule
+ * temps passé dans le parking et le type de véhicule. Un ticket sans date de
+ * sortie est calculé jusqu'à l'heure de l'horloge, pour un véhicule encore
+ * présent. Le prix est calculé par un PricingPipeline, par défaut 30 minutes
+ * gratuites, le tarif de base et 5% de réduction pour les utilisateurs déjà
+ * venus. Une FareTable peut être fournie afin de lire le tarif de base des
+ * durées courantes au lieu de le calculer.
  * 
  * @author Dylan
- *
+ * 
  */
 
 public class FareCalculatorService {
 
-    private double priceTicket;
-    private double priceTicketConvert;
+    private final NotificationSink notificationSink;
+    private final Clock clock;
+    private volatile FareTable fareTable;
+    private volatile PricingPipeline pricingPipeline = PricingPipeline.defaultPipeline();
+
+    /**
+     * Constructeur FareCalculatorService, les messages sont affichés dans la
+     * console.
+     */
+    public FareCalculatorService() {
+	this(new ConsoleNotificationSink());
+    }
+
+    /**
+     * Constructeur FareCalculatorService
+     * 
+     * @param notificationSink le destinataire des messages pour l'utilisateur.
+     */
+    public FareCalculatorService(NotificationSink notificationSink) {
+	this(notificationSink, Clock.systemUTC());
+    }
+
+    /**
+     * Constructeur FareCalculatorService
+     * 
+     * @param notificationSink le destinataire des messages pour l'utilisateur.
+     * @param clock            l'horloge donnant l'heure de sortie d'un véhicule
+     *                         encore présent.
+     */
+    public FareCalculatorService(NotificationSink notificationSink, Clock clock) {
+	this.notificationSink = notificationSink;
+	this.clock = clock;
+    }
+
+    /**
+     * Permet de lire le prix des durées couvertes par la table au lieu de le
+     * calculer. La table est remplacée d'un seul coup, un calcul en cours utilise
+     * l'ancienne ou la nouvelle table mais jamais un mélange des deux.
+     * 
+     * @param fareTable la table des prix, ou null pour toujours calculer le prix.
+     */
+    public void setFareTable(FareTable fareTable) {
+	this.fareTable = fareTable;
+    }
+
+    /**
+     * Récupère la table des prix utilisée.
+     * 
+     * @return la table des prix, ou null si le prix est toujours calculé.
+     */
+    public FareTable getFareTable() {
+	return fareTable;
+    }
+
+    /**
+     * Permet de changer les étapes du calcul du prix. Comme la FareTable, le
+     * PricingPipeline est remplacé d'un seul coup.
+     * 
+     * @param pricingPipeline les étapes du calcul du prix.
+     */
+    public void setPricingPipeline(PricingPipeline pricingPipeline) {
+	this.pricingPipeline = pricingPipeline;
+    }
+
+    /**
+     * Récupère les étapes du calcul du prix.
+     * 
+     * @return les étapes du calcul du prix.
+     */
+    public PricingPipeline getPricingPipeline() {
+	return pricingPipeline;
+    }
 
     /**
      * 
@@ -23,57 +104,36 @@ public class FareCalculatorService {
      */
 
     public void calculateFare(Ticket ticket) {
+	FareCalculationEvent event = new FareCalculationEvent();
+	event.begin();
 	// inMinutes est la date d'entrée en minutes
 	long inMinutes = ((ticket.getInTimestamp().getTime() / 1000) / 60);
 	// outMinutes est la date de sortie en minutes
-	long outMinutes = ((ticket.getOutTimestamp().getTime() / 1000) / 60);
+	long outMillis = ticket.getOutTimestamp() != null ? ticket.getOutTimestamp().getTime() : clock.millis();
+	long outMinutes = ((outMillis / 1000) / 60);
 	// Si le temps de sortie est inférieur ou égal au temps d'entrée, nous avons une
 	// erreur
 
 	if ((outMinutes < inMinutes) || (outMinutes == inMinutes)) {
-	    throw new IllegalArgumentException("Out time provided is incorrect:" + ticket.getOutTimestamp());
-	}
-
-	/* duration est la différence des deux dates en minutes, pour permettre le
-	 calcul du tarif*/
-	double duration = (outMinutes - inMinutes);
-	// Si la durée de stationnement est inférieure ou égal à 30min, c'est gratuit.
-	if (duration <= 30) {
-
-	    ticket.setPrice(0.0);
-	    System.out.println("You are staying less than 30 minutes, it's free");
-
+	    throw new IllegalArgumentException("Out time provided is incorrect:" + new Timestamp(outMillis));
 	}
 
 	/*
-	 * Le switch nous permet d'arriver dans le bon service de calcul selon le type
-	 * de véhicule récupéré sur le ticket.
-	 * 
-	 * Le priceTicket est le prix du ticket calculé à partir de la durée et du tarif
-	 * à la minute. Le priceTicketConvert est le prix arrondi au centième. On initie
-	 * le prix du ticket avec le priceTicketConvert.
-	 * 
-	 * 
+	 * duration est la différence des deux dates en minutes, le prix est calculé
+	 * par les étapes du PricingPipeline.
 	 */
-	else {
-
-	    switch (ticket.getParkingSpot().getParkingType()) {
-
-	    case CAR: {
-		priceTicket = duration * Fare.CAR_RATE_PER_MINUTES;
-		priceTicketConvert = (double) Math.round(priceTicket * 100) / 100;
-		ticket.setPrice(priceTicketConvert);
-		break;
-	    }
-	    case BIKE: {
-		priceTicket = duration * Fare.BIKE_RATE_PER_MINUTES;
-		priceTicketConvert = (double) Math.round(priceTicket * 100) / 100;
-		ticket.setPrice(priceTicketConvert);
-		break;
-	    }
-	    default:
-		throw new NullPointerException("Unkown Parking Type");
-	    }
-	}
+	long duration = outMinutes - inMinutes;
+	pricingPipeline.price(ticket, duration, fareTable, notificationSink);
+	event.record(ticket);
+    }
+
+    /*
+     * Le priceTicket est le prix du ticket calculé à partir de la durée et du tarif
+     * à la minute du type de place. Le prix est arrondi au centime.
+     */
+    static long getPriceInCents(ParkingType parkingType, long durationMinutes) {
+	double duration = durationMinutes;
+	double priceTicket = duration * parkingType.getRatePerMinute();
+	return Math.round(priceTicket * 100);
     }
 }
@@ -0,0 +1,74 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * La classe FareTable contient le prix en centimes de chaque durée de
+ * stationnement, minute par minute jusqu'à un horizon, pour chaque type de
+ * véhicule. Les prix sont calculés une fois à la création de la table, par le
+ * même calcul que le FareCalculatorService. La table ne change plus ensuite :
+ * quand les tarifs changent, une nouvelle table est créée puis donnée au
+ * FareCalculatorService.
+ * 
+ * @author Dylan
+ * 
+ */
+public final class FareTable {
+
+    private final int horizonMinutes;
+    private final int[][] pricesInCents;
+
+    /**
+     * 
+     * @param horizonMinutes la durée la plus longue couverte par la table, en
+     *                       minutes.
+     * @throws IllegalArgumentException si l'horizon est négatif.
+     */
+    public FareTable(int horizonMinutes) {
+	if (horizonMinutes < 0) {
+	    throw new IllegalArgumentException("Fare table horizon must not be negative: " + horizonMinutes);
+	}
+	this.horizonMinutes = horizonMinutes;
+	this.pricesInCents = new int[ParkingType.values().length][horizonMinutes + 1];
+	for (ParkingType parkingType : ParkingType.values()) {
+	    int[] prices = pricesInCents[parkingType.ordinal()];
+	    for (int minutes = 0; minutes <= horizonMinutes; minutes++) {
+		prices[minutes] = Math.toIntExact(FareCalculatorService.getPriceInCents(parkingType, minutes));
+	    }
+	}
+    }
+
+    /**
+     * Récupère la durée la plus longue couverte par la table.
+     * 
+     * @return l'horizon en minutes.
+     */
+    public int getHorizonMinutes() {
+	return horizonMinutes;
+    }
+
+    /**
+     * Vérifie si le prix d'une durée se trouve dans la table.
+     * 
+     * @param durationMinutes la durée de stationnement en minutes.
+     * @return true si la durée est couverte par la table.
+     */
+    public boolean covers(long durationMinutes) {
+	return durationMinutes >= 0 && durationMinutes <= horizonMinutes;
+    }
+
+    /**
+     * Récupère le prix d'une durée couverte par la table. Le prix d'un type de
+     * place défini après la création de la table est calculé.
+     * 
+     * @param parkingType     le type de véhicule.
+     * @param durationMinutes la durée de stationnement en minutes.
+     * @return le prix en centimes.
+     */
+    public long getPriceInCents(ParkingType parkingType, long durationMinutes) {
+	if (parkingType.ordinal() >= pricesInCents.length) {
+	    return FareCalculatorService.getPriceInCents(parkingType, durationMinutes);
+	}
+	return pricesInCents[parkingType.ordinal()][(int) durationMinutes];
+    }
+}
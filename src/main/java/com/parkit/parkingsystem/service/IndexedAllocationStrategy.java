@@ -0,0 +1,86 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotListener;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * La classe IndexedAllocationStrategy attribue, comme la
+ * LowestNumberAllocationStrategy, la place disponible ayant le plus petit
+ * numéro, sans interroger la base de donnée. Les places libres de chaque type
+ * sont tenues dans un BitSet indexé par numéro de place, rangé à l'ordinal du
+ * type : le choix d'une place, replis compris, ne dépend donc pas du nombre de
+ * types définis.
+ * 
+ * L'index est initié depuis la base de donnée puis tenu à jour comme
+ * ParkingSpotListener du ParkingSpotDAO. Il ne voit que les changements de
+ * cette borne, une seule borne doit donc attribuer les places du parking.
+ * 
+ * @author Dylan
+ * 
+ */
+public class IndexedAllocationStrategy implements SpotAllocationStrategy, ParkingSpotListener {
+
+    private BitSet[] freeSpots = new BitSet[0];
+
+    /**
+     * Permet d'initier l'index depuis les places libres lues en base de donnée.
+     * Doit être appelée avant que l'index ne soit branché sur le ParkingSpotDAO.
+     * 
+     * @param availableSpots les places libres du parking.
+     */
+    public synchronized void seed(List<ParkingSpot> availableSpots) {
+	for (BitSet bitSet : freeSpots) {
+	    bitSet.clear();
+	}
+	for (ParkingSpot parkingSpot : availableSpots) {
+	    getFreeSpots(parkingSpot.getParkingType()).set(parkingSpot.getId());
+	}
+    }
+
+    @Override
+    public synchronized void onParkingSpotUpdated(ParkingSpot parkingSpot) {
+	getFreeSpots(parkingSpot.getParkingType()).set(parkingSpot.getId(), parkingSpot.isAvailable());
+    }
+
+    /**
+     * Choisit la plus petite place libre du type, puis de chacun de ses types de
+     * repli dans l'ordre de préférence.
+     */
+    @Override
+    public synchronized int getNextAvailableSlot(ParkingType parkingType) {
+	int parkingNumber = getFreeSpots(parkingType).nextSetBit(1);
+	List<ParkingType> fallbacks = parkingType.getFallbacks();
+	for (int i = 0; parkingNumber < 0 && i < fallbacks.size(); i++) {
+	    parkingNumber = getFreeSpots(fallbacks.get(i)).nextSetBit(1);
+	}
+	return Math.max(parkingNumber, 0);
+    }
+
+    /**
+     * Récupère le nombre de places libres d'un type selon l'index.
+     * 
+     * @param parkingType le type de place.
+     * @return le nombre de places libres.
+     */
+    public synchronized int getAvailableSpots(ParkingType parkingType) {
+	return getFreeSpots(parkingType).cardinality();
+    }
+
+    // Un type défini après la création de l'index reçoit son BitSet au premier usage.
+    private BitSet getFreeSpots(ParkingType parkingType) {
+	int ordinal = parkingType.ordinal();
+	if (ordinal >= freeSpots.length) {
+	    int length = freeSpots.length;
+	    freeSpots = Arrays.copyOf(freeSpots, ordinal + 1);
+	    for (int i = length; i < freeSpots.length; i++) {
+		freeSpots[i] = new BitSet();
+	    }
+	}
+	return freeSpots[ordinal];
+    }
+}
@@ -1,26 +1,68 @@
 package com.parkit.parkingsystem.service;
 
-import com.parkit.parkingsystem.dao.ParkingSpotDAO;
-import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.constants.Facility;
+import com.parkit.parkingsystem.dao.FacilityRouter;
+import com.parkit.parkingsystem.dao.MigrationRunner;
+import com.parkit.parkingsystem.dao.ParkingTypeDAO;
+import com.parkit.parkingsystem.dao.ReservationDAO;
+import com.parkit.parkingsystem.dao.SpotLeaseDAO;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.AsyncNotificationSink;
+import com.parkit.parkingsystem.util.CoarseClock;
+import com.parkit.parkingsystem.util.ConsoleNotificationSink;
+import com.parkit.parkingsystem.util.DedupeCache;
 import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.SlowTransactionLog;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * La classe InteractiveShell permet l'interaction avec l'utilisateur.
  * 
  * @author Dylan
- *
+ * 
  */
 public class InteractiveShell {
 
     private static final Logger logger = LogManager.getLogger("InteractiveShell");
+    private static final int LEASE_BLOCK_SIZE = 10;
+    private static final long LEASE_DURATION_MILLIS = 60000;
+    private static final int RESERVATION_HORIZON_DAYS = 60;
+    private static final int OCCUPANCY_HISTORY_MINUTES = 24 * 60;
+    private static final int OCCUPANCY_WINDOW_MINUTES = 60;
+    private static final int HTTP_THREADS = 16;
+    private static final int AVAILABILITY_SUBSCRIBER_CAPACITY = 256;
+    private static final int DEDUPE_CACHE_CAPACITY = 100000;
+    private static final long DEDUPE_CACHE_TTL_MILLIS = 5 * 60000;
+    private static final long CLOCK_RESOLUTION_MILLIS = 10;
+    private static final int NOTIFICATION_QUEUE_CAPACITY = 1024;
 
     /**
      * Permet de charger les fonctionnalités correspondantes au choix de
      * l'utilisateur selon l'option choisi. L'option numéro un exécute l'entrée du
      * vehicule. L'option numéro deux exécute la sortie du véhicule. L'option numéro
-     * trois permet de sortir du système.
+     * trois permet de sortir du système. Le parking (site) géré est indiqué par la
+     * propriété système parkit.facility, la stratégie d'attribution des places par
+     * parkit.allocation (lowest, roundrobin ou leased) et l'identifiant de la
+     * borne par parkit.gate. Les réservations sont honorées si la propriété
+     * parkit.reservations vaut true. Si la propriété parkit.http.port est
+     * indiquée, un second ParkingService, partageant la stratégie d'attribution
+     * et le cache des requêtes, est exposé en HTTP sur ce port. Si la propriété
+     * parkit.availability.port est indiquée, les changements de
+     * disponibilité sont publiés aux clients connectés sur ce port. Si la
+     * propriété parkit.fare.tableHorizonDays est indiquée, le prix des séjours de
+     * moins de ce nombre de jours est lu dans une FareTable. Les étapes du calcul
+     * du prix peuvent être changées par la propriété parkit.pricing. Le menu n'est
+     * affiché qu'une fois le démarrage terminé par le StartupService.
      * 
      * 
      * @throws Exception si une erreur est rencontrée lors de l'exécution du
@@ -28,13 +70,106 @@ public class InteractiveShell {
      */
     public static void loadInterface() throws Exception {
 	logger.info("App initialized!!!");
-	System.out.println("Welcome to Parking System!");
 
 	boolean continueApp = true;
 	InputReaderUtil inputReaderUtil = new InputReaderUtil();
-	ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
-	TicketDAO ticketDAO = new TicketDAO();
-	ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
+	FacilityRouter facilityRouter = FacilityRouter.load();
+	int facilityId = Integer.getInteger("parkit.facility", Facility.DEFAULT_ID);
+	StartupService startupService = new StartupService(facilityRouter.getDataBaseConfig(facilityId));
+	startupService.setMigrationRunner(new MigrationRunner(facilityRouter.getDataBaseConfig(facilityId)));
+	loadParkingTypes(startupService, facilityRouter, facilityId);
+	// La console affiche ses messages avant le menu suivant.
+	ParkingService parkingService = new ParkingService(inputReaderUtil, facilityRouter, facilityId,
+		new ConsoleNotificationSink());
+	List<ParkingService> parkingServices = new ArrayList<>();
+	parkingServices.add(parkingService);
+	// Les requêtes HTTP ont leur propre service, elles n'attendent pas l'affichage des messages.
+	Integer httpPort = Integer.getInteger("parkit.http.port");
+	AsyncNotificationSink httpNotificationSink = null;
+	ParkingService httpParkingService = null;
+	if (httpPort != null) {
+	    httpNotificationSink = new AsyncNotificationSink(new ConsoleNotificationSink(),
+		    NOTIFICATION_QUEUE_CAPACITY);
+	    httpParkingService = new ParkingService(inputReaderUtil, facilityRouter, facilityId, httpNotificationSink);
+	    parkingServices.add(httpParkingService);
+	}
+	CoarseClock clock = new CoarseClock(CLOCK_RESOLUTION_MILLIS);
+	String pricing = System.getProperty("parkit.pricing");
+	PricingPipeline pricingPipeline = pricing == null ? null : PricingPipeline.parse(pricing);
+	Integer fareTableHorizonDays = Integer.getInteger("parkit.fare.tableHorizonDays");
+	FareTable fareTable = fareTableHorizonDays == null ? null : new FareTable(fareTableHorizonDays * 24 * 60);
+	SpotAllocationStrategy spotAllocationStrategy = createSpotAllocationStrategy(facilityRouter, facilityId);
+	DedupeCache<Ticket> dedupeCache = new DedupeCache<>(DEDUPE_CACHE_CAPACITY, DEDUPE_CACHE_TTL_MILLIS, clock);
+	Long slowTransactionMillis = Long.getLong("parkit.slowTransaction.thresholdMillis");
+	RequestTracer requestTracer = slowTransactionMillis == null ? null
+		: new RequestTracer(slowTransactionMillis, new SlowTransactionLog(
+			Paths.get(System.getProperty("parkit.slowTransaction.log", "slow-transactions.log"))));
+	for (ParkingService service : parkingServices) {
+	    service.setClock(clock);
+	    service.setParkingSpotCatalog(facilityRouter.getParkingSpotCatalog(facilityId));
+	    if (pricingPipeline != null) {
+		service.setPricingPipeline(pricingPipeline);
+	    }
+	    service.setFareTable(fareTable);
+	    service.setSpotAllocationStrategy(spotAllocationStrategy);
+	    service.setDedupeCache(dedupeCache);
+	    service.setRequestTracer(requestTracer);
+	}
+	OccupancyTimeSeries occupancyTimeSeries = new OccupancyTimeSeries(OCCUPANCY_HISTORY_MINUTES,
+		OCCUPANCY_WINDOW_MINUTES, clock);
+	OccupancyCounters occupancyCounters = new OccupancyCounters();
+	startupService.addPreloadTask("parkingSpots", facilityRouter.getParkingSpotCatalog(facilityId)::load);
+	startupService.addPreloadTask("occupancy", () -> {
+	    ParkingOccupancy parkingOccupancy = facilityRouter.getParkingSpotDAO(facilityId).getParkingOccupancy(true);
+	    occupancyTimeSeries.seed(parkingOccupancy);
+	    occupancyCounters.seed(parkingOccupancy);
+	    return parkingOccupancy;
+	});
+	facilityRouter.getParkingSpotDAO(facilityId).addParkingSpotListener(occupancyCounters);
+	if (spotAllocationStrategy instanceof IndexedAllocationStrategy) {
+	    IndexedAllocationStrategy indexedAllocationStrategy = (IndexedAllocationStrategy) spotAllocationStrategy;
+	    startupService.addPreloadTask("freeSpots", () -> {
+		List<ParkingSpot> availableSpots = facilityRouter.getParkingSpotDAO(facilityId).getAvailableSlots();
+		indexedAllocationStrategy.seed(availableSpots);
+		return availableSpots;
+	    });
+	    facilityRouter.getParkingSpotDAO(facilityId).addParkingSpotListener(indexedAllocationStrategy);
+	}
+	Integer availabilityPort = Integer.getInteger("parkit.availability.port");
+	AvailabilitySocketServer availabilitySocketServer = null;
+	if (availabilityPort != null) {
+	    AvailabilityPublisher availabilityPublisher = new AvailabilityPublisher(occupancyCounters);
+	    facilityRouter.getParkingSpotDAO(facilityId).addParkingSpotListener(availabilityPublisher);
+	    availabilitySocketServer = new AvailabilitySocketServer(availabilityPublisher,
+		    new InetSocketAddress(InetAddress.getLoopbackAddress(), availabilityPort),
+		    AVAILABILITY_SUBSCRIBER_CAPACITY);
+	}
+	for (ParkingService service : parkingServices) {
+	    service.addParkingEventListener(occupancyTimeSeries);
+	    service.addParkingEventListener(startupService);
+	}
+	if (Boolean.getBoolean("parkit.reservations")) {
+	    ReservationDAO reservationDAO = new ReservationDAO();
+	    reservationDAO.dataBaseConfig = facilityRouter.getDataBaseConfig(facilityId);
+	    ReservationService reservationService = new ReservationService(reservationDAO,
+		    facilityRouter.getParkingSpotDAO(facilityId), RESERVATION_HORIZON_DAYS);
+	    startupService.addPreloadTask("reservations", () -> {
+		reservationService.load();
+		return null;
+	    });
+	    for (ParkingService service : parkingServices) {
+		service.setReservationService(reservationService);
+	    }
+	}
+	ParkingHttpServer parkingHttpServer = null;
+	if (httpPort != null) {
+	    parkingHttpServer = new ParkingHttpServer(httpParkingService, occupancyCounters,
+		    new InetSocketAddress(httpPort), Integer.getInteger("parkit.http.threads", HTTP_THREADS));
+	    parkingHttpServer.setReadinessCheck(startupService::isReady);
+	    parkingHttpServer.start();
+	}
+	startupService.start();
+	System.out.println("Welcome to Parking System!");
 
 	while (continueApp) {
 	    loadMenu();
@@ -51,6 +186,15 @@ public class InteractiveShell {
 	    case 3: {
 		System.out.println("Exiting from the system!");
 		continueApp = false;
+		if (parkingHttpServer != null) {
+		    parkingHttpServer.close();
+		    httpNotificationSink.close();
+		}
+		if (availabilitySocketServer != null) {
+		    availabilitySocketServer.close();
+		}
+		facilityRouter.shutdown();
+		clock.close();
 		break;
 	    }
 	    default:
@@ -59,6 +203,43 @@ public class InteractiveShell {
 	}
     }
 
+    private static SpotAllocationStrategy createSpotAllocationStrategy(FacilityRouter facilityRouter,
+	    int facilityId) {
+	String allocation = System.getProperty("parkit.allocation", "lowest");
+	switch (allocation) {
+	case "lowest":
+	    return new LowestNumberAllocationStrategy(facilityRouter.getParkingSpotDAO(facilityId));
+	case "indexed":
+	    return new IndexedAllocationStrategy();
+	case "roundrobin":
+	    return new RoundRobinAllocationStrategy(facilityRouter.getParkingSpotDAO(facilityId));
+	case "leased":
+	    SpotLeaseDAO spotLeaseDAO = new SpotLeaseDAO();
+	    spotLeaseDAO.dataBaseConfig = facilityRouter.getDataBaseConfig(facilityId);
+	    return new LeasedAllocationStrategy(facilityRouter.getParkingSpotDAO(facilityId), spotLeaseDAO,
+		    System.getProperty("parkit.gate", "gate-1"), LEASE_BLOCK_SIZE, LEASE_DURATION_MILLIS);
+	default:
+	    throw new IllegalArgumentException("Unknown allocation strategy: " + allocation);
+	}
+    }
+
+    /*
+     * Les types de place sont définis avant la création des services qui comptent
+     * les places par type, après les migrations qui créent la table parking_type.
+     * Si la base de donnée est indisponible, seuls CAR et BIKE existent.
+     */
+    private static void loadParkingTypes(StartupService startupService, FacilityRouter facilityRouter,
+	    int facilityId) throws Exception {
+	ParkingTypeDAO parkingTypeDAO = new ParkingTypeDAO();
+	parkingTypeDAO.dataBaseConfig = facilityRouter.getDataBaseConfig(facilityId);
+	try {
+	    startupService.migrate();
+	    logger.info("Parking types: " + parkingTypeDAO.loadParkingTypes());
+	} catch (SQLException e) {
+	    logger.error("Unable to load parking types, using CAR and BIKE", e);
+	}
+    }
+
     //Permet d'indiquer à l'utilisateur qu'elle option choisir.
      
     private static void loadMenu() {
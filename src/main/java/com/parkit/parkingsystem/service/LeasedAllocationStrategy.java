@@ -0,0 +1,158 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.SpotLeaseDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * La classe LeasedAllocationStrategy loue à la borne un bloc de places dans la
+ * table spot_lease, puis attribue les places de ce bloc. Chaque borne travaille
+ * ainsi sur ses propres places et ne se dispute plus les mêmes lignes avec les
+ * autres bornes.
+ * 
+ * Les locations sont prolongées tant que la borne fonctionne et expirent si
+ * elle s'arrête. Quand son bloc est épuisé, la borne loue de nouvelles places
+ * libres ; s'il n'en reste plus, elle reprend la moitié des places louées par
+ * chacune des autres bornes. Une place n'est attribuée que si elle est encore
+ * louée par la borne au moment où elle est occupée. Lorsque le type demandé n'a
+ * plus de place, les blocs de ses types de repli sont utilisés dans l'ordre.
+ * 
+ * @author Dylan
+ * 
+ */
+public class LeasedAllocationStrategy implements SpotAllocationStrategy {
+
+    private static final Logger logger = LogManager.getLogger("LeasedAllocationStrategy");
+    private static final int MAX_REFILLS = 3;
+
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final SpotLeaseDAO spotLeaseDAO;
+    private final String gateId;
+    private final int blockSize;
+    private final long leaseDurationMillis;
+    private final Map<ParkingType, Deque<Integer>> blocks = new TreeMap<>();
+    private long renewAtMillis;
+
+    /**
+     * 
+     * @param parkingSpotDAO      le ParkingSpotDAO du parking.
+     * @param spotLeaseDAO        le SpotLeaseDAO du parking.
+     * @param gateId              l'identifiant de la borne.
+     * @param blockSize           le nombre de places louées à la fois.
+     * @param leaseDurationMillis la durée d'une location.
+     */
+    public LeasedAllocationStrategy(ParkingSpotDAO parkingSpotDAO, SpotLeaseDAO spotLeaseDAO, String gateId,
+	    int blockSize, long leaseDurationMillis) {
+	this.parkingSpotDAO = parkingSpotDAO;
+	this.spotLeaseDAO = spotLeaseDAO;
+	this.gateId = gateId;
+	this.blockSize = blockSize;
+	this.leaseDurationMillis = leaseDurationMillis;
+    }
+
+    /**
+     * Permet d'attribuer une place du bloc loué par la borne. La place est occupée
+     * dès son attribution.
+     */
+    @Override
+    public synchronized int getNextAvailableSlot(ParkingType parkingType) throws Exception {
+	long now = System.currentTimeMillis();
+	if (now >= renewAtMillis) {
+	    // Une prolongation en échec est retentée à l'entrée suivante, le bloc reste utilisable.
+	    try {
+		spotLeaseDAO.renewLeases(gateId, expiry(now));
+		renewAtMillis = now + leaseDurationMillis / 2;
+	    } catch (Exception e) {
+		logger.error("Unable to renew spot leases of gate " + gateId, e);
+	    }
+	}
+	int parkingNumber = getNextLeasedSlot(parkingType, now);
+	List<ParkingType> fallbacks = parkingType.getFallbacks();
+	for (int i = 0; parkingNumber == 0 && i < fallbacks.size(); i++) {
+	    parkingNumber = getNextLeasedSlot(fallbacks.get(i), now);
+	}
+	return parkingNumber;
+    }
+
+    private int getNextLeasedSlot(ParkingType parkingType, long now) throws Exception {
+	Deque<Integer> block = blocks.computeIfAbsent(parkingType, type -> new ArrayDeque<>());
+	int refills = 0;
+	while (true) {
+	    Integer parkingNumber = block.pollFirst();
+	    if (parkingNumber == null) {
+		if (refills++ == MAX_REFILLS) {
+		    return 0;
+		}
+		refill(parkingType, block, now);
+		if (block.isEmpty()) {
+		    return 0;
+		}
+	    } else if (parkingSpotDAO.claimLeasedSpot(new ParkingSpot(parkingNumber, parkingType, true), gateId)) {
+		return parkingNumber;
+	    }
+	}
+    }
+
+    /**
+     * La place est occupée par claimLeasedSpot, seulement si elle est encore
+     * louée par la borne.
+     */
+    @Override
+    public boolean occupiesSpot() {
+	return true;
+    }
+
+    /*
+     * Recharge le bloc avec les places libres louées par la borne, puis avec de
+     * nouvelles places, puis avec des places reprises aux autres bornes.
+     */
+    private void refill(ParkingType parkingType, Deque<Integer> block, long now) throws Exception {
+	Timestamp expiry = expiry(now);
+	spotLeaseDAO.deleteExpiredLeases(new Timestamp(now));
+	Map<Integer, String> leasedSpots = spotLeaseDAO.getLeasedAvailableSpots(parkingType);
+	Map<String, List<Integer>> otherGates = new HashMap<>();
+	for (Map.Entry<Integer, String> leasedSpot : leasedSpots.entrySet()) {
+	    if (gateId.equals(leasedSpot.getValue())) {
+		block.addLast(leasedSpot.getKey());
+	    } else {
+		otherGates.computeIfAbsent(leasedSpot.getValue(), gate -> new ArrayList<>()).add(leasedSpot.getKey());
+	    }
+	}
+	if (block.size() < blockSize) {
+	    for (int parkingNumber : spotLeaseDAO.getUnleasedAvailableSpots(parkingType, blockSize - block.size())) {
+		if (spotLeaseDAO.saveLease(parkingNumber, gateId, expiry)) {
+		    block.addLast(parkingNumber);
+		}
+	    }
+	}
+	if (block.isEmpty()) {
+	    for (Map.Entry<String, List<Integer>> otherGate : otherGates.entrySet()) {
+		List<Integer> spots = otherGate.getValue();
+		for (int parkingNumber : spots.subList(0, Math.max(1, spots.size() / 2))) {
+		    if (spotLeaseDAO.transferLease(parkingNumber, otherGate.getKey(), gateId, expiry)) {
+			block.addLast(parkingNumber);
+		    }
+		}
+	    }
+	    if (!block.isEmpty()) {
+		logger.info("Gate " + gateId + " took over " + block.size() + " " + parkingType + " spots");
+	    }
+	}
+    }
+
+    private Timestamp expiry(long now) {
+	return new Timestamp(now + leaseDurationMillis);
+    }
+}
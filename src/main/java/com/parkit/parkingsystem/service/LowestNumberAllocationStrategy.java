@@ -0,0 +1,29 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+
+/**
+ * La classe LowestNumberAllocationStrategy attribue la place disponible ayant
+ * le plus petit numéro. C'est la stratégie par défaut.
+ * 
+ * @author Dylan
+ * 
+ */
+public class LowestNumberAllocationStrategy implements SpotAllocationStrategy {
+
+    private final ParkingSpotDAO parkingSpotDAO;
+
+    /**
+     * 
+     * @param parkingSpotDAO le ParkingSpotDAO du parking.
+     */
+    public LowestNumberAllocationStrategy(ParkingSpotDAO parkingSpotDAO) {
+	this.parkingSpotDAO = parkingSpotDAO;
+    }
+
+    @Override
+    public int getNextAvailableSlot(ParkingType parkingType) throws Exception {
+	return parkingSpotDAO.getNextAvailableSlot(parkingType);
+    }
+}
@@ -0,0 +1,102 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotListener;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * La classe OccupancyCounters tient en mémoire le nombre de places libres et
+ * occupées de chaque type d'emplacement, pour les panneaux d'affichage. Les
+ * compteurs sont initiés depuis la base de donnée au démarrage, puis mis à jour
+ * à chaque changement de disponibilité signalé par le ParkingSpotDAO.
+ * 
+ * Les compteurs sont des LongAdder : les mises à jour ne prennent aucun verrou
+ * et la lecture ne sollicite pas la base de donnée.
+ * 
+ * @author Dylan
+ * 
+ */
+public class OccupancyCounters implements ParkingSpotListener {
+
+    private final Map<ParkingType, LongAdder> availableSpots = new ConcurrentSkipListMap<>();
+    private final Map<ParkingType, LongAdder> occupiedSpots = new ConcurrentSkipListMap<>();
+
+    public OccupancyCounters() {
+	for (ParkingType parkingType : ParkingType.values()) {
+	    availableSpots.put(parkingType, new LongAdder());
+	    occupiedSpots.put(parkingType, new LongAdder());
+	}
+    }
+
+    /**
+     * Permet d'initier les compteurs depuis l'occupation lue en base de donnée.
+     * Doit être appelée avant que les compteurs ne soient branchés sur le
+     * ParkingSpotDAO.
+     * 
+     * @param parkingOccupancy l'occupation du parking.
+     */
+    public void seed(ParkingOccupancy parkingOccupancy) {
+	for (ParkingType parkingType : ParkingType.values()) {
+	    counter(availableSpots, parkingType).reset();
+	    counter(availableSpots, parkingType).add(parkingOccupancy.getAvailableSpots(parkingType));
+	    counter(occupiedSpots, parkingType).reset();
+	    counter(occupiedSpots, parkingType).add(parkingOccupancy.getOccupiedSpots(parkingType));
+	}
+    }
+
+    @Override
+    public void onParkingSpotUpdated(ParkingSpot parkingSpot) {
+	ParkingType parkingType = parkingSpot.getParkingType();
+	if (parkingSpot.isAvailable()) {
+	    counter(availableSpots, parkingType).increment();
+	    counter(occupiedSpots, parkingType).decrement();
+	} else {
+	    counter(availableSpots, parkingType).decrement();
+	    counter(occupiedSpots, parkingType).increment();
+	}
+    }
+
+    /**
+     * Récupère le nombre de places libres pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre de places libres.
+     */
+    public int getAvailableSpots(ParkingType parkingType) {
+	return (int) Math.max(0, counter(availableSpots, parkingType).sum());
+    }
+
+    /**
+     * Récupère le nombre de places occupées pour un type d'emplacement.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre de places occupées.
+     */
+    public int getOccupiedSpots(ParkingType parkingType) {
+	return (int) Math.max(0, counter(occupiedSpots, parkingType).sum());
+    }
+
+    /**
+     * Récupère une copie des compteurs de tous les types d'emplacement.
+     * 
+     * @return l'occupation du parking.
+     */
+    public ParkingOccupancy getParkingOccupancy() {
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	for (ParkingType parkingType : ParkingType.values()) {
+	    parkingOccupancy.setAvailableSpots(parkingType, getAvailableSpots(parkingType));
+	    parkingOccupancy.setOccupiedSpots(parkingType, getOccupiedSpots(parkingType));
+	}
+	return parkingOccupancy;
+    }
+
+    // Un type défini après la création des compteurs reçoit les siens au premier usage.
+    private static LongAdder counter(Map<ParkingType, LongAdder> counters, ParkingType parkingType) {
+	return counters.computeIfAbsent(parkingType, type -> new LongAdder());
+    }
+}
@@ -0,0 +1,254 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * La classe OccupancyTimeSeries suit l'occupation du parking minute par minute
+ * pour chaque type d'emplacement, à partir des entrées et sorties signalées par
+ * le ParkingService.
+ * 
+ * Les dernières minutes sont conservées dans un tampon circulaire de taille
+ * fixe. Les moyennes sur la fenêtre glissante et le modèle de prévision (lissage
+ * exponentiel double de Holt) sont mis à jour à la clôture de chaque minute :
+ * toutes les requêtes, hors historique complet, se font en temps constant et ne
+ * lisent jamais la table ticket.
+ * 
+ * @author Dylan
+ * 
+ */
+public class OccupancyTimeSeries implements ParkingEventListener {
+
+    private static final long MILLIS_PER_MINUTE = 60000;
+    private static final double LEVEL_SMOOTHING = 0.3;
+    private static final double TREND_SMOOTHING = 0.1;
+
+    private final int historyMinutes;
+    private final int windowMinutes;
+    private final Clock clock;
+    private final Map<ParkingType, Series> series = new TreeMap<>();
+
+    /**
+     * 
+     * @param historyMinutes le nombre de minutes conservées.
+     * @param windowMinutes  la taille de la fenêtre glissante des moyennes,
+     *                       inférieure à historyMinutes.
+     * @param clock          l'horloge donnant la minute courante.
+     */
+    public OccupancyTimeSeries(int historyMinutes, int windowMinutes, Clock clock) {
+	if (windowMinutes < 1 || windowMinutes >= historyMinutes) {
+	    throw new IllegalArgumentException("Window must be between 1 and " + (historyMinutes - 1) + " minutes");
+	}
+	this.historyMinutes = historyMinutes;
+	this.windowMinutes = windowMinutes;
+	this.clock = clock;
+	long minute = clock.millis() / MILLIS_PER_MINUTE;
+	for (ParkingType parkingType : ParkingType.values()) {
+	    series.put(parkingType, new Series(minute));
+	}
+    }
+
+    /**
+     * Permet d'initier l'occupation courante et la capacité de chaque type
+     * d'emplacement, lues au démarrage en base de donnée.
+     * 
+     * @param parkingOccupancy l'occupation du parking.
+     */
+    public synchronized void seed(ParkingOccupancy parkingOccupancy) {
+	long minute = clock.millis() / MILLIS_PER_MINUTE;
+	for (Map.Entry<ParkingType, Series> entry : series.entrySet()) {
+	    Series typeSeries = entry.getValue();
+	    typeSeries.advance(minute);
+	    typeSeries.occupied = parkingOccupancy.getOccupiedSpots(entry.getKey());
+	    typeSeries.capacity = parkingOccupancy.getCapacity(entry.getKey());
+	}
+    }
+
+    @Override
+    public synchronized void onVehicleEntered(Ticket ticket) {
+	Series typeSeries = current(ticket.getParkingSpot().getParkingType());
+	typeSeries.occupied++;
+	typeSeries.entries[typeSeries.head]++;
+    }
+
+    @Override
+    public synchronized void onVehicleExited(Ticket ticket) {
+	Series typeSeries = current(ticket.getParkingSpot().getParkingType());
+	typeSeries.occupied = Math.max(0, typeSeries.occupied - 1);
+	typeSeries.exits[typeSeries.head]++;
+    }
+
+    /**
+     * Récupère le nombre de places occupées.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre de places occupées.
+     */
+    public synchronized int getOccupancy(ParkingType parkingType) {
+	return current(parkingType).occupied;
+    }
+
+    /**
+     * Récupère l'occupation à la fin d'une minute passée.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @param minutesAgo  le nombre de minutes écoulées, de 1 à historyMinutes.
+     * @return le nombre de places occupées à la fin de cette minute.
+     */
+    public synchronized int getOccupancyMinutesAgo(ParkingType parkingType, int minutesAgo) {
+	if (minutesAgo < 1 || minutesAgo > historyMinutes - 1) {
+	    throw new IllegalArgumentException("Only the last " + (historyMinutes - 1) + " minutes are kept");
+	}
+	Series typeSeries = current(parkingType);
+	return typeSeries.occupancy[typeSeries.index(-minutesAgo)];
+    }
+
+    /**
+     * Récupère l'occupation moyenne sur la fenêtre glissante.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return l'occupation moyenne des dernières minutes closes.
+     */
+    public synchronized double getAverageOccupancy(ParkingType parkingType) {
+	Series typeSeries = current(parkingType);
+	long minutes = Math.min(typeSeries.closedMinutes, windowMinutes);
+	return minutes == 0 ? typeSeries.occupied : (double) typeSeries.windowOccupancy / minutes;
+    }
+
+    /**
+     * Récupère le nombre d'entrées par heure sur la fenêtre glissante.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre d'entrées par heure.
+     */
+    public synchronized double getEntriesPerHour(ParkingType parkingType) {
+	Series typeSeries = current(parkingType);
+	long minutes = Math.min(typeSeries.closedMinutes, windowMinutes);
+	return minutes == 0 ? 0.0 : typeSeries.windowEntries * 60.0 / minutes;
+    }
+
+    /**
+     * Récupère le nombre de sorties par heure sur la fenêtre glissante.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return le nombre de sorties par heure.
+     */
+    public synchronized double getExitsPerHour(ParkingType parkingType) {
+	Series typeSeries = current(parkingType);
+	long minutes = Math.min(typeSeries.closedMinutes, windowMinutes);
+	return minutes == 0 ? 0.0 : typeSeries.windowExits * 60.0 / minutes;
+    }
+
+    /**
+     * Récupère la prévision de l'occupation dans quelques minutes, selon la
+     * tendance des dernières minutes. La prévision est bornée par la capacité du
+     * parking lorsqu'elle est connue.
+     * 
+     * @param parkingType  le type d'emplacement.
+     * @param minutesAhead le nombre de minutes, par exemple 60 à 180.
+     * @return le nombre de places occupées prévu.
+     */
+    public synchronized double getForecast(ParkingType parkingType, int minutesAhead) {
+	Series typeSeries = current(parkingType);
+	if (typeSeries.closedMinutes == 0) {
+	    return typeSeries.occupied;
+	}
+	double forecast = Math.max(0.0, typeSeries.level + typeSeries.trend * minutesAhead);
+	return typeSeries.capacity > 0 ? Math.min(typeSeries.capacity, forecast) : forecast;
+    }
+
+    /**
+     * Récupère l'occupation à la fin de chaque minute conservée, de la plus
+     * ancienne à la plus récente, pour tracer la courbe d'occupation.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @return l'occupation des dernières minutes closes.
+     */
+    public synchronized int[] getHistory(ParkingType parkingType) {
+	Series typeSeries = current(parkingType);
+	int minutes = (int) Math.min(typeSeries.closedMinutes, historyMinutes - 1);
+	int[] history = new int[minutes];
+	for (int i = 0; i < minutes; i++) {
+	    history[i] = typeSeries.occupancy[typeSeries.index(i - minutes)];
+	}
+	return history;
+    }
+
+    // Un type défini après la création des courbes part d'une courbe vide.
+    private Series current(ParkingType parkingType) {
+	Series typeSeries = series.computeIfAbsent(parkingType,
+		type -> new Series(clock.millis() / MILLIS_PER_MINUTE));
+	typeSeries.advance(clock.millis() / MILLIS_PER_MINUTE);
+	return typeSeries;
+    }
+
+    /*
+     * Les minutes d'un type d'emplacement. head est la case de la minute en cours,
+     * les autres cases contiennent les minutes closes.
+     */
+    private final class Series {
+	private final int[] occupancy = new int[historyMinutes];
+	private final int[] entries = new int[historyMinutes];
+	private final int[] exits = new int[historyMinutes];
+	private int head;
+	private long minute;
+	private long closedMinutes;
+	private int occupied;
+	private int capacity;
+	private long windowOccupancy;
+	private long windowEntries;
+	private long windowExits;
+	private double level;
+	private double trend;
+
+	private Series(long minute) {
+	    this.minute = minute;
+	}
+
+	private int index(int offset) {
+	    return Math.floorMod(head + offset, historyMinutes);
+	}
+
+	/*
+	 * Clôt les minutes écoulées. Au-delà de la taille du tampon, les minutes
+	 * plus anciennes seraient de toute façon écrasées.
+	 */
+	private void advance(long now) {
+	    long elapsed = Math.min(now - minute, historyMinutes);
+	    for (long i = 0; i < elapsed; i++) {
+		close();
+	    }
+	    minute = Math.max(minute, now);
+	}
+
+	private void close() {
+	    occupancy[head] = occupied;
+	    windowOccupancy += occupied;
+	    windowEntries += entries[head];
+	    windowExits += exits[head];
+	    if (closedMinutes >= windowMinutes) {
+		int leaving = index(-windowMinutes);
+		windowOccupancy -= occupancy[leaving];
+		windowEntries -= entries[leaving];
+		windowExits -= exits[leaving];
+	    }
+	    if (closedMinutes == 0) {
+		level = occupied;
+		trend = 0.0;
+	    } else {
+		double previousLevel = level;
+		level = LEVEL_SMOOTHING * occupied + (1 - LEVEL_SMOOTHING) * (level + trend);
+		trend = TREND_SMOOTHING * (level - previousLevel) + (1 - TREND_SMOOTHING) * trend;
+	    }
+	    closedMinutes++;
+	    head = index(1);
+	    entries[head] = 0;
+	    exits[head] = 0;
+	}
+    }
+}
@@ -0,0 +1,27 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+/**
+ * L'interface ParkingEventListener est prévenue par le ParkingService de
+ * l'entrée et de la sortie des véhicules.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface ParkingEventListener {
+
+    /**
+     * Appelée une fois l'entrée du véhicule enregistrée.
+     * 
+     * @param ticket le ticket du véhicule entré.
+     */
+    void onVehicleEntered(Ticket ticket);
+
+    /**
+     * Appelée une fois la sortie du véhicule enregistrée.
+     * 
+     * @param ticket le ticket du véhicule sorti, avec son prix.
+     */
+    void onVehicleExited(Ticket ticket);
+}
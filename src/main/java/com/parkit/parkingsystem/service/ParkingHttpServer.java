@@ -0,0 +1,253 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * La classe ParkingHttpServer expose le ParkingService en HTTP, les réponses
+ * sont en JSON :
+ * 
+ * POST /entries?type=CAR&plate=ABC enregistre l'entrée d'un véhicule, POST
+ * /exits?plate=ABC sa sortie, GET /tickets/ABC renvoie le dernier ticket du
+ * véhicule et GET /availability le nombre de places libres et occupées de
+ * chaque type, lu dans les OccupancyCounters sans solliciter la base de donnée.
+ * Une entrée ou une sortie peut porter un paramètre requestId : le client peut
+ * alors la rejouer sans risque après une expiration de délai. Une sortie peut
+ * aussi porter un paramètre promoCode.
+ * 
+ * GET /ready indique si la borne a terminé son démarrage. Une requête
+ * incorrecte, comme la sortie d'un véhicule sans ticket, reçoit le statut 400,
+ * une entrée refusée faute de place le statut 409, une erreur de la base de
+ * donnée le statut 500 et toute requête reçue avant la fin du démarrage le
+ * statut 503.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ParkingHttpServer implements AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("ParkingHttpServer");
+    private static final int STOP_DELAY_SECONDS = 1;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final ParkingService parkingService;
+    private final OccupancyCounters occupancyCounters;
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private volatile BooleanSupplier readinessCheck = () -> true;
+
+    /**
+     * 
+     * @param parkingService    le ParkingService du parking.
+     * @param occupancyCounters les compteurs de places du parking.
+     * @param address           l'adresse d'écoute, le port 0 choisit un port
+     *                          libre.
+     * @param threads           le nombre de requêtes traitées en parallèle.
+     * @throws IOException si l'adresse ne peut pas être ouverte.
+     */
+    public ParkingHttpServer(ParkingService parkingService, OccupancyCounters occupancyCounters,
+	    InetSocketAddress address, int threads) throws IOException {
+	this.parkingService = parkingService;
+	this.occupancyCounters = occupancyCounters;
+	/*
+	 * Les en-têtes et le corps de la réponse sont écrits séparément : sans
+	 * TCP_NODELAY, l'algorithme de Nagle et l'acquittement différé du client
+	 * retardent chaque réponse d'environ 40 ms.
+	 */
+	if (System.getProperty(NODELAY_PROPERTY) == null) {
+	    System.setProperty(NODELAY_PROPERTY, "true");
+	}
+	this.httpServer = HttpServer.create(address, 0);
+	this.executorService = Executors.newFixedThreadPool(threads);
+	httpServer.setExecutor(executorService);
+	httpServer.createContext("/entries", exchange -> handle(exchange, "POST", this::entry));
+	httpServer.createContext("/exits", exchange -> handle(exchange, "POST", this::exit));
+	httpServer.createContext("/tickets/", exchange -> handle(exchange, "GET", this::ticket));
+	httpServer.createContext("/availability", exchange -> handle(exchange, "GET", this::availability));
+	httpServer.createContext("/ready", exchange -> handle(exchange, "GET", this::readiness));
+    }
+
+    /**
+     * Permet d'indiquer si la borne est prête. Tant qu'elle ne l'est pas, GET
+     * /ready et toutes les autres requêtes reçoivent le statut 503.
+     * 
+     * @param readinessCheck indique si la borne est prête.
+     */
+    public void setReadinessCheck(BooleanSupplier readinessCheck) {
+	this.readinessCheck = readinessCheck;
+    }
+
+    /**
+     * Démarre le serveur.
+     */
+    public void start() {
+	httpServer.start();
+	logger.info("HTTP API listening on port " + getPort());
+    }
+
+    /**
+     * Récupère le port d'écoute du serveur.
+     * 
+     * @return le port d'écoute.
+     */
+    public int getPort() {
+	return httpServer.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+	httpServer.stop(STOP_DELAY_SECONDS);
+	executorService.shutdown();
+    }
+
+    private Response entry(HttpExchange exchange) throws Exception {
+	Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+	ParkingType parkingType = ParkingType.valueOf(requireParameter(parameters, "type").toUpperCase());
+	Ticket ticket = parkingService.processIncomingVehicle(parameters.get("requestId"), parkingType,
+		requireParameter(parameters, "plate"));
+	return new Response(201, writeTicket(ticket));
+    }
+
+    private Response exit(HttpExchange exchange) throws Exception {
+	Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+	Ticket ticket = parkingService.processExitingVehicle(parameters.get("requestId"),
+		requireParameter(parameters, "plate"), parameters.get("promoCode"));
+	if (ticket == null) {
+	    return error(500, "Unable to update ticket");
+	}
+	return new Response(200, writeTicket(ticket));
+    }
+
+    private Response ticket(HttpExchange exchange) throws Exception {
+	String vehicleRegNumber = decode(
+		exchange.getRequestURI().getRawPath().substring(exchange.getHttpContext().getPath().length()));
+	if (vehicleRegNumber.trim().isEmpty()) {
+	    throw new IllegalArgumentException("Missing vehicle registration number");
+	}
+	Ticket ticket = parkingService.getTicket(vehicleRegNumber);
+	if (ticket == null) {
+	    return error(404, "No ticket found for vehicle " + vehicleRegNumber);
+	}
+	return new Response(200, writeTicket(ticket));
+    }
+
+    private Response availability(HttpExchange exchange) {
+	JsonWriter json = new JsonWriter().beginObject();
+	for (ParkingType parkingType : ParkingType.values()) {
+	    int available = occupancyCounters.getAvailableSpots(parkingType);
+	    int occupied = occupancyCounters.getOccupiedSpots(parkingType);
+	    // Un type sans aucune place dans ce parking n'est pas indiqué.
+	    if (available + occupied > 0) {
+		json.name(parkingType.toString()).beginObject().name("available").value(available).name("occupied")
+			.value(occupied).endObject();
+	    }
+	}
+	return new Response(200, json.endObject().toString());
+    }
+
+    private Response readiness(HttpExchange exchange) {
+	return new Response(200, new JsonWriter().beginObject().name("ready").value(true).endObject().toString());
+    }
+
+    private void handle(HttpExchange exchange, String method, Route route) throws IOException {
+	Response response;
+	try {
+	    if (!readinessCheck.getAsBoolean()) {
+		response = error(503, "Starting");
+	    } else if (!method.equals(exchange.getRequestMethod())) {
+		response = error(405, "Method not allowed");
+	    } else {
+		response = route.handle(exchange);
+	    }
+	} catch (IllegalArgumentException e) {
+	    response = error(400, e.getMessage());
+	} catch (IllegalStateException e) {
+	    response = error(409, e.getMessage());
+	} catch (Exception e) {
+	    logger.error("Error handling " + exchange.getRequestURI(), e);
+	    response = error(500, "Internal error");
+	}
+	byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+	exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+	exchange.sendResponseHeaders(response.status, body.length);
+	try (OutputStream outputStream = exchange.getResponseBody()) {
+	    outputStream.write(body);
+	}
+    }
+
+    private static String writeTicket(Ticket ticket) {
+	ParkingSpot parkingSpot = ticket.getParkingSpot();
+	JsonWriter json = new JsonWriter().beginObject().name("id").value(ticket.getId()).name("facilityId")
+		.value(ticket.getFacilityId()).name("vehicleRegNumber").value(ticket.getVehicleRegNumber())
+		.name("parkingNumber").value(parkingSpot.getId()).name("parkingType")
+		.value(parkingSpot.getParkingType().toString()).name("inTime")
+		.value(ticket.getInTimestamp().getTime()).name("outTime");
+	if (ticket.getOutTimestamp() == null) {
+	    json.nullValue();
+	} else {
+	    json.value(ticket.getOutTimestamp().getTime());
+	}
+	return json.name("price").value(ticket.getPrice()).endObject().toString();
+    }
+
+    private static Response error(int status, String message) {
+	return new Response(status, new JsonWriter().beginObject().name("error").value(message).endObject().toString());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+	Map<String, String> parameters = new HashMap<>();
+	if (rawQuery != null) {
+	    for (String pair : rawQuery.split("&")) {
+		int separator = pair.indexOf('=');
+		if (separator > 0) {
+		    parameters.put(decode(pair.substring(0, separator)), decode(pair.substring(separator + 1)));
+		}
+	    }
+	}
+	return parameters;
+    }
+
+    private static String requireParameter(Map<String, String> parameters, String name) {
+	String value = parameters.get(name);
+	if (value == null || value.trim().isEmpty()) {
+	    throw new IllegalArgumentException("Missing parameter: " + name);
+	}
+	return value;
+    }
+
+    private static String decode(String value) throws UnsupportedEncodingException {
+	return URLDecoder.decode(value, "UTF-8");
+    }
+
+    private interface Route {
+	Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    private static final class Response {
+	private final int status;
+	private final String body;
+
+	private Response(int status, String body) {
+	    this.status = status;
+	    this.body = body;
+	}
+    }
+}
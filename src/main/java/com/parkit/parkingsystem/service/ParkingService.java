@@ -1,32 +1,61 @@
 package com.parkit.parkingsystem.service;
 
+import com.parkit.parkingsystem.config.UnitOfWork;
+import com.parkit.parkingsystem.constants.Facility;
+import com.parkit.parkingsystem.constants.NotificationType;
 import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.constants.TraceStage;
+import com.parkit.parkingsystem.dao.FacilityRouter;
+import com.parkit.parkingsystem.dao.ParkingSpotCatalog;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.jfr.ParkingRequestEvent;
+import com.parkit.parkingsystem.jfr.SpotAllocationEvent;
+import com.parkit.parkingsystem.model.Notification;
 import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Reservation;
 import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.ConsoleNotificationSink;
+import com.parkit.parkingsystem.util.DedupeCache;
 import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.NotificationSink;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * La classe ParkingService permet l'entrée et sortie des véhicules, en
  * communiquant avec la base de données.
  * 
  * @author Dylan
- *
+ * 
  */
 public class ParkingService {
 
     private static final Logger logger = LogManager.getLogger("ParkingService");
+    // Nombre de places essayées pour une entrée quand d'autres bornes les prennent.
+    private static final int MAX_SPOT_ATTEMPTS = 5;
 
-    private static FareCalculatorService fareCalculatorService = new FareCalculatorService();
+    private FareCalculatorService fareCalculatorService;
 
     private InputReaderUtil inputReaderUtil;
     private ParkingSpotDAO parkingSpotDAO;
     private TicketDAO ticketDAO;
+    private NotificationSink notificationSink;
+    private SpotAllocationStrategy spotAllocationStrategy;
+    private ReservationService reservationService;
+    private DedupeCache<Ticket> dedupeCache;
+    private ParkingSpotCatalog parkingSpotCatalog;
+    private UnitOfWork unitOfWork = UnitOfWork.NONE;
+    private RequestTracer requestTracer;
+    private Clock clock = Clock.systemUTC();
+    private final List<ParkingEventListener> parkingEventListeners = new CopyOnWriteArrayList<>();
+    private int facilityId = Facility.DEFAULT_ID;
 
     /**
      * 
@@ -39,53 +68,388 @@ public class ParkingService {
      * @param ticketDAO       est l'enregistrement du ticket dans la base de donnée.
      */
     public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO) {
+	this(inputReaderUtil, parkingSpotDAO, ticketDAO, new ConsoleNotificationSink());
+    }
+
+    /**
+     * 
+     * Constructeur ParkingService
+     * 
+     * @param inputReaderUtil  l'option choisi par l'utilisateur si c'est une
+     *                         voiture ou moto.
+     * @param parkingSpotDAO   est l'enregistrement dans la base de donnée du type
+     *                         de parking et son numéro.
+     * @param ticketDAO        est l'enregistrement du ticket dans la base de
+     *                         donnée.
+     * @param notificationSink le destinataire des messages pour l'utilisateur.
+     */
+    public ParkingService(InputReaderUtil inputReaderUtil, ParkingSpotDAO parkingSpotDAO, TicketDAO ticketDAO,
+	    NotificationSink notificationSink) {
 	this.inputReaderUtil = inputReaderUtil;
 	this.parkingSpotDAO = parkingSpotDAO;
 	this.ticketDAO = ticketDAO;
+	this.notificationSink = notificationSink;
+	this.fareCalculatorService = new FareCalculatorService(notificationSink);
+	this.spotAllocationStrategy = new LowestNumberAllocationStrategy(parkingSpotDAO);
+    }
+
+    /**
+     * 
+     * Constructeur ParkingService pour un parking (site) donné, les DAO utilisés
+     * sont ceux de la base de donnée du parking. L'entrée et la sortie d'un
+     * véhicule sont chacune faites dans une transaction de cette base.
+     * 
+     * @param inputReaderUtil  l'option choisi par l'utilisateur si c'est une
+     *                         voiture ou moto.
+     * @param facilityRouter   le routeur donnant accès à la base de chaque
+     *                         parking.
+     * @param facilityId       l'identifiant du parking.
+     * @param notificationSink le destinataire des messages pour l'utilisateur.
+     */
+    public ParkingService(InputReaderUtil inputReaderUtil, FacilityRouter facilityRouter, int facilityId,
+	    NotificationSink notificationSink) {
+	this(inputReaderUtil, facilityRouter.getParkingSpotDAO(facilityId), facilityRouter.getTicketDAO(facilityId),
+		notificationSink);
+	this.facilityId = facilityId;
+	this.unitOfWork = facilityRouter.getUnitOfWork(facilityId);
+    }
+
+    /**
+     * Récupère l'identifiant du parking (site) géré par ce service.
+     * 
+     * @return l'identifiant du parking.
+     */
+    public int getFacilityId() {
+	return facilityId;
+    }
+
+    /**
+     * Permet de changer la stratégie d'attribution des places, par défaut la place
+     * disponible ayant le plus petit numéro est attribuée.
+     * 
+     * @param spotAllocationStrategy la stratégie d'attribution des places.
+     */
+    public void setSpotAllocationStrategy(SpotAllocationStrategy spotAllocationStrategy) {
+	this.spotAllocationStrategy = spotAllocationStrategy;
+    }
+
+    /**
+     * Permet d'honorer les réservations à l'entrée des véhicules. Sans
+     * ReservationService, les réservations sont ignorées.
+     * 
+     * @param reservationService le service de réservation du parking.
+     */
+    public void setReservationService(ReservationService reservationService) {
+	this.reservationService = reservationService;
     }
 
     /**
-     * Permet l'entrée du véhicule.
+     * Permet de retenir le résultat des entrées et sorties identifiées par un
+     * identifiant de requête. Sans DedupeCache, l'identifiant est ignoré.
+     * 
+     * @param dedupeCache le cache des entrées et sorties.
+     */
+    public void setDedupeCache(DedupeCache<Ticket> dedupeCache) {
+	this.dedupeCache = dedupeCache;
+    }
+
+    /**
+     * Permet d'attribuer aux véhicules les places partagées du catalogue du
+     * parking. Sans ParkingSpotCatalog, une place est créée à chaque entrée.
+     * 
+     * @param parkingSpotCatalog le catalogue des places du parking.
+     */
+    public void setParkingSpotCatalog(ParkingSpotCatalog parkingSpotCatalog) {
+	this.parkingSpotCatalog = parkingSpotCatalog;
+    }
+
+    /**
+     * Permet d'enregistrer l'entrée et la sortie d'un véhicule chacune en une
+     * seule transaction, la place et le ticket étant alors toujours cohérents.
+     * Par défaut chaque écriture est validée séparément.
+     * 
+     * @param unitOfWork l'unité de travail des DAO.
+     */
+    public void setUnitOfWork(UnitOfWork unitOfWork) {
+	this.unitOfWork = unitOfWork;
+    }
+
+    /**
+     * Permet de mesurer la durée de chaque étape des entrées et sorties, les plus
+     * lentes étant écrites dans le journal du RequestTracer. Par défaut aucune
+     * mesure n'est faite.
+     * 
+     * @param requestTracer la mesure des étapes, ou null.
+     */
+    public void setRequestTracer(RequestTracer requestTracer) {
+	this.requestTracer = requestTracer;
+    }
+
+    /**
+     * Permet de changer l'horloge donnant l'heure d'entrée et de sortie des
+     * véhicules, par défaut l'horloge système. Le calcul du tarif utilise la même
+     * horloge.
+     * 
+     * @param clock l'horloge.
+     */
+    public void setClock(Clock clock) {
+	this.clock = clock;
+	FareCalculatorService previous = fareCalculatorService;
+	this.fareCalculatorService = new FareCalculatorService(notificationSink, clock);
+	this.fareCalculatorService.setFareTable(previous.getFareTable());
+	this.fareCalculatorService.setPricingPipeline(previous.getPricingPipeline());
+    }
+
+    /**
+     * Permet de changer les étapes du calcul du prix à la sortie, par exemple
+     * après un changement de tarif.
+     * 
+     * @param pricingPipeline les étapes du calcul du prix.
+     */
+    public void setPricingPipeline(PricingPipeline pricingPipeline) {
+	fareCalculatorService.setPricingPipeline(pricingPipeline);
+    }
+
+    /**
+     * Permet de lire le prix des durées courantes dans une table au lieu de le
+     * calculer à chaque sortie. Une nouvelle table peut être donnée à tout moment,
+     * par exemple après un changement de tarif.
+     * 
+     * @param fareTable la table des prix, ou null pour toujours calculer le prix.
+     */
+    public void setFareTable(FareTable fareTable) {
+	fareCalculatorService.setFareTable(fareTable);
+    }
+
+    /**
+     * Permet d'être prévenu de l'entrée et de la sortie des véhicules.
+     * 
+     * @param parkingEventListener le destinataire des événements.
+     */
+    public void addParkingEventListener(ParkingEventListener parkingEventListener) {
+	parkingEventListeners.add(parkingEventListener);
+    }
+
+    /**
+     * Permet l'entrée du véhicule, le type de véhicule et la plaque
+     * d'immatriculation sont lus dans la console.
      * 
      * @throws Exception si une erreur est rencontrée lors de la vérification des
      *                   places disponibles.
      */
     public void processIncomingVehicle() throws Exception {
-	/*
-	 * Vérifie si une place est disponible selon le type de véhicule, si cela est
-	 * correct nous mettons à jour la base de donnée, afin d'indiquer que cette
-	 * place est désormais prise. Nous initions le ticket avec le type de parking,
-	 * la plaque d'immatriculation et le temps d'entrée afin de l'enregistrer dans
-	 * la base de donnée. Si l'utilisateur est déjà venue alors nous lui indiquons
-	 * qu'il bénéficera d'une réduction à sa sortie.
-	 */
+	ParkingRequestEvent event = new ParkingRequestEvent("entry");
+	event.begin();
+	beginTrace("entry", null);
+	Exception failure = null;
+	String vehicleRegNumber = null;
+	Ticket ticket = null;
 	try {
-	    ParkingSpot parkingSpot = getNextParkingNumberIfAvailable();
+	    ParkingType parkingType = readVehicleType();
+	    ParkingSpot parkingSpot = getNextParkingNumberIfAvailable(parkingType);
 
 	    if (parkingSpot != null && parkingSpot.getId() > 0) {
-		String vehicleRegNumber = getVehichleRegNumber();
-		Ticket ticket = new Ticket();
-		parkingSpot.setAvailable(false);
-		parkingSpotDAO.updateParking(parkingSpot);
-		Timestamp inTime = new Timestamp(System.currentTimeMillis());
-
-		ticket.setParkingSpot(parkingSpot);
-		ticket.setVehicleRegNumber(vehicleRegNumber);
-		ticket.setInTimestamp(inTime);
-		ticketDAO.saveTicket(ticket);
-		System.out.println("Generated Ticket and saved in DB");
-		System.out.println("Please park your vehicle in spot number: " + parkingSpot.getId());
-		System.out.println("Recorded in-time for vehicle number: " + vehicleRegNumber + " is: " + inTime);
-		if (ticketDAO.getTicketUserPresentInDB(vehicleRegNumber)) {
-		    System.out.println(
-			    "You have already come at least once, if you stay more than 30min you will benefit from a 5% discount when you go out");
+		try {
+		    vehicleRegNumber = getVehichleRegNumber();
+		} catch (Exception e) {
+		    if (spotAllocationStrategy.occupiesSpot()) {
+			releaseParkingSpot(parkingSpot);
+		    }
+		    throw e;
 		}
+		trace(TraceStage.INPUT);
+		if (requestTracer != null) {
+		    requestTracer.setVehicleRegNumber(vehicleRegNumber);
+		}
+		ticket = enter(parkingType, parkingSpot, vehicleRegNumber);
 	    }
 
 	} catch (Exception e) {
+	    failure = e;
+	    logger.error("Unable to process incoming vehicle", e);
+	    throw e;
+	} finally {
+	    endTrace(failure);
+	    event.record(vehicleRegNumber, ticket);
+	}
+    }
+
+    /**
+     * Permet l'entrée du véhicule sans passer par la console.
+     * 
+     * @param parkingType      le type de véhicule.
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     * @return le ticket enregistré.
+     * @throws IllegalStateException si aucune place n'est disponible ou si les
+     *                               places restantes sont réservées.
+     * @throws Exception             si une erreur est rencontrée lors de
+     *                               l'enregistrement.
+     */
+    public Ticket processIncomingVehicle(ParkingType parkingType, String vehicleRegNumber) throws Exception {
+	ParkingRequestEvent event = new ParkingRequestEvent("entry");
+	event.begin();
+	beginTrace("entry", vehicleRegNumber);
+	Exception failure = null;
+	Ticket ticket = null;
+	try {
+	    int parkingNumber = allocateSpot(parkingType);
+	    if (parkingNumber <= 0) {
+		throw new IllegalStateException("Parking slots might be full");
+	    }
+	    ticket = enter(parkingType, getParkingSpot(parkingNumber, parkingType), vehicleRegNumber);
+	    return ticket;
+	} catch (Exception e) {
+	    failure = e;
 	    logger.error("Unable to process incoming vehicle", e);
 	    throw e;
+	} finally {
+	    endTrace(failure);
+	    event.record(vehicleRegNumber, ticket);
+	}
+    }
+
+    /**
+     * Permet l'entrée du véhicule sans passer par la console, une seule fois par
+     * identifiant de requête : une requête rejouée renvoie le ticket de la
+     * requête d'origine sans attribuer de nouvelle place.
+     * 
+     * @param requestId        l'identifiant de la requête, ou null.
+     * @param parkingType      le type de véhicule.
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     * @return le ticket enregistré.
+     * @throws IllegalStateException si aucune place n'est disponible ou si les
+     *                               places restantes sont réservées.
+     * @throws Exception             si une erreur est rencontrée lors de
+     *                               l'enregistrement.
+     */
+    public Ticket processIncomingVehicle(String requestId, ParkingType parkingType, String vehicleRegNumber)
+	    throws Exception {
+	if (requestId == null || dedupeCache == null) {
+	    return processIncomingVehicle(parkingType, vehicleRegNumber);
+	}
+	return dedupeCache.execute("entry:" + requestId, () -> processIncomingVehicle(parkingType, vehicleRegNumber));
+    }
+
+    /*
+     * Une place peut être prise par une autre borne entre son attribution et son
+     * occupation : une autre place est alors attribuée, au plus MAX_SPOT_ATTEMPTS
+     * fois.
+     */
+    private Ticket enter(ParkingType parkingType, ParkingSpot parkingSpot, String vehicleRegNumber)
+	    throws Exception {
+	for (int attempt = 1;; attempt++) {
+	    Ticket ticket = recordEntry(parkingSpot, vehicleRegNumber);
+	    if (ticket != null) {
+		return ticket;
+	    }
+	    if (attempt == MAX_SPOT_ATTEMPTS) {
+		throw new IllegalStateException("Parking slots taken by other gates, please retry");
+	    }
+	    logger.info("Parking spot " + parkingSpot.getId() + " taken by another gate, allocating another one");
+	    int parkingNumber = allocateSpot(parkingType);
+	    if (parkingNumber <= 0) {
+		throw new IllegalStateException("Parking slots might be full");
+	    }
+	    parkingSpot = getParkingSpot(parkingNumber, parkingType);
+	}
+    }
+
+    /*
+     * Renvoie null, sans rien avoir enregistré, si la place a été prise par une
+     * autre borne depuis son attribution.
+     */
+    private Ticket recordEntry(ParkingSpot parkingSpot, String vehicleRegNumber) throws Exception {
+	/*
+	 * Nous mettons à jour la base de donnée, afin d'indiquer que la place est
+	 * désormais prise. Nous initions le ticket avec le type de parking, la plaque
+	 * d'immatriculation et le temps d'entrée afin de l'enregistrer dans la base de
+	 * donnée. Si l'utilisateur est déjà venue alors nous lui indiquons qu'il
+	 * bénéficera d'une réduction à sa sortie. Lorsque les réservations sont
+	 * actives, un véhicule sans réservation n'entre que s'il reste une place pour
+	 * chaque réservation en cours. Ces lectures et écritures forment une seule
+	 * unité de travail, les messages ne sont envoyés qu'une fois celle-ci validée.
+	 */
+	Ticket ticket = new Ticket();
+	AtomicBoolean ticketSaved = new AtomicBoolean();
+	Reservation reservation;
+	try {
+	    reservation = unitOfWork.execute(() -> {
+		Reservation active = null;
+		if (reservationService != null) {
+		    long now = clock.millis();
+		    active = reservationService.getActiveReservation(vehicleRegNumber, now);
+		    if (active == null && !reservationService.canAdmitWalkIn(parkingSpot.getParkingType(), now)) {
+			throw new IllegalStateException("Remaining parking slots are reserved");
+		    }
+		    trace(TraceStage.RESERVATION_CHECK);
+		}
+		if (!spotAllocationStrategy.occupiesSpot() && !parkingSpotDAO.updateParking(parkingSpot, false)) {
+		    return null;
+		}
+		trace(TraceStage.UPDATE_PARKING);
+
+		ticket.setParkingSpot(parkingSpot);
+		ticket.setFacilityId(facilityId);
+		ticket.setVehicleRegNumber(vehicleRegNumber);
+		ticket.setInTimestamp(new Timestamp(clock.millis()));
+		ticketDAO.saveTicket(ticket);
+		ticketSaved.set(true);
+		trace(TraceStage.SAVE_TICKET);
+		ticket.setRecurringUser(ticketDAO.getTicketUserPresentInDB(vehicleRegNumber));
+		trace(TraceStage.LOYALTY_QUERY);
+		return active;
+	    });
+	    trace(TraceStage.COMMIT);
+	} catch (Exception e) {
+	    boolean committed = unitOfWork == UnitOfWork.NONE;
+	    boolean occupied = spotAllocationStrategy.occupiesSpot() || committed && ticket.getParkingSpot() != null;
+	    if (occupied && !(committed && ticketSaved.get())) {
+		releaseParkingSpot(parkingSpot);
+	    }
+	    throw e;
+	}
+	if (ticket.getParkingSpot() == null) {
+	    return null;
+	}
+	Timestamp inTime = ticket.getInTimestamp();
+	if (reservation != null) {
+	    reservationService.claim(reservation, inTime.getTime());
+	}
+	notificationSink.publish(
+		new Notification(NotificationType.ENTRY_RECORDED, vehicleRegNumber, parkingSpot.getId(), 0.0, inTime));
+	fireParkingEvent(ticket, true);
+	if (ticket.isRecurringUser()) {
+	    notificationSink.publish(Notification.of(NotificationType.RECURRING_USER));
+	}
+	trace(TraceStage.NOTIFICATION);
+	return ticket;
+    }
+
+    /*
+     * La place est libérée afin de ne pas rester occupée sans ticket. Dans une
+     * transaction, l'annulation suffit, sauf pour une place occupée par la
+     * stratégie d'attribution hors de la transaction. Une place dont le ticket est
+     * enregistré reste occupée.
+     */
+    private void releaseParkingSpot(ParkingSpot parkingSpot) throws Exception {
+	parkingSpotDAO.updateParking(parkingSpot, true);
+    }
+
+    /*
+     * La place du catalogue est partagée et n'est jamais modifiée, sa
+     * disponibilité est indiquée au ParkingSpotDAO. La place attribuée peut être
+     * d'un type de repli : sans catalogue, son type est alors lu en base.
+     */
+    private ParkingSpot getParkingSpot(int parkingNumber, ParkingType parkingType) throws Exception {
+	if (parkingSpotCatalog != null) {
+	    ParkingSpot parkingSpot = parkingSpotCatalog.getParkingSpot(parkingNumber);
+	    if (parkingSpot != null) {
+		return parkingSpot;
+	    }
 	}
+	ParkingType spotType = parkingType.getFallbacks().isEmpty() ? null
+		: parkingSpotDAO.getParkingType(parkingNumber);
+	return new ParkingSpot(parkingNumber, spotType == null ? parkingType : spotType, true, facilityId);
     }
 
     /**
@@ -102,7 +466,7 @@ public class ParkingService {
 
     /**
      * Vérifie dans la base de donnée si une place est disponible selon le type de
-     * véhicule.
+     * véhicule. La place est choisie par la SpotAllocationStrategy.
      * 
      * @return La place disponible, ou un message si le parking est complet.
      * @throws Exception                si le parking est complet.
@@ -110,16 +474,27 @@ public class ParkingService {
      *                                  l'utilisateur est incorrect.
      */
     public ParkingSpot getNextParkingNumberIfAvailable() throws Exception, IllegalArgumentException {
-	int parkingNumber = 0;
-	ParkingSpot parkingSpot = null;
+	return getNextParkingNumberIfAvailable(readVehicleType());
+    }
+
+    private ParkingSpot getNextParkingNumberIfAvailable(ParkingType parkingType) throws Exception {
 	try {
-	    ParkingType parkingType = getVehichleType();
-	    parkingNumber = parkingSpotDAO.getNextAvailableSlot(parkingType);
-	    if (parkingNumber > 0) {
-		parkingSpot = new ParkingSpot(parkingNumber, parkingType, true);
-	    } else {
+	    int parkingNumber = allocateSpot(parkingType);
+	    if (parkingNumber <= 0) {
 		throw new Exception("Error fetching parking number from DB. Parking slots might be full");
 	    }
+	    return getParkingSpot(parkingNumber, parkingType);
+	} catch (Exception e) {
+	    logger.error("Error fetching next available parking slot", e);
+	    throw e;
+	}
+    }
+
+    private ParkingType readVehicleType() throws Exception {
+	try {
+	    ParkingType parkingType = getVehichleType();
+	    trace(TraceStage.INPUT);
+	    return parkingType;
 	} catch (IllegalArgumentException ie) {
 	    logger.error("Error parsing user input for type of vehicle", ie);
 	    throw ie;
@@ -127,7 +502,15 @@ public class ParkingService {
 	    logger.error("Error fetching next available parking slot", e);
 	    throw e;
 	}
-	return parkingSpot;
+    }
+
+    private int allocateSpot(ParkingType parkingType) throws Exception {
+	SpotAllocationEvent event = new SpotAllocationEvent();
+	event.begin();
+	int parkingNumber = spotAllocationStrategy.getNextAvailableSlot(parkingType);
+	event.record(spotAllocationStrategy, parkingType, parkingNumber);
+	trace(TraceStage.SPOT_LOOKUP);
+	return parkingNumber;
     }
 
     /**
@@ -137,22 +520,17 @@ public class ParkingService {
      * @throws Exception si une erreur est rencontrée lors de la sélection.
      */
     private ParkingType getVehichleType() throws Exception {
+	ParkingType[] parkingTypes = ParkingType.values();
 	System.out.println("Please select vehicle type from menu");
-	System.out.println("1 CAR");
-	System.out.println("2 BIKE");
-	int input = inputReaderUtil.readSelection();
-	switch (input) {
-	case 1: {
-	    return ParkingType.CAR;
-	}
-	case 2: {
-	    return ParkingType.BIKE;
+	for (int i = 0; i < parkingTypes.length; i++) {
+	    System.out.println((i + 1) + " " + parkingTypes[i]);
 	}
-	default: {
+	int input = inputReaderUtil.readSelection();
+	if (input < 1 || input > parkingTypes.length) {
 	    System.out.println("Incorrect input provided");
 	    throw new IllegalArgumentException("Entered input is invalid");
 	}
-	}
+	return parkingTypes[input - 1];
     }
 
     /**
@@ -162,7 +540,7 @@ public class ParkingService {
      * correspondant dans la base de donnée. Initie le temps de sortie sur le
      * ticket. Fait appel au service de calcul afin de calculer le tarif en fonction
      * du ticket. Si l'utilisateur est déjà venue, alors la réduction de 5% est
-     * appliquée. Mets à jour le ticket dans la base de donnée. Mets à jour le
+     * appliquée par le PricingPipeline. Mets à jour le ticket dans la base de donnée. Mets à jour le
      * parking dans la base de donnée. Indique à l'utilisateur le tarif à payer.
      * Envoi un message d'erreur si le ticket ne se mets pas à jour.
      * 
@@ -170,34 +548,203 @@ public class ParkingService {
      *                   véhicule.
      */
     public void processExitingVehicle() throws Exception {
+	ParkingRequestEvent event = new ParkingRequestEvent("exit");
+	event.begin();
+	beginTrace("exit", null);
+	Exception failure = null;
+	String vehicleRegNumber = null;
+	Ticket ticket = null;
 	try {
-	    String vehicleRegNumber = getVehichleRegNumber();
-	    Timestamp outTime = new Timestamp(System.currentTimeMillis());
-	    Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
-	    ticket.setOutTimestamp(outTime);
-	    fareCalculatorService.calculateFare(ticket);
-	    if (ticketDAO.getTicketUserPresentInDB(vehicleRegNumber) && ticket.getPrice() > 0.0) {
-		double reduction = ticket.getPrice() * 5 / 100;
-		double applyReduction = ticket.getPrice() - reduction;
-		double convertPrice = (double) Math.round(applyReduction * 100) / 100;
-		ticket.setPrice(convertPrice);
-		System.out.println("You are entitled to a 5% discount applied immediately for your recurring use of our parking");
-	    }
-	    if (ticketDAO.updateTicket(ticket) == true) {
-
-		ParkingSpot parkingSpot = ticket.getParkingSpot();
-		parkingSpot.setAvailable(true);
-		parkingSpotDAO.updateParking(parkingSpot);
-		System.out.println("Please pay the parking fare: " + ticket.getPrice() + "€");
-		System.out.println(
-			"Recorded out-time for vehicle number: " + ticket.getVehicleRegNumber() + " is: " + outTime);
-	    } else {
-		System.out.println("Unable to update ticket information. Error occurred");
+	    vehicleRegNumber = getVehichleRegNumber();
+	    trace(TraceStage.INPUT);
+	    if (requestTracer != null) {
+		requestTracer.setVehicleRegNumber(vehicleRegNumber);
 	    }
+	    ticket = recordExit(vehicleRegNumber, null);
+	} catch (Exception e) {
+	    failure = e;
+	    logger.error("Unable to process exiting vehicle", e);
+	    throw e;
+	} finally {
+	    endTrace(failure);
+	    event.record(vehicleRegNumber, ticket);
+	}
+    }
 
+    /**
+     * Permet la sortie d'un véhicule sans passer par la console.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     * @return le ticket avec son prix, ou null si le ticket n'a pas pu être mis à
+     *         jour.
+     * @throws IllegalArgumentException si aucun ticket n'existe pour ce véhicule.
+     * @throws IllegalStateException    si le dernier ticket du véhicule est déjà
+     *                                  terminé.
+     * @throws Exception                si une erreur est rencontrée lors de
+     *                                  l'enregistrement.
+     */
+    public Ticket processExitingVehicle(String vehicleRegNumber) throws Exception {
+	return exit(vehicleRegNumber, null);
+    }
+
+    /**
+     * Permet la sortie d'un véhicule sans passer par la console, une seule fois
+     * par identifiant de requête : une requête rejouée renvoie le ticket de la
+     * requête d'origine sans recalculer ni réécrire le ticket.
+     * 
+     * @param requestId        l'identifiant de la requête, ou null.
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     * @return le ticket avec son prix, ou null si le ticket n'a pas pu être mis à
+     *         jour.
+     * @throws IllegalArgumentException si aucun ticket n'existe pour ce véhicule.
+     * @throws IllegalStateException    si le dernier ticket du véhicule est déjà
+     *                                  terminé.
+     * @throws Exception                si une erreur est rencontrée lors de
+     *                                  l'enregistrement.
+     */
+    public Ticket processExitingVehicle(String requestId, String vehicleRegNumber) throws Exception {
+	return processExitingVehicle(requestId, vehicleRegNumber, null);
+    }
+
+    /**
+     * Permet la sortie d'un véhicule sans passer par la console, avec un code
+     * promotionnel, une seule fois par identifiant de requête.
+     * 
+     * @param requestId        l'identifiant de la requête, ou null.
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     * @param promoCode        le code promotionnel, ou null.
+     * @return le ticket avec son prix, ou null si le ticket n'a pas pu être mis à
+     *         jour.
+     * @throws IllegalArgumentException si aucun ticket n'existe pour ce véhicule.
+     * @throws IllegalStateException    si le dernier ticket du véhicule est déjà
+     *                                  terminé.
+     * @throws Exception                si une erreur est rencontrée lors de
+     *                                  l'enregistrement.
+     */
+    public Ticket processExitingVehicle(String requestId, String vehicleRegNumber, String promoCode)
+	    throws Exception {
+	if (requestId == null || dedupeCache == null) {
+	    return exit(vehicleRegNumber, promoCode);
+	}
+	return dedupeCache.execute("exit:" + requestId, () -> exit(vehicleRegNumber, promoCode));
+    }
+
+    private Ticket exit(String vehicleRegNumber, String promoCode) throws Exception {
+	ParkingRequestEvent event = new ParkingRequestEvent("exit");
+	event.begin();
+	beginTrace("exit", vehicleRegNumber);
+	Exception failure = null;
+	Ticket ticket = null;
+	try {
+	    ticket = recordExit(vehicleRegNumber, promoCode);
+	    return ticket;
 	} catch (Exception e) {
+	    failure = e;
 	    logger.error("Unable to process exiting vehicle", e);
 	    throw e;
+	} finally {
+	    endTrace(failure);
+	    event.record(vehicleRegNumber, ticket);
+	}
+    }
+
+    /**
+     * Récupère le dernier ticket d'un véhicule.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     * @return le ticket, ou null si le véhicule n'est jamais venu.
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public Ticket getTicket(String vehicleRegNumber) throws Exception {
+	Ticket ticket = ticketDAO.getTicket(vehicleRegNumber);
+	return isFound(ticket) ? ticket : null;
+    }
+
+    /*
+     * TicketDAO renvoie un ticket vide si le véhicule n'est jamais venu. Un
+     * ticket ouvert hors ligne n'a pas encore d'ID, c'est donc l'heure d'entrée
+     * qui est testée.
+     */
+    private static boolean isFound(Ticket ticket) {
+	return ticket != null && ticket.getInTimestamp() != null;
+    }
+
+    private Ticket recordExit(String vehicleRegNumber, String promoCode) throws Exception {
+	Timestamp outTime = new Timestamp(clock.millis());
+	Ticket ticket = unitOfWork.execute(() -> {
+	    Ticket current = ticketDAO.getTicket(vehicleRegNumber);
+	    trace(TraceStage.GET_TICKET);
+	    if (!isFound(current)) {
+		throw new IllegalArgumentException("No ticket found for vehicle " + vehicleRegNumber);
+	    }
+	    // La place d'un ticket déjà terminé a pu être donnée à un autre véhicule.
+	    if (current.getOutTimestamp() != null) {
+		throw new IllegalStateException("Vehicle " + vehicleRegNumber + " has already exited");
+	    }
+	    current.setOutTimestamp(outTime);
+	    current.setPromoCode(promoCode);
+	    fareCalculatorService.calculateFare(current);
+	    if (logger.isDebugEnabled()) {
+		logger.debug("Price of " + vehicleRegNumber + ": "
+			+ fareCalculatorService.getPricingPipeline().describe(current));
+	    }
+	    trace(TraceStage.FARE_CALCULATION);
+	    if (ticketDAO.updateTicket(current) == true) {
+		trace(TraceStage.UPDATE_TICKET);
+		parkingSpotDAO.updateParking(current.getParkingSpot(), true);
+		trace(TraceStage.UPDATE_PARKING);
+		return current;
+	    }
+	    return null;
+	});
+	trace(TraceStage.COMMIT);
+	if (ticket == null) {
+	    notificationSink.publish(Notification.of(NotificationType.TICKET_UPDATE_FAILED));
+	    return null;
+	}
+	notificationSink.publish(new Notification(NotificationType.EXIT_RECORDED, ticket.getVehicleRegNumber(),
+		ticket.getParkingSpot().getId(), ticket.getPrice(), outTime));
+	fireParkingEvent(ticket, false);
+	trace(TraceStage.NOTIFICATION);
+	return ticket;
+    }
+
+    /*
+     * Sans RequestTracer, la mesure des étapes se limite à ces vérifications.
+     */
+    private void beginTrace(String request, String vehicleRegNumber) {
+	if (requestTracer != null) {
+	    requestTracer.begin(request, vehicleRegNumber);
+	}
+    }
+
+    private void trace(TraceStage stage) {
+	if (requestTracer != null) {
+	    requestTracer.mark(stage);
+	}
+    }
+
+    private void endTrace(Throwable failure) {
+	if (requestTracer != null) {
+	    requestTracer.end(failure);
+	}
+    }
+
+    /*
+     * Prévient les ParkingEventListener. L'erreur d'un destinataire n'annule pas
+     * l'entrée ou la sortie déjà enregistrée.
+     */
+    private void fireParkingEvent(Ticket ticket, boolean entered) {
+	for (ParkingEventListener parkingEventListener : parkingEventListeners) {
+	    try {
+		if (entered) {
+		    parkingEventListener.onVehicleEntered(ticket);
+		} else {
+		    parkingEventListener.onVehicleExited(ticket);
+		}
+	    } catch (RuntimeException e) {
+		logger.error("Parking event listener failed", e);
+	    }
 	}
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,211 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.NotificationType;
+import com.parkit.parkingsystem.constants.PricingStageType;
+import com.parkit.parkingsystem.model.Notification;
+import com.parkit.parkingsystem.model.PricingStage;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.NotificationSink;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe PricingPipeline calcule le prix d'un ticket en appliquant des
+ * étapes dans l'ordre : période gratuite, tarif de base, réduction fidélité,
+ * plafond journalier, codes promotionnels. Les étapes sont transformées une
+ * fois en tableaux et en liste, le calcul d'un prix ne fait ensuite ni allocation (hors
+ * messages à l'utilisateur) ni requête en base de donnée. La contribution de
+ * chaque étape, en centimes, est indiquée sur le ticket.
+ * 
+ * @author Dylan
+ * 
+ */
+public final class PricingPipeline {
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final int DEFAULT_FREE_PERIOD_MINUTES = 30;
+    private static final int DEFAULT_LOYALTY_DISCOUNT_PERCENT = 5;
+
+    private final PricingStageType[] types;
+    private final long[] amounts;
+    private final List<Map<String, Integer>> promoCodes;
+
+    /**
+     * 
+     * @param stages les étapes, dans l'ordre où elles sont appliquées.
+     */
+    public PricingPipeline(List<PricingStage> stages) {
+	this.types = new PricingStageType[stages.size()];
+	this.amounts = new long[stages.size()];
+	this.promoCodes = new ArrayList<>(stages.size());
+	for (int i = 0; i < stages.size(); i++) {
+	    types[i] = stages.get(i).getType();
+	    amounts[i] = stages.get(i).getAmount();
+	    promoCodes.add(stages.get(i).getPromoCodes());
+	}
+    }
+
+    /**
+     * Permet de créer le calcul historique du parking : 30 minutes gratuites, le
+     * tarif de base puis 5% de réduction pour les utilisateurs déjà venus.
+     * 
+     * @return le calcul du prix par défaut.
+     */
+    public static PricingPipeline defaultPipeline() {
+	return new PricingPipeline(Arrays.asList(PricingStage.freePeriod(DEFAULT_FREE_PERIOD_MINUTES),
+		PricingStage.baseTariff(), PricingStage.loyaltyDiscount(DEFAULT_LOYALTY_DISCOUNT_PERCENT)));
+    }
+
+    /**
+     * Permet de créer le calcul du prix à partir de sa description, les étapes
+     * étant séparées par des virgules, par exemple
+     * freePeriod:30,baseTariff,loyaltyDiscount:5,dailyCap:3000,promoCodes:SUMMER=10;STAFF=100
+     * (plafond en centimes, réductions en pourcentage).
+     * 
+     * @param definition la description des étapes.
+     * @return le calcul du prix.
+     * @throws IllegalArgumentException si une étape est inconnue ou incorrecte.
+     */
+    public static PricingPipeline parse(String definition) {
+	List<PricingStage> stages = new ArrayList<>();
+	for (String stage : definition.split(",")) {
+	    String[] nameAndValue = stage.trim().split(":", 2);
+	    String value = nameAndValue.length > 1 ? nameAndValue[1].trim() : "";
+	    try {
+		switch (nameAndValue[0]) {
+		case "freePeriod":
+		    stages.add(PricingStage.freePeriod(Integer.parseInt(value)));
+		    break;
+		case "baseTariff":
+		    stages.add(PricingStage.baseTariff());
+		    break;
+		case "loyaltyDiscount":
+		    stages.add(PricingStage.loyaltyDiscount(Integer.parseInt(value)));
+		    break;
+		case "dailyCap":
+		    stages.add(PricingStage.dailyCap(Long.parseLong(value)));
+		    break;
+		case "promoCodes":
+		    Map<String, Integer> percentByCode = new HashMap<>();
+		    for (String promoCode : value.split(";")) {
+			String[] codeAndPercent = promoCode.split("=", 2);
+			percentByCode.put(codeAndPercent[0].trim(), Integer.parseInt(codeAndPercent[1].trim()));
+		    }
+		    stages.add(PricingStage.promoCodes(percentByCode));
+		    break;
+		default:
+		    throw new IllegalArgumentException("Unknown pricing stage: " + stage);
+		}
+	    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+		throw new IllegalArgumentException("Invalid pricing stage: " + stage, e);
+	    }
+	}
+	return new PricingPipeline(stages);
+    }
+
+    /**
+     * Récupère le type de chaque étape, dans l'ordre des contributions indiquées
+     * sur les tickets.
+     * 
+     * @return les types des étapes.
+     */
+    public List<PricingStageType> getStageTypes() {
+	return Collections.unmodifiableList(Arrays.asList(types));
+    }
+
+    /**
+     * Calcule le prix du ticket et la contribution de chaque étape. Le tableau des
+     * contributions du ticket est réutilisé s'il a la bonne taille.
+     * 
+     * @param ticket           le ticket, avec son type de place.
+     * @param durationMinutes  la durée de stationnement en minutes.
+     * @param fareTable        la table des prix du tarif de base, ou null.
+     * @param notificationSink le destinataire des messages pour l'utilisateur.
+     */
+    void price(Ticket ticket, long durationMinutes, FareTable fareTable, NotificationSink notificationSink) {
+	long[] contributions = ticket.getPriceContributions();
+	if (contributions == null || contributions.length != types.length) {
+	    contributions = new long[types.length];
+	    ticket.setPriceContributions(contributions);
+	}
+	long priceInCents = 0;
+	boolean free = false;
+	for (int i = 0; i < types.length; i++) {
+	    long previousPriceInCents = priceInCents;
+	    if (!free) {
+		switch (types[i]) {
+		case FREE_PERIOD:
+		    if (durationMinutes <= amounts[i]) {
+			free = true;
+			priceInCents = 0;
+			notificationSink.publish(Notification.of(NotificationType.FREE_PARKING));
+		    }
+		    break;
+		case BASE_TARIFF:
+		    if (fareTable != null && fareTable.covers(durationMinutes)) {
+			priceInCents += fareTable.getPriceInCents(ticket.getParkingSpot().getParkingType(),
+				durationMinutes);
+		    } else {
+			priceInCents += FareCalculatorService
+				.getPriceInCents(ticket.getParkingSpot().getParkingType(), durationMinutes);
+		    }
+		    break;
+		case LOYALTY_DISCOUNT:
+		    if (ticket.isRecurringUser() && priceInCents > 0) {
+			priceInCents = applyDiscount(priceInCents, amounts[i]);
+			notificationSink.publish(Notification.of(NotificationType.DISCOUNT_APPLIED));
+		    }
+		    break;
+		case DAILY_CAP:
+		    long days = (durationMinutes + MINUTES_PER_DAY - 1) / MINUTES_PER_DAY;
+		    priceInCents = Math.min(priceInCents, days * amounts[i]);
+		    break;
+		case PROMO_CODE:
+		    Integer percent = ticket.getPromoCode() == null ? null : promoCodes.get(i).get(ticket.getPromoCode());
+		    if (percent != null) {
+			priceInCents = applyDiscount(priceInCents, percent);
+		    }
+		    break;
+		default:
+		    throw new IllegalStateException("Unknown pricing stage: " + types[i]);
+		}
+	    }
+	    contributions[i] = priceInCents - previousPriceInCents;
+	}
+	ticket.setPrice((double) priceInCents / 100);
+    }
+
+    /*
+     * La réduction est calculée sur le prix en euros puis arrondie au centime,
+     * comme la réduction fidélité l'a toujours été.
+     */
+    private static long applyDiscount(long priceInCents, long percent) {
+	double price = (double) priceInCents / 100;
+	return Math.round((price - price * percent / 100) * 100);
+    }
+
+    /**
+     * Décrit la contribution de chaque étape au prix d'un ticket, pour l'audit.
+     * 
+     * @param ticket le ticket dont le prix a été calculé par ce PricingPipeline.
+     * @return la description, par exemple "FREE_PERIOD=0 BASE_TARIFF=150
+     *         LOYALTY_DISCOUNT=-7".
+     */
+    public String describe(Ticket ticket) {
+	long[] contributions = ticket.getPriceContributions();
+	StringBuilder description = new StringBuilder();
+	for (int i = 0; i < types.length; i++) {
+	    if (i > 0) {
+		description.append(' ');
+	    }
+	    description.append(types[i]).append('=')
+		    .append(contributions != null && i < contributions.length ? contributions[i] : 0);
+	}
+	return description.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.TraceStage;
+import com.parkit.parkingsystem.util.SlowTransactionLog;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La classe RequestTracer mesure la durée de chaque étape d'une entrée ou d'une
+ * sortie de véhicule. Chaque thread note la fin de ses étapes dans un tableau
+ * circulaire alloué une seule fois ; une requête rapide ne coûte donc que
+ * quelques lectures de l'horloge. Une requête dont la durée atteint le seuil
+ * est écrite dans le SlowTransactionLog avec la durée de chaque étape.
+ * 
+ * @author Dylan
+ * 
+ */
+public class RequestTracer {
+
+    private static final Logger logger = LogManager.getLogger("RequestTracer");
+    // Puissance de deux, au-delà les premières étapes sont remplacées.
+    private static final int CAPACITY = 32;
+
+    private final long thresholdNanos;
+    private final SlowTransactionLog slowTransactionLog;
+    private final ThreadLocal<Trace> traces = ThreadLocal.withInitial(Trace::new);
+
+    /**
+     * 
+     * @param thresholdMillis    la durée à partir de laquelle une requête est
+     *                           écrite dans le journal.
+     * @param slowTransactionLog le journal des requêtes lentes.
+     */
+    public RequestTracer(long thresholdMillis, SlowTransactionLog slowTransactionLog) {
+	this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+	this.slowTransactionLog = slowTransactionLog;
+    }
+
+    /**
+     * Commence la mesure d'une requête. Une requête commencée pendant une autre,
+     * sur le même thread, en fait partie.
+     * 
+     * @param request          le nom de la requête, entry ou exit.
+     * @param vehicleRegNumber la plaque d'immatriculation, ou null si elle n'est
+     *                         pas encore connue.
+     */
+    public void begin(String request, String vehicleRegNumber) {
+	Trace trace = traces.get();
+	if (trace.depth++ == 0) {
+	    trace.request = request;
+	    trace.vehicleRegNumber = vehicleRegNumber;
+	    trace.count = 0;
+	    trace.startNanos = System.nanoTime();
+	}
+    }
+
+    /**
+     * Note la fin d'une étape de la requête en cours.
+     * 
+     * @param stage l'étape terminée.
+     */
+    public void mark(TraceStage stage) {
+	Trace trace = traces.get();
+	if (trace.depth > 0) {
+	    int index = trace.count++ & (CAPACITY - 1);
+	    trace.stages[index] = stage;
+	    trace.nanos[index] = System.nanoTime();
+	}
+    }
+
+    /**
+     * Permet d'indiquer la plaque d'immatriculation une fois saisie.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation.
+     */
+    public void setVehicleRegNumber(String vehicleRegNumber) {
+	Trace trace = traces.get();
+	if (trace.depth > 0) {
+	    trace.vehicleRegNumber = vehicleRegNumber;
+	}
+    }
+
+    /**
+     * Termine la mesure de la requête en cours, qui est écrite dans le journal si
+     * elle est trop lente.
+     * 
+     * @param failure l'erreur de la requête, ou null si elle a réussi.
+     */
+    public void end(Throwable failure) {
+	Trace trace = traces.get();
+	if (trace.depth == 0 || --trace.depth > 0) {
+	    return;
+	}
+	long durationNanos = System.nanoTime() - trace.startNanos;
+	if (durationNanos < thresholdNanos) {
+	    return;
+	}
+	try {
+	    slowTransactionLog.append(describe(trace, durationNanos, failure));
+	} catch (IOException e) {
+	    logger.error("Unable to write slow transaction", e);
+	}
+    }
+
+    /*
+     * Par exemple : 2021-03-01T08:00:00Z entry AB-123-CD 412.3 ms SPOT_LOOKUP=2.1
+     * UPDATE_PARKING=398.7 SAVE_TICKET=11.2 LOYALTY_QUERY=0.3
+     */
+    private static String describe(Trace trace, long durationNanos, Throwable failure) {
+	StringBuilder line = new StringBuilder();
+	line.append(Instant.now()).append(' ').append(trace.request).append(' ').append(trace.vehicleRegNumber)
+		.append(' ').append(millis(durationNanos)).append(" ms");
+	int first = 0;
+	long previousNanos = trace.startNanos;
+	if (trace.count > CAPACITY) {
+	    // Le début de la plus ancienne étape conservée n'est plus connu.
+	    first = trace.count - CAPACITY + 1;
+	    previousNanos = trace.nanos[(first - 1) & (CAPACITY - 1)];
+	    line.append(" (").append(first).append(" stages dropped)");
+	}
+	for (int i = first; i < trace.count; i++) {
+	    int index = i & (CAPACITY - 1);
+	    line.append(' ').append(trace.stages[index]).append('=').append(millis(trace.nanos[index] - previousNanos));
+	    previousNanos = trace.nanos[index];
+	}
+	if (failure != null) {
+	    line.append(" failed: ").append(failure);
+	}
+	return line.toString();
+    }
+
+    private static String millis(long nanos) {
+	return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+    }
+
+    // Les étapes de la requête en cours d'un thread, réutilisées d'une requête à l'autre.
+    private static final class Trace {
+	private final TraceStage[] stages = new TraceStage[CAPACITY];
+	private final long[] nanos = new long[CAPACITY];
+	private int depth;
+	private int count;
+	private long startNanos;
+	private String request;
+	private String vehicleRegNumber;
+    }
+}
@@ -0,0 +1,215 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ReservationDAO;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.Reservation;
+import com.parkit.parkingsystem.util.ReservationIndex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * La classe ReservationService permet de réserver une place à l'avance et
+ * d'honorer les réservations à l'entrée des véhicules.
+ * 
+ * Les places réservées sont comptées minute par minute dans un ReservationIndex
+ * par type d'emplacement, chargé au démarrage depuis la base de donnée. La
+ * vérification de la capacité d'une période ne lit donc ni les réservations ni
+ * les tickets en base de donnée.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ReservationService {
+
+    private static final Logger logger = LogManager.getLogger("ReservationService");
+    private static final long MILLIS_PER_MINUTE = 60000;
+    private static final long EARLY_ARRIVAL_MILLIS = 15 * MILLIS_PER_MINUTE;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final ReservationDAO reservationDAO;
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final int horizonMinutes;
+    private final Map<ParkingType, ReservationIndex> indexes = new TreeMap<>();
+    private final Map<ParkingType, Integer> capacities = new TreeMap<>();
+    private final Map<String, List<Reservation>> reservationsByVehicle = new HashMap<>();
+
+    /**
+     * 
+     * @param reservationDAO le ReservationDAO du parking.
+     * @param parkingSpotDAO le ParkingSpotDAO du parking.
+     * @param horizonDays    le nombre de jours à l'avance pendant lesquels une
+     *                       place peut être réservée.
+     */
+    public ReservationService(ReservationDAO reservationDAO, ParkingSpotDAO parkingSpotDAO, int horizonDays) {
+	this.reservationDAO = reservationDAO;
+	this.parkingSpotDAO = parkingSpotDAO;
+	this.horizonMinutes = horizonDays * MINUTES_PER_DAY;
+    }
+
+    /**
+     * Permet de charger la capacité du parking et les réservations à venir depuis
+     * la base de donnée.
+     * 
+     * @throws Exception si une erreur est rencontrée lors de la lecture.
+     */
+    public synchronized void load() throws Exception {
+	long now = System.currentTimeMillis();
+	ParkingOccupancy parkingOccupancy = parkingSpotDAO.getParkingOccupancy();
+	List<Reservation> reservations = reservationDAO.getActiveReservations(new Timestamp(now));
+	indexes.clear();
+	capacities.clear();
+	reservationsByVehicle.clear();
+	for (ParkingType parkingType : ParkingType.values()) {
+	    indexes.put(parkingType, new ReservationIndex(now / MILLIS_PER_MINUTE, horizonMinutes));
+	    capacities.put(parkingType, parkingOccupancy.getCapacity(parkingType));
+	}
+	for (Reservation reservation : reservations) {
+	    index(reservation);
+	}
+	logger.info(reservations.size() + " reservations loaded");
+    }
+
+    /**
+     * Vérifie s'il reste une place libre de ce type pour chaque minute de la
+     * période [start, end).
+     * 
+     * @param parkingType le type d'emplacement.
+     * @param start       le début de la période.
+     * @param end         la fin de la période, exclue.
+     * @return true si une place peut être réservée sur toute la période.
+     * @throws IllegalArgumentException si la période est vide ou dépasse
+     *                                  l'horizon de réservation.
+     */
+    public synchronized boolean isAvailable(ParkingType parkingType, Timestamp start, Timestamp end) {
+	ReservationIndex index = indexes.get(parkingType);
+	if (index == null) {
+	    throw new IllegalStateException("Reservations are not loaded");
+	}
+	if (!end.after(start)) {
+	    throw new IllegalArgumentException("Reservation end must be after its start");
+	}
+	if (endMinute(end) > index.getEndMinute()) {
+	    throw new IllegalArgumentException("Reservation is too far in the future");
+	}
+	return index.getMaxReserved(startMinute(start), endMinute(end)) < capacities.get(parkingType);
+    }
+
+    /**
+     * Permet de réserver une place pour un véhicule sur la période [start, end).
+     * 
+     * @param parkingType      le type d'emplacement.
+     * @param vehicleRegNumber la plaque d'immatriculation du véhicule.
+     * @param start            le début de la période.
+     * @param end              la fin de la période, exclue.
+     * @return la réservation enregistrée, null si aucune place n'est libre sur
+     *         toute la période.
+     * @throws Exception si une erreur est rencontrée lors de l'enregistrement.
+     */
+    public synchronized Reservation reserve(ParkingType parkingType, String vehicleRegNumber, Timestamp start,
+	    Timestamp end) throws Exception {
+	ReservationIndex index = indexes.get(parkingType);
+	if (index != null && System.currentTimeMillis() / MILLIS_PER_MINUTE - index.getOriginMinute() > horizonMinutes
+		/ 4) {
+	    // La fenêtre de l'index est décalée sur la date courante.
+	    load();
+	}
+	if (!isAvailable(parkingType, start, end)) {
+	    return null;
+	}
+	Reservation reservation = new Reservation();
+	reservation.setParkingType(parkingType);
+	reservation.setVehicleRegNumber(vehicleRegNumber);
+	reservation.setStartTimestamp(start);
+	reservation.setEndTimestamp(end);
+	reservationDAO.saveReservation(reservation);
+	index(reservation);
+	return reservation;
+    }
+
+    /**
+     * Récupère la réservation d'un véhicule en cours à cette date. Un véhicule
+     * peut se présenter jusqu'à 15 minutes avant le début de sa réservation.
+     * 
+     * @param vehicleRegNumber la plaque d'immatriculation du véhicule.
+     * @param now              la date courante en millisecondes.
+     * @return la réservation, null si le véhicule n'a pas de réservation en cours.
+     */
+    public synchronized Reservation getActiveReservation(String vehicleRegNumber, long now) {
+	List<Reservation> reservations = reservationsByVehicle.get(vehicleRegNumber);
+	if (reservations != null) {
+	    for (Reservation reservation : reservations) {
+		if (reservation.getStartTimestamp().getTime() - EARLY_ARRIVAL_MILLIS <= now
+			&& now < reservation.getEndTimestamp().getTime()) {
+		    return reservation;
+		}
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Permet d'indiquer qu'un véhicule est entré avec sa réservation. La place
+     * n'est plus comptée comme réservée à partir de son entrée, le véhicule
+     * occupant désormais une place.
+     * 
+     * @param reservation la réservation utilisée.
+     * @param now         la date d'entrée en millisecondes.
+     * @throws Exception si une erreur est rencontrée lors de la mise à jour.
+     */
+    public synchronized void claim(Reservation reservation, long now) throws Exception {
+	reservationDAO.claimReservation(reservation);
+	long from = Math.max(startMinute(reservation.getStartTimestamp()), now / MILLIS_PER_MINUTE);
+	indexes.get(reservation.getParkingType()).add(from, endMinute(reservation.getEndTimestamp()), -1);
+	List<Reservation> reservations = reservationsByVehicle.get(reservation.getVehicleRegNumber());
+	if (reservations != null) {
+	    reservations.remove(reservation);
+	    if (reservations.isEmpty()) {
+		reservationsByVehicle.remove(reservation.getVehicleRegNumber());
+	    }
+	}
+    }
+
+    /**
+     * Vérifie si un véhicule sans réservation peut entrer : il doit rester une
+     * place libre pour chaque réservation en cours dont le véhicule n'est pas
+     * encore entré.
+     * 
+     * @param parkingType le type d'emplacement.
+     * @param now         la date courante en millisecondes.
+     * @return true si le véhicule peut entrer.
+     * @throws Exception si une erreur est rencontrée lors de la lecture des
+     *                   places libres.
+     */
+    public boolean canAdmitWalkIn(ParkingType parkingType, long now) throws Exception {
+	int availableSpots = parkingSpotDAO.getParkingOccupancy().getAvailableSpots(parkingType);
+	int reservedSpots;
+	synchronized (this) {
+	    reservedSpots = indexes.get(parkingType).getReserved(now / MILLIS_PER_MINUTE);
+	}
+	return availableSpots - 1 >= reservedSpots;
+    }
+
+    private void index(Reservation reservation) {
+	indexes.get(reservation.getParkingType()).add(startMinute(reservation.getStartTimestamp()),
+		endMinute(reservation.getEndTimestamp()), 1);
+	reservationsByVehicle.computeIfAbsent(reservation.getVehicleRegNumber(), vehicle -> new ArrayList<>())
+		.add(reservation);
+    }
+
+    private static long startMinute(Timestamp start) {
+	return Math.floorDiv(start.getTime(), MILLIS_PER_MINUTE);
+    }
+
+    private static long endMinute(Timestamp end) {
+	return Math.floorDiv(end.getTime() + MILLIS_PER_MINUTE - 1, MILLIS_PER_MINUTE);
+    }
+}
@@ -0,0 +1,54 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * La classe RoundRobinAllocationStrategy attribue la première place disponible
+ * après la dernière place attribuée, puis repart de la plus petite place une
+ * fois la fin du parking atteinte. Les bornes ne se disputent ainsi plus toutes
+ * les mêmes places. Les types de repli sont parcourus de la même façon, dans
+ * l'ordre, lorsque le type demandé n'a plus de place libre.
+ * 
+ * @author Dylan
+ * 
+ */
+public class RoundRobinAllocationStrategy implements SpotAllocationStrategy {
+
+    private final ParkingSpotDAO parkingSpotDAO;
+    private final Map<ParkingType, Integer> lastParkingNumbers = new TreeMap<>();
+
+    /**
+     * 
+     * @param parkingSpotDAO le ParkingSpotDAO du parking.
+     */
+    public RoundRobinAllocationStrategy(ParkingSpotDAO parkingSpotDAO) {
+	this.parkingSpotDAO = parkingSpotDAO;
+    }
+
+    @Override
+    public synchronized int getNextAvailableSlot(ParkingType parkingType) throws Exception {
+	int parkingNumber = getNextAvailableSlotOfType(parkingType);
+	List<ParkingType> fallbacks = parkingType.getFallbacks();
+	for (int i = 0; parkingNumber <= 0 && i < fallbacks.size(); i++) {
+	    parkingNumber = getNextAvailableSlotOfType(fallbacks.get(i));
+	}
+	return parkingNumber;
+    }
+
+    private int getNextAvailableSlotOfType(ParkingType parkingType) throws Exception {
+	int lastParkingNumber = lastParkingNumbers.getOrDefault(parkingType, 0);
+	int parkingNumber = parkingSpotDAO.getNextAvailableSlotAfter(parkingType, lastParkingNumber);
+	if (parkingNumber <= 0 && lastParkingNumber > 0) {
+	    parkingNumber = parkingSpotDAO.getNextAvailableSlotAfter(parkingType, 0);
+	}
+	if (parkingNumber > 0) {
+	    lastParkingNumbers.put(parkingType, parkingNumber);
+	}
+	return parkingNumber;
+    }
+}
@@ -0,0 +1,35 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+
+/**
+ * L'interface SpotAllocationStrategy choisit la place de parking attribuée à un
+ * véhicule entrant.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface SpotAllocationStrategy {
+
+    /**
+     * Permet de choisir une place disponible pour le type de véhicule indiqué.
+     * 
+     * @param parkingType le type de véhicule voulant stationner.
+     * @return le numéro de la place choisie, 0 ou moins si aucune place n'est
+     *         disponible.
+     * @throws Exception si une erreur est rencontrée lors de la recherche d'une
+     *                   place.
+     */
+    int getNextAvailableSlot(ParkingType parkingType) throws Exception;
+
+    /**
+     * Indique si la place attribuée est déjà occupée par la stratégie. Par défaut
+     * la place n'est qu'attribuée et l'entrée du véhicule l'occupe, seulement si
+     * elle est encore libre.
+     * 
+     * @return true si la place est occupée dès son attribution.
+     */
+    default boolean occupiesSpot() {
+	return false;
+    }
+}
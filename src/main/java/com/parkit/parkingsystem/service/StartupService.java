@@ -0,0 +1,339 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.PooledDataBaseConfig;
+import com.parkit.parkingsystem.config.ReplicatedDataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.MigrationRunner;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * La classe StartupService prépare la borne avant qu'elle n'accepte le premier
+ * véhicule, afin que celui-ci ne paie pas le chargement du driver,
+ * l'ouverture des connexions, l'analyse des requêtes et la compilation à la
+ * volée :
+ * 
+ * le schéma de la base de donnée est mis à jour puis vérifié, le pool de connexions est
+ * ouvert en entier et chaque requête de DBConstants est préparée sur chaque
+ * connexion, l'état des places est chargé en mémoire, puis le calcul du tarif
+ * et le ParkingService sont exercés sur des données fictives. La borne n'est
+ * prête qu'à la fin de ces étapes.
+ * 
+ * @author Dylan
+ * 
+ */
+public class StartupService implements ParkingEventListener {
+
+    private static final Logger logger = LogManager.getLogger("StartupService");
+    private static final int FARE_WARMUP_ITERATIONS = 20000;
+    private static final int SERVICE_WARMUP_ITERATIONS = 2000;
+    private static final Map<String, List<String>> SCHEMA = new LinkedHashMap<>();
+
+    static {
+	SCHEMA.put("parking", Arrays.asList("PARKING_NUMBER", "AVAILABLE", "TYPE"));
+	SCHEMA.put("ticket",
+		Arrays.asList("ID", "PARKING_NUMBER", "VEHICLE_REG_NUMBER", "PRICE", "IN_TIME", "OUT_TIME"));
+	SCHEMA.put("spot_lease", Arrays.asList("PARKING_NUMBER", "GATE_ID", "LEASE_EXPIRY"));
+	SCHEMA.put("reservation",
+		Arrays.asList("ID", "VEHICLE_REG_NUMBER", "TYPE", "START_TIME", "END_TIME", "CLAIMED"));
+    }
+
+    private final DataBaseConfig dataBaseConfig;
+    private final Map<String, Callable<?>> preloadTasks = new LinkedHashMap<>();
+    private final AtomicBoolean firstVehicle = new AtomicBoolean(true);
+    private MigrationRunner migrationRunner;
+    private boolean migrated;
+    private volatile boolean ready;
+
+    /**
+     * 
+     * @param dataBaseConfig la configuration de la base de donnée du parking.
+     */
+    public StartupService(DataBaseConfig dataBaseConfig) {
+	this.dataBaseConfig = dataBaseConfig;
+    }
+
+    /**
+     * Permet d'ajouter un chargement en mémoire exécuté au démarrage, avant le
+     * premier véhicule.
+     * 
+     * @param name le nom du chargement, pour les journaux.
+     * @param task le chargement.
+     */
+    public void addPreloadTask(String name, Callable<?> task) {
+	preloadTasks.put(name, task);
+    }
+
+    /**
+     * Permet d'indiquer les migrations à exécuter avant la vérification du
+     * schéma.
+     * 
+     * @param migrationRunner les migrations du schéma.
+     */
+    public void setMigrationRunner(MigrationRunner migrationRunner) {
+	this.migrationRunner = migrationRunner;
+    }
+
+    /**
+     * Exécute les migrations du schéma si elles ne l'ont pas encore été. Elles
+     * peuvent être exécutées avant start(), pour lire des données qu'une
+     * migration ajoute.
+     * 
+     * @throws Exception si une migration échoue ou si la base de donnée est
+     *                   indisponible.
+     */
+    public void migrate() throws Exception {
+	if (!migrated) {
+	    if (migrationRunner != null) {
+		migrationRunner.migrate();
+	    }
+	    migrated = true;
+	}
+    }
+
+    /**
+     * Indique si le démarrage est terminé et si la borne peut accepter des
+     * véhicules.
+     * 
+     * @return true si la borne est prête.
+     */
+    public boolean isReady() {
+	return ready;
+    }
+
+    /**
+     * Exécute les étapes du démarrage, puis signale que la borne est prête. Si la
+     * base de donnée est indisponible, la borne démarre sans migrer ni vérifier
+     * le schéma ni préparer les requêtes, afin de pouvoir fonctionner en mode
+     * hors ligne.
+     * Un chargement en échec est journalisé sans arrêter le démarrage.
+     * 
+     * @throws Exception si une migration échoue, si le schéma est incorrect ou
+     *                   si une requête ne peut pas être préparée.
+     */
+    public void start() throws Exception {
+	long start = System.currentTimeMillis();
+	long schemaValidated = start;
+	int connections = 0;
+	try {
+	    migrate();
+	    validateSchema();
+	    schemaValidated = System.currentTimeMillis();
+	    connections = primeStatements(dataBaseConfig);
+	} catch (SQLException e) {
+	    logger.error("Database unavailable at startup, schema and statements not checked", e);
+	}
+	long statementsPrimed = System.currentTimeMillis();
+	for (Map.Entry<String, Callable<?>> preloadTask : preloadTasks.entrySet()) {
+	    logger.info("Preloading " + preloadTask.getKey());
+	    try {
+		preloadTask.getValue().call();
+	    } catch (Exception e) {
+		logger.error("Unable to preload " + preloadTask.getKey(), e);
+	    }
+	}
+	long preloaded = System.currentTimeMillis();
+	warmUp();
+	long warmedUp = System.currentTimeMillis();
+	ready = true;
+	logger.info("Ready " + (warmedUp - getJvmStartTime()) + " ms after JVM start (schema "
+		+ (schemaValidated - start) + " ms, " + connections + " connections primed "
+		+ (statementsPrimed - schemaValidated) + " ms, preload " + (preloaded - statementsPrimed)
+		+ " ms, warmup " + (warmedUp - preloaded) + " ms)");
+    }
+
+    @Override
+    public void onVehicleEntered(Ticket ticket) {
+	if (firstVehicle.compareAndSet(true, false)) {
+	    logger.info("First vehicle entered " + (System.currentTimeMillis() - getJvmStartTime())
+		    + " ms after JVM start");
+	}
+    }
+
+    @Override
+    public void onVehicleExited(Ticket ticket) {
+    }
+
+    /*
+     * Vérifie que chaque table contient les colonnes utilisées par les DAO.
+     */
+    private void validateSchema() throws Exception {
+	List<String> errors = new ArrayList<>();
+	Connection con = null;
+	try {
+	    con = dataBaseConfig.getConnection();
+	    for (Map.Entry<String, List<String>> table : SCHEMA.entrySet()) {
+		TreeSet<String> columns = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		try (PreparedStatement ps = con.prepareStatement("select * from " + table.getKey() + " where 1 = 0");
+			ResultSet rs = ps.executeQuery()) {
+		    ResultSetMetaData metaData = rs.getMetaData();
+		    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+			columns.add(metaData.getColumnName(i));
+		    }
+		} catch (SQLException e) {
+		    errors.add("missing table " + table.getKey());
+		    continue;
+		}
+		for (String column : table.getValue()) {
+		    if (!columns.contains(column)) {
+			errors.add("missing column " + table.getKey() + "." + column);
+		    }
+		}
+	    }
+	} finally {
+	    dataBaseConfig.closeConnection(con);
+	}
+	if (!errors.isEmpty()) {
+	    throw new IllegalStateException("Invalid database schema: " + String.join(", ", errors));
+	}
+    }
+
+    /*
+     * Ouvre toutes les connexions du pool et prépare chaque requête sur chacune
+     * d'elles. Une requête qui ne peut pas être préparée arrête le démarrage.
+     */
+    private int primeStatements(DataBaseConfig config) throws Exception {
+	if (config instanceof ReplicatedDataBaseConfig) {
+	    ReplicatedDataBaseConfig replicatedDataBaseConfig = (ReplicatedDataBaseConfig) config;
+	    int connections = primeStatements(replicatedDataBaseConfig.getPrimary());
+	    for (DataBaseConfig replica : replicatedDataBaseConfig.getReplicas()) {
+		connections += primeStatements(replica);
+	    }
+	    return connections;
+	}
+	int poolSize = config instanceof PooledDataBaseConfig ? ((PooledDataBaseConfig) config).getMaxPoolSize() : 1;
+	List<String> statements = getStatements();
+	List<Connection> connections = new ArrayList<>();
+	try {
+	    for (int i = 0; i < poolSize; i++) {
+		Connection con = config.getConnection();
+		connections.add(con);
+		for (String statement : statements) {
+		    try {
+			con.prepareStatement(statement).close();
+		    } catch (SQLException e) {
+			throw new IllegalStateException("Unable to prepare statement: " + statement, e);
+		    }
+		}
+	    }
+	} finally {
+	    for (Connection con : connections) {
+		config.closeConnection(con);
+	    }
+	}
+	return connections.size();
+    }
+
+    private static List<String> getStatements() throws IllegalAccessException {
+	List<String> statements = new ArrayList<>();
+	for (Field field : DBConstants.class.getFields()) {
+	    if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+		statements.add((String) field.get(null));
+	    }
+	}
+	return statements;
+    }
+
+    /*
+     * Exerce le calcul du tarif et les entrées et sorties du ParkingService sur
+     * des DAO en mémoire, afin que ces chemins soient compilés avant le premier
+     * véhicule.
+     */
+    private void warmUp() throws Exception {
+	FareCalculatorService fareCalculatorService = new FareCalculatorService(new NoOpNotificationSink());
+	long now = System.currentTimeMillis();
+	Ticket ticket = new Ticket();
+	for (int i = 0; i < FARE_WARMUP_ITERATIONS; i++) {
+	    ParkingType parkingType = ParkingType.values()[i % ParkingType.values().length];
+	    ticket.setParkingSpot(new ParkingSpot(1, parkingType, false));
+	    ticket.setInTimestamp(new Timestamp(now - (i % 600 + 1) * 60000L));
+	    ticket.setOutTimestamp(new Timestamp(now));
+	    fareCalculatorService.calculateFare(ticket);
+	}
+	ParkingService parkingService = new ParkingService(null, new WarmupParkingSpotDAO(), new WarmupTicketDAO(),
+		new NoOpNotificationSink());
+	for (int i = 0; i < SERVICE_WARMUP_ITERATIONS; i++) {
+	    String vehicleRegNumber = "WARMUP" + (i % 10);
+	    parkingService.processIncomingVehicle(ParkingType.values()[i % ParkingType.values().length],
+		    vehicleRegNumber);
+	    parkingService.processExitingVehicle(vehicleRegNumber);
+	}
+    }
+
+    private static long getJvmStartTime() {
+	return ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    private static final class WarmupParkingSpotDAO extends ParkingSpotDAO {
+	@Override
+	public int getNextAvailableSlot(ParkingType parkingType) {
+	    return 1;
+	}
+
+	@Override
+	public ParkingType getParkingType(int parkingNumber) {
+	    return null;
+	}
+
+	@Override
+	public boolean updateParking(ParkingSpot parkingSpot, boolean available) {
+	    return true;
+	}
+    }
+
+    /*
+     * L'entrée est avancée d'une heure, une sortie dans la même minute étant
+     * refusée par le calcul du tarif.
+     */
+    private static final class WarmupTicketDAO extends TicketDAO {
+	private final Map<String, Ticket> tickets = new HashMap<>();
+
+	@Override
+	public Ticket saveTicket(Ticket ticket) {
+	    ticket.setInTimestamp(new Timestamp(ticket.getInTimestamp().getTime() - 3600000));
+	    tickets.put(ticket.getVehicleRegNumber(), ticket);
+	    return ticket;
+	}
+
+	@Override
+	public Ticket getTicket(String vehicleRegNumber) {
+	    return tickets.get(vehicleRegNumber);
+	}
+
+	@Override
+	public boolean updateTicket(Ticket ticket) {
+	    return true;
+	}
+
+	@Override
+	public boolean getTicketUserPresentInDB(String vehicleRegNumber) {
+	    return true;
+	}
+    }
+}
@@ -0,0 +1,198 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.constants.ExportFormat;
+import com.parkit.parkingsystem.dao.TicketExportDAO;
+import com.parkit.parkingsystem.dao.TicketExportHandler;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketExportReport;
+import com.parkit.parkingsystem.util.ColumnarTicketWriter;
+import com.parkit.parkingsystem.util.CsvTicketWriter;
+import com.parkit.parkingsystem.util.TicketWriter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * La classe TicketExportService exporte l'historique des tickets sortis dans
+ * des fichiers compressés, pour l'analyse. Les tickets sont lus en flux et
+ * répartis en fichiers de ticketsPerFile tickets au plus, nommés
+ * tickets-début-fin-numéro (dates de sortie en UTC). Un fichier est écrit sous
+ * un nom en .part puis renommé une fois complet. Si l'export échoue, les
+ * fichiers déjà écrits par cet export sont supprimés.
+ * 
+ * L'export incrémental reprend à la fin du dernier export incrémental réussi,
+ * conservée dans le fichier last-export.properties du répertoire d'export.
+ * 
+ * @author Dylan
+ * 
+ */
+public class TicketExportService {
+
+    private static final Logger logger = LogManager.getLogger("TicketExportService");
+    private static final String LAST_EXPORT_FILE = "last-export.properties";
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
+	    .withZone(ZoneOffset.UTC);
+
+    private final TicketExportDAO ticketExportDAO;
+    private final Path directory;
+    private final ExportFormat exportFormat;
+    private final long ticketsPerFile;
+
+    /**
+     * 
+     * @param ticketExportDAO le DAO de lecture des tickets.
+     * @param directory       le répertoire d'export.
+     * @param exportFormat    le format des fichiers.
+     * @param ticketsPerFile  le nombre maximum de tickets par fichier.
+     */
+    public TicketExportService(TicketExportDAO ticketExportDAO, Path directory, ExportFormat exportFormat,
+	    long ticketsPerFile) {
+	if (ticketsPerFile < 1) {
+	    throw new IllegalArgumentException("Tickets per file must be positive");
+	}
+	this.ticketExportDAO = ticketExportDAO;
+	this.directory = directory;
+	this.exportFormat = exportFormat;
+	this.ticketsPerFile = ticketsPerFile;
+    }
+
+    /**
+     * Exporte les tickets sortis après from et au plus tard à to.
+     * 
+     * @param from la date de sortie après laquelle les tickets sont exportés.
+     * @param to   la dernière date de sortie exportée.
+     * @return le résultat de l'export.
+     * @throws Exception si une erreur est rencontrée lors de la lecture ou de
+     *                   l'écriture, aucun fichier n'est alors conservé.
+     */
+    public TicketExportReport export(Timestamp from, Timestamp to) throws Exception {
+	long start = System.currentTimeMillis();
+	Files.createDirectories(directory);
+	ChunkedExport chunkedExport = new ChunkedExport("tickets-" + FILE_NAME_FORMAT.format(from.toInstant()) + "-"
+		+ FILE_NAME_FORMAT.format(to.toInstant()));
+	long exportedTickets;
+	try {
+	    exportedTickets = ticketExportDAO.exportTickets(from, to, chunkedExport);
+	    chunkedExport.close();
+	} catch (Exception e) {
+	    chunkedExport.delete();
+	    throw e;
+	}
+	TicketExportReport report = new TicketExportReport(from, to, chunkedExport.files, exportedTickets,
+		System.currentTimeMillis() - start);
+	logger.info(report);
+	return report;
+    }
+
+    /**
+     * Exporte les tickets sortis depuis le dernier export incrémental, ou tous
+     * les tickets pour le premier export, jusqu'à to. La fin de l'export est
+     * conservée une fois l'export réussi.
+     * 
+     * @param to la dernière date de sortie exportée, un peu avant l'heure
+     *           courante afin qu'une sortie en cours d'enregistrement ne soit pas
+     *           manquée.
+     * @return le résultat de l'export.
+     * @throws Exception si une erreur est rencontrée lors de la lecture ou de
+     *                   l'écriture, le prochain export reprend alors au même
+     *                   point.
+     */
+    public TicketExportReport exportSinceLastExport(Timestamp to) throws Exception {
+	Path lastExportFile = directory.resolve(LAST_EXPORT_FILE);
+	Timestamp from = new Timestamp(0);
+	if (Files.exists(lastExportFile)) {
+	    Properties properties = new Properties();
+	    try (InputStream inputStream = Files.newInputStream(lastExportFile)) {
+		properties.load(inputStream);
+	    }
+	    from = new Timestamp(Long.parseLong(properties.getProperty("outTime")));
+	}
+	if (!to.after(from)) {
+	    throw new IllegalArgumentException("Nothing to export before " + to);
+	}
+	TicketExportReport report = export(from, to);
+	Properties properties = new Properties();
+	properties.setProperty("outTime", Long.toString(to.getTime()));
+	Path temporaryFile = directory.resolve(LAST_EXPORT_FILE + ".part");
+	try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+	    properties.store(outputStream, "Last exported out time, in milliseconds");
+	}
+	Files.move(temporaryFile, lastExportFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	return report;
+    }
+
+    /*
+     * Écrit les tickets reçus dans des fichiers successifs de ticketsPerFile
+     * tickets au plus.
+     */
+    private final class ChunkedExport implements TicketExportHandler {
+	private final String prefix;
+	private final List<Path> files = new ArrayList<>();
+	private TicketWriter ticketWriter;
+	private Path partFile;
+	private long ticketsInFile;
+
+	private ChunkedExport(String prefix) {
+	    this.prefix = prefix;
+	}
+
+	@Override
+	public void onTicket(Ticket ticket) throws IOException {
+	    if (ticketWriter == null) {
+		partFile = directory.resolve(String.format("%s-%05d%s.part", prefix, files.size() + 1,
+			exportFormat == ExportFormat.CSV ? ".csv.gz" : ".col.gz"));
+		OutputStream outputStream = Files.newOutputStream(partFile);
+		ticketWriter = exportFormat == ExportFormat.CSV ? new CsvTicketWriter(outputStream)
+			: new ColumnarTicketWriter(outputStream);
+	    }
+	    ticketWriter.write(ticket);
+	    if (++ticketsInFile == ticketsPerFile) {
+		close();
+	    }
+	}
+
+	private void close() throws IOException {
+	    if (ticketWriter != null) {
+		ticketWriter.close();
+		ticketWriter = null;
+		String partName = partFile.getFileName().toString();
+		Path file = partFile.resolveSibling(partName.substring(0, partName.length() - ".part".length()));
+		Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING);
+		files.add(file);
+		ticketsInFile = 0;
+	    }
+	}
+
+	private void delete() {
+	    try {
+		if (ticketWriter != null) {
+		    ticketWriter.close();
+		}
+	    } catch (IOException e) {
+		logger.error("Unable to close file of failed export", e);
+	    }
+	    try {
+		if (partFile != null) {
+		    Files.deleteIfExists(partFile);
+		}
+		for (Path file : files) {
+		    Files.deleteIfExists(file);
+		}
+	    } catch (IOException e) {
+		logger.error("Unable to delete files of failed export", e);
+	    }
+	}
+    }
+}
@@ -0,0 +1,231 @@
+package com.parkit.parkingsystem.service;
+
+import com.parkit.parkingsystem.dao.TicketImportDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketImportReport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * La classe TicketImportService importe l'historique des tickets d'un parking
+ * depuis un fichier CSV (PARKING_NUMBER,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME,
+ * dates au format yyyy-MM-dd HH:mm:ss, prix et date de sortie facultatifs).
+ * 
+ * Le fichier est lu ligne par ligne sans être chargé en mémoire. Chaque ligne
+ * est vérifiée (place existante, plaque, dates, prix) : une ligne incorrecte est
+ * écrite avec la raison du refus dans le fichier .rejected, à côté du fichier
+ * importé. Les tickets valides sont enregistrés par lots, chaque lot dans sa
+ * propre transaction, par plusieurs threads. Les lignes de chaque lot enregistré
+ * sont conservées en base : après une erreur, relancer l'import reprend après
+ * les lots déjà enregistrés.
+ * 
+ * @author Dylan
+ * 
+ */
+public class TicketImportService {
+
+    private static final Logger logger = LogManager.getLogger("TicketImportService");
+    private static final Pattern VEHICLE_REG_NUMBER = Pattern.compile("[A-Za-z0-9-]{1,10}");
+    private static final long PROGRESS_INTERVAL_MILLIS = 10000;
+
+    private final TicketImportDAO ticketImportDAO;
+    private final int workers;
+    private final int ticketsPerTransaction;
+
+    /**
+     * 
+     * @param ticketImportDAO       le DAO d'enregistrement des tickets.
+     * @param workers               le nombre de lots enregistrés en parallèle.
+     * @param ticketsPerTransaction le nombre de tickets de chaque lot.
+     */
+    public TicketImportService(TicketImportDAO ticketImportDAO, int workers, int ticketsPerTransaction) {
+	if (workers < 1 || ticketsPerTransaction < 1) {
+	    throw new IllegalArgumentException("Workers and tickets per transaction must be positive");
+	}
+	this.ticketImportDAO = ticketImportDAO;
+	this.workers = workers;
+	this.ticketsPerTransaction = ticketsPerTransaction;
+    }
+
+    /**
+     * Importe un fichier, en reprenant après les lots déjà enregistrés lors d'un
+     * import précédent du même fichier.
+     * 
+     * @param file le fichier CSV.
+     * @return le résultat de l'import.
+     * @throws IllegalStateException si un lot n'a pas pu être enregistré,
+     *                               l'import peut être relancé.
+     * @throws Exception             si le fichier ne peut pas être lu ou si la
+     *                               base de donnée est indisponible.
+     */
+    public TicketImportReport importFile(Path file) throws Exception {
+	long start = System.currentTimeMillis();
+	String source = file.getFileName().toString();
+	Set<Integer> parkingNumbers = ticketImportDAO.getParkingNumbers();
+	NavigableMap<Long, Long> importedRanges = ticketImportDAO.getImportedRanges(source);
+	AtomicLong importedTickets = new AtomicLong();
+	AtomicReference<Exception> failure = new AtomicReference<>();
+	// Au plus deux lots en attente par thread, la lecture attend les threads.
+	Semaphore pendingBatches = new Semaphore(workers * 2);
+	ExecutorService executorService = Executors.newFixedThreadPool(workers);
+	long rejectedLines = 0;
+	long skippedLines = 0;
+	try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+		BufferedWriter rejected = Files.newBufferedWriter(file.resolveSibling(source + ".rejected"),
+			StandardCharsets.UTF_8)) {
+	    List<Ticket> tickets = new ArrayList<>(ticketsPerTransaction);
+	    long firstLine = 0;
+	    long lineNumber = 0;
+	    long nextProgress = start + PROGRESS_INTERVAL_MILLIS;
+	    String line;
+	    while ((line = reader.readLine()) != null && failure.get() == null) {
+		lineNumber++;
+		if (isImported(importedRanges, lineNumber)) {
+		    skippedLines++;
+		    continue;
+		}
+		if (lineNumber == 1 && line.startsWith("PARKING_NUMBER")) {
+		    continue;
+		}
+		if (firstLine == 0) {
+		    firstLine = lineNumber;
+		}
+		try {
+		    tickets.add(parse(line, parkingNumbers));
+		} catch (IllegalArgumentException e) {
+		    rejectedLines++;
+		    rejected.write(lineNumber + ": " + e.getMessage() + ": " + line);
+		    rejected.newLine();
+		}
+		if (tickets.size() == ticketsPerTransaction) {
+		    submit(executorService, pendingBatches, source, firstLine, lineNumber, tickets, importedTickets,
+			    failure);
+		    tickets = new ArrayList<>(ticketsPerTransaction);
+		    firstLine = 0;
+		}
+		if (System.currentTimeMillis() >= nextProgress) {
+		    logger.info(source + ": line " + lineNumber + ", " + importedTickets.get() + " tickets imported");
+		    nextProgress += PROGRESS_INTERVAL_MILLIS;
+		}
+	    }
+	    if (firstLine > 0 && failure.get() == null) {
+		submit(executorService, pendingBatches, source, firstLine, lineNumber, tickets, importedTickets,
+			failure);
+	    }
+	} finally {
+	    executorService.shutdown();
+	    executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+	}
+	if (failure.get() != null) {
+	    throw new IllegalStateException(
+		    "Import of " + source + " stopped after " + importedTickets.get() + " tickets, run it again to resume",
+		    failure.get());
+	}
+	TicketImportReport report = new TicketImportReport(source, importedTickets.get(), rejectedLines, skippedLines,
+		System.currentTimeMillis() - start);
+	logger.info(report);
+	return report;
+    }
+
+    private void submit(ExecutorService executorService, Semaphore pendingBatches, String source, long firstLine,
+	    long lastLine, List<Ticket> tickets, AtomicLong importedTickets, AtomicReference<Exception> failure)
+	    throws InterruptedException {
+	pendingBatches.acquire();
+	executorService.execute(() -> {
+	    try {
+		if (failure.get() == null) {
+		    ticketImportDAO.saveTickets(source, firstLine, lastLine, tickets);
+		    importedTickets.addAndGet(tickets.size());
+		}
+	    } catch (Exception e) {
+		failure.compareAndSet(null, e);
+	    } finally {
+		pendingBatches.release();
+	    }
+	});
+    }
+
+    private static boolean isImported(NavigableMap<Long, Long> importedRanges, long lineNumber) {
+	Map.Entry<Long, Long> range = importedRanges.floorEntry(lineNumber);
+	return range != null && lineNumber <= range.getValue();
+    }
+
+    /*
+     * Lit un ticket, la raison du refus est le message de
+     * l'IllegalArgumentException.
+     */
+    private static Ticket parse(String line, Set<Integer> parkingNumbers) {
+	String[] fields = line.split(",", -1);
+	if (fields.length != 5) {
+	    throw new IllegalArgumentException("expected 5 fields");
+	}
+	int parkingNumber;
+	try {
+	    parkingNumber = Integer.parseInt(fields[0].trim());
+	} catch (NumberFormatException e) {
+	    throw new IllegalArgumentException("invalid parking number");
+	}
+	if (!parkingNumbers.contains(parkingNumber)) {
+	    throw new IllegalArgumentException("unknown parking number");
+	}
+	String vehicleRegNumber = fields[1].trim();
+	if (!VEHICLE_REG_NUMBER.matcher(vehicleRegNumber).matches()) {
+	    throw new IllegalArgumentException("invalid vehicle registration number");
+	}
+	double price = 0;
+	if (!fields[2].trim().isEmpty()) {
+	    try {
+		price = Double.parseDouble(fields[2].trim());
+	    } catch (NumberFormatException e) {
+		throw new IllegalArgumentException("invalid price");
+	    }
+	    if (!(price >= 0) || Double.isInfinite(price)) {
+		throw new IllegalArgumentException("invalid price");
+	    }
+	}
+	Timestamp inTime = parseTimestamp(fields[3], "invalid in time");
+	Timestamp outTime = null;
+	if (!fields[4].trim().isEmpty()) {
+	    outTime = parseTimestamp(fields[4], "invalid out time");
+	    if (!outTime.after(inTime)) {
+		throw new IllegalArgumentException("out time is not after in time");
+	    }
+	}
+	Ticket ticket = new Ticket();
+	// Le type de la place n'est pas enregistré avec le ticket.
+	ticket.setParkingSpot(new ParkingSpot(parkingNumber, null, outTime != null));
+	ticket.setVehicleRegNumber(vehicleRegNumber);
+	ticket.setPrice(price);
+	ticket.setInTimestamp(inTime);
+	ticket.setOutTimestamp(outTime);
+	return ticket;
+    }
+
+    private static Timestamp parseTimestamp(String field, String error) {
+	try {
+	    return Timestamp.valueOf(field.trim().replace('T', ' '));
+	} catch (IllegalArgumentException e) {
+	    throw new IllegalArgumentException(error);
+	}
+    }
+}
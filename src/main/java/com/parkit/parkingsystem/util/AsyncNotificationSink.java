@@ -0,0 +1,97 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Notification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La classe AsyncNotificationSink place les messages dans une file bornée, un
+ * thread dédié les transmet ensuite au NotificationSink délégué. L'appelant
+ * n'est jamais bloqué : si la file est pleine, le message est abandonné et
+ * comptabilisé.
+ *
+ * @author Dylan
+ *
+ */
+public class AsyncNotificationSink implements NotificationSink, AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("AsyncNotificationSink");
+
+    private final NotificationSink delegate;
+    private final BlockingQueue<Notification> queue;
+    private final Thread worker;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     *
+     * @param delegate le NotificationSink qui affiche réellement les messages.
+     * @param capacity le nombre maximum de messages en attente.
+     */
+    public AsyncNotificationSink(NotificationSink delegate, int capacity) {
+	this.delegate = delegate;
+	this.queue = new ArrayBlockingQueue<>(capacity);
+	this.worker = new Thread(this::drain, "notification-sink");
+	this.worker.setDaemon(true);
+	this.worker.start();
+    }
+
+    @Override
+    public void publish(Notification notification) {
+	if (!running || !queue.offer(notification)) {
+	    droppedCount.incrementAndGet();
+	}
+    }
+
+    /**
+     * Récupère le nombre de messages abandonnés car la file était pleine.
+     *
+     * @return le nombre de messages abandonnés.
+     */
+    public long getDroppedCount() {
+	return droppedCount.get();
+    }
+
+    /*
+     * Transmet les messages au délégué tant que le sink est actif, puis vide la
+     * file avant de s'arrêter.
+     */
+    private void drain() {
+	try {
+	    while (running || !queue.isEmpty()) {
+		Notification notification = queue.poll(100, TimeUnit.MILLISECONDS);
+		if (notification != null) {
+		    deliver(notification);
+		}
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+
+    private void deliver(Notification notification) {
+	try {
+	    delegate.publish(notification);
+	} catch (Exception e) {
+	    logger.error("Error while publishing notification", e);
+	}
+    }
+
+    /**
+     * Arrête le thread après avoir transmis les messages encore en attente.
+     */
+    @Override
+    public void close() {
+	running = false;
+	try {
+	    worker.join(TimeUnit.SECONDS.toMillis(5));
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
@@ -0,0 +1,91 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.constants.CircuitBreakerState;
+
+/**
+ * La classe CircuitBreaker coupe les appels à la base de donnée après plusieurs
+ * échecs consécutifs. Une fois le délai d'ouverture écoulé, un seul appel
+ * d'essai est autorisé : s'il réussit le circuit est refermé, sinon il est de
+ * nouveau ouvert.
+ * 
+ * @author Dylan
+ * 
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean trialInProgress;
+
+    /**
+     * 
+     * @param failureThreshold   le nombre d'échecs consécutifs qui ouvre le
+     *                           circuit.
+     * @param openDurationMillis le temps pendant lequel les appels sont refusés
+     *                           avant un appel d'essai.
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+	this.failureThreshold = failureThreshold;
+	this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * Indique si un appel à la base de donnée peut être tenté. Chaque appel
+     * autorisé doit ensuite être suivi de recordSuccess ou recordFailure.
+     * 
+     * @return true si l'appel peut être tenté.
+     */
+    public synchronized boolean allowRequest() {
+	switch (state) {
+	case CLOSED:
+	    return true;
+	case OPEN:
+	    if (System.currentTimeMillis() - openedAtMillis >= openDurationMillis) {
+		state = CircuitBreakerState.HALF_OPEN;
+		trialInProgress = true;
+		return true;
+	    }
+	    return false;
+	default:
+	    if (trialInProgress) {
+		return false;
+	    }
+	    trialInProgress = true;
+	    return true;
+	}
+    }
+
+    /**
+     * Enregistre la réussite d'un appel, le circuit est refermé.
+     */
+    public synchronized void recordSuccess() {
+	consecutiveFailures = 0;
+	trialInProgress = false;
+	state = CircuitBreakerState.CLOSED;
+    }
+
+    /**
+     * Enregistre l'échec d'un appel, le circuit est ouvert si le seuil d'échecs
+     * est atteint ou si l'appel d'essai a échoué.
+     */
+    public synchronized void recordFailure() {
+	consecutiveFailures++;
+	trialInProgress = false;
+	if (state == CircuitBreakerState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+	    state = CircuitBreakerState.OPEN;
+	    openedAtMillis = System.currentTimeMillis();
+	}
+    }
+
+    /**
+     * Récupère l'état du circuit.
+     * 
+     * @return l'état du circuit.
+     */
+    public synchronized CircuitBreakerState getState() {
+	return state;
+    }
+}
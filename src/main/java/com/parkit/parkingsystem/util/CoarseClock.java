@@ -0,0 +1,78 @@
+package com.parkit.parkingsystem.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * La classe CoarseClock est une horloge en UTC dont l'heure est relue toutes
+ * les resolutionMillis millisecondes par un thread dédié : la lecture de
+ * l'heure n'est alors qu'une lecture de variable, sans appel au système. Les
+ * tarifs étant calculés à la minute, une précision de quelques millisecondes
+ * suffit aux entrées et sorties.
+ * 
+ * @author Dylan
+ * 
+ */
+public class CoarseClock extends Clock implements AutoCloseable {
+
+    private final ScheduledExecutorService scheduler;
+    private volatile long millis = System.currentTimeMillis();
+
+    /**
+     * 
+     * @param resolutionMillis l'intervalle entre deux relectures de l'heure.
+     */
+    public CoarseClock(long resolutionMillis) {
+	if (resolutionMillis < 1) {
+	    throw new IllegalArgumentException("Resolution must be positive");
+	}
+	scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "coarse-clock");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+	scheduler.scheduleAtFixedRate(() -> millis = System.currentTimeMillis(), resolutionMillis,
+		resolutionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public long millis() {
+	return millis;
+    }
+
+    @Override
+    public Instant instant() {
+	return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+	return ZoneOffset.UTC;
+    }
+
+    /**
+     * L'horloge n'existe qu'en UTC.
+     * 
+     * @throws UnsupportedOperationException si le fuseau n'est pas UTC.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+	if (!ZoneOffset.UTC.equals(zone)) {
+	    throw new UnsupportedOperationException("Coarse clock only supports UTC");
+	}
+	return this;
+    }
+
+    /**
+     * Arrête la relecture de l'heure, l'horloge reste à la dernière heure lue.
+     */
+    @Override
+    public void close() {
+	scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketExportHandler;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * La classe ColumnarTicketReader relit un fichier écrit par
+ * ColumnarTicketWriter, bloc par bloc.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ColumnarTicketReader {
+
+    private ColumnarTicketReader() {
+    }
+
+    /**
+     * Relit les tickets d'un fichier, dans l'ordre d'écriture.
+     * 
+     * @param inputStream le fichier, fermé à la fin de la lecture.
+     * @param handler     le destinataire des tickets.
+     * @return le nombre de tickets lus.
+     * @throws IOException si le fichier est illisible ou n'est pas au format
+     *                     attendu.
+     */
+    public static long read(InputStream inputStream, TicketExportHandler handler) throws IOException {
+	long count = 0;
+	try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream)))) {
+	    if (in.readInt() != ColumnarTicketWriter.MAGIC || in.readByte() != ColumnarTicketWriter.VERSION) {
+		throw new IOException("Not a columnar ticket file");
+	    }
+	    int size;
+	    while ((size = (int) readVarLong(in)) > 0) {
+		ParkingType[] typeNames = new ParkingType[(int) readVarLong(in)];
+		for (int i = 0; i < typeNames.length; i++) {
+		    typeNames[i] = ParkingType.valueOf(in.readUTF());
+		}
+		Ticket[] tickets = new Ticket[size];
+		int[] parkingNumbers = new int[size];
+		long id = 0;
+		for (int i = 0; i < size; i++) {
+		    id += unzigzag(readVarLong(in));
+		    tickets[i] = new Ticket();
+		    tickets[i].setId((int) id);
+		}
+		for (int i = 0; i < size; i++) {
+		    parkingNumbers[i] = (int) readVarLong(in);
+		}
+		for (int i = 0; i < size; i++) {
+		    tickets[i].setParkingSpot(new ParkingSpot(parkingNumbers[i], typeNames[(int) readVarLong(in)], false));
+		}
+		for (int i = 0; i < size; i++) {
+		    byte[] bytes = new byte[(int) readVarLong(in)];
+		    in.readFully(bytes);
+		    tickets[i].setVehicleRegNumber(new String(bytes, StandardCharsets.UTF_8));
+		}
+		for (int i = 0; i < size; i++) {
+		    tickets[i].setPrice(unzigzag(readVarLong(in)) / 100.0);
+		}
+		long outTime = 0;
+		for (int i = 0; i < size; i++) {
+		    outTime += unzigzag(readVarLong(in));
+		    tickets[i].setOutTimestamp(new Timestamp(outTime));
+		}
+		for (int i = 0; i < size; i++) {
+		    tickets[i].setInTimestamp(
+			    new Timestamp(tickets[i].getOutTimestamp().getTime() - unzigzag(readVarLong(in))));
+		    handler.onTicket(tickets[i]);
+		    count++;
+		}
+	    }
+	}
+	return count;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+	long value = 0;
+	for (int shift = 0; shift < 64; shift += 7) {
+	    byte b = in.readByte();
+	    value |= (long) (b & 0x7F) << shift;
+	    if ((b & 0x80) == 0) {
+		return value;
+	    }
+	}
+	throw new IOException("Malformed number");
+    }
+
+    private static long unzigzag(long value) {
+	return (value >>> 1) ^ -(value & 1);
+    }
+}
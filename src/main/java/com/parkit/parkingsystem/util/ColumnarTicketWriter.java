@@ -0,0 +1,152 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * La classe ColumnarTicketWriter écrit les tickets en colonnes binaires
+ * compressées en gzip, plus compactes que le CSV. Les tickets sont regroupés
+ * par blocs de BLOCK_SIZE tickets au plus, et chaque bloc est écrit colonne par
+ * colonne, les valeurs d'une colonne étant proches les unes des autres :
+ * 
+ * fichier : MAGIC, VERSION, puis les blocs, puis un bloc vide (0).
+ * 
+ * bloc : le nombre de tickets, les types de place du bloc (nombre puis noms),
+ * puis les colonnes ID (écart avec l'ID précédent), PARKING_NUMBER, TYPE
+ * (position dans les types du bloc), VEHICLE_REG_NUMBER (longueur puis octets
+ * UTF-8), PRICE (en centimes), OUT_TIME (écart en millisecondes avec la sortie
+ * précédente) et IN_TIME (durée de stationnement en millisecondes).
+ * 
+ * Les nombres sont écrits sur 1 à 10 octets (7 bits par octet), les nombres
+ * signés après un codage zigzag. Le fichier est relu par ColumnarTicketReader.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ColumnarTicketWriter implements TicketWriter {
+
+    static final int MAGIC = 0x504b5443;
+    static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 65536;
+    private static final int BUFFER_SIZE = 65536;
+
+    private final DataOutputStream out;
+    private final long[] ids = new long[BLOCK_SIZE];
+    private final int[] parkingNumbers = new int[BLOCK_SIZE];
+    private final int[] types = new int[BLOCK_SIZE];
+    private final String[] vehicleRegNumbers = new String[BLOCK_SIZE];
+    private final long[] prices = new long[BLOCK_SIZE];
+    private final long[] inTimes = new long[BLOCK_SIZE];
+    private final long[] outTimes = new long[BLOCK_SIZE];
+    private final Map<String, Integer> typeIndexes = new HashMap<>();
+    private final List<String> typeNames = new ArrayList<>();
+    private int size;
+
+    /**
+     * 
+     * @param outputStream le fichier, fermé avec le ColumnarTicketWriter.
+     * @throws IOException si l'en-tête ne peut pas être écrit.
+     */
+    public ColumnarTicketWriter(OutputStream outputStream) throws IOException {
+	out = new DataOutputStream(
+		new BufferedOutputStream(new FastGZIPOutputStream(outputStream), BUFFER_SIZE));
+	out.writeInt(MAGIC);
+	out.writeByte(VERSION);
+    }
+
+    @Override
+    public void write(Ticket ticket) throws IOException {
+	if (ticket.getOutTimestamp() == null) {
+	    throw new IOException("Ticket " + ticket.getId() + " has no out time");
+	}
+	String type = ticket.getParkingSpot().getParkingType().toString();
+	Integer typeIndex = typeIndexes.get(type);
+	if (typeIndex == null) {
+	    typeIndex = typeNames.size();
+	    typeIndexes.put(type, typeIndex);
+	    typeNames.add(type);
+	}
+	ids[size] = ticket.getId();
+	parkingNumbers[size] = ticket.getParkingSpot().getId();
+	types[size] = typeIndex;
+	vehicleRegNumbers[size] = ticket.getVehicleRegNumber();
+	prices[size] = Math.round(ticket.getPrice() * 100);
+	inTimes[size] = ticket.getInTimestamp().getTime();
+	outTimes[size] = ticket.getOutTimestamp().getTime();
+	if (++size == BLOCK_SIZE) {
+	    writeBlock();
+	}
+    }
+
+    @Override
+    public void close() throws IOException {
+	try {
+	    if (size > 0) {
+		writeBlock();
+	    }
+	    writeVarLong(0);
+	} finally {
+	    out.close();
+	}
+    }
+
+    private void writeBlock() throws IOException {
+	writeVarLong(size);
+	writeVarLong(typeNames.size());
+	for (String typeName : typeNames) {
+	    out.writeUTF(typeName);
+	}
+	long previous = 0;
+	for (int i = 0; i < size; i++) {
+	    writeVarLong(zigzag(ids[i] - previous));
+	    previous = ids[i];
+	}
+	for (int i = 0; i < size; i++) {
+	    writeVarLong(parkingNumbers[i]);
+	}
+	for (int i = 0; i < size; i++) {
+	    writeVarLong(types[i]);
+	}
+	for (int i = 0; i < size; i++) {
+	    byte[] bytes = vehicleRegNumbers[i].getBytes(StandardCharsets.UTF_8);
+	    writeVarLong(bytes.length);
+	    out.write(bytes);
+	    vehicleRegNumbers[i] = null;
+	}
+	for (int i = 0; i < size; i++) {
+	    writeVarLong(zigzag(prices[i]));
+	}
+	previous = 0;
+	for (int i = 0; i < size; i++) {
+	    writeVarLong(zigzag(outTimes[i] - previous));
+	    previous = outTimes[i];
+	}
+	for (int i = 0; i < size; i++) {
+	    writeVarLong(zigzag(outTimes[i] - inTimes[i]));
+	}
+	size = 0;
+	typeIndexes.clear();
+	typeNames.clear();
+    }
+
+    private void writeVarLong(long value) throws IOException {
+	while ((value & ~0x7FL) != 0) {
+	    out.writeByte((int) ((value & 0x7F) | 0x80));
+	    value >>>= 7;
+	}
+	out.writeByte((int) value);
+    }
+
+    private static long zigzag(long value) {
+	return (value << 1) ^ (value >> 63);
+    }
+}
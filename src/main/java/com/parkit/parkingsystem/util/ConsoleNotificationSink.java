@@ -0,0 +1,17 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Notification;
+
+/**
+ * La classe ConsoleNotificationSink affiche les messages dans la console.
+ *
+ * @author Dylan
+ *
+ */
+public class ConsoleNotificationSink implements NotificationSink {
+
+    @Override
+    public void publish(Notification notification) {
+	System.out.println(notification.getMessage());
+    }
+}
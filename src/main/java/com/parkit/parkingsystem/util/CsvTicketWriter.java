@@ -0,0 +1,74 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * La classe CsvTicketWriter écrit les tickets en CSV compressé en gzip, avec
+ * une ligne d'en-tête :
+ * ID,PARKING_NUMBER,TYPE,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME. Les dates
+ * sont au format yyyy-MM-dd HH:mm:ss.S, comme à l'import.
+ * 
+ * @author Dylan
+ * 
+ */
+public class CsvTicketWriter implements TicketWriter {
+
+    private static final int BUFFER_SIZE = 65536;
+    private final BufferedWriter writer;
+
+    /**
+     * 
+     * @param outputStream le fichier, fermé avec le CsvTicketWriter.
+     * @throws IOException si l'en-tête ne peut pas être écrit.
+     */
+    public CsvTicketWriter(OutputStream outputStream) throws IOException {
+	writer = new BufferedWriter(
+		new OutputStreamWriter(new FastGZIPOutputStream(outputStream), StandardCharsets.UTF_8),
+		BUFFER_SIZE);
+	writer.write("ID,PARKING_NUMBER,TYPE,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME");
+	writer.write('\n');
+    }
+
+    @Override
+    public void write(Ticket ticket) throws IOException {
+	writer.write(Integer.toString(ticket.getId()));
+	writer.write(',');
+	writer.write(Integer.toString(ticket.getParkingSpot().getId()));
+	writer.write(',');
+	writer.write(ticket.getParkingSpot().getParkingType().toString());
+	writer.write(',');
+	writeField(ticket.getVehicleRegNumber());
+	writer.write(',');
+	writer.write(Double.toString(ticket.getPrice()));
+	writer.write(',');
+	writer.write(ticket.getInTimestamp().toString());
+	writer.write(',');
+	if (ticket.getOutTimestamp() != null) {
+	    writer.write(ticket.getOutTimestamp().toString());
+	}
+	writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+	writer.close();
+    }
+
+    // Un champ contenant une virgule, un guillemet ou un retour à la ligne est
+    // mis entre guillemets.
+    private void writeField(String field) throws IOException {
+	if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+	    writer.write(field);
+	} else {
+	    writer.write('"');
+	    writer.write(field.replace("\"", "\"\""));
+	    writer.write('"');
+	}
+    }
+}
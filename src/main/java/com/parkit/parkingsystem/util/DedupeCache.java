@@ -0,0 +1,139 @@
+package com.parkit.parkingsystem.util;
+
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * La classe DedupeCache retient le résultat des opérations identifiées par un
+ * identifiant de requête, afin qu'une requête rejouée par le client renvoie le
+ * résultat d'origine sans exécuter l'opération une seconde fois. Une requête
+ * rejouée alors que l'originale est encore en cours attend son résultat.
+ * 
+ * Les résultats sont oubliés après leur durée de vie, ou dès que le cache
+ * dépasse sa taille maximale, en commençant par les plus anciens. Une opération
+ * en échec n'est pas retenue et peut être rejouée.
+ * 
+ * @author Dylan
+ * 
+ * @param <V> le type du résultat des opérations.
+ */
+public class DedupeCache<V> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>();
+
+    /**
+     * 
+     * @param maxEntries le nombre maximum de résultats retenus.
+     * @param ttlMillis  la durée de vie d'un résultat.
+     * @param clock      l'horloge donnant la date d'expiration des résultats.
+     */
+    public DedupeCache(int maxEntries, long ttlMillis, Clock clock) {
+	if (maxEntries < 1 || ttlMillis < 1) {
+	    throw new IllegalArgumentException("Cache size and time to live must be positive");
+	}
+	this.maxEntries = maxEntries;
+	this.ttlMillis = ttlMillis;
+	this.clock = clock;
+    }
+
+    /**
+     * Exécute l'opération, sauf si une requête de même identifiant a déjà été
+     * exécutée : son résultat est alors renvoyé.
+     * 
+     * @param requestId l'identifiant de la requête.
+     * @param operation l'opération.
+     * @return le résultat de l'opération.
+     * @throws Exception l'erreur de l'opération.
+     */
+    public V execute(String requestId, Callable<V> operation) throws Exception {
+	CompletableFuture<V> future;
+	boolean owner = false;
+	synchronized (this) {
+	    long now = clock.millis();
+	    evictExpired(now);
+	    Entry<V> entry = entries.get(requestId);
+	    if (entry == null) {
+		entry = new Entry<>(new CompletableFuture<>(), now + ttlMillis);
+		entries.put(requestId, entry);
+		owner = true;
+		if (entries.size() > maxEntries) {
+		    Iterator<Entry<V>> iterator = entries.values().iterator();
+		    iterator.next();
+		    iterator.remove();
+		}
+	    }
+	    future = entry.result;
+	}
+	if (owner) {
+	    try {
+		V result = operation.call();
+		future.complete(result);
+		if (result == null) {
+		    remove(requestId, future);
+		}
+		return result;
+	    } catch (Throwable e) {
+		remove(requestId, future);
+		future.completeExceptionally(e);
+		throw e;
+	    }
+	}
+	try {
+	    return future.get();
+	} catch (ExecutionException e) {
+	    if (e.getCause() instanceof Exception) {
+		throw (Exception) e.getCause();
+	    }
+	    throw e;
+	}
+    }
+
+    /**
+     * Récupère le nombre de résultats retenus, expirés compris.
+     * 
+     * @return le nombre de résultats retenus.
+     */
+    public synchronized int size() {
+	return entries.size();
+    }
+
+    private synchronized void remove(String requestId, CompletableFuture<V> future) {
+	Entry<V> entry = entries.get(requestId);
+	if (entry != null && entry.result == future) {
+	    entries.remove(requestId);
+	}
+    }
+
+    /*
+     * Les résultats ont tous la même durée de vie : ils expirent dans l'ordre
+     * d'insertion, il suffit donc de parcourir le début de la table.
+     */
+    private void evictExpired(long now) {
+	Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+	while (iterator.hasNext()) {
+	    Entry<V> entry = iterator.next().getValue();
+	    if (entry.expiresAtMillis > now || !entry.result.isDone()) {
+		return;
+	    }
+	    iterator.remove();
+	}
+    }
+
+    private static final class Entry<V> {
+	private final CompletableFuture<V> result;
+	private final long expiresAtMillis;
+
+	private Entry(CompletableFuture<V> result, long expiresAtMillis) {
+	    this.result = result;
+	    this.expiresAtMillis = expiresAtMillis;
+	}
+    }
+}
@@ -0,0 +1,29 @@
+package com.parkit.parkingsystem.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * La classe FastGZIPOutputStream compresse en gzip au niveau le plus rapide :
+ * pour les exports, la compression par défaut coûte plus de temps que
+ * l'écriture des tickets pour un gain de taille faible.
+ * 
+ * @author Dylan
+ * 
+ */
+public class FastGZIPOutputStream extends GZIPOutputStream {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * 
+     * @param outputStream le flux compressé.
+     * @throws IOException si l'en-tête gzip ne peut pas être écrit.
+     */
+    public FastGZIPOutputStream(OutputStream outputStream) throws IOException {
+	super(outputStream, BUFFER_SIZE);
+	def.setLevel(Deflater.BEST_SPEED);
+    }
+}
@@ -0,0 +1,203 @@
+package com.parkit.parkingsystem.util;
+
+/**
+ * La classe JsonWriter écrit un document JSON directement dans un
+ * StringBuilder, sans réflexion ni objet intermédiaire. Les virgules entre les
+ * membres sont ajoutées automatiquement.
+ * 
+ * @author Dylan
+ * 
+ */
+public class JsonWriter {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder json;
+    private boolean separatorNeeded;
+
+    public JsonWriter() {
+	this(128);
+    }
+
+    /**
+     * 
+     * @param capacity la taille initiale du document.
+     */
+    public JsonWriter(int capacity) {
+	json = new StringBuilder(capacity);
+    }
+
+    /**
+     * Ouvre un objet.
+     * 
+     * @return ce JsonWriter.
+     */
+    public JsonWriter beginObject() {
+	separate();
+	json.append('{');
+	separatorNeeded = false;
+	return this;
+    }
+
+    /**
+     * Ferme l'objet ouvert.
+     * 
+     * @return ce JsonWriter.
+     */
+    public JsonWriter endObject() {
+	json.append('}');
+	separatorNeeded = true;
+	return this;
+    }
+
+    /**
+     * Ouvre un tableau.
+     * 
+     * @return ce JsonWriter.
+     */
+    public JsonWriter beginArray() {
+	separate();
+	json.append('[');
+	separatorNeeded = false;
+	return this;
+    }
+
+    /**
+     * Ferme le tableau ouvert.
+     * 
+     * @return ce JsonWriter.
+     */
+    public JsonWriter endArray() {
+	json.append(']');
+	separatorNeeded = true;
+	return this;
+    }
+
+    /**
+     * Écrit le nom d'un membre de l'objet ouvert, sa valeur doit suivre.
+     * 
+     * @param name le nom du membre.
+     * @return ce JsonWriter.
+     */
+    public JsonWriter name(String name) {
+	separate();
+	appendString(name);
+	json.append(':');
+	separatorNeeded = false;
+	return this;
+    }
+
+    /**
+     * Écrit une chaîne de caractères, ou null.
+     * 
+     * @param value la valeur.
+     * @return ce JsonWriter.
+     */
+    public JsonWriter value(String value) {
+	separate();
+	if (value == null) {
+	    json.append("null");
+	} else {
+	    appendString(value);
+	}
+	separatorNeeded = true;
+	return this;
+    }
+
+    /**
+     * Écrit un nombre entier.
+     * 
+     * @param value la valeur.
+     * @return ce JsonWriter.
+     */
+    public JsonWriter value(long value) {
+	separate();
+	json.append(value);
+	separatorNeeded = true;
+	return this;
+    }
+
+    /**
+     * Écrit un nombre décimal.
+     * 
+     * @param value la valeur.
+     * @return ce JsonWriter.
+     * @throws IllegalArgumentException si la valeur n'est pas un nombre fini.
+     */
+    public JsonWriter value(double value) {
+	if (Double.isNaN(value) || Double.isInfinite(value)) {
+	    throw new IllegalArgumentException("JSON numbers must be finite: " + value);
+	}
+	separate();
+	json.append(value);
+	separatorNeeded = true;
+	return this;
+    }
+
+    /**
+     * Écrit un booléen.
+     * 
+     * @param value la valeur.
+     * @return ce JsonWriter.
+     */
+    public JsonWriter value(boolean value) {
+	separate();
+	json.append(value);
+	separatorNeeded = true;
+	return this;
+    }
+
+    /**
+     * Écrit null.
+     * 
+     * @return ce JsonWriter.
+     */
+    public JsonWriter nullValue() {
+	separate();
+	json.append("null");
+	separatorNeeded = true;
+	return this;
+    }
+
+    @Override
+    public String toString() {
+	return json.toString();
+    }
+
+    private void separate() {
+	if (separatorNeeded) {
+	    json.append(',');
+	}
+    }
+
+    private void appendString(String value) {
+	json.append('"');
+	for (int i = 0; i < value.length(); i++) {
+	    char c = value.charAt(i);
+	    switch (c) {
+	    case '"':
+		json.append("\\\"");
+		break;
+	    case '\\':
+		json.append("\\\\");
+		break;
+	    case '\n':
+		json.append("\\n");
+		break;
+	    case '\r':
+		json.append("\\r");
+		break;
+	    case '\t':
+		json.append("\\t");
+		break;
+	    default:
+		if (c < 0x20) {
+		    json.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+		} else {
+		    json.append(c);
+		}
+	    }
+	}
+	json.append('"');
+    }
+}
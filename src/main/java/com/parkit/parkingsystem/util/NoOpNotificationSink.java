@@ -0,0 +1,18 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Notification;
+
+/**
+ * La classe NoOpNotificationSink ignore tous les messages, elle est utilisée
+ * pour les mesures de performance.
+ *
+ * @author Dylan
+ *
+ */
+public class NoOpNotificationSink implements NotificationSink {
+
+    @Override
+    public void publish(Notification notification) {
+	// Aucun affichage.
+    }
+}
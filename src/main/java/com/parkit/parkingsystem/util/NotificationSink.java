@@ -0,0 +1,20 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Notification;
+
+/**
+ * L'interface NotificationSink reçoit les messages émis par les services à
+ * destination de l'utilisateur (console, afficheur de la barrière...).
+ *
+ * @author Dylan
+ *
+ */
+public interface NotificationSink {
+
+    /**
+     * Permet de transmettre un message à l'utilisateur.
+     *
+     * @param notification le message à transmettre.
+     */
+    void publish(Notification notification);
+}
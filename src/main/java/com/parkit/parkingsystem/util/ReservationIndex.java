@@ -0,0 +1,139 @@
+package com.parkit.parkingsystem.util;
+
+/**
+ * La classe ReservationIndex compte, minute par minute, le nombre de places
+ * réservées pour un type d'emplacement. Les minutes sont stockées dans un arbre
+ * de segments : l'ajout d'une réservation sur une période et la recherche du
+ * nombre maximum de places réservées sur une période se font en temps
+ * logarithmique, quel que soit le nombre de réservations.
+ * 
+ * L'index couvre les minutes de [originMinute, originMinute + horizonMinutes),
+ * les minutes en dehors de cette fenêtre sont ignorées.
+ * 
+ * @author Dylan
+ * 
+ */
+public class ReservationIndex {
+
+    private final long originMinute;
+    private final int size;
+    /*
+     * max[node] est le maximum réservé sur le segment du noeud, en comptant les
+     * ajouts faits sur le noeud lui-même (pending[node]) mais pas ceux de ses
+     * ancêtres.
+     */
+    private final int[] max;
+    private final int[] pending;
+
+    /**
+     * 
+     * @param originMinute   la première minute couverte, en minutes depuis le
+     *                       1er janvier 1970.
+     * @param horizonMinutes le nombre de minutes couvertes.
+     */
+    public ReservationIndex(long originMinute, int horizonMinutes) {
+	this.originMinute = originMinute;
+	int leaves = 1;
+	while (leaves < horizonMinutes) {
+	    leaves <<= 1;
+	}
+	this.size = leaves;
+	this.max = new int[2 * leaves];
+	this.pending = new int[2 * leaves];
+    }
+
+    /**
+     * Récupère la première minute couverte par l'index.
+     * 
+     * @return la première minute, en minutes depuis le 1er janvier 1970.
+     */
+    public long getOriginMinute() {
+	return originMinute;
+    }
+
+    /**
+     * Récupère la minute suivant la dernière minute couverte par l'index.
+     * 
+     * @return la fin de la fenêtre, en minutes depuis le 1er janvier 1970.
+     */
+    public long getEndMinute() {
+	return originMinute + size;
+    }
+
+    /**
+     * Permet d'ajouter (ou de retirer avec une valeur négative) des places
+     * réservées sur chaque minute de [startMinute, endMinute).
+     * 
+     * @param startMinute la première minute, en minutes depuis le 1er janvier
+     *                    1970.
+     * @param endMinute   la minute de fin, exclue.
+     * @param delta       le nombre de places à ajouter.
+     */
+    public synchronized void add(long startMinute, long endMinute, int delta) {
+	int from = clip(startMinute);
+	int to = clip(endMinute);
+	if (from < to) {
+	    add(1, 0, size, from, to, delta);
+	}
+    }
+
+    /**
+     * Récupère le nombre maximum de places réservées sur une minute de
+     * [startMinute, endMinute).
+     * 
+     * @param startMinute la première minute, en minutes depuis le 1er janvier
+     *                    1970.
+     * @param endMinute   la minute de fin, exclue.
+     * @return le nombre maximum de places réservées sur la période.
+     */
+    public synchronized int getMaxReserved(long startMinute, long endMinute) {
+	int from = clip(startMinute);
+	int to = clip(endMinute);
+	return from < to ? getMax(1, 0, size, from, to) : 0;
+    }
+
+    /**
+     * Récupère le nombre de places réservées sur une minute.
+     * 
+     * @param minute la minute, en minutes depuis le 1er janvier 1970.
+     * @return le nombre de places réservées.
+     */
+    public int getReserved(long minute) {
+	return getMaxReserved(minute, minute + 1);
+    }
+
+    private int clip(long minute) {
+	return (int) Math.max(0, Math.min(size, minute - originMinute));
+    }
+
+    private void add(int node, int nodeFrom, int nodeTo, int from, int to, int delta) {
+	if (from <= nodeFrom && nodeTo <= to) {
+	    max[node] += delta;
+	    pending[node] += delta;
+	    return;
+	}
+	int middle = (nodeFrom + nodeTo) >>> 1;
+	if (from < middle) {
+	    add(2 * node, nodeFrom, middle, from, to, delta);
+	}
+	if (middle < to) {
+	    add(2 * node + 1, middle, nodeTo, from, to, delta);
+	}
+	max[node] = pending[node] + Math.max(max[2 * node], max[2 * node + 1]);
+    }
+
+    private int getMax(int node, int nodeFrom, int nodeTo, int from, int to) {
+	if (from <= nodeFrom && nodeTo <= to) {
+	    return max[node];
+	}
+	int middle = (nodeFrom + nodeTo) >>> 1;
+	int result = Integer.MIN_VALUE;
+	if (from < middle) {
+	    result = getMax(2 * node, nodeFrom, middle, from, to);
+	}
+	if (middle < to) {
+	    result = Math.max(result, getMax(2 * node + 1, middle, nodeTo, from, to));
+	}
+	return pending[node] + result;
+    }
+}
@@ -0,0 +1,75 @@
+package com.parkit.parkingsystem.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * La classe SimulatedClock est une horloge en UTC qui part d'une date donnée et
+ * avance speed fois plus vite que le temps réel, afin de simuler une journée
+ * de trafic en quelques secondes (speed = 8640 pour une journée en dix
+ * secondes). Avec une vitesse nulle, l'horloge n'avance que par advance.
+ * 
+ * @author Dylan
+ * 
+ */
+public class SimulatedClock extends Clock {
+
+    private final long originMillis;
+    private final long startNanos = System.nanoTime();
+    private final double speed;
+    private final AtomicLong advancedMillis = new AtomicLong();
+
+    /**
+     * 
+     * @param origin la date de départ de l'horloge.
+     * @param speed  le nombre de secondes simulées par seconde réelle.
+     */
+    public SimulatedClock(Instant origin, double speed) {
+	if (speed < 0) {
+	    throw new IllegalArgumentException("Speed must not be negative");
+	}
+	this.originMillis = origin.toEpochMilli();
+	this.speed = speed;
+    }
+
+    /**
+     * Permet d'avancer l'horloge d'une durée, en plus de son avance régulière.
+     * 
+     * @param duration la durée.
+     */
+    public void advance(Duration duration) {
+	advancedMillis.addAndGet(duration.toMillis());
+    }
+
+    @Override
+    public long millis() {
+	return originMillis + advancedMillis.get() + (long) ((System.nanoTime() - startNanos) * speed / 1000000);
+    }
+
+    @Override
+    public Instant instant() {
+	return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+	return ZoneOffset.UTC;
+    }
+
+    /**
+     * L'horloge n'existe qu'en UTC.
+     * 
+     * @throws UnsupportedOperationException si le fuseau n'est pas UTC.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+	if (!ZoneOffset.UTC.equals(zone)) {
+	    throw new UnsupportedOperationException("Simulated clock only supports UTC");
+	}
+	return this;
+    }
+}
@@ -0,0 +1,49 @@
+package com.parkit.parkingsystem.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * La classe SlowTransactionLog écrit les entrées et sorties de véhicules trop
+ * lentes dans un fichier dédié, une ligne par requête avec la durée de chaque
+ * étape. Les requêtes lentes étant rares, chaque ligne est écrite
+ * immédiatement.
+ * 
+ * @author Dylan
+ * 
+ */
+public class SlowTransactionLog {
+
+    private final Path file;
+
+    /**
+     * 
+     * @param file le fichier du journal, créé s'il n'existe pas.
+     */
+    public SlowTransactionLog(Path file) {
+	this.file = file;
+    }
+
+    /**
+     * Permet d'ajouter une requête lente en fin de journal.
+     * 
+     * @param line la description de la requête, sans retour à la ligne.
+     * @throws IOException si l'écriture sur le disque échoue.
+     */
+    public synchronized void append(String line) throws IOException {
+	Files.write(file, (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+		StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Récupère le fichier du journal.
+     * 
+     * @return le fichier du journal.
+     */
+    public Path getFile() {
+	return file;
+    }
+}
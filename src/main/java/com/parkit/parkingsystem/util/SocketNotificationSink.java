@@ -0,0 +1,80 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Notification;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * La classe SocketNotificationSink envoie chaque message, sur une ligne, à
+ * l'afficheur de la barrière connecté en local. La connexion est ouverte au
+ * premier message et rétablie au message suivant en cas de coupure. Les
+ * écritures sont synchrones, ce sink est donc destiné à être enveloppé dans un
+ * AsyncNotificationSink.
+ *
+ * @author Dylan
+ *
+ */
+public class SocketNotificationSink implements NotificationSink, AutoCloseable {
+
+    private static final Logger logger = LogManager.getLogger("SocketNotificationSink");
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private Socket socket;
+    private Writer writer;
+
+    /**
+     *
+     * @param host l'adresse de l'afficheur.
+     * @param port le port de l'afficheur.
+     */
+    public SocketNotificationSink(String host, int port) {
+	this.host = host;
+	this.port = port;
+    }
+
+    @Override
+    public synchronized void publish(Notification notification) {
+	try {
+	    if (writer == null) {
+		connect();
+	    }
+	    writer.write(notification.getMessage().replace(System.lineSeparator(), " | "));
+	    writer.write('\n');
+	    writer.flush();
+	} catch (IOException e) {
+	    logger.error("Error while sending notification to " + host + ":" + port, e);
+	    close();
+	}
+    }
+
+    private void connect() throws IOException {
+	socket = new Socket();
+	socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+	writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ferme la connexion avec l'afficheur.
+     */
+    @Override
+    public synchronized void close() {
+	if (socket != null) {
+	    try {
+		socket.close();
+	    } catch (IOException e) {
+		logger.error("Error while closing notification socket", e);
+	    }
+	}
+	socket = null;
+	writer = null;
+    }
+}
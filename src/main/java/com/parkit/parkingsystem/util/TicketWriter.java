@@ -0,0 +1,24 @@
+package com.parkit.parkingsystem.util;
+
+import com.parkit.parkingsystem.model.Ticket;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * L'interface TicketWriter écrit des tickets dans un fichier d'export. Le
+ * fichier n'est complet qu'une fois le TicketWriter fermé.
+ * 
+ * @author Dylan
+ * 
+ */
+public interface TicketWriter extends Closeable {
+
+    /**
+     * Écrit un ticket.
+     * 
+     * @param ticket le ticket, avec le type de sa place et sa date de sortie.
+     * @throws IOException si le ticket ne peut pas être écrit.
+     */
+    void write(Ticket ticket) throws IOException;
+}
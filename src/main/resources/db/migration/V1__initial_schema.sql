@@ -0,0 +1,30 @@
+-- Tables created until now by resources/Data.sql, kept as they are for existing databases.
+create table if not exists parking(
+ PARKING_NUMBER int PRIMARY KEY,
+ AVAILABLE bool NOT NULL,
+ TYPE varchar(10) NOT NULL);
+
+create table if not exists ticket(
+ ID int PRIMARY KEY AUTO_INCREMENT,
+ PARKING_NUMBER int NOT NULL,
+ VEHICLE_REG_NUMBER varchar(10) NOT NULL,
+ PRICE double,
+ IN_TIME DATETIME NOT NULL,
+ OUT_TIME DATETIME,
+ FOREIGN KEY (PARKING_NUMBER)
+ REFERENCES parking(PARKING_NUMBER));
+
+create table if not exists spot_lease(
+ PARKING_NUMBER int PRIMARY KEY,
+ GATE_ID varchar(20) NOT NULL,
+ LEASE_EXPIRY DATETIME NOT NULL,
+ FOREIGN KEY (PARKING_NUMBER)
+ REFERENCES parking(PARKING_NUMBER));
+
+create table if not exists reservation(
+ ID int PRIMARY KEY AUTO_INCREMENT,
+ VEHICLE_REG_NUMBER varchar(10) NOT NULL,
+ TYPE varchar(10) NOT NULL,
+ START_TIME DATETIME NOT NULL,
+ END_TIME DATETIME NOT NULL,
+ CLAIMED bool NOT NULL);
@@ -0,0 +1,19 @@
+-- GET_TICKET: last ticket of a vehicle, ordered by entry time.
+create index IDX_TICKET_VEHICLE_IN_TIME on ticket(VEHICLE_REG_NUMBER, IN_TIME);
+
+-- GET_VEHICLE_REG_NUMBER: closed tickets of a vehicle, counted from the index only.
+create index IDX_TICKET_VEHICLE_OUT_TIME on ticket(VEHICLE_REG_NUMBER, OUT_TIME);
+
+-- COUNT_OPEN_TICKETS and COUNT_OPEN_TICKETS_FOR_SPOT: open tickets, overall and per spot.
+create index IDX_TICKET_OUT_TIME on ticket(OUT_TIME);
+create index IDX_TICKET_SPOT_OUT_TIME on ticket(PARKING_NUMBER, OUT_TIME);
+
+-- GET_NEXT_PARKING_SPOT and GET_NEXT_PARKING_SPOT_AFTER: lowest free spot of a type.
+create index IDX_PARKING_TYPE_AVAILABLE on parking(TYPE, AVAILABLE, PARKING_NUMBER);
+
+-- RENEW_SPOT_LEASES and DELETE_EXPIRED_SPOT_LEASES.
+create index IDX_SPOT_LEASE_GATE on spot_lease(GATE_ID);
+create index IDX_SPOT_LEASE_EXPIRY on spot_lease(LEASE_EXPIRY);
+
+-- GET_ACTIVE_RESERVATIONS: reservations not claimed yet and not over.
+create index IDX_RESERVATION_CLAIMED_END on reservation(CLAIMED, END_TIME);
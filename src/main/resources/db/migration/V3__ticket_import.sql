@@ -0,0 +1,8 @@
+-- Line ranges of each imported CSV file, saved in the transaction of their tickets so that an import can resume.
+create table if not exists ticket_import(
+ SOURCE varchar(255) NOT NULL,
+ FIRST_LINE bigint NOT NULL,
+ LAST_LINE bigint NOT NULL,
+ ROW_COUNT int NOT NULL,
+ IMPORTED_ON DATETIME NOT NULL,
+ PRIMARY KEY (SOURCE, FIRST_LINE));
@@ -0,0 +1,10 @@
+-- Types of parking spots, read at startup by ParkingTypeDAO. FALLBACK_TYPES lists, comma separated and in order of
+-- preference, the types whose spots a vehicle may take when all spots of its own type are occupied.
+create table if not exists parking_type(
+ NAME varchar(10) PRIMARY KEY,
+ RATE_PER_HOUR double NOT NULL,
+ FALLBACK_TYPES varchar(100),
+ MENU_ORDER int NOT NULL);
+
+insert into parking_type(NAME, RATE_PER_HOUR, FALLBACK_TYPES, MENU_ORDER) values ('CAR', 1.5, null, 1);
+insert into parking_type(NAME, RATE_PER_HOUR, FALLBACK_TYPES, MENU_ORDER) values ('BIKE', 1.0, null, 2);
@@ -0,0 +1,123 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.AvailabilityChange;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.service.AvailabilityPublisher;
+import com.parkit.parkingsystem.service.AvailabilitySubscriber;
+import com.parkit.parkingsystem.service.OccupancyCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AvailabilityPublisherTest {
+
+    private OccupancyCounters occupancyCounters;
+    private AvailabilityPublisher availabilityPublisher;
+
+    @BeforeEach
+    public void setUpPerTest() {
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	parkingOccupancy.setAvailableSpots(ParkingType.CAR, 10);
+	occupancyCounters = new OccupancyCounters();
+	occupancyCounters.seed(parkingOccupancy);
+	availabilityPublisher = new AvailabilityPublisher(occupancyCounters);
+    }
+
+    @Test
+    @DisplayName("Les changements d'une même place en attente sont fusionnés")
+    public void testBurstIsCoalesced() throws Exception {
+	// GIVEN
+	BlockingSubscriber subscriber = new BlockingSubscriber(3);
+	AvailabilityPublisher.Subscription subscription = availabilityPublisher.subscribe(subscriber, 10);
+	update(new ParkingSpot(1, ParkingType.CAR, false));
+	assertThat(subscriber.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+	// WHEN l'abonné est occupé pendant une rafale de changements
+	update(new ParkingSpot(2, ParkingType.CAR, false));
+	update(new ParkingSpot(1, ParkingType.CAR, true));
+	update(new ParkingSpot(2, ParkingType.CAR, true));
+	update(new ParkingSpot(1, ParkingType.CAR, false));
+	subscriber.release.countDown();
+
+	// THEN
+	assertThat(subscriber.delivered.await(5, TimeUnit.SECONDS)).isTrue();
+	subscription.close();
+	assertThat(subscriber.changes).hasSize(3);
+	AvailabilityChange spot2 = subscriber.changes.get(1);
+	assertThat(spot2.getParkingNumber()).isEqualTo(2);
+	assertThat(spot2.isAvailable()).isTrue();
+	AvailabilityChange spot1 = subscriber.changes.get(2);
+	assertThat(spot1.getParkingNumber()).isEqualTo(1);
+	assertThat(spot1.isAvailable()).isFalse();
+	assertThat(spot1.getAvailableSpots()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Un abonné trop lent est résilié sans bloquer la publication")
+    public void testSlowSubscriberIsEvicted() throws Exception {
+	// GIVEN
+	BlockingSubscriber slow = new BlockingSubscriber(1);
+	BlockingSubscriber fast = new BlockingSubscriber(5);
+	fast.release.countDown();
+	AvailabilityPublisher.Subscription slowSubscription = availabilityPublisher.subscribe(slow, 2);
+	availabilityPublisher.subscribe(fast, 10);
+	update(new ParkingSpot(1, ParkingType.CAR, false));
+	assertThat(slow.started.await(5, TimeUnit.SECONDS)).isTrue();
+
+	// WHEN
+	for (int parkingNumber = 2; parkingNumber <= 5; parkingNumber++) {
+	    update(new ParkingSpot(parkingNumber, ParkingType.CAR, false));
+	}
+
+	// THEN
+	assertThat(slowSubscription.isEvicted()).isTrue();
+	assertThat(slow.evicted).isTrue();
+	assertThat(availabilityPublisher.getSubscriberCount()).isEqualTo(1);
+	assertThat(fast.delivered.await(5, TimeUnit.SECONDS)).isTrue();
+	slow.release.countDown();
+	availabilityPublisher.close();
+    }
+
+    private void update(ParkingSpot parkingSpot) {
+	occupancyCounters.onParkingSpotUpdated(parkingSpot);
+	availabilityPublisher.onParkingSpotUpdated(parkingSpot);
+    }
+
+    private static class BlockingSubscriber implements AvailabilitySubscriber {
+	private final List<AvailabilityChange> changes = new CopyOnWriteArrayList<>();
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final CountDownLatch delivered;
+	private volatile boolean evicted;
+
+	BlockingSubscriber(int expectedChanges) {
+	    delivered = new CountDownLatch(expectedChanges);
+	}
+
+	@Override
+	public void onAvailabilityChanged(AvailabilityChange availabilityChange) {
+	    changes.add(availabilityChange);
+	    started.countDown();
+	    delivered.countDown();
+	    try {
+		release.await(5, TimeUnit.SECONDS);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+
+	@Override
+	public void onEvicted() {
+	    evicted = true;
+	}
+    }
+}
@@ -0,0 +1,89 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.DedupeCache;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesure du DedupeCache pendant une tempête de rejeux, lancée à la main :
+ * 
+ * mvn test-compile exec:java -Dexec.mainClass=com.parkit.parkingsystem.DedupeCacheBenchmark
+ * -Dexec.classpathScope=test
+ * 
+ * Chaque client envoie des requêtes distinctes, chacune rejouée plusieurs fois
+ * aussitôt, comme une borne dont les délais expirent tous. Le cache est ensuite
+ * rempli afin de mesurer la mémoire occupée par un résultat retenu.
+ */
+public class DedupeCacheBenchmark {
+
+    private static final int CAPACITY = Integer.getInteger("capacity", 10000);
+    private static final long TTL_MILLIS = 300000;
+    private static final int CLIENTS = Integer.getInteger("clients", 16);
+    private static final int REQUESTS_PER_CLIENT = 200000;
+    private static final int RETRIES = Integer.getInteger("retries", 5);
+    private static final int MEASURED_ENTRIES = 200000;
+
+    public static void main(String[] args) throws Exception {
+	storm();
+	long start = System.nanoTime();
+	AtomicLong executions = storm();
+	double seconds = (System.nanoTime() - start) / 1e9;
+	long calls = (long) CLIENTS * REQUESTS_PER_CLIENT * (1 + RETRIES);
+	System.out.printf("%d clients, %d retries, capacity %d: %.0f calls/s, %d requests executed twice%n",
+		CLIENTS, RETRIES, CAPACITY, calls / seconds,
+		executions.get() - (long) CLIENTS * REQUESTS_PER_CLIENT);
+
+	DedupeCache<Ticket> dedupeCache = new DedupeCache<>(MEASURED_ENTRIES, TTL_MILLIS, Clock.systemUTC());
+	long before = usedMemory();
+	for (int i = 0; i < MEASURED_ENTRIES; i++) {
+	    Ticket ticket = new Ticket();
+	    dedupeCache.execute("gate-1-" + i, () -> ticket);
+	}
+	long after = usedMemory();
+	System.out.printf("%d entries: %d bytes per entry (empty ticket included)%n", dedupeCache.size(),
+		(after - before) / MEASURED_ENTRIES);
+    }
+
+    private static AtomicLong storm() throws Exception {
+	DedupeCache<Ticket> dedupeCache = new DedupeCache<>(CAPACITY, TTL_MILLIS, Clock.systemUTC());
+	AtomicLong executions = new AtomicLong();
+	ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+	List<Future<?>> futures = new ArrayList<>();
+	for (int i = 0; i < CLIENTS; i++) {
+	    String gate = "gate-" + i + "-";
+	    futures.add(clients.submit(() -> {
+		for (int request = 0; request < REQUESTS_PER_CLIENT; request++) {
+		    String requestId = gate + request;
+		    for (int attempt = 0; attempt <= RETRIES; attempt++) {
+			dedupeCache.execute(requestId, () -> {
+			    executions.incrementAndGet();
+			    return new Ticket();
+			});
+		    }
+		}
+		return null;
+	    }));
+	}
+	for (Future<?> future : futures) {
+	    future.get();
+	}
+	clients.shutdown();
+	return executions;
+    }
+
+    private static long usedMemory() throws InterruptedException {
+	for (int i = 0; i < 3; i++) {
+	    System.gc();
+	    Thread.sleep(100);
+	}
+	Runtime runtime = Runtime.getRuntime();
+	return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
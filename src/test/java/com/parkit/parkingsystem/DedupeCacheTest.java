@@ -0,0 +1,101 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.util.DedupeCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DedupeCacheTest {
+
+    @Test
+    @DisplayName("Une requête rejouée, même pendant l'exécution de l'originale, renvoie le résultat d'origine")
+    public void testRetryReturnsOriginalResult() throws Exception {
+	// GIVEN
+	DedupeCache<String> dedupeCache = new DedupeCache<>(10, 60000, new ManualClock());
+	AtomicInteger calls = new AtomicInteger();
+	CountDownLatch started = new CountDownLatch(1);
+	CountDownLatch release = new CountDownLatch(1);
+	ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+	// WHEN
+	Future<String> original = executorService.submit(() -> dedupeCache.execute("r-1", () -> {
+	    started.countDown();
+	    release.await(5, TimeUnit.SECONDS);
+	    return "ticket-" + calls.incrementAndGet();
+	}));
+	started.await(5, TimeUnit.SECONDS);
+	Future<String> concurrentRetry = Executors.newSingleThreadExecutor()
+		.submit(() -> dedupeCache.execute("r-1", () -> "ticket-" + calls.incrementAndGet()));
+	release.countDown();
+	String retry = dedupeCache.execute("r-1", () -> "ticket-" + calls.incrementAndGet());
+
+	// THEN
+	assertThat(original.get()).isEqualTo("ticket-1");
+	assertThat(concurrentRetry.get()).isEqualTo("ticket-1");
+	assertThat(retry).isEqualTo("ticket-1");
+	assertThat(calls.get()).isEqualTo(1);
+	executorService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Les résultats expirés, les plus anciens au-delà de la taille maximale et les échecs sont oubliés")
+    public void testEviction() throws Exception {
+	// GIVEN
+	ManualClock clock = new ManualClock();
+	DedupeCache<Integer> dedupeCache = new DedupeCache<>(2, 60000, clock);
+	dedupeCache.execute("r-1", () -> 1);
+	clock.advanceMillis(30000);
+	dedupeCache.execute("r-2", () -> 2);
+
+	// WHEN THEN la taille maximale est dépassée
+	dedupeCache.execute("r-3", () -> 3);
+	assertThat(dedupeCache.size()).isEqualTo(2);
+	assertThat(dedupeCache.execute("r-1", () -> 10)).isEqualTo(10);
+
+	// WHEN THEN r-2 expire
+	clock.advanceMillis(30001);
+	assertThat(dedupeCache.execute("r-2", () -> 20)).isEqualTo(20);
+
+	// WHEN THEN un échec n'est pas retenu
+	assertThrows(IllegalStateException.class, () -> dedupeCache.execute("r-4", () -> {
+	    throw new IllegalStateException("Parking slots might be full");
+	}));
+	assertThat(dedupeCache.execute("r-4", () -> 4)).isEqualTo(4);
+    }
+
+    private static final class ManualClock extends Clock {
+	private long millis = 1_600_000_000_000L;
+
+	private void advanceMillis(long delta) {
+	    millis += delta;
+	}
+
+	@Override
+	public ZoneId getZone() {
+	    return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+	    return this;
+	}
+
+	@Override
+	public Instant instant() {
+	    return Instant.ofEpochMilli(millis);
+	}
+    }
+}
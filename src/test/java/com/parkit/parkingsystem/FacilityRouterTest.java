@@ -0,0 +1,57 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.PooledDataBaseConfig;
+import com.parkit.parkingsystem.dao.FacilityRouter;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FacilityRouterTest {
+
+    private FacilityRouter facilityRouter;
+
+    @BeforeEach
+    private void setUpPerTest() throws Exception {
+	Properties properties = new Properties();
+	try (InputStream in = getClass().getClassLoader().getResourceAsStream("facilities-test.properties")) {
+	    properties.load(in);
+	}
+	facilityRouter = FacilityRouter.fromProperties(properties);
+    }
+
+    @Test
+    @DisplayName("Chaque parking est associé à sa propre base de donnée")
+    public void testRoutingPerFacility() {
+	assertThat(facilityRouter.getFacilityIds()).containsExactly(1, 2);
+	assertThat(facilityRouter.getDataBaseConfig(2)).isInstanceOf(PooledDataBaseConfig.class);
+	assertThat(((PooledDataBaseConfig) facilityRouter.getDataBaseConfig(2)).getUrl()).contains(":3307/")
+		.endsWith("serverTimezone=UTC&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=64");
+	assertThat(facilityRouter.getParkingSpotDAO(1).dataBaseConfig).isSameAs(facilityRouter.getDataBaseConfig(1));
+	assertThat(facilityRouter.getTicketDAO(2).dataBaseConfig).isSameAs(facilityRouter.getDataBaseConfig(2));
+	assertThat(facilityRouter.getDataBaseConfig(2).getFacilityId()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Le service de parking utilise les DAO du parking choisi")
+    public void testParkingServiceForFacility() {
+	ParkingService parkingService = new ParkingService(new InputReaderUtil(), facilityRouter, 2,
+		new NoOpNotificationSink());
+
+	assertThat(parkingService.getFacilityId()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Erreur parking inconnu")
+    public void testUnknownFacility() {
+	assertThrows(IllegalArgumentException.class, () -> facilityRouter.getTicketDAO(3));
+    }
+}
@@ -4,6 +4,7 @@ import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import com.parkit.parkingsystem.model.Ticket;
 import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.FareTable;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -220,4 +221,32 @@ public class FareCalculatorServiceTest {
 
 	assertEquals(0.52, ticket.getPrice());
 }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Table des prix, le prix lu est identique au prix calculé, y compris après l'horizon")
+    public void calculateFareWithFareTable() throws Exception {
+	// GIVEN
+	FareCalculatorService fareTableCalculatorService = new FareCalculatorService();
+	fareTableCalculatorService.setFareTable(new FareTable(24 * 60));
+	long inMillis = Timestamp.valueOf("2020-01-01 00:00:00").getTime();
+	Ticket tableTicket = new Ticket();
+	tableTicket.setInTimestamp(new Timestamp(inMillis));
+	ticket.setInTimestamp(new Timestamp(inMillis));
+
+	for (ParkingType parkingType : ParkingType.values()) {
+	    tableTicket.setParkingSpot(new ParkingSpot(1, parkingType, false));
+	    ticket.setParkingSpot(new ParkingSpot(1, parkingType, false));
+	    for (int minutes = 31; minutes <= 24 * 60 + 10; minutes++) {
+		tableTicket.setOutTimestamp(new Timestamp(inMillis + minutes * 60000L));
+		ticket.setOutTimestamp(new Timestamp(inMillis + minutes * 60000L));
+
+		// WHEN
+		fareTableCalculatorService.calculateFare(tableTicket);
+		fareCalculatorService.calculateFare(ticket);
+
+		// THEN
+		assertEquals(ticket.getPrice(), tableTicket.getPrice(), parkingType + " " + minutes + " min");
+	    }
+	}
+    }
+}
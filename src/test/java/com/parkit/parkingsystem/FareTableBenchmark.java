@@ -0,0 +1,72 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.FareTable;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+
+import java.sql.Timestamp;
+import java.util.Random;
+
+/**
+ * Mesure du calcul du tarif avec et sans FareTable, lancée à la main :
+ * 
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-classpath %classpath com.parkit.parkingsystem.FareTableBenchmark"
+ * 
+ * Les durées sont tirées entre 31 minutes et 3 jours, l'horizon de la table
+ * étant de 7 jours.
+ */
+public class FareTableBenchmark {
+
+    private static final int TICKETS = 1 << 16;
+    private static final int ROUNDS = Integer.getInteger("rounds", 20);
+    private static final int HORIZON_MINUTES = 7 * 24 * 60;
+
+    public static void main(String[] args) {
+	Ticket[] tickets = createTickets();
+	FareCalculatorService computed = new FareCalculatorService(new NoOpNotificationSink());
+	FareCalculatorService tabulated = new FareCalculatorService(new NoOpNotificationSink());
+	long start = System.nanoTime();
+	tabulated.setFareTable(new FareTable(HORIZON_MINUTES));
+	System.out.printf("table of %d minutes built in %.1f ms%n", HORIZON_MINUTES,
+		(System.nanoTime() - start) / 1e6);
+	for (int round = 1; round <= ROUNDS; round++) {
+	    double computedNanos = run(computed, tickets);
+	    double tabulatedNanos = run(tabulated, tickets);
+	    if (round == ROUNDS) {
+		System.out.printf("computed: %.1f ns/ticket, table: %.1f ns/ticket%n", computedNanos, tabulatedNanos);
+	    }
+	}
+    }
+
+    private static Ticket[] createTickets() {
+	Random random = new Random(42);
+	long inMillis = Timestamp.valueOf("2020-01-01 00:00:00").getTime();
+	Ticket[] tickets = new Ticket[TICKETS];
+	for (int i = 0; i < TICKETS; i++) {
+	    tickets[i] = new Ticket();
+	    tickets[i].setParkingSpot(new ParkingSpot(1, ParkingType.values()[i % ParkingType.values().length], false));
+	    tickets[i].setInTimestamp(new Timestamp(inMillis));
+	    tickets[i].setOutTimestamp(new Timestamp(inMillis + (31 + random.nextInt(3 * 24 * 60)) * 60000L));
+	}
+	return tickets;
+    }
+
+    private static double run(FareCalculatorService fareCalculatorService, Ticket[] tickets) {
+	long start = System.nanoTime();
+	double total = 0;
+	for (int i = 0; i < 50; i++) {
+	    for (Ticket ticket : tickets) {
+		fareCalculatorService.calculateFare(ticket);
+		total += ticket.getPrice();
+	    }
+	}
+	if (total < 0) {
+	    throw new IllegalStateException();
+	}
+	return (System.nanoTime() - start) / (50.0 * tickets.length);
+    }
+}
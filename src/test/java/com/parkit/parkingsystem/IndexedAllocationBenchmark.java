@@ -0,0 +1,66 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.service.IndexedAllocationStrategy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mesure le choix d'une place par l'IndexedAllocationStrategy selon le nombre
+ * de types de place définis, lancé à la main :
+ * 
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-classpath %classpath com.parkit.parkingsystem.IndexedAllocationBenchmark"
+ * 
+ * Chaque type a -DspotsPerType places (100 par défaut) dont la première moitié
+ * est occupée. Le type demandé est complet une fois sur deux et se replie alors
+ * sur le type suivant.
+ */
+public class IndexedAllocationBenchmark {
+
+    private static final int SPOTS_PER_TYPE = Integer.getInteger("spotsPerType", 100);
+    private static final int ALLOCATIONS = 20_000_000;
+
+    public static void main(String[] args) {
+	for (int typeCount : new int[] { 2, 8, 32, 128 }) {
+	    run(typeCount);
+	}
+    }
+
+    private static void run(int typeCount) {
+	List<ParkingType> parkingTypes = new ArrayList<>();
+	for (int i = 0; i < typeCount; i++) {
+	    parkingTypes.add(ParkingType.define("BENCH" + i, 1.0));
+	}
+	List<ParkingSpot> availableSpots = new ArrayList<>();
+	for (int i = 0; i < typeCount; i++) {
+	    ParkingType parkingType = parkingTypes.get(i);
+	    parkingType.setFallbacks(Collections.singletonList(parkingTypes.get((i + 1) % typeCount)));
+	    // Un type sur deux est complet.
+	    if (i % 2 == 1) {
+		for (int spot = SPOTS_PER_TYPE / 2; spot < SPOTS_PER_TYPE; spot++) {
+		    availableSpots.add(new ParkingSpot(i * SPOTS_PER_TYPE + spot + 1, parkingType, true));
+		}
+	    }
+	}
+	IndexedAllocationStrategy indexedAllocationStrategy = new IndexedAllocationStrategy();
+	indexedAllocationStrategy.seed(availableSpots);
+	long checksum = 0;
+	for (int round = 0; round < 3; round++) {
+	    long start = System.nanoTime();
+	    for (int i = 0; i < ALLOCATIONS; i++) {
+		checksum += indexedAllocationStrategy.getNextAvailableSlot(parkingTypes.get(i % typeCount));
+	    }
+	    long elapsed = System.nanoTime() - start;
+	    if (round == 2) {
+		System.out.printf("%3d types: %.1f ns per allocation%n", typeCount, (double) elapsed / ALLOCATIONS);
+	    }
+	}
+	if (checksum == 0) {
+	    throw new IllegalStateException("No spot allocated");
+	}
+    }
+}
@@ -0,0 +1,84 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.jfr.PlateHash;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.NotificationSink;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class JfrEventsTest {
+
+    @Mock
+    private ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private TicketDAO ticketDAO;
+    @Mock
+    private NotificationSink notificationSink;
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Enregistrement avec le profil parkit.jfc, la sortie, le calcul du prix et la plaque masquée")
+    public void testExitIsRecordedWithParkitProfile() throws Exception {
+	// GIVEN
+	Ticket ticket = new Ticket();
+	ticket.setVehicleRegNumber("AB-123-CD");
+	ticket.setParkingSpot(new ParkingSpot(3, ParkingType.CAR, false));
+	ticket.setInTimestamp(new Timestamp(System.currentTimeMillis() - 2 * 3600000));
+	when(ticketDAO.getTicket("AB-123-CD")).thenReturn(ticket);
+	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+	ParkingService parkingService = new ParkingService(null, parkingSpotDAO, ticketDAO, notificationSink);
+	Path file = tempDir.resolve("parkit.jfr");
+
+	// WHEN
+	try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/jfr/parkit.jfc"),
+		StandardCharsets.UTF_8); Recording recording = new Recording(Configuration.create(reader))) {
+	    recording.start();
+	    parkingService.processExitingVehicle("AB-123-CD");
+	    recording.stop();
+	    recording.dump(file);
+	}
+
+	// THEN
+	List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+	assertThat(events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toList()))
+		.containsExactly("com.parkit.parkingsystem.FareCalculation", "com.parkit.parkingsystem.ParkingRequest");
+	RecordedEvent fareCalculation = events.get(0);
+	assertThat(fareCalculation.getString("plateHash")).isEqualTo(PlateHash.of("AB-123-CD"))
+		.hasSize(16).doesNotContain("AB");
+	assertThat(fareCalculation.getInt("spotNumber")).isEqualTo(3);
+	assertThat(fareCalculation.getDouble("price")).isEqualTo(ticket.getPrice()).isPositive();
+	RecordedEvent parkingRequest = events.get(1);
+	assertThat(parkingRequest.getString("request")).isEqualTo("exit");
+	assertThat(parkingRequest.getString("parkingType")).isEqualTo("CAR");
+	assertThat(parkingRequest.getBoolean("succeeded")).isTrue();
+    }
+}
@@ -0,0 +1,87 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.dao.MigrationRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MigrationRunnerTest {
+
+    @Mock
+    private DataBaseConfig dataBaseConfig;
+    @Mock
+    private Connection connection;
+    @Mock
+    private Statement statement;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    @BeforeEach
+    public void setUpPerTest() throws Exception {
+	when(dataBaseConfig.getConnection()).thenReturn(connection);
+	when(connection.createStatement()).thenReturn(statement);
+	when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+	when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @Test
+    @DisplayName("Base vide, chaque script est exécuté puis enregistré dans schema_version")
+    public void testMigrateEmptyDataBase() throws Exception {
+	// GIVEN
+	when(resultSet.next()).thenReturn(false);
+
+	// WHEN
+	int applied = new MigrationRunner(dataBaseConfig).migrate();
+
+	// THEN
+	assertThat(applied).isEqualTo(4);
+	verify(statement).execute(DBConstants.CREATE_SCHEMA_VERSION);
+	verify(statement, times(7)).execute(startsWith("create table if not exists"));
+	verify(statement).execute(startsWith("create index IDX_TICKET_VEHICLE_IN_TIME"));
+	verify(preparedStatement).setInt(1, 1);
+	verify(preparedStatement).setInt(1, 2);
+	verify(preparedStatement).setInt(1, 3);
+	verify(preparedStatement).setInt(1, 4);
+	verify(preparedStatement, times(4)).execute();
+	verify(dataBaseConfig).closeConnection(connection);
+    }
+
+    @Test
+    @DisplayName("Script modifié après son exécution, la migration est refusée")
+    public void testMigrateModifiedScript() throws Exception {
+	// GIVEN
+	when(resultSet.next()).thenReturn(true, false);
+	when(resultSet.getInt(1)).thenReturn(1);
+	when(resultSet.getLong(2)).thenReturn(42L);
+
+	// WHEN / THEN
+	assertThatThrownBy(() -> new MigrationRunner(dataBaseConfig).migrate())
+		.isInstanceOf(IllegalStateException.class).hasMessageContaining("V1__initial_schema.sql");
+	verify(statement, never()).execute(startsWith("create table if not exists parking"));
+	verify(connection, never()).prepareStatement(eq(DBConstants.SAVE_SCHEMA_VERSION));
+	verify(dataBaseConfig).closeConnection(connection);
+    }
+}
@@ -0,0 +1,70 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.service.OccupancyCounters;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OccupancyCountersTest {
+
+    @Test
+    @DisplayName("Les compteurs sont initiés depuis la base puis suivent les changements de disponibilité")
+    public void testCountersFollowSpotUpdates() {
+	// GIVEN
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	parkingOccupancy.setAvailableSpots(ParkingType.CAR, 3);
+	parkingOccupancy.setAvailableSpots(ParkingType.BIKE, 2);
+	OccupancyCounters occupancyCounters = new OccupancyCounters();
+	occupancyCounters.seed(parkingOccupancy);
+
+	// WHEN
+	occupancyCounters.onParkingSpotUpdated(new ParkingSpot(1, ParkingType.CAR, false));
+	occupancyCounters.onParkingSpotUpdated(new ParkingSpot(2, ParkingType.CAR, false));
+	occupancyCounters.onParkingSpotUpdated(new ParkingSpot(1, ParkingType.CAR, true));
+
+	// THEN
+	assertThat(occupancyCounters.getAvailableSpots(ParkingType.CAR)).isEqualTo(2);
+	assertThat(occupancyCounters.getOccupiedSpots(ParkingType.CAR)).isEqualTo(1);
+	assertThat(occupancyCounters.getParkingOccupancy().getCapacity(ParkingType.BIKE)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Les mises à jour concurrentes ne perdent aucun changement")
+    public void testConcurrentUpdatesAreNotLost() throws Exception {
+	// GIVEN
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	parkingOccupancy.setAvailableSpots(ParkingType.CAR, 100000);
+	OccupancyCounters occupancyCounters = new OccupancyCounters();
+	occupancyCounters.seed(parkingOccupancy);
+	ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+	// WHEN
+	List<Future<?>> futures = new ArrayList<>();
+	for (int i = 0; i < 8; i++) {
+	    futures.add(executorService.submit(() -> {
+		for (int j = 0; j < 10000; j++) {
+		    occupancyCounters.onParkingSpotUpdated(new ParkingSpot(j, ParkingType.CAR, false));
+		    occupancyCounters.getAvailableSpots(ParkingType.CAR);
+		}
+	    }));
+	}
+	for (Future<?> future : futures) {
+	    future.get();
+	}
+	executorService.shutdown();
+
+	// THEN
+	assertThat(occupancyCounters.getAvailableSpots(ParkingType.CAR)).isEqualTo(20000);
+	assertThat(occupancyCounters.getOccupiedSpots(ParkingType.CAR)).isEqualTo(80000);
+    }
+}
@@ -0,0 +1,121 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.OccupancyTimeSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class OccupancyTimeSeriesTest {
+
+    private ManualClock clock;
+    private OccupancyTimeSeries occupancyTimeSeries;
+
+    @BeforeEach
+    private void setUpPerTest() {
+	clock = new ManualClock();
+	occupancyTimeSeries = new OccupancyTimeSeries(180, 60, clock);
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	parkingOccupancy.setAvailableSpots(ParkingType.CAR, 100);
+	parkingOccupancy.setOccupiedSpots(ParkingType.CAR, 0);
+	occupancyTimeSeries.seed(parkingOccupancy);
+    }
+
+    private Ticket carTicket() {
+	Ticket ticket = new Ticket();
+	ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+	return ticket;
+    }
+
+    @Test
+    @DisplayName("L'occupation et les entrées sont suivies minute par minute")
+    public void testOccupancyPerMinute() {
+	// GIVEN
+	for (int minute = 0; minute < 10; minute++) {
+	    occupancyTimeSeries.onVehicleEntered(carTicket());
+	    occupancyTimeSeries.onVehicleEntered(carTicket());
+	    occupancyTimeSeries.onVehicleExited(carTicket());
+	    clock.advanceMinutes(1);
+	}
+
+	// WHEN THEN
+	assertThat(occupancyTimeSeries.getOccupancy(ParkingType.CAR)).isEqualTo(10);
+	assertThat(occupancyTimeSeries.getOccupancyMinutesAgo(ParkingType.CAR, 1)).isEqualTo(10);
+	assertThat(occupancyTimeSeries.getOccupancyMinutesAgo(ParkingType.CAR, 10)).isEqualTo(1);
+	assertThat(occupancyTimeSeries.getEntriesPerHour(ParkingType.CAR)).isEqualTo(120.0);
+	assertThat(occupancyTimeSeries.getExitsPerHour(ParkingType.CAR)).isEqualTo(60.0);
+	assertThat(occupancyTimeSeries.getAverageOccupancy(ParkingType.CAR)).isEqualTo(5.5);
+	assertThat(occupancyTimeSeries.getHistory(ParkingType.CAR)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+	assertThat(occupancyTimeSeries.getOccupancy(ParkingType.BIKE)).isZero();
+    }
+
+    @Test
+    @DisplayName("La fenêtre glissante ne compte que les dernières minutes")
+    public void testSlidingWindow() {
+	// GIVEN
+	for (int minute = 0; minute < 30; minute++) {
+	    occupancyTimeSeries.onVehicleEntered(carTicket());
+	    clock.advanceMinutes(1);
+	}
+
+	// WHEN
+	clock.advanceMinutes(60);
+
+	// THEN
+	assertThat(occupancyTimeSeries.getEntriesPerHour(ParkingType.CAR)).isZero();
+	assertThat(occupancyTimeSeries.getAverageOccupancy(ParkingType.CAR)).isEqualTo(30.0);
+	assertThat(occupancyTimeSeries.getOccupancyMinutesAgo(ParkingType.CAR, 61)).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("La prévision suit la tendance et reste bornée par la capacité")
+    public void testForecastFollowsTrend() {
+	// GIVEN
+	for (int minute = 0; minute < 60; minute++) {
+	    occupancyTimeSeries.onVehicleEntered(carTicket());
+	    clock.advanceMinutes(1);
+	}
+
+	// WHEN
+	double inOneHour = occupancyTimeSeries.getForecast(ParkingType.CAR, 30);
+	double inThreeHours = occupancyTimeSeries.getForecast(ParkingType.CAR, 180);
+
+	// THEN
+	assertThat(inOneHour).isCloseTo(90.0, within(5.0));
+	assertThat(inThreeHours).isEqualTo(100.0);
+    }
+
+    private static final class ManualClock extends Clock {
+	private long millis = 1_600_000_000_000L;
+
+	private void advanceMinutes(int minutes) {
+	    millis += minutes * 60000L;
+	}
+
+	@Override
+	public ZoneId getZone() {
+	    return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+	    return this;
+	}
+
+	@Override
+	public Instant instant() {
+	    return Instant.ofEpochMilli(millis);
+	}
+    }
+}
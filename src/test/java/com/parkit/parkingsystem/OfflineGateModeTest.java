@@ -0,0 +1,193 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.constants.PendingOperationType;
+import com.parkit.parkingsystem.dao.OfflineBuffer;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.PendingOperationJournal;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.PendingOperation;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.util.CircuitBreaker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OfflineGateModeTest {
+
+    @Mock
+    private ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private TicketDAO ticketDAO;
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Base indisponible, l'entrée est mise en attente puis rejouée dans l'ordre")
+    public void testEntryIsBufferedThenDrainedInOrder() throws Exception {
+	// GIVEN
+	Path file = tempDir.resolve("facility-1.journal");
+	when(parkingSpotDAO.getAvailableSlots()).thenReturn(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true),
+		new ParkingSpot(2, ParkingType.CAR, true)));
+	OfflineBuffer offlineBuffer = new OfflineBuffer(parkingSpotDAO, ticketDAO, new PendingOperationJournal(file),
+		new CircuitBreaker(1, 60000));
+	offlineBuffer.recover();
+	when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenThrow(new SQLException("Timeout"));
+
+	// WHEN
+	int parkingNumber = offlineBuffer.getNextAvailableSlot(ParkingType.CAR);
+	ParkingSpot parkingSpot = new ParkingSpot(parkingNumber, ParkingType.CAR, false);
+	offlineBuffer.updateParking(parkingSpot);
+	Ticket ticket = new Ticket();
+	ticket.setParkingSpot(parkingSpot);
+	ticket.setVehicleRegNumber("ABCDEF");
+	ticket.setInTimestamp(new Timestamp(System.currentTimeMillis()));
+	offlineBuffer.saveTicket(ticket);
+
+	// THEN
+	assertThat(parkingNumber).isEqualTo(1);
+	assertThat(offlineBuffer.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(2);
+	assertThat(offlineBuffer.getTicket("ABCDEF")).isSameAs(ticket);
+	verify(parkingSpotDAO, never()).updateAvailability(any(ParkingSpot.class), anyBoolean());
+	verify(ticketDAO, never()).saveTicket(any(Ticket.class));
+
+	// GIVEN la borne redémarre et la base est de nouveau disponible
+	when(parkingSpotDAO.updateAvailability(any(ParkingSpot.class), eq(false))).thenReturn(true);
+	when(ticketDAO.getTicket("ABCDEF")).thenReturn(new Ticket());
+	OfflineBuffer restarted = new OfflineBuffer(parkingSpotDAO, ticketDAO, new PendingOperationJournal(file),
+		new CircuitBreaker(1, 60000));
+	restarted.recover();
+	assertThat(restarted.getPendingCount()).isEqualTo(2);
+
+	// WHEN
+	restarted.drain();
+
+	// THEN
+	InOrder inOrder = inOrder(parkingSpotDAO, ticketDAO);
+	inOrder.verify(parkingSpotDAO).updateAvailability(any(ParkingSpot.class), eq(false));
+	inOrder.verify(ticketDAO).saveTicket(any(Ticket.class));
+	assertThat(restarted.getPendingCount()).isZero();
+	assertThat(new String(Files.readAllBytes(file))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Une sortie déjà enregistrée en base est conservée dans le fichier de conflits")
+    public void testConflictingExitIsRecorded() throws Exception {
+	// GIVEN
+	Path file = tempDir.resolve("facility-1.journal");
+	PendingOperationJournal journal = new PendingOperationJournal(file);
+	journal.append(new PendingOperation(PendingOperationType.UPDATE_TICKET, 1, ParkingType.CAR, false, "ABCDEF",
+		1.5, System.currentTimeMillis() - 3600000, System.currentTimeMillis()));
+	Ticket closedTicket = new Ticket();
+	closedTicket.setId(1);
+	closedTicket.setOutTimestamp(new Timestamp(System.currentTimeMillis()));
+	when(ticketDAO.getTicket("ABCDEF")).thenReturn(closedTicket);
+	OfflineBuffer offlineBuffer = new OfflineBuffer(parkingSpotDAO, ticketDAO, new PendingOperationJournal(file),
+		new CircuitBreaker(1, 60000));
+	offlineBuffer.recover();
+
+	// WHEN
+	offlineBuffer.drain();
+
+	// THEN
+	verify(ticketDAO, never()).updateTicket(any(Ticket.class));
+	assertThat(offlineBuffer.getPendingCount()).isZero();
+	assertThat(new String(Files.readAllBytes(tempDir.resolve("facility-1.journal.conflicts"))))
+		.contains("No open ticket for vehicle").contains("ABCDEF");
+    }
+
+    @Test
+    @DisplayName("Base indisponible, deux entrées sur la même place libre, seule la première l'occupe")
+    public void testOfflineSpotIsTakenOnce() throws Exception {
+	// GIVEN
+	when(parkingSpotDAO.getAvailableSlots()).thenReturn(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true),
+		new ParkingSpot(2, ParkingType.CAR, true)));
+	OfflineBuffer offlineBuffer = new OfflineBuffer(parkingSpotDAO, ticketDAO,
+		new PendingOperationJournal(tempDir.resolve("facility-1.journal")), new CircuitBreaker(1, 60000));
+	offlineBuffer.recover();
+	when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenThrow(new SQLException("Timeout"));
+	int first = offlineBuffer.getNextAvailableSlot(ParkingType.CAR);
+	int second = offlineBuffer.getNextAvailableSlot(ParkingType.CAR);
+
+	// WHEN
+	boolean firstTaken = offlineBuffer.updateParking(new ParkingSpot(first, ParkingType.CAR, false));
+	boolean secondTaken = offlineBuffer.updateParking(new ParkingSpot(second, ParkingType.CAR, false));
+
+	// THEN
+	assertThat(second).isEqualTo(first);
+	assertThat(firstTaken).isTrue();
+	assertThat(secondTaken).isFalse();
+	assertThat(offlineBuffer.getPendingCount()).isEqualTo(1);
+	assertThat(offlineBuffer.getNextAvailableSlot(ParkingType.CAR)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Disjoncteur ouvert, la place louée est occupée sans requête puis rejouée")
+    public void testLeasedSpotClaimIsBufferedWhileBreakerIsOpen() throws Exception {
+	// GIVEN
+	when(parkingSpotDAO.getAvailableSlots()).thenReturn(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true),
+		new ParkingSpot(2, ParkingType.CAR, true)));
+	OfflineBuffer offlineBuffer = new OfflineBuffer(parkingSpotDAO, ticketDAO,
+		new PendingOperationJournal(tempDir.resolve("facility-1.journal")), new CircuitBreaker(1, 60000));
+	offlineBuffer.recover();
+	when(parkingSpotDAO.claimLeasedSpot(any(ParkingSpot.class), eq("gate-1")))
+		.thenThrow(new SQLException("Timeout"));
+
+	// WHEN
+	boolean first = offlineBuffer.claimLeasedSpot(new ParkingSpot(1, ParkingType.CAR, true), "gate-1");
+	boolean second = offlineBuffer.claimLeasedSpot(new ParkingSpot(2, ParkingType.CAR, true), "gate-1");
+	boolean again = offlineBuffer.claimLeasedSpot(new ParkingSpot(2, ParkingType.CAR, true), "gate-1");
+
+	// THEN
+	assertThat(first).isTrue();
+	assertThat(second).isTrue();
+	assertThat(again).isFalse();
+	verify(parkingSpotDAO, times(1)).claimLeasedSpot(any(ParkingSpot.class), eq("gate-1"));
+	assertThat(offlineBuffer.getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Écritures rejouées marquées en fin de journal, le fichier est réécrit une seule fois")
+    public void testReplayedOperationsAreMarkedThenCompacted() throws Exception {
+	// GIVEN
+	Path file = tempDir.resolve("facility-1.journal");
+	PendingOperationJournal journal = new PendingOperationJournal(file);
+	for (int parkingNumber = 1; parkingNumber <= 3; parkingNumber++) {
+	    journal.append(PendingOperation.updateParking(new ParkingSpot(parkingNumber, ParkingType.CAR, false)));
+	}
+
+	// WHEN
+	journal.removeFirst();
+	journal.removeFirst();
+	PendingOperationJournal reloaded = new PendingOperationJournal(file);
+	reloaded.load();
+	reloaded.compact();
+
+	// THEN
+	assertThat(reloaded.size()).isEqualTo(1);
+	assertThat(reloaded.peek().getParkingNumber()).isEqualTo(3);
+	assertThat(Files.readAllLines(file)).hasSize(1).noneMatch(line -> line.startsWith("REPLAYED"));
+    }
+}
@@ -0,0 +1,196 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.OccupancyCounters;
+import com.parkit.parkingsystem.service.ParkingHttpServer;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test de charge local de l'API HTTP, lancé à la main :
+ * 
+ * mvn test-compile exec:java -Dexec.mainClass=com.parkit.parkingsystem.ParkingHttpServerBenchmark
+ * -Dexec.classpathScope=test
+ * 
+ * Les DAO sont remplacés par des DAO en mémoire afin de mesurer le serveur et
+ * le ParkingService seuls. Chaque client enchaîne une entrée, huit lectures de
+ * la disponibilité, une lecture du ticket et une sortie.
+ */
+public class ParkingHttpServerBenchmark {
+
+    private static final int SPOTS = 10000;
+    private static final int CLIENTS = Integer.getInteger("clients", 32);
+    private static final int SERVER_THREADS = Integer.getInteger("threads", 16);
+    private static final long WARMUP_MILLIS = 5000;
+    private static final long MEASURE_MILLIS = Long.getLong("millis", 20000);
+
+    public static void main(String[] args) throws Exception {
+	InMemoryParkingSpotDAO parkingSpotDAO = new InMemoryParkingSpotDAO();
+	OccupancyCounters occupancyCounters = new OccupancyCounters();
+	occupancyCounters.seed(parkingSpotDAO.getParkingOccupancy());
+	ParkingService parkingService = new ParkingService(null, parkingSpotDAO, new InMemoryTicketDAO(),
+		new NoOpNotificationSink());
+	ParkingHttpServer parkingHttpServer = new ParkingHttpServer(parkingService, occupancyCounters,
+		new InetSocketAddress("127.0.0.1", 0), SERVER_THREADS);
+	parkingHttpServer.start();
+	String baseUrl = "http://127.0.0.1:" + parkingHttpServer.getPort();
+
+	long start;
+	List<long[]> latencies;
+	double seconds;
+	try {
+	    run(baseUrl, WARMUP_MILLIS);
+	    start = System.nanoTime();
+	    latencies = run(baseUrl, MEASURE_MILLIS);
+	    seconds = (System.nanoTime() - start) / 1e9;
+	} finally {
+	    parkingHttpServer.close();
+	}
+
+	int count = 0;
+	for (long[] clientLatencies : latencies) {
+	    count += (int) clientLatencies[0];
+	}
+	long[] all = new long[count];
+	int position = 0;
+	for (long[] clientLatencies : latencies) {
+	    System.arraycopy(clientLatencies, 1, all, position, (int) clientLatencies[0]);
+	    position += (int) clientLatencies[0];
+	}
+	Arrays.sort(all);
+	System.out.printf("%d clients, %d server threads: %.0f requests/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+		CLIENTS, SERVER_THREADS, count / seconds, percentile(all, 0.50), percentile(all, 0.99),
+		all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+	return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+    private static List<long[]> run(String baseUrl, long millis) throws Exception {
+	ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+	long end = System.currentTimeMillis() + millis;
+	List<Future<long[]>> futures = new ArrayList<>();
+	for (int i = 0; i < CLIENTS; i++) {
+	    String plate = "BENCH-" + i;
+	    futures.add(clients.submit(() -> {
+		long[] latencies = new long[1 << 18];
+		int count = 0;
+		while (System.currentTimeMillis() < end && count < latencies.length - 12) {
+		    latencies[++count] = call(baseUrl + "/entries?type=CAR&plate=" + plate, "POST");
+		    for (int j = 0; j < 8; j++) {
+			latencies[++count] = call(baseUrl + "/availability", "GET");
+		    }
+		    latencies[++count] = call(baseUrl + "/tickets/" + plate, "GET");
+		    latencies[++count] = call(baseUrl + "/exits?plate=" + plate, "POST");
+		}
+		latencies[0] = count;
+		return latencies;
+	    }));
+	}
+	List<long[]> latencies = new ArrayList<>();
+	try {
+	    for (Future<long[]> future : futures) {
+		latencies.add(future.get());
+	    }
+	} finally {
+	    clients.shutdownNow();
+	}
+	return latencies;
+    }
+
+    private static long call(String url, String method) throws IOException {
+	long start = System.nanoTime();
+	HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+	connection.setRequestMethod(method);
+	int status = connection.getResponseCode();
+	try (InputStream inputStream = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+	    while (inputStream.read() != -1) {
+		// La réponse est lue entièrement afin de réutiliser la connexion.
+	    }
+	}
+	if (status >= 400) {
+	    throw new IOException("Unexpected status " + status + " for " + url);
+	}
+	return System.nanoTime() - start;
+    }
+
+    private static class InMemoryParkingSpotDAO extends ParkingSpotDAO {
+	private final ConcurrentSkipListSet<Integer> freeSpots = new ConcurrentSkipListSet<>();
+
+	InMemoryParkingSpotDAO() {
+	    for (int i = 1; i <= SPOTS; i++) {
+		freeSpots.add(i);
+	    }
+	}
+
+	@Override
+	public int getNextAvailableSlot(ParkingType parkingType) {
+	    Integer parkingNumber = freeSpots.pollFirst();
+	    return parkingNumber == null ? 0 : parkingNumber;
+	}
+
+	@Override
+	public boolean updateParking(ParkingSpot parkingSpot, boolean available) {
+	    if (available) {
+		freeSpots.add(parkingSpot.getId());
+	    }
+	    return true;
+	}
+
+	@Override
+	public ParkingOccupancy getParkingOccupancy() {
+	    ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	    parkingOccupancy.setAvailableSpots(ParkingType.CAR, SPOTS);
+	    return parkingOccupancy;
+	}
+    }
+
+    private static class InMemoryTicketDAO extends TicketDAO {
+	private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+	@Override
+	public Ticket saveTicket(Ticket ticket) {
+	    // L'entrée est avancée d'une heure, une sortie dans la même minute est refusée.
+	    ticket.setInTimestamp(new Timestamp(ticket.getInTimestamp().getTime() - 3600000));
+	    tickets.put(ticket.getVehicleRegNumber(), ticket);
+	    return ticket;
+	}
+
+	@Override
+	public Ticket getTicket(String vehicleRegNumber) {
+	    return tickets.get(vehicleRegNumber);
+	}
+
+	@Override
+	public boolean updateTicket(Ticket ticket) {
+	    return true;
+	}
+
+	@Override
+	public boolean getTicketUserPresentInDB(String vehicleRegNumber) {
+	    return false;
+	}
+    }
+}
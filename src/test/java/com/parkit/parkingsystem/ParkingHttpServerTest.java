@@ -0,0 +1,156 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingOccupancy;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.OccupancyCounters;
+import com.parkit.parkingsystem.service.ParkingHttpServer;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ParkingHttpServerTest {
+
+    @Mock
+    private ParkingService parkingService;
+    private OccupancyCounters occupancyCounters;
+    private ParkingHttpServer parkingHttpServer;
+
+    @BeforeEach
+    public void setUpPerTest() throws IOException {
+	occupancyCounters = new OccupancyCounters();
+	parkingHttpServer = new ParkingHttpServer(parkingService, occupancyCounters,
+		new InetSocketAddress("127.0.0.1", 0), 2);
+	parkingHttpServer.start();
+    }
+
+    @AfterEach
+    public void tearDownPerTest() {
+	parkingHttpServer.close();
+    }
+
+    @Test
+    @DisplayName("La disponibilité est lue dans les compteurs et renvoyée en JSON")
+    public void testAvailability() throws IOException {
+	// GIVEN
+	ParkingOccupancy parkingOccupancy = new ParkingOccupancy();
+	parkingOccupancy.setAvailableSpots(ParkingType.CAR, 2);
+	parkingOccupancy.setOccupiedSpots(ParkingType.CAR, 1);
+	parkingOccupancy.setAvailableSpots(ParkingType.BIKE, 2);
+	occupancyCounters.seed(parkingOccupancy);
+
+	// WHEN
+	HttpURLConnection connection = open("GET", "/availability");
+
+	// THEN
+	assertThat(connection.getResponseCode()).isEqualTo(200);
+	assertThat(read(connection.getInputStream()))
+		.isEqualTo("{\"CAR\":{\"available\":2,\"occupied\":1},\"BIKE\":{\"available\":2,\"occupied\":0}}");
+    }
+
+    @Test
+    @DisplayName("L'entrée d'un véhicule renvoie son ticket")
+    public void testEntry() throws Exception {
+	// GIVEN
+	Ticket ticket = new Ticket();
+	ticket.setId(7);
+	ticket.setFacilityId(1);
+	ticket.setVehicleRegNumber("AB \"1\"");
+	ticket.setParkingSpot(new ParkingSpot(3, ParkingType.CAR, false));
+	ticket.setInTimestamp(new Timestamp(1000));
+	when(parkingService.processIncomingVehicle("r-1", ParkingType.CAR, "AB \"1\"")).thenReturn(ticket);
+
+	// WHEN
+	HttpURLConnection connection = open("POST", "/entries?type=car&plate=AB+%221%22&requestId=r-1");
+
+	// THEN
+	assertThat(connection.getResponseCode()).isEqualTo(201);
+	assertThat(read(connection.getInputStream())).isEqualTo("{\"id\":7,\"facilityId\":1,"
+		+ "\"vehicleRegNumber\":\"AB \\\"1\\\"\",\"parkingNumber\":3,\"parkingType\":\"CAR\","
+		+ "\"inTime\":1000,\"outTime\":null,\"price\":0.0}");
+    }
+
+    @Test
+    @DisplayName("Une entrée refusée ou un ticket inconnu renvoient une erreur JSON")
+    public void testErrors() throws Exception {
+	// GIVEN
+	when(parkingService.processIncomingVehicle(null, ParkingType.BIKE, "ABC"))
+		.thenThrow(new IllegalStateException("Parking slots might be full"));
+	when(parkingService.getTicket("XYZ")).thenReturn(null);
+
+	// WHEN
+	HttpURLConnection full = open("POST", "/entries?type=BIKE&plate=ABC");
+	HttpURLConnection unknown = open("GET", "/tickets/XYZ");
+	HttpURLConnection invalid = open("POST", "/entries?type=TRUCK&plate=ABC");
+
+	// THEN
+	assertThat(full.getResponseCode()).isEqualTo(409);
+	assertThat(read(full.getErrorStream())).isEqualTo("{\"error\":\"Parking slots might be full\"}");
+	assertThat(unknown.getResponseCode()).isEqualTo(404);
+	assertThat(invalid.getResponseCode()).isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("Véhicule inconnu, le DAO renvoie un ticket vide : 404 pour le ticket, 400 pour la sortie")
+    public void testUnknownVehicleWithEmptyTicketFromDao() throws Exception {
+	// GIVEN
+	TicketDAO ticketDAO = mock(TicketDAO.class);
+	when(ticketDAO.getTicket("XYZ")).thenReturn(new Ticket());
+	parkingHttpServer.close();
+	parkingHttpServer = new ParkingHttpServer(new ParkingService(new InputReaderUtil(), mock(ParkingSpotDAO.class),
+		ticketDAO, new NoOpNotificationSink()), occupancyCounters, new InetSocketAddress("127.0.0.1", 0), 2);
+	parkingHttpServer.start();
+
+	// WHEN
+	HttpURLConnection unknown = open("GET", "/tickets/XYZ");
+	HttpURLConnection exit = open("POST", "/exits?plate=XYZ");
+
+	// THEN
+	assertThat(unknown.getResponseCode()).isEqualTo(404);
+	assertThat(read(unknown.getErrorStream())).isEqualTo("{\"error\":\"No ticket found for vehicle XYZ\"}");
+	assertThat(exit.getResponseCode()).isEqualTo(400);
+	assertThat(read(exit.getErrorStream())).isEqualTo("{\"error\":\"No ticket found for vehicle XYZ\"}");
+    }
+
+    private HttpURLConnection open(String method, String path) throws IOException {
+	HttpURLConnection connection = (HttpURLConnection) new URL(
+		"http://127.0.0.1:" + parkingHttpServer.getPort() + path).openConnection();
+	connection.setRequestMethod(method);
+	return connection;
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+	ByteArrayOutputStream body = new ByteArrayOutputStream();
+	byte[] buffer = new byte[1024];
+	int read;
+	while ((read = inputStream.read(buffer)) != -1) {
+	    body.write(buffer, 0, read);
+	}
+	inputStream.close();
+	return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -1,22 +1,37 @@
 package com.parkit.parkingsystem;
 
+import com.parkit.parkingsystem.config.UnitOfWork;
+import com.parkit.parkingsystem.constants.NotificationType;
 import com.parkit.parkingsystem.constants.ParkingType;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.Notification;
 import com.parkit.parkingsystem.model.ParkingSpot;
 import com.parkit.parkingsystem.model.Ticket;
 import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.service.ReservationService;
+import com.parkit.parkingsystem.service.SpotAllocationStrategy;
+import com.parkit.parkingsystem.util.DedupeCache;
 import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.NotificationSink;
+import com.parkit.parkingsystem.util.SimulatedClock;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.Callable;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +46,12 @@ public class ParkingServiceTest {
     private static ParkingSpotDAO parkingSpotDAO;
     @Mock
     private static TicketDAO ticketDAO;
+    @Mock
+    private NotificationSink notificationSink;
+    @Mock
+    private ReservationService reservationService;
+    @Mock
+    private SpotAllocationStrategy spotAllocationStrategy;
 
     private static ParkingService parkingService;
     private ParkingSpot parkingSpot;
@@ -51,7 +72,7 @@ public class ParkingServiceTest {
 	when(inputReaderUtil.readSelection()).thenReturn(1);
 	when(parkingSpotDAO.getNextAvailableSlot(any(ParkingType.class))).thenReturn(17);
 	when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(ticket);
-	when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
 	// WHEN
 	parkingService.processIncomingVehicle();
 	// THEN
@@ -70,7 +91,7 @@ public class ParkingServiceTest {
 	when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEFM");
 	when(parkingSpotDAO.getNextAvailableSlot(any(ParkingType.class))).thenReturn(17);
 	when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(ticket);
-	when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
 	// WHEN
 	parkingService.processIncomingVehicle();
 	// THEN
@@ -116,7 +137,7 @@ public class ParkingServiceTest {
 	ticket.setVehicleRegNumber("ABCDEFC2");
 	when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
 	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
-	when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
 	// WHEN
 	parkingService.processExitingVehicle();
 	// THEN
@@ -136,7 +157,7 @@ public class ParkingServiceTest {
 	ticket.setVehicleRegNumber("ABCDEF2");
 	when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
 	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
-	when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
 	// WHEN
 	parkingService.processExitingVehicle();
 	// THEN
@@ -184,9 +205,9 @@ public class ParkingServiceTest {
 	ticket.setParkingSpot(parkingSpot);
 	ticket.setVehicleRegNumber("ABCDEFC2");
 	when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
-	when(ticketDAO.getTicketUserPresentInDB("ABCDEFC2")).thenReturn(true);
+	ticket.setRecurringUser(true);
 	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
-	when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
 	// WHEN
 	parkingService.processExitingVehicle();
 	// THEN
@@ -204,13 +225,192 @@ public class ParkingServiceTest {
 	ticket.setParkingSpot(parkingSpot);
 	ticket.setVehicleRegNumber("ABCDEF2");
 	when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
-	when(ticketDAO.getTicketUserPresentInDB("ABCDEF2")).thenReturn(true);
+	ticket.setRecurringUser(true);
 	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
-	when(parkingSpotDAO.updateParking(any(ParkingSpot.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
 	// WHEN
 	parkingService.processExitingVehicle();
 	//THEN
 	assertThat(ticket.getPrice()).isEqualTo(0.95);
     }
-    
+
+    @Test
+    @DisplayName("Message d'entrée transmis au NotificationSink")
+    public void testIncomingVehicleNotification() throws Exception {
+	// GIVEN
+	ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO, notificationSink);
+	when(inputReaderUtil.readSelection()).thenReturn(1);
+	when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEFN");
+	when(parkingSpotDAO.getNextAvailableSlot(any(ParkingType.class))).thenReturn(17);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+	when(ticketDAO.getTicketUserPresentInDB("ABCDEFN")).thenReturn(true);
+	ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+	// WHEN
+	parkingService.processIncomingVehicle();
+	// THEN
+	verify(notificationSink, Mockito.times(2)).publish(captor.capture());
+	assertThat(captor.getAllValues().get(0).getType()).isEqualTo(NotificationType.ENTRY_RECORDED);
+	assertThat(captor.getAllValues().get(0).getParkingNumber()).isEqualTo(17);
+	assertThat(captor.getAllValues().get(1).getType()).isEqualTo(NotificationType.RECURRING_USER);
+    }
+
+    @Test
+    @DisplayName("Message de sortie avec le tarif transmis au NotificationSink")
+    public void testExitingVehicleNotification() throws Exception {
+	// GIVEN
+	ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO, notificationSink);
+	Timestamp inTime = new Timestamp(System.currentTimeMillis() - 3600000);
+	when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEFN2");
+	ticket.setInTimestamp(inTime);
+	ticket.setParkingSpot(parkingSpot);
+	ticket.setVehicleRegNumber("ABCDEFN2");
+	when(ticketDAO.getTicket(anyString())).thenReturn(ticket);
+	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
+	ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+	// WHEN
+	parkingService.processExitingVehicle();
+	// THEN
+	verify(notificationSink).publish(captor.capture());
+	assertThat(captor.getValue().getType()).isEqualTo(NotificationType.EXIT_RECORDED);
+	assertThat(captor.getValue().getPrice()).isEqualTo(1.5);
+    }
+
+    @Test
+    @DisplayName("Entrée refusée sans réservation quand les places restantes sont réservées")
+    public void testWalkInRefusedWhenSpotsAreReserved() throws Exception {
+	// GIVEN
+	parkingService.setReservationService(reservationService);
+	when(inputReaderUtil.readSelection()).thenReturn(1);
+	when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEFR");
+	when(parkingSpotDAO.getNextAvailableSlot(any(ParkingType.class))).thenReturn(17);
+	when(reservationService.getActiveReservation(eq("ABCDEFR"), anyLong())).thenReturn(null);
+	when(reservationService.canAdmitWalkIn(eq(ParkingType.CAR), anyLong())).thenReturn(false);
+	// WHEN
+	assertThrows(Exception.class, () -> parkingService.processIncomingVehicle());
+	// THEN
+	verify(ticketDAO, never()).saveTicket(any(Ticket.class));
+	verify(reservationService, never()).claim(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Une sortie rejouée avec le même identifiant renvoie le ticket d'origine sans le réécrire")
+    public void testRetriedExitIsNotRecordedTwice() throws Exception {
+	// GIVEN
+	parkingService.setDedupeCache(new DedupeCache<>(10, 60000, Clock.systemUTC()));
+	ticket.setInTimestamp(new Timestamp(System.currentTimeMillis() - (60 * 60 * 1000)));
+	ticket.setParkingSpot(parkingSpot);
+	ticket.setVehicleRegNumber("ABCDEF");
+	when(ticketDAO.getTicket("ABCDEF")).thenReturn(ticket);
+	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+	// WHEN
+	Ticket first = parkingService.processExitingVehicle("r-1", "ABCDEF");
+	Ticket retry = parkingService.processExitingVehicle("r-1", "ABCDEF");
+	// THEN
+	assertThat(retry).isSameAs(first);
+	verify(ticketDAO, times(1)).getTicket("ABCDEF");
+	verify(ticketDAO, times(1)).updateTicket(any(Ticket.class));
+	verify(parkingSpotDAO, times(1)).updateParking(any(ParkingSpot.class), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Sortie répétée sans identifiant, le ticket terminé est refusé et la place reste occupée")
+    public void testExitOfClosedTicketIsRefused() throws Exception {
+	// GIVEN
+	ticket.setInTimestamp(new Timestamp(System.currentTimeMillis() - (60 * 60 * 1000)));
+	ticket.setOutTimestamp(new Timestamp(System.currentTimeMillis()));
+	ticket.setParkingSpot(parkingSpot);
+	ticket.setVehicleRegNumber("ABCDEF");
+	when(ticketDAO.getTicket("ABCDEF")).thenReturn(ticket);
+	// WHEN THEN
+	assertThrows(IllegalStateException.class, () -> parkingService.processExitingVehicle("ABCDEF"));
+	verify(ticketDAO, never()).updateTicket(any(Ticket.class));
+	verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Horloge simulée, trois heures de stationnement sont facturées sans attendre")
+    public void testSimulatedClockDwellTime() throws Exception {
+	// GIVEN
+	SimulatedClock clock = new SimulatedClock(Instant.parse("2021-03-01T08:00:00Z"), 0);
+	parkingService.setClock(clock);
+	when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(17);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+	Ticket entered = parkingService.processIncomingVehicle(ParkingType.CAR, "ABCDEF");
+	when(ticketDAO.getTicket("ABCDEF")).thenReturn(entered);
+	when(ticketDAO.updateTicket(any(Ticket.class))).thenReturn(true);
+	// WHEN
+	clock.advance(Duration.ofHours(3));
+	Ticket exited = parkingService.processExitingVehicle("ABCDEF");
+	// THEN
+	assertThat(exited.getInTimestamp().toInstant()).isEqualTo(Instant.parse("2021-03-01T08:00:00Z"));
+	assertThat(exited.getOutTimestamp().toInstant()).isEqualTo(Instant.parse("2021-03-01T11:00:00Z"));
+	assertThat(exited.getPrice()).isEqualTo(4.5);
+    }
+
+    @Test
+    @DisplayName("Place N°17 prise par une autre borne, le véhicule entre sur la place suivante")
+    public void testSpotTakenByAnotherGateIsNotShared() throws Exception {
+	// GIVEN
+	when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(17, 18);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), eq(false))).thenReturn(false, true);
+	// WHEN
+	Ticket entered = parkingService.processIncomingVehicle(ParkingType.CAR, "ABCDEF");
+	// THEN
+	assertThat(entered.getParkingSpot().getId()).isEqualTo(18);
+	verify(ticketDAO, times(1)).saveTicket(any(Ticket.class));
+	verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), eq(true));
+    }
+
+    @Test
+    @DisplayName("Place louée occupée hors de la transaction, elle est libérée si la transaction échoue")
+    public void testLeasedSpotIsReleasedWhenUnitOfWorkFails() throws Exception {
+	// GIVEN
+	parkingService.setSpotAllocationStrategy(spotAllocationStrategy);
+	parkingService.setUnitOfWork(new UnitOfWork() {
+	    @Override
+	    public <T> T execute(Callable<T> work) throws Exception {
+		work.call();
+		throw new SQLException("Commit failed");
+	    }
+	});
+	when(spotAllocationStrategy.getNextAvailableSlot(ParkingType.CAR)).thenReturn(17);
+	when(spotAllocationStrategy.occupiesSpot()).thenReturn(true);
+	// WHEN
+	assertThrows(SQLException.class, () -> parkingService.processIncomingVehicle(ParkingType.CAR, "ABCDEF"));
+	// THEN
+	verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), eq(false));
+	verify(parkingSpotDAO).updateParking(any(ParkingSpot.class), eq(true));
+    }
+
+    @Test
+    @DisplayName("Sans transaction, une erreur après l'enregistrement du ticket laisse la place occupée")
+    public void testSpotIsKeptOnceTicketIsSaved() throws Exception {
+	// GIVEN
+	when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(17);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), eq(false))).thenReturn(true);
+	when(ticketDAO.getTicketUserPresentInDB("ABCDEF")).thenThrow(new SQLException("Timeout"));
+	// WHEN
+	assertThrows(SQLException.class, () -> parkingService.processIncomingVehicle(ParkingType.CAR, "ABCDEF"));
+	// THEN
+	verify(ticketDAO).saveTicket(any(Ticket.class));
+	verify(parkingSpotDAO, never()).updateParking(any(ParkingSpot.class), eq(true));
+    }
+
+    @Test
+    @DisplayName("Véhicule EV sur une place CAR de repli, la place est enregistrée avec son type CAR")
+    public void testFallbackSpotKeepsItsOwnType() throws Exception {
+	// GIVEN
+	ParkingType ev = ParkingType.define("EV", 3.0);
+	ev.setFallbacks(Collections.singletonList(ParkingType.CAR));
+	when(parkingSpotDAO.getNextAvailableSlot(ev)).thenReturn(4);
+	when(parkingSpotDAO.getParkingType(4)).thenReturn(ParkingType.CAR);
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), eq(false))).thenReturn(true);
+	// WHEN
+	Ticket entered = parkingService.processIncomingVehicle(ev, "ABCDEF");
+	// THEN
+	assertThat(entered.getParkingSpot().getParkingType()).isEqualTo(ParkingType.CAR);
+	verify(parkingSpotDAO).updateParking(
+		argThat(spot -> spot.getId() == 4 && spot.getParkingType() == ParkingType.CAR), eq(false));
+    }
 }
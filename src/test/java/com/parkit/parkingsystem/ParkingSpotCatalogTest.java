@@ -0,0 +1,82 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotCatalog;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ParkingSpotCatalogTest {
+
+    @Mock
+    private DataBaseConfig dataBaseConfig;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+
+    @BeforeEach
+    public void setUpPerTest() throws Exception {
+	when(dataBaseConfig.getConnection()).thenReturn(connection);
+	when(connection.prepareStatement(DBConstants.GET_PARKING_SPOTS)).thenReturn(preparedStatement);
+	when(preparedStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @Test
+    @DisplayName("Catalogue chargé une fois, la même place est partagée à chaque lecture")
+    public void testParkingSpotIsShared() throws Exception {
+	// GIVEN
+	when(resultSet.next()).thenReturn(true, true, false);
+	when(resultSet.getInt(1)).thenReturn(1, 4);
+	when(resultSet.getString(2)).thenReturn("CAR", "BIKE");
+	ParkingSpotCatalog parkingSpotCatalog = new ParkingSpotCatalog(dataBaseConfig);
+
+	// WHEN
+	ParkingSpot first = parkingSpotCatalog.getParkingSpot(4);
+	ParkingSpot second = parkingSpotCatalog.getParkingSpot(4);
+
+	// THEN
+	assertThat(first).isSameAs(second);
+	assertThat(first.getParkingType()).isEqualTo(ParkingType.BIKE);
+	assertThat(parkingSpotCatalog.size()).isEqualTo(2);
+	verify(preparedStatement, times(1)).executeQuery();
+	verify(dataBaseConfig).closeConnection(connection);
+    }
+
+    @Test
+    @DisplayName("Numéro inconnu, le catalogue est rechargé en gardant les places déjà partagées")
+    public void testUnknownParkingNumberReloads() throws Exception {
+	// GIVEN
+	when(resultSet.next()).thenReturn(true, false, true, true, false);
+	when(resultSet.getInt(1)).thenReturn(1, 1, 2);
+	when(resultSet.getString(2)).thenReturn("CAR");
+	ParkingSpotCatalog parkingSpotCatalog = new ParkingSpotCatalog(dataBaseConfig);
+	ParkingSpot loaded = parkingSpotCatalog.getParkingSpot(1);
+
+	// WHEN
+	ParkingSpot added = parkingSpotCatalog.getParkingSpot(2);
+
+	// THEN
+	assertThat(added.getId()).isEqualTo(2);
+	assertThat(parkingSpotCatalog.getParkingSpot(1)).isSameAs(loaded);
+	verify(preparedStatement, times(2)).executeQuery();
+    }
+}
@@ -0,0 +1,509 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.integration.config.DataBaseTestConfig;
+import com.parkit.parkingsystem.integration.service.DataBasePrepareService;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.service.RequestTracer;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+import com.parkit.parkingsystem.util.SlowTransactionLog;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test de charge concurrent des entrées et sorties, lancé à la main :
+ * 
+ * mvn test-compile exec:java -Dexec.mainClass=com.parkit.parkingsystem.ParkingStressBenchmark
+ * -Dexec.classpathScope=test
+ * 
+ * Plusieurs threads font entrer et sortir des véhicules par un seul
+ * ParkingService pendant qu'un contrôleur vérifie en continu qu'aucune place
+ * n'est occupée par deux tickets ouverts, et que les places libres plus les
+ * tickets ouverts font la capacité du parking (à l'écart près des entrées et
+ * sorties en cours). À la fin, chaque sortie enregistrée doit se retrouver dans
+ * son ticket (heure de sortie et prix).
+ * 
+ * Avec -Dbackend=memory (par défaut) les DAO travaillent sur des tables en
+ * mémoire qui se comportent comme la base de donnée : la lecture de la place
+ * libre et sa mise à jour sont deux requêtes séparées. Avec -Dbackend=db ils
+ * utilisent la base de test de DataBaseTestConfig, MySQL ou H2 en mémoire avec
+ * -Dparkit.test.db=h2, et -DunitOfWork=true fait chaque entrée et sortie dans
+ * une transaction, et -DslowTransactionMillis=N mesure les étapes de chaque
+ * requête avec un RequestTracer de seuil N. Le programme se termine en erreur
+ * si un invariant est violé.
+ * 
+ * ParkingStressTest lance à chaque build un test court sur les tables en
+ * mémoire.
+ */
+public class ParkingStressBenchmark {
+
+    private static final String BACKEND = System.getProperty("backend", "memory");
+    private static final int THREADS = Integer.getInteger("threads", 8);
+    private static final long SECONDS = Long.getLong("seconds", 10);
+    private static final int CAR_SPOTS = Integer.getInteger("carSpots", 12);
+    private static final int BIKE_SPOTS = Integer.getInteger("bikeSpots", 4);
+    private static final int VEHICLES_PER_THREAD = 3;
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+
+    private final Backend backend;
+    private final ParkingService parkingService;
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong violations = new AtomicLong();
+    private final List<String> reportedViolations = new CopyOnWriteArrayList<>();
+
+    private ParkingStressBenchmark(Backend backend) {
+	this.backend = backend;
+	parkingService = new ParkingService(null, backend.getParkingSpotDAO(), backend.getTicketDAO(),
+		new NoOpNotificationSink());
+	parkingService.setClock(new TickingClock());
+    }
+
+    /**
+     * Prépare le test sur les tables en mémoire.
+     * 
+     * @param carSpots  le nombre de places CAR.
+     * @param bikeSpots le nombre de places BIKE.
+     * @return le test de charge.
+     */
+    static ParkingStressBenchmark inMemory(int carSpots, int bikeSpots) {
+	return new ParkingStressBenchmark(new InMemoryBackend(carSpots, bikeSpots));
+    }
+
+    public static void main(String[] args) throws Exception {
+	ParkingStressBenchmark benchmark = "db".equals(BACKEND) ? new ParkingStressBenchmark(new DataBaseBackend())
+		: inMemory(CAR_SPOTS, BIKE_SPOTS);
+	ParkingService parkingService = benchmark.parkingService;
+	if (benchmark.backend instanceof DataBaseBackend && Boolean.getBoolean("unitOfWork")) {
+	    parkingService.setUnitOfWork(((DataBaseBackend) benchmark.backend).dataBaseConfig);
+	}
+	Long slowTransactionMillis = Long.getLong("slowTransactionMillis");
+	if (slowTransactionMillis != null) {
+	    parkingService.setRequestTracer(new RequestTracer(slowTransactionMillis,
+		    new SlowTransactionLog(Files.createTempFile("slow-transactions", ".log"))));
+	}
+	long start = System.nanoTime();
+	long[] counts = benchmark.run(THREADS, SECONDS * 1000);
+	double seconds = (System.nanoTime() - start) / 1e9;
+	for (String violation : benchmark.getReportedViolations()) {
+	    System.out.println("VIOLATION: " + violation);
+	}
+	System.out.printf("%s backend, %d threads, %d spots: %.0f operations/s%n", BACKEND, THREADS,
+		benchmark.backend.getCapacity(), (counts[0] + counts[1]) / seconds);
+	System.out.printf("%d entries, %d exits, %d refused, %d errors, %d checks, %d violations%n", counts[0],
+		counts[1], counts[2], counts[3], counts[4], benchmark.getViolations());
+	System.exit(benchmark.getViolations() == 0 ? 0 : 1);
+    }
+
+    /**
+     * Fait entrer et sortir des véhicules depuis plusieurs threads pendant la
+     * durée indiquée, en vérifiant les invariants pendant et après le test.
+     * 
+     * @param threads le nombre de threads.
+     * @param millis  la durée du test.
+     * @return les entrées, sorties, entrées refusées, erreurs et vérifications.
+     * @throws Exception si une vérification ne peut pas être faite.
+     */
+    long[] run(int threads, long millis) throws Exception {
+	ConcurrentLinkedQueue<long[]> exits = new ConcurrentLinkedQueue<>();
+	long[] counts = new long[5];
+	long end = System.currentTimeMillis() + millis;
+	ExecutorService workers = Executors.newFixedThreadPool(threads);
+	List<Future<long[]>> futures = new ArrayList<>();
+	for (int i = 0; i < threads; i++) {
+	    int worker = i;
+	    futures.add(workers.submit(() -> run(worker, end, exits)));
+	}
+	while (System.currentTimeMillis() < end) {
+	    check(true);
+	    counts[4]++;
+	}
+	for (Future<long[]> future : futures) {
+	    long[] workerCounts = future.get();
+	    for (int i = 0; i < workerCounts.length; i++) {
+		counts[i] += workerCounts[i];
+	    }
+	}
+	workers.shutdown();
+	check(false);
+	checkExits(exits, counts[0]);
+	return counts;
+    }
+
+    /**
+     * Récupère le nombre d'invariants violés.
+     * 
+     * @return le nombre de violations.
+     */
+    long getViolations() {
+	return violations.get();
+    }
+
+    /**
+     * Récupère les premières violations, au plus MAX_REPORTED_VIOLATIONS.
+     * 
+     * @return la description des violations.
+     */
+    List<String> getReportedViolations() {
+	return reportedViolations;
+    }
+
+    /*
+     * Chaque thread gare au plus VEHICLES_PER_THREAD véhicules, avec une nouvelle
+     * plaque à chaque entrée. Renvoie les entrées, sorties, entrées refusées et
+     * erreurs.
+     */
+    private long[] run(int worker, long end, ConcurrentLinkedQueue<long[]> exits) {
+	Random random = new Random(worker);
+	Deque<String> parked = new ArrayDeque<>();
+	long[] counts = new long[4];
+	int vehicle = 0;
+	while (System.currentTimeMillis() < end) {
+	    boolean entry = parked.isEmpty() || (parked.size() < VEHICLES_PER_THREAD && random.nextBoolean());
+	    started.incrementAndGet();
+	    inFlight.incrementAndGet();
+	    try {
+		if (entry) {
+		    String plate = "S" + worker + "-" + vehicle++;
+		    ParkingType parkingType = random.nextInt(4) == 0 ? ParkingType.BIKE : ParkingType.CAR;
+		    parkingService.processIncomingVehicle(parkingType, plate);
+		    parked.addLast(plate);
+		    counts[0]++;
+		} else {
+		    Ticket ticket = parkingService.processExitingVehicle(parked.removeFirst());
+		    if (ticket == null) {
+			counts[3]++;
+		    } else {
+			exits.add(new long[] { ticket.getId(), Math.round(ticket.getPrice() * 100) });
+			counts[1]++;
+		    }
+		}
+	    } catch (IllegalStateException e) {
+		counts[2]++;
+	    } catch (Exception e) {
+		counts[3]++;
+	    } finally {
+		inFlight.decrementAndGet();
+	    }
+	}
+	// Les véhicules restants sortent, le parking est vide à la fin.
+	while (!parked.isEmpty()) {
+	    try {
+		Ticket ticket = parkingService.processExitingVehicle(parked.removeFirst());
+		exits.add(new long[] { ticket.getId(), Math.round(ticket.getPrice() * 100) });
+		counts[1]++;
+	    } catch (Exception e) {
+		counts[3]++;
+	    }
+	}
+	return counts;
+    }
+
+    /*
+     * Pendant le test, l'écart entre places libres plus tickets ouverts et la
+     * capacité ne peut pas dépasser le nombre d'opérations en cours ou commencées
+     * pendant la lecture.
+     */
+    private void check(boolean running) throws Exception {
+	int inFlightBefore = inFlight.get();
+	long startedBefore = started.get();
+	int[] snapshot = backend.snapshot();
+	long tolerance = running ? inFlightBefore + started.get() - startedBefore : 0;
+	if (snapshot[3] > 0) {
+	    violation(snapshot[3] + " spots held by several open tickets");
+	}
+	long gap = Math.abs((long) snapshot[1] + snapshot[2] - snapshot[0]);
+	if (gap > tolerance) {
+	    violation(snapshot[1] + " free spots + " + snapshot[2] + " open tickets != capacity " + snapshot[0]
+		    + " (" + tolerance + " operations in flight)");
+	}
+    }
+
+    private void checkExits(ConcurrentLinkedQueue<long[]> exits, long entries) throws Exception {
+	for (long[] exit : exits) {
+	    long priceInCents = backend.getClosedTicketPriceInCents((int) exit[0]);
+	    if (priceInCents != exit[1]) {
+		violation("ticket " + exit[0] + " lost its exit: price " + priceInCents + " instead of " + exit[1]);
+	    }
+	}
+	int tickets = backend.countTickets();
+	if (tickets != entries) {
+	    violation(tickets + " tickets saved for " + entries + " entries");
+	}
+    }
+
+    private void violation(String message) {
+	if (violations.incrementAndGet() <= MAX_REPORTED_VIOLATIONS) {
+	    reportedViolations.add(message);
+	}
+    }
+
+    // Chaque lecture avance d'une minute, une sortie est donc toujours après son entrée.
+    private static final class TickingClock extends Clock {
+	private final AtomicLong millis = new AtomicLong(Instant.parse("2021-03-01T00:00:00Z").toEpochMilli());
+
+	@Override
+	public long millis() {
+	    return millis.addAndGet(60000);
+	}
+
+	@Override
+	public Instant instant() {
+	    return Instant.ofEpochMilli(millis());
+	}
+
+	@Override
+	public ZoneId getZone() {
+	    return ZoneOffset.UTC;
+	}
+
+	@Override
+	public Clock withZone(ZoneId zone) {
+	    throw new UnsupportedOperationException();
+	}
+    }
+
+    private interface Backend {
+	ParkingSpotDAO getParkingSpotDAO();
+
+	TicketDAO getTicketDAO();
+
+	int getCapacity() throws Exception;
+
+	// Capacité, places libres, tickets ouverts et places à plusieurs tickets ouverts.
+	int[] snapshot() throws Exception;
+
+	// Prix du ticket en centimes, -1 si le ticket est inconnu ou encore ouvert.
+	long getClosedTicketPriceInCents(int id) throws Exception;
+
+	int countTickets() throws Exception;
+    }
+
+    private static final class DataBaseBackend implements Backend {
+	private static final String SNAPSHOT = "select (select count(*) from parking),"
+		+ " (select count(*) from parking where AVAILABLE = true),"
+		+ " (select count(*) from ticket where OUT_TIME IS NULL),"
+		+ " (select count(*) from (select PARKING_NUMBER from ticket where OUT_TIME IS NULL"
+		+ " group by PARKING_NUMBER having count(*) > 1) shared)";
+	private static final String GET_CLOSED_TICKET = "select PRICE from ticket where ID = ? and OUT_TIME IS NOT NULL";
+	private static final String COUNT_TICKETS = "select count(*) from ticket";
+
+	private final DataBaseTestConfig dataBaseConfig = new DataBaseTestConfig();
+	private final ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+	private final TicketDAO ticketDAO = new TicketDAO();
+
+	DataBaseBackend() {
+	    new DataBasePrepareService().clearDataBaseEntries();
+	    parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+	    ticketDAO.dataBaseConfig = dataBaseConfig;
+	}
+
+	@Override
+	public ParkingSpotDAO getParkingSpotDAO() {
+	    return parkingSpotDAO;
+	}
+
+	@Override
+	public TicketDAO getTicketDAO() {
+	    return ticketDAO;
+	}
+
+	@Override
+	public int getCapacity() throws Exception {
+	    return snapshot()[0];
+	}
+
+	@Override
+	public int[] snapshot() throws Exception {
+	    // Une seule requête, donc une seule image cohérente de la base.
+	    try (Connection con = dataBaseConfig.getConnection();
+		    PreparedStatement ps = con.prepareStatement(SNAPSHOT);
+		    ResultSet rs = ps.executeQuery()) {
+		rs.next();
+		return new int[] { rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4) };
+	    }
+	}
+
+	@Override
+	public long getClosedTicketPriceInCents(int id) throws Exception {
+	    try (Connection con = dataBaseConfig.getConnection();
+		    PreparedStatement ps = con.prepareStatement(GET_CLOSED_TICKET)) {
+		ps.setInt(1, id);
+		try (ResultSet rs = ps.executeQuery()) {
+		    return rs.next() ? Math.round(rs.getDouble(1) * 100) : -1;
+		}
+	    }
+	}
+
+	@Override
+	public int countTickets() throws Exception {
+	    try (Connection con = dataBaseConfig.getConnection();
+		    PreparedStatement ps = con.prepareStatement(COUNT_TICKETS);
+		    ResultSet rs = ps.executeQuery()) {
+		rs.next();
+		return rs.getInt(1);
+	    }
+	}
+    }
+
+    /*
+     * Tables parking et ticket en mémoire. Chaque méthode d'un DAO est une requête
+     * atomique, comme en base de donnée, et les tickets lus sont des copies.
+     */
+    private static final class InMemoryBackend implements Backend {
+	private final Map<Integer, ParkingType> parkingTypes = new TreeMap<>();
+	private final Map<Integer, Boolean> available = new HashMap<>();
+	private final List<Ticket> tickets = new ArrayList<>();
+	private final Map<String, List<Ticket>> ticketsByVehicle = new HashMap<>();
+
+	private final ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO() {
+	    @Override
+	    public int getNextAvailableSlot(ParkingType parkingType) {
+		synchronized (InMemoryBackend.this) {
+		    for (Map.Entry<Integer, ParkingType> spot : parkingTypes.entrySet()) {
+			if (spot.getValue() == parkingType && available.get(spot.getKey())) {
+			    return spot.getKey();
+			}
+		    }
+		    return -1;
+		}
+	    }
+
+	    @Override
+	    public boolean updateParking(ParkingSpot parkingSpot, boolean isAvailable) {
+		// Comme update_parking_spot, la place n'est modifiée que si elle change.
+		synchronized (InMemoryBackend.this) {
+		    return available.put(parkingSpot.getId(), isAvailable) != isAvailable;
+		}
+	    }
+	};
+
+	private final TicketDAO ticketDAO = new TicketDAO() {
+	    @Override
+	    public Ticket saveTicket(Ticket ticket) {
+		synchronized (InMemoryBackend.this) {
+		    Ticket saved = copy(ticket);
+		    saved.setId(tickets.size() + 1);
+		    tickets.add(saved);
+		    ticketsByVehicle.computeIfAbsent(ticket.getVehicleRegNumber(), plate -> new ArrayList<>()).add(saved);
+		    return ticket;
+		}
+	    }
+
+	    @Override
+	    public Ticket getTicket(String vehicleRegNumber) {
+		synchronized (InMemoryBackend.this) {
+		    List<Ticket> vehicleTickets = ticketsByVehicle.get(vehicleRegNumber);
+		    return vehicleTickets == null ? null : copy(vehicleTickets.get(vehicleTickets.size() - 1));
+		}
+	    }
+
+	    @Override
+	    public boolean updateTicket(Ticket ticket) {
+		synchronized (InMemoryBackend.this) {
+		    Ticket saved = tickets.get(ticket.getId() - 1);
+		    saved.setPrice(ticket.getPrice());
+		    saved.setOutTimestamp(ticket.getOutTimestamp());
+		    return true;
+		}
+	    }
+
+	    @Override
+	    public boolean getTicketUserPresentInDB(String vehicleRegNumber) {
+		return false;
+	    }
+	};
+
+	InMemoryBackend(int carSpots, int bikeSpots) {
+	    for (int i = 1; i <= carSpots + bikeSpots; i++) {
+		parkingTypes.put(i, i <= carSpots ? ParkingType.CAR : ParkingType.BIKE);
+		available.put(i, true);
+	    }
+	}
+
+	private static Ticket copy(Ticket ticket) {
+	    Ticket copy = new Ticket();
+	    copy.setId(ticket.getId());
+	    copy.setParkingSpot(ticket.getParkingSpot());
+	    copy.setVehicleRegNumber(ticket.getVehicleRegNumber());
+	    copy.setPrice(ticket.getPrice());
+	    copy.setInTimestamp(ticket.getInTimestamp());
+	    copy.setOutTimestamp(
+		    ticket.getOutTimestamp() == null ? null : new Timestamp(ticket.getOutTimestamp().getTime()));
+	    return copy;
+	}
+
+	@Override
+	public ParkingSpotDAO getParkingSpotDAO() {
+	    return parkingSpotDAO;
+	}
+
+	@Override
+	public TicketDAO getTicketDAO() {
+	    return ticketDAO;
+	}
+
+	@Override
+	public int getCapacity() {
+	    return parkingTypes.size();
+	}
+
+	@Override
+	public synchronized int[] snapshot() {
+	    int free = 0;
+	    for (boolean isAvailable : available.values()) {
+		free += isAvailable ? 1 : 0;
+	    }
+	    int open = 0;
+	    int shared = 0;
+	    Map<Integer, Integer> openBySpot = new HashMap<>();
+	    for (Ticket ticket : tickets) {
+		if (ticket.getOutTimestamp() == null) {
+		    open++;
+		    if (openBySpot.merge(ticket.getParkingSpot().getId(), 1, Integer::sum) == 2) {
+			shared++;
+		    }
+		}
+	    }
+	    return new int[] { parkingTypes.size(), free, open, shared };
+	}
+
+	@Override
+	public synchronized long getClosedTicketPriceInCents(int id) {
+	    Ticket ticket = id > 0 && id <= tickets.size() ? tickets.get(id - 1) : null;
+	    return ticket == null || ticket.getOutTimestamp() == null ? -1 : Math.round(ticket.getPrice() * 100);
+	}
+
+	@Override
+	public synchronized int countTickets() {
+	    return tickets.size();
+	}
+    }
+}
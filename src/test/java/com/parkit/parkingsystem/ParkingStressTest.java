@@ -0,0 +1,26 @@
+package com.parkit.parkingsystem;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParkingStressTest {
+
+    @Test
+    @DisplayName("Entrées et sorties concurrentes pendant une seconde, aucune place partagée, aucun ticket perdu")
+    public void testConcurrentEntriesAndExitsKeepInvariants() throws Exception {
+	// GIVEN
+	ParkingStressBenchmark benchmark = ParkingStressBenchmark.inMemory(12, 12);
+
+	// WHEN
+	long[] counts = benchmark.run(4, 1000);
+
+	// THEN
+	assertThat(benchmark.getReportedViolations()).isEmpty();
+	assertThat(benchmark.getViolations()).isZero();
+	assertThat(counts[0]).isPositive();
+	assertThat(counts[1]).isEqualTo(counts[0]);
+	assertThat(counts[3]).isZero();
+    }
+}
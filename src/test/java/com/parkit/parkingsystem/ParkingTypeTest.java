@@ -0,0 +1,145 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingTypeDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.IndexedAllocationStrategy;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.InputReaderUtil;
+import com.parkit.parkingsystem.util.NotificationSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ParkingTypeTest {
+
+    @Mock
+    private DataBaseConfig dataBaseConfig;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+    @Mock
+    private InputReaderUtil inputReaderUtil;
+    @Mock
+    private ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private TicketDAO ticketDAO;
+    @Mock
+    private NotificationSink notificationSink;
+
+    private ParkingType ev;
+
+    @BeforeEach
+    public void setUpPerTest() {
+	ev = ParkingType.define("EV", 3.0);
+	ev.setFallbacks(Collections.singletonList(ParkingType.CAR));
+    }
+
+    @Test
+    @DisplayName("Types lus dans parking_type, EV a son tarif, ses replis et son numéro dans le menu")
+    public void testParkingTypesAreLoadedFromDataBase() throws Exception {
+	// GIVEN
+	ev.setFallbacks(Collections.emptyList());
+	when(dataBaseConfig.getConnection()).thenReturn(connection);
+	when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+	when(preparedStatement.executeQuery()).thenReturn(resultSet);
+	when(resultSet.next()).thenReturn(true, true, true, false);
+	when(resultSet.getString(1)).thenReturn("CAR", "BIKE", "EV");
+	when(resultSet.getDouble(2)).thenReturn(1.5, 1.0, 2.4);
+	when(resultSet.getString(3)).thenReturn(null, "", "CAR, BIKE");
+	ParkingTypeDAO parkingTypeDAO = new ParkingTypeDAO();
+	parkingTypeDAO.dataBaseConfig = dataBaseConfig;
+	when(inputReaderUtil.readSelection()).thenReturn(3);
+	when(parkingSpotDAO.getNextAvailableSlot(ev)).thenReturn(21);
+	Ticket ticket = new Ticket();
+	ticket.setParkingSpot(new ParkingSpot(21, ev, false));
+	ticket.setInTimestamp(Timestamp.valueOf("2021-03-01 08:00:00"));
+	ticket.setOutTimestamp(Timestamp.valueOf("2021-03-01 09:00:00"));
+
+	// WHEN
+	parkingTypeDAO.loadParkingTypes();
+	ParkingSpot parkingSpot = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO, notificationSink)
+		.getNextParkingNumberIfAvailable();
+	new FareCalculatorService(notificationSink).calculateFare(ticket);
+
+	// THEN
+	assertThat(ParkingType.values()).startsWith(ParkingType.CAR, ParkingType.BIKE, ev);
+	assertThat(ParkingType.valueOf("EV")).isSameAs(ev);
+	assertThat(ev.getFallbacks()).containsExactly(ParkingType.CAR, ParkingType.BIKE);
+	assertThat(ParkingType.BIKE.getFallbacks()).isEmpty();
+	assertThat(parkingSpot.getParkingType()).isEqualTo(ev);
+	assertThat(parkingSpot.getId()).isEqualTo(21);
+	assertThat(ticket.getPrice()).isEqualTo(2.4);
+    }
+
+    @Test
+    @DisplayName("Index des places libres, EV se replie sur les places CAR sans requête")
+    public void testIndexedAllocationFallsBack() {
+	// GIVEN
+	IndexedAllocationStrategy indexedAllocationStrategy = new IndexedAllocationStrategy();
+	indexedAllocationStrategy.seed(Arrays.asList(new ParkingSpot(1, ParkingType.CAR, true),
+		new ParkingSpot(2, ParkingType.CAR, true), new ParkingSpot(10, ev, true)));
+
+	// WHEN
+	int evSpot = indexedAllocationStrategy.getNextAvailableSlot(ev);
+	indexedAllocationStrategy.onParkingSpotUpdated(new ParkingSpot(10, ev, false));
+	int fallbackSpot = indexedAllocationStrategy.getNextAvailableSlot(ev);
+	indexedAllocationStrategy.onParkingSpotUpdated(new ParkingSpot(1, ParkingType.CAR, false));
+	indexedAllocationStrategy.onParkingSpotUpdated(new ParkingSpot(2, ParkingType.CAR, false));
+
+	// THEN
+	assertThat(evSpot).isEqualTo(10);
+	assertThat(fallbackSpot).isEqualTo(1);
+	assertThat(indexedAllocationStrategy.getNextAvailableSlot(ev)).isZero();
+	assertThat(indexedAllocationStrategy.getNextAvailableSlot(ParkingType.BIKE)).isZero();
+	assertThat(indexedAllocationStrategy.getAvailableSpots(ParkingType.CAR)).isZero();
+    }
+
+    @Test
+    @DisplayName("Place EV en base de donnée, le type et ses replis sont lus par une seule requête")
+    public void testFallbacksAreReadWithOneQuery() throws Exception {
+	// GIVEN
+	when(dataBaseConfig.getConnection()).thenReturn(connection);
+	when(connection.prepareStatement(contains("union all"))).thenReturn(preparedStatement);
+	when(preparedStatement.executeQuery()).thenReturn(resultSet);
+	when(resultSet.next()).thenReturn(true, true, false);
+	when(resultSet.getInt(2)).thenReturn(0, 7);
+	ParkingSpotDAO dao = new ParkingSpotDAO();
+	dao.dataBaseConfig = dataBaseConfig;
+
+	// WHEN
+	int parkingNumber = dao.getNextAvailableSlot(ev);
+
+	// THEN
+	assertThat(parkingNumber).isEqualTo(7);
+	verify(connection, times(1)).prepareStatement(anyString());
+	verify(preparedStatement).setString(1, "EV");
+	verify(preparedStatement).setString(2, "CAR");
+    }
+}
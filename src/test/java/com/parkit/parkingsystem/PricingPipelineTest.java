@@ -0,0 +1,86 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.NotificationType;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.constants.PricingStageType;
+import com.parkit.parkingsystem.model.Notification;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.FareCalculatorService;
+import com.parkit.parkingsystem.service.PricingPipeline;
+import com.parkit.parkingsystem.util.NotificationSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class PricingPipelineTest {
+
+    private static final long IN_MILLIS = Timestamp.valueOf("2020-01-01 08:00:00").getTime();
+
+    @Mock
+    private NotificationSink notificationSink;
+
+    private FareCalculatorService fareCalculatorService;
+    private Ticket ticket;
+
+    @BeforeEach
+    public void setUpPerTest() {
+	fareCalculatorService = new FareCalculatorService(notificationSink);
+	ticket = new Ticket();
+	ticket.setParkingSpot(new ParkingSpot(1, ParkingType.CAR, false));
+	ticket.setInTimestamp(new Timestamp(IN_MILLIS));
+    }
+
+    @Test
+    @DisplayName("Étapes par défaut, la réduction fidélité est indiquée sur le ticket")
+    public void testDefaultPipelineReportsLoyaltyDiscount() {
+	// GIVEN
+	ticket.setOutTimestamp(new Timestamp(IN_MILLIS + 60 * 60000));
+	ticket.setRecurringUser(true);
+
+	// WHEN
+	fareCalculatorService.calculateFare(ticket);
+
+	// THEN
+	assertThat(ticket.getPrice()).isEqualTo(1.43);
+	assertThat(ticket.getPriceContributions()).containsExactly(0L, 150L, -7L);
+	assertThat(fareCalculatorService.getPricingPipeline().describe(ticket))
+		.isEqualTo("FREE_PERIOD=0 BASE_TARIFF=150 LOYALTY_DISCOUNT=-7");
+	ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+	verify(notificationSink).publish(captor.capture());
+	assertThat(captor.getValue().getType()).isEqualTo(NotificationType.DISCOUNT_APPLIED);
+    }
+
+    @Test
+    @DisplayName("Plafond journalier puis code promotionnel, appliqués dans l'ordre configuré")
+    public void testDailyCapThenPromoCode() {
+	// GIVEN
+	PricingPipeline pricingPipeline = PricingPipeline
+		.parse("freePeriod:30,baseTariff,dailyCap:2000,promoCodes:SUMMER=10;STAFF=100");
+	fareCalculatorService.setPricingPipeline(pricingPipeline);
+	ticket.setOutTimestamp(new Timestamp(IN_MILLIS + 30 * 60 * 60000));
+	ticket.setPromoCode("SUMMER");
+
+	// WHEN
+	fareCalculatorService.calculateFare(ticket);
+
+	// THEN
+	assertThat(pricingPipeline.getStageTypes()).containsExactly(PricingStageType.FREE_PERIOD,
+		PricingStageType.BASE_TARIFF, PricingStageType.DAILY_CAP, PricingStageType.PROMO_CODE);
+	assertThat(ticket.getPriceContributions()).containsExactly(0L, 4500L, -500L, -400L);
+	assertThat(ticket.getPrice()).isEqualTo(36.0);
+	assertThatThrownBy(() -> PricingPipeline.parse("baseTariff,happyHour:10"))
+		.isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,130 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.ReplicatedDataBaseConfig;
+import com.parkit.parkingsystem.config.RoundRobinReplicaPolicy;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicatedDataBaseConfigTest {
+
+    @Mock
+    private DataBaseConfig primary;
+    @Mock
+    private DataBaseConfig replica1;
+    @Mock
+    private DataBaseConfig replica2;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection replicaConnection1;
+    @Mock
+    private Connection replicaConnection2;
+
+    private ReplicatedDataBaseConfig replicatedDataBaseConfig;
+
+    @BeforeEach
+    private void setUpPerTest() {
+	replicatedDataBaseConfig = new ReplicatedDataBaseConfig(primary, Arrays.asList(replica1, replica2),
+		new RoundRobinReplicaPolicy(), 5, 60000);
+    }
+
+    private void givenReplicaLag(Connection connection, Long lagSeconds) throws SQLException {
+	Statement statement = org.mockito.Mockito.mock(Statement.class);
+	ResultSet rs = org.mockito.Mockito.mock(ResultSet.class);
+	when(connection.createStatement()).thenReturn(statement);
+	when(statement.executeQuery(anyString())).thenReturn(rs);
+	when(rs.next()).thenReturn(true);
+	when(rs.getLong(anyString())).thenReturn(lagSeconds == null ? 0 : lagSeconds);
+	when(rs.wasNull()).thenReturn(lagSeconds == null);
+    }
+
+    @Test
+    @DisplayName("Les écritures sont envoyées à la base principale")
+    public void testWriteGoesToPrimary() throws Exception {
+	when(primary.getConnection()).thenReturn(primaryConnection);
+
+	assertThat(replicatedDataBaseConfig.getConnection()).isSameAs(primaryConnection);
+	verify(replica1, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("L'occupation qui initialise les compteurs est lue sur la base principale")
+    public void testOccupancySeedIsReadOnPrimary() throws Exception {
+	// GIVEN
+	PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+	ResultSet rs = Mockito.mock(ResultSet.class);
+	when(primary.getConnection()).thenReturn(primaryConnection);
+	when(primaryConnection.prepareStatement(anyString())).thenReturn(ps);
+	when(ps.executeQuery()).thenReturn(rs);
+	ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+	parkingSpotDAO.dataBaseConfig = replicatedDataBaseConfig;
+
+	// WHEN
+	parkingSpotDAO.getParkingOccupancy(true);
+
+	// THEN
+	verify(primary).getConnection();
+	verify(replica1, never()).getConnection();
+	verify(replica2, never()).getConnection();
+    }
+
+    @Test
+    @DisplayName("Les lectures sont réparties entre les réplicas à jour")
+    public void testReadsAreBalancedOnReplicas() throws Exception {
+	when(replica1.getConnection()).thenReturn(replicaConnection1);
+	when(replica2.getConnection()).thenReturn(replicaConnection2);
+	givenReplicaLag(replicaConnection1, 0L);
+	givenReplicaLag(replicaConnection2, 1L);
+
+	assertThat(replicatedDataBaseConfig.getReadConnection()).isSameAs(replicaConnection1);
+	assertThat(replicatedDataBaseConfig.getReadConnection()).isSameAs(replicaConnection2);
+	assertThat(replicatedDataBaseConfig.getReadConnection()).isSameAs(replicaConnection1);
+    }
+
+    @Test
+    @DisplayName("Lecture sur la base principale si les réplicas sont en retard")
+    public void testReadFallsBackToPrimaryWhenReplicasLag() throws Exception {
+	when(primary.getConnection()).thenReturn(primaryConnection);
+	when(replica1.getConnection()).thenReturn(replicaConnection1);
+	when(replica2.getConnection()).thenReturn(replicaConnection2);
+	givenReplicaLag(replicaConnection1, 30L);
+	givenReplicaLag(replicaConnection2, null);
+
+	assertThat(replicatedDataBaseConfig.getReadConnection()).isSameAs(primaryConnection);
+	verify(replicaConnection1).close();
+	verify(replicaConnection2).close();
+    }
+
+    @Test
+    @DisplayName("Lecture sur la base principale si un réplica est injoignable")
+    public void testReadFallsBackToPrimaryWhenReplicaIsDown() throws Exception {
+	when(primary.getConnection()).thenReturn(primaryConnection);
+	when(replica1.getConnection()).thenThrow(new SQLException("Communications link failure"));
+	when(replica2.getConnection()).thenThrow(new SQLException("Communications link failure"));
+
+	assertThat(replicatedDataBaseConfig.getReadConnection()).isSameAs(primaryConnection);
+	assertThat(replicatedDataBaseConfig.getReadConnection()).isSameAs(primaryConnection);
+	verify(replica1).getConnection();
+    }
+}
@@ -0,0 +1,94 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.service.RequestTracer;
+import com.parkit.parkingsystem.util.NotificationSink;
+import com.parkit.parkingsystem.util.SlowTransactionLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RequestTracerTest {
+
+    @Mock
+    private ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private TicketDAO ticketDAO;
+    @Mock
+    private NotificationSink notificationSink;
+    @TempDir
+    Path tempDir;
+
+    private ParkingService parkingService;
+    private SlowTransactionLog slowTransactionLog;
+
+    @BeforeEach
+    public void setUpPerTest() throws Exception {
+	parkingService = new ParkingService(null, parkingSpotDAO, ticketDAO, notificationSink);
+	slowTransactionLog = new SlowTransactionLog(tempDir.resolve("slow-transactions.log"));
+	when(parkingSpotDAO.getNextAvailableSlot(ParkingType.CAR)).thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("Entrée au-delà du seuil, la durée de chaque étape est écrite dans le journal")
+    public void testSlowEntryIsLoggedWithStages() throws Exception {
+	// GIVEN
+	parkingService.setRequestTracer(new RequestTracer(0, slowTransactionLog));
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+	when(ticketDAO.getTicketUserPresentInDB("AB-123-CD")).thenReturn(false);
+
+	// WHEN
+	parkingService.processIncomingVehicle(ParkingType.CAR, "AB-123-CD");
+
+	// THEN
+	List<String> lines = Files.readAllLines(slowTransactionLog.getFile(), StandardCharsets.UTF_8);
+	assertThat(lines).hasSize(1);
+	assertThat(lines.get(0)).contains(" entry AB-123-CD ")
+		.containsPattern(" SPOT_LOOKUP=\\d+\\.\\d UPDATE_PARKING=\\d+\\.\\d SAVE_TICKET=\\d+\\.\\d"
+			+ " LOYALTY_QUERY=\\d+\\.\\d COMMIT=\\d+\\.\\d NOTIFICATION=\\d+\\.\\d$");
+    }
+
+    @Test
+    @DisplayName("Entrée sous le seuil rien n'est écrit, une entrée en échec est écrite avec son erreur")
+    public void testFastEntryIsNotLogged() throws Exception {
+	// GIVEN
+	when(parkingSpotDAO.updateParking(any(ParkingSpot.class), anyBoolean())).thenReturn(true);
+	when(ticketDAO.saveTicket(any(Ticket.class))).thenReturn(new Ticket())
+		.thenThrow(new SQLException("Deadlock"));
+
+	// WHEN
+	parkingService.setRequestTracer(new RequestTracer(60000, slowTransactionLog));
+	parkingService.processIncomingVehicle(ParkingType.CAR, "AB-123-CD");
+	parkingService.setRequestTracer(new RequestTracer(0, slowTransactionLog));
+	assertThatThrownBy(() -> parkingService.processIncomingVehicle(ParkingType.CAR, "EF-456-GH"))
+		.isInstanceOf(SQLException.class);
+
+	// THEN
+	List<String> lines = Files.readAllLines(slowTransactionLog.getFile(), StandardCharsets.UTF_8);
+	assertThat(lines).hasSize(1);
+	assertThat(lines.get(0)).contains(" entry EF-456-GH ").contains(" UPDATE_PARKING=")
+		.doesNotContain("SAVE_TICKET").endsWith(" failed: java.sql.SQLException: Deadlock");
+    }
+}
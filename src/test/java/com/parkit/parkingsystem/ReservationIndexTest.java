@@ -0,0 +1,82 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.util.ReservationIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReservationIndexTest {
+
+    @Test
+    @DisplayName("Le maximum réservé sur une période est celui de la minute la plus chargée")
+    public void testMaxReservedOverPeriod() {
+	// GIVEN
+	ReservationIndex index = new ReservationIndex(1000, 600);
+	index.add(1010, 1020, 1);
+	index.add(1015, 1030, 1);
+	index.add(1015, 1016, 1);
+
+	// WHEN
+	int beforeOverlap = index.getMaxReserved(1000, 1015);
+	int overlap = index.getMaxReserved(1000, 1100);
+	int afterOverlap = index.getMaxReserved(1016, 1100);
+
+	// THEN
+	assertThat(beforeOverlap).isEqualTo(1);
+	assertThat(overlap).isEqualTo(3);
+	assertThat(afterOverlap).isEqualTo(2);
+	assertThat(index.getReserved(1025)).isEqualTo(1);
+	assertThat(index.getReserved(1030)).isZero();
+    }
+
+    @Test
+    @DisplayName("Une réservation retirée à partir d'une minute ne compte plus ensuite")
+    public void testRemoveFromMinute() {
+	// GIVEN
+	ReservationIndex index = new ReservationIndex(0, 120);
+	index.add(10, 100, 1);
+
+	// WHEN
+	index.add(40, 100, -1);
+
+	// THEN
+	assertThat(index.getReserved(39)).isEqualTo(1);
+	assertThat(index.getMaxReserved(40, 120)).isZero();
+    }
+
+    @Test
+    @DisplayName("100 000 réservations, l'index donne les mêmes résultats qu'un comptage minute par minute")
+    public void testMatchesMinuteByMinuteCount() {
+	// GIVEN
+	int horizon = 60 * 24 * 60;
+	ReservationIndex index = new ReservationIndex(0, horizon);
+	int[] changes = new int[horizon + 1];
+	Random random = new Random(42);
+	for (int i = 0; i < 100000; i++) {
+	    int start = random.nextInt(horizon - 600);
+	    int end = start + 1 + random.nextInt(600);
+	    index.add(start, end, 1);
+	    changes[start]++;
+	    changes[end]--;
+	}
+	int[] reserved = new int[horizon];
+	for (int minute = 0, count = 0; minute < horizon; minute++) {
+	    count += changes[minute];
+	    reserved[minute] = count;
+	}
+
+	// WHEN THEN
+	for (int i = 0; i < 1000; i++) {
+	    int start = random.nextInt(horizon - 1);
+	    int end = start + 1 + random.nextInt(Math.min(5000, horizon - start));
+	    int expected = 0;
+	    for (int minute = start; minute < end; minute++) {
+		expected = Math.max(expected, reserved[minute]);
+	    }
+	    assertThat(index.getMaxReserved(start, end)).isEqualTo(expected);
+	}
+    }
+}
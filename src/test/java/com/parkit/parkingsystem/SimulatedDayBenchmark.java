@@ -0,0 +1,158 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+import com.parkit.parkingsystem.util.SimulatedClock;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Simulation d'une journée de trafic en quelques secondes, lancée à la main :
+ * 
+ * mvn test-compile exec:java -Dexec.mainClass=com.parkit.parkingsystem.SimulatedDayBenchmark
+ * -Dexec.classpathScope=test
+ * 
+ * Le ParkingService utilise une SimulatedClock et des DAO en mémoire. Les
+ * arrivées suivent un profil horaire avec des pointes le matin et le soir, et
+ * chaque véhicule reste de 20 minutes à 10 heures : les tarifs sont donc
+ * calculés sur des durées réalistes sans attendre des heures.
+ */
+public class SimulatedDayBenchmark {
+
+    private static final long MILLIS_PER_MINUTE = 60000;
+    private static final int CAR_SPOTS = 400;
+    private static final int BIKE_SPOTS = 100;
+    private static final long SECONDS = Long.getLong("seconds", 10);
+    // Arrivées par heure, de minuit à 23h.
+    private static final int[] ARRIVALS_PER_HOUR = { 5, 3, 2, 2, 3, 10, 40, 160, 220, 120, 80, 90, 120, 110, 80,
+	    80, 100, 160, 140, 80, 40, 25, 15, 10 };
+
+    public static void main(String[] args) throws Exception {
+	Instant origin = Instant.parse("2021-03-01T00:00:00Z");
+	SimulatedClock clock = new SimulatedClock(origin, 86400.0 / SECONDS);
+	ParkingService parkingService = new ParkingService(null, new InMemoryParkingSpotDAO(), new InMemoryTicketDAO(),
+		new NoOpNotificationSink());
+	parkingService.setClock(clock);
+
+	Random random = new Random(42);
+	PriorityQueue<long[]> departures = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+	long dayEnd = origin.toEpochMilli() + 24 * 60 * MILLIS_PER_MINUTE;
+	long nextMinute = origin.toEpochMilli();
+	long vehicles = 0;
+	long entries = 0;
+	long exits = 0;
+	long refused = 0;
+	int parked = 0;
+	int peak = 0;
+	double revenue = 0;
+	long start = System.nanoTime();
+	while (nextMinute < dayEnd) {
+	    if (clock.millis() < nextMinute) {
+		Thread.sleep(1);
+		continue;
+	    }
+	    while (!departures.isEmpty() && departures.peek()[0] <= clock.millis()) {
+		Ticket ticket = parkingService.processExitingVehicle("V" + departures.poll()[1]);
+		revenue += ticket.getPrice();
+		exits++;
+		parked--;
+	    }
+	    int hour = (int) ((nextMinute - origin.toEpochMilli()) / (60 * MILLIS_PER_MINUTE));
+	    int arrivals = poisson(random, ARRIVALS_PER_HOUR[hour] / 60.0);
+	    for (int i = 0; i < arrivals; i++) {
+		long vehicle = vehicles++;
+		ParkingType parkingType = random.nextInt(5) == 0 ? ParkingType.BIKE : ParkingType.CAR;
+		Ticket ticket;
+		try {
+		    ticket = parkingService.processIncomingVehicle(parkingType, "V" + vehicle);
+		} catch (IllegalStateException e) {
+		    refused++;
+		    continue;
+		}
+		entries++;
+		peak = Math.max(peak, ++parked);
+		long dwellMinutes = 20 + (long) Math.min(580, -Math.log(1 - random.nextDouble()) * 120);
+		departures.add(
+			new long[] { ticket.getInTimestamp().getTime() + dwellMinutes * MILLIS_PER_MINUTE, vehicle });
+	    }
+	    nextMinute += MILLIS_PER_MINUTE;
+	}
+	double seconds = (System.nanoTime() - start) / 1e9;
+	System.out.printf(
+		"1 simulated day in %.1f s: %d entries, %d exits, %d refused, peak %d parked, %d still parked, revenue %.2f%n",
+		seconds, entries, exits, refused, peak, parked, revenue);
+    }
+
+    private static int poisson(Random random, double mean) {
+	double limit = Math.exp(-mean);
+	double product = random.nextDouble();
+	int count = 0;
+	while (product > limit) {
+	    product *= random.nextDouble();
+	    count++;
+	}
+	return count;
+    }
+
+    private static class InMemoryParkingSpotDAO extends ParkingSpotDAO {
+	private final Map<ParkingType, TreeSet<Integer>> freeSpots = new TreeMap<>();
+
+	InMemoryParkingSpotDAO() {
+	    freeSpots.put(ParkingType.CAR, new TreeSet<>());
+	    freeSpots.put(ParkingType.BIKE, new TreeSet<>());
+	    for (int i = 1; i <= CAR_SPOTS + BIKE_SPOTS; i++) {
+		freeSpots.get(i <= CAR_SPOTS ? ParkingType.CAR : ParkingType.BIKE).add(i);
+	    }
+	}
+
+	@Override
+	public int getNextAvailableSlot(ParkingType parkingType) {
+	    Integer parkingNumber = freeSpots.get(parkingType).pollFirst();
+	    return parkingNumber == null ? 0 : parkingNumber;
+	}
+
+	@Override
+	public boolean updateParking(ParkingSpot parkingSpot, boolean available) {
+	    if (available) {
+		freeSpots.get(parkingSpot.getParkingType()).add(parkingSpot.getId());
+	    }
+	    return true;
+	}
+    }
+
+    private static class InMemoryTicketDAO extends TicketDAO {
+	private final Map<String, Ticket> tickets = new HashMap<>();
+
+	@Override
+	public Ticket saveTicket(Ticket ticket) {
+	    tickets.put(ticket.getVehicleRegNumber(), ticket);
+	    return ticket;
+	}
+
+	@Override
+	public Ticket getTicket(String vehicleRegNumber) {
+	    return tickets.get(vehicleRegNumber);
+	}
+
+	@Override
+	public boolean updateTicket(Ticket ticket) {
+	    return true;
+	}
+
+	@Override
+	public boolean getTicketUserPresentInDB(String vehicleRegNumber) {
+	    return false;
+	}
+    }
+}
@@ -0,0 +1,149 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.SpotLeaseDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.service.LeasedAllocationStrategy;
+import com.parkit.parkingsystem.service.RoundRobinAllocationStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SpotAllocationStrategyTest {
+
+    @Mock
+    private ParkingSpotDAO parkingSpotDAO;
+    @Mock
+    private SpotLeaseDAO spotLeaseDAO;
+
+    @Test
+    @DisplayName("Round robin, la place suivante est attribuée puis retour à la plus petite place")
+    public void testRoundRobinWrapsAround() throws Exception {
+	// GIVEN
+	RoundRobinAllocationStrategy strategy = new RoundRobinAllocationStrategy(parkingSpotDAO);
+	when(parkingSpotDAO.getNextAvailableSlotAfter(ParkingType.CAR, 0)).thenReturn(1, 2);
+	when(parkingSpotDAO.getNextAvailableSlotAfter(ParkingType.CAR, 1)).thenReturn(3);
+	when(parkingSpotDAO.getNextAvailableSlotAfter(ParkingType.CAR, 3)).thenReturn(0);
+
+	// WHEN
+	int first = strategy.getNextAvailableSlot(ParkingType.CAR);
+	int second = strategy.getNextAvailableSlot(ParkingType.CAR);
+	int third = strategy.getNextAvailableSlot(ParkingType.CAR);
+
+	// THEN
+	assertThat(first).isEqualTo(1);
+	assertThat(second).isEqualTo(3);
+	assertThat(third).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Location, les places sont attribuées depuis le bloc loué par la borne")
+    public void testLeasedAllocatesFromOwnBlock() throws Exception {
+	// GIVEN
+	LeasedAllocationStrategy strategy = new LeasedAllocationStrategy(parkingSpotDAO, spotLeaseDAO, "gate-1", 2, 60000);
+	when(spotLeaseDAO.getLeasedAvailableSpots(ParkingType.CAR)).thenReturn(Collections.emptyMap());
+	when(spotLeaseDAO.getUnleasedAvailableSpots(ParkingType.CAR, 2)).thenReturn(Arrays.asList(4, 5));
+	when(spotLeaseDAO.saveLease(anyInt(), eq("gate-1"), any(Timestamp.class))).thenReturn(true);
+	when(parkingSpotDAO.claimLeasedSpot(any(ParkingSpot.class), eq("gate-1"))).thenReturn(true);
+
+	// WHEN
+	int first = strategy.getNextAvailableSlot(ParkingType.CAR);
+	int second = strategy.getNextAvailableSlot(ParkingType.CAR);
+
+	// THEN
+	assertThat(first).isEqualTo(4);
+	assertThat(second).isEqualTo(5);
+	verify(spotLeaseDAO, times(1)).getUnleasedAvailableSpots(ParkingType.CAR, 2);
+    }
+
+    @Test
+    @DisplayName("Location, une prolongation en échec n'empêche pas l'entrée et est retentée")
+    public void testLeasedRenewalFailureIsRetried() throws Exception {
+	// GIVEN
+	LeasedAllocationStrategy strategy = new LeasedAllocationStrategy(parkingSpotDAO, spotLeaseDAO, "gate-1", 2, 60000);
+	when(spotLeaseDAO.renewLeases(eq("gate-1"), any(Timestamp.class))).thenThrow(new SQLException("Timeout"));
+	when(spotLeaseDAO.getLeasedAvailableSpots(ParkingType.CAR)).thenReturn(Collections.emptyMap());
+	when(spotLeaseDAO.getUnleasedAvailableSpots(ParkingType.CAR, 2)).thenReturn(Arrays.asList(4, 5));
+	when(spotLeaseDAO.saveLease(anyInt(), eq("gate-1"), any(Timestamp.class))).thenReturn(true);
+	when(parkingSpotDAO.claimLeasedSpot(any(ParkingSpot.class), eq("gate-1"))).thenReturn(true);
+
+	// WHEN
+	int first = strategy.getNextAvailableSlot(ParkingType.CAR);
+	int second = strategy.getNextAvailableSlot(ParkingType.CAR);
+
+	// THEN
+	assertThat(first).isEqualTo(4);
+	assertThat(second).isEqualTo(5);
+	verify(spotLeaseDAO, times(2)).renewLeases(eq("gate-1"), any(Timestamp.class));
+    }
+
+    @Test
+    @DisplayName("Location, une borne sans place reprend la moitié des places d'une autre borne")
+    public void testLeasedRebalancesWhenDry() throws Exception {
+	// GIVEN
+	LeasedAllocationStrategy strategy = new LeasedAllocationStrategy(parkingSpotDAO, spotLeaseDAO, "gate-2", 2, 60000);
+	Map<Integer, String> leasedSpots = new LinkedHashMap<>();
+	leasedSpots.put(1, "gate-1");
+	leasedSpots.put(2, "gate-1");
+	when(spotLeaseDAO.getLeasedAvailableSpots(ParkingType.CAR)).thenReturn(leasedSpots);
+	when(spotLeaseDAO.getUnleasedAvailableSpots(ParkingType.CAR, 2)).thenReturn(Collections.emptyList());
+	when(spotLeaseDAO.transferLease(eq(1), eq("gate-1"), eq("gate-2"), any(Timestamp.class))).thenReturn(true);
+	when(parkingSpotDAO.claimLeasedSpot(any(ParkingSpot.class), eq("gate-2"))).thenReturn(true);
+
+	// WHEN
+	int parkingNumber = strategy.getNextAvailableSlot(ParkingType.CAR);
+
+	// THEN
+	assertThat(parkingNumber).isEqualTo(1);
+	verify(spotLeaseDAO, never()).transferLease(eq(2), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Round robin et location, un type complet se replie sur les places de son type de repli")
+    public void testRoundRobinAndLeasedFallBack() throws Exception {
+	// GIVEN
+	ParkingType ev = ParkingType.define("EV", 3.0);
+	ev.setFallbacks(Collections.singletonList(ParkingType.CAR));
+	RoundRobinAllocationStrategy roundRobin = new RoundRobinAllocationStrategy(parkingSpotDAO);
+	LeasedAllocationStrategy leased = new LeasedAllocationStrategy(parkingSpotDAO, spotLeaseDAO, "gate-1", 2, 60000);
+	when(parkingSpotDAO.getNextAvailableSlotAfter(ev, 0)).thenReturn(0);
+	when(parkingSpotDAO.getNextAvailableSlotAfter(ParkingType.CAR, 0)).thenReturn(4);
+	when(spotLeaseDAO.getLeasedAvailableSpots(any(ParkingType.class))).thenReturn(Collections.emptyMap());
+	when(spotLeaseDAO.getUnleasedAvailableSpots(ev, 2)).thenReturn(Collections.emptyList());
+	when(spotLeaseDAO.getUnleasedAvailableSpots(ParkingType.CAR, 2)).thenReturn(Arrays.asList(5, 6));
+	when(spotLeaseDAO.saveLease(anyInt(), eq("gate-1"), any(Timestamp.class))).thenReturn(true);
+	when(parkingSpotDAO.claimLeasedSpot(any(ParkingSpot.class), eq("gate-1"))).thenReturn(true);
+
+	// WHEN
+	int roundRobinSpot = roundRobin.getNextAvailableSlot(ev);
+	int leasedSpot = leased.getNextAvailableSlot(ev);
+
+	// THEN
+	assertThat(roundRobinSpot).isEqualTo(4);
+	assertThat(leasedSpot).isEqualTo(5);
+	verify(parkingSpotDAO).claimLeasedSpot(
+		argThat(parkingSpot -> parkingSpot.getId() == 5 && parkingSpot.getParkingType() == ParkingType.CAR),
+		eq("gate-1"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.DBConstants;
+import com.parkit.parkingsystem.dao.MigrationRunner;
+import com.parkit.parkingsystem.service.StartupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StartupServiceTest {
+
+    @Mock
+    private DataBaseConfig dataBaseConfig;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+    @Mock
+    private ResultSetMetaData resultSetMetaData;
+
+    @BeforeEach
+    public void setUpPerTest() throws Exception {
+	when(dataBaseConfig.getConnection()).thenReturn(connection);
+	when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+	when(preparedStatement.executeQuery()).thenReturn(resultSet);
+	when(resultSet.getMetaData()).thenReturn(resultSetMetaData);
+    }
+
+    @Test
+    @DisplayName("Schéma correct, les requêtes sont préparées et la borne est prête après le chargement")
+    public void testStartWithValidSchema() throws Exception {
+	// GIVEN
+	stubColumns(Arrays.asList("PARKING_NUMBER", "AVAILABLE", "TYPE", "ID", "VEHICLE_REG_NUMBER", "PRICE",
+		"IN_TIME", "OUT_TIME", "GATE_ID", "LEASE_EXPIRY", "START_TIME", "END_TIME", "CLAIMED"));
+	StartupService startupService = new StartupService(dataBaseConfig);
+	AtomicBoolean preloaded = new AtomicBoolean();
+	startupService.addPreloadTask("occupancy", () -> {
+	    preloaded.set(!startupService.isReady());
+	    return null;
+	});
+
+	// WHEN
+	startupService.start();
+
+	// THEN
+	assertThat(startupService.isReady()).isTrue();
+	assertThat(preloaded.get()).isTrue();
+	verify(connection).prepareStatement(DBConstants.GET_TICKET);
+	verify(connection).prepareStatement(DBConstants.CLAIM_RESERVATION);
+	verify(connection, never()).prepareStatement(contains("%"));
+    }
+
+    @Test
+    @DisplayName("Colonne manquante, le démarrage échoue et la borne n'est pas prête")
+    public void testStartWithMissingColumn() throws Exception {
+	// GIVEN
+	stubColumns(Arrays.asList("PARKING_NUMBER", "AVAILABLE", "TYPE", "ID", "VEHICLE_REG_NUMBER", "PRICE",
+		"IN_TIME", "GATE_ID", "LEASE_EXPIRY", "START_TIME", "END_TIME", "CLAIMED"));
+	StartupService startupService = new StartupService(dataBaseConfig);
+
+	// WHEN THEN
+	assertThatThrownBy(startupService::start).isInstanceOf(IllegalStateException.class)
+		.hasMessageContaining("missing column ticket.OUT_TIME");
+	assertThat(startupService.isReady()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Migrations exécutées avant le démarrage, elles ne sont pas rejouées par le démarrage")
+    public void testMigrateBeforeStart() throws Exception {
+	// GIVEN
+	stubColumns(Arrays.asList("PARKING_NUMBER", "AVAILABLE", "TYPE", "ID", "VEHICLE_REG_NUMBER", "PRICE",
+		"IN_TIME", "OUT_TIME", "GATE_ID", "LEASE_EXPIRY", "START_TIME", "END_TIME", "CLAIMED"));
+	MigrationRunner migrationRunner = mock(MigrationRunner.class);
+	StartupService startupService = new StartupService(dataBaseConfig);
+	startupService.setMigrationRunner(migrationRunner);
+
+	// WHEN
+	startupService.migrate();
+	startupService.start();
+
+	// THEN
+	verify(migrationRunner, times(1)).migrate();
+	assertThat(startupService.isReady()).isTrue();
+    }
+
+    private void stubColumns(List<String> columns) throws Exception {
+	when(resultSetMetaData.getColumnCount()).thenReturn(columns.size());
+	when(resultSetMetaData.getColumnName(anyInt()))
+		.thenAnswer(invocation -> columns.get(invocation.<Integer>getArgument(0) - 1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ExportFormat;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketExportDAO;
+import com.parkit.parkingsystem.dao.TicketExportHandler;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketExportReport;
+import com.parkit.parkingsystem.service.TicketExportService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.Random;
+
+/**
+ * Mesure de l'export de l'historique des tickets, lancée à la main, de
+ * préférence avec un tas réduit pour vérifier que la mémoire ne dépend pas du
+ * nombre de tickets :
+ * 
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-Xmx32m -Dtickets=100000000 -classpath %classpath
+ * com.parkit.parkingsystem.TicketExportBenchmark"
+ * 
+ * Le DAO est remplacé par un DAO qui génère les tickets, afin de mesurer
+ * l'écriture des fichiers seule.
+ */
+public class TicketExportBenchmark {
+
+    private static final long TICKETS = Long.getLong("tickets", 10000000);
+    private static final long MINUTE = 60000;
+
+    public static void main(String[] args) throws Exception {
+	Path directory = Files.createTempDirectory("ticket-export");
+	for (ExportFormat exportFormat : ExportFormat.values()) {
+	    TicketExportService ticketExportService = new TicketExportService(new GeneratingTicketExportDAO(),
+		    directory.resolve(exportFormat.toString()), exportFormat, 10000000);
+	    TicketExportReport report = ticketExportService.export(new Timestamp(0), new Timestamp(Long.MAX_VALUE / 2));
+	    long bytes = 0;
+	    for (Path file : report.getFiles()) {
+		bytes += Files.size(file);
+		Files.delete(file);
+	    }
+	    Runtime runtime = Runtime.getRuntime();
+	    System.out.printf("%s: %d tickets in %d files, %.0f tickets/s, %.1f bytes/ticket, max heap %d MB%n",
+		    exportFormat, report.getExportedTickets(), report.getFiles().size(),
+		    report.getExportedTickets() * 1000.0 / report.getDurationMillis(),
+		    (double) bytes / report.getExportedTickets(), runtime.maxMemory() >> 20);
+	    Files.delete(directory.resolve(exportFormat.toString()));
+	}
+	Files.delete(directory);
+    }
+
+    private static class GeneratingTicketExportDAO extends TicketExportDAO {
+	@Override
+	public long exportTickets(Timestamp from, Timestamp to, TicketExportHandler handler) throws Exception {
+	    Random random = new Random(42);
+	    long outTime = Timestamp.valueOf("2015-01-01 00:00:00").getTime();
+	    for (long i = 1; i <= TICKETS; i++) {
+		outTime += random.nextInt(4) * MINUTE / 2;
+		long duration = (30 + random.nextInt(600)) * MINUTE;
+		Ticket ticket = new Ticket();
+		ticket.setId((int) i);
+		ticket.setParkingSpot(new ParkingSpot(1 + random.nextInt(500),
+			random.nextInt(5) == 0 ? ParkingType.BIKE : ParkingType.CAR, false));
+		ticket.setVehicleRegNumber("AB-" + random.nextInt(200000));
+		ticket.setPrice(Math.round(duration / MINUTE * 2.5) / 100.0);
+		ticket.setInTimestamp(new Timestamp(outTime - duration));
+		ticket.setOutTimestamp(new Timestamp(outTime));
+		handler.onTicket(ticket);
+	    }
+	    return TICKETS;
+	}
+    }
+}
@@ -0,0 +1,120 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.constants.ExportFormat;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.TicketExportDAO;
+import com.parkit.parkingsystem.dao.TicketExportHandler;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketExportReport;
+import com.parkit.parkingsystem.service.TicketExportService;
+import com.parkit.parkingsystem.util.ColumnarTicketReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TicketExportServiceTest {
+
+    private static final long HOUR = 3600000;
+    private static final long ORIGIN = Instant.parse("2021-03-01T08:00:00Z").toEpochMilli();
+
+    @Mock
+    private TicketExportDAO ticketExportDAO;
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Export CSV, les tickets sont répartis en fichiers gzip de taille bornée")
+    public void testCsvExportIsChunked() throws Exception {
+	// GIVEN
+	Timestamp from = new Timestamp(ORIGIN);
+	Timestamp to = new Timestamp(ORIGIN + 24 * HOUR);
+	when(ticketExportDAO.exportTickets(eq(from), eq(to), any(TicketExportHandler.class)))
+		.thenAnswer(invocation -> feed(invocation.getArgument(2), 5));
+	TicketExportService ticketExportService = new TicketExportService(ticketExportDAO, tempDir, ExportFormat.CSV,
+		2);
+
+	// WHEN
+	TicketExportReport report = ticketExportService.export(from, to);
+
+	// THEN
+	assertThat(report.getExportedTickets()).isEqualTo(5);
+	assertThat(report.getFiles()).extracting(file -> file.getFileName().toString()).containsExactly(
+		"tickets-20210301080000-20210302080000-00001.csv.gz",
+		"tickets-20210301080000-20210302080000-00002.csv.gz",
+		"tickets-20210301080000-20210302080000-00003.csv.gz");
+	try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+		new GZIPInputStream(Files.newInputStream(report.getFiles().get(0))), StandardCharsets.UTF_8))) {
+	    assertThat(reader.lines().collect(Collectors.toList())).containsExactly(
+		    "ID,PARKING_NUMBER,TYPE,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME",
+		    "1,1,CAR,AB-0,1.5," + new Timestamp(ORIGIN) + "," + new Timestamp(ORIGIN + HOUR),
+		    "2,2,BIKE,AB-1,1.5," + new Timestamp(ORIGIN + HOUR) + "," + new Timestamp(ORIGIN + 2 * HOUR));
+	}
+    }
+
+    @Test
+    @DisplayName("Export incrémental en colonnes, le second export reprend à la fin du premier")
+    public void testIncrementalColumnarExport() throws Exception {
+	// GIVEN
+	Timestamp firstTo = new Timestamp(ORIGIN + 24 * HOUR);
+	Timestamp secondTo = new Timestamp(ORIGIN + 48 * HOUR);
+	when(ticketExportDAO.exportTickets(eq(new Timestamp(0)), eq(firstTo), any(TicketExportHandler.class)))
+		.thenAnswer(invocation -> feed(invocation.getArgument(2), 3));
+	when(ticketExportDAO.exportTickets(eq(firstTo), eq(secondTo), any(TicketExportHandler.class))).thenReturn(0L);
+	TicketExportService ticketExportService = new TicketExportService(ticketExportDAO, tempDir,
+		ExportFormat.COLUMNAR, 1000);
+
+	// WHEN
+	TicketExportReport first = ticketExportService.exportSinceLastExport(firstTo);
+	TicketExportReport second = ticketExportService.exportSinceLastExport(secondTo);
+
+	// THEN
+	assertThat(second.getFrom()).isEqualTo(firstTo);
+	assertThat(second.getFiles()).isEmpty();
+	List<Ticket> tickets = new ArrayList<>();
+	assertThat(ColumnarTicketReader.read(Files.newInputStream(first.getFiles().get(0)), tickets::add))
+		.isEqualTo(3);
+	assertThat(tickets.get(2).getId()).isEqualTo(3);
+	assertThat(tickets.get(2).getParkingSpot().getId()).isEqualTo(3);
+	assertThat(tickets.get(2).getParkingSpot().getParkingType()).isEqualTo(ParkingType.CAR);
+	assertThat(tickets.get(2).getVehicleRegNumber()).isEqualTo("AB-2");
+	assertThat(tickets.get(2).getPrice()).isEqualTo(1.5);
+	assertThat(tickets.get(2).getInTimestamp().getTime()).isEqualTo(ORIGIN + 2 * HOUR);
+	assertThat(tickets.get(2).getOutTimestamp().getTime()).isEqualTo(ORIGIN + 3 * HOUR);
+    }
+
+    private static long feed(TicketExportHandler handler, int count) throws Exception {
+	for (int i = 0; i < count; i++) {
+	    Ticket ticket = new Ticket();
+	    ticket.setId(i + 1);
+	    ticket.setParkingSpot(new ParkingSpot(i + 1, i % 2 == 0 ? ParkingType.CAR : ParkingType.BIKE, false));
+	    ticket.setVehicleRegNumber("AB-" + i);
+	    ticket.setPrice(1.5);
+	    ticket.setInTimestamp(new Timestamp(ORIGIN + i * HOUR));
+	    ticket.setOutTimestamp(new Timestamp(ORIGIN + (i + 1) * HOUR));
+	    handler.onTicket(ticket);
+	}
+	return count;
+    }
+}
@@ -0,0 +1,100 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.dao.TicketImportDAO;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.model.TicketImportReport;
+import com.parkit.parkingsystem.service.TicketImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TicketImportServiceTest {
+
+    @Mock
+    private TicketImportDAO ticketImportDAO;
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Les lignes valides sont enregistrées par lots, les lignes incorrectes sont refusées")
+    @SuppressWarnings("unchecked")
+    public void testImportValidatesAndBatches() throws Exception {
+	// GIVEN
+	Path file = tempDir.resolve("tickets.csv");
+	Files.write(file, Arrays.asList("PARKING_NUMBER,VEHICLE_REG_NUMBER,PRICE,IN_TIME,OUT_TIME",
+		"1,ABCDEF,1.5,2019-05-01 08:00:00,2019-05-01 09:00:00",
+		"9,ABCDEF,1.5,2019-05-01 08:00:00,2019-05-01 09:00:00",
+		"2,GHIJKL,,2019-05-02 10:00:00,2019-05-02 10:20:00",
+		"1,ABCDEF,1.5,2019-05-03 09:00:00,2019-05-03 08:00:00",
+		"2,MNOPQR,3,2019-05-04T08:00:00,2019-05-04T10:00:00"));
+	when(ticketImportDAO.getParkingNumbers()).thenReturn(new HashSet<>(Arrays.asList(1, 2)));
+	when(ticketImportDAO.getImportedRanges("tickets.csv")).thenReturn(new TreeMap<>());
+	TicketImportService ticketImportService = new TicketImportService(ticketImportDAO, 1, 2);
+
+	// WHEN
+	TicketImportReport report = ticketImportService.importFile(file);
+
+	// THEN
+	ArgumentCaptor<List<Ticket>> firstBatch = ArgumentCaptor.forClass(List.class);
+	verify(ticketImportDAO).saveTickets(eq("tickets.csv"), eq(2L), eq(4L), firstBatch.capture());
+	assertThat(firstBatch.getValue()).extracting(Ticket::getVehicleRegNumber).containsExactly("ABCDEF", "GHIJKL");
+	verify(ticketImportDAO).saveTickets(eq("tickets.csv"), eq(5L), eq(6L), anyList());
+	assertThat(report.getImportedTickets()).isEqualTo(3);
+	assertThat(report.getRejectedLines()).isEqualTo(2);
+	assertThat(Files.readAllLines(tempDir.resolve("tickets.csv.rejected"))).containsExactly(
+		"3: unknown parking number: 9,ABCDEF,1.5,2019-05-01 08:00:00,2019-05-01 09:00:00",
+		"5: out time is not after in time: 1,ABCDEF,1.5,2019-05-03 09:00:00,2019-05-03 08:00:00");
+    }
+
+    @Test
+    @DisplayName("Après une erreur, l'import reprend après les lots déjà enregistrés")
+    public void testImportResumesAfterFailure() throws Exception {
+	// GIVEN
+	Path file = tempDir.resolve("tickets.csv");
+	Files.write(file, Arrays.asList("1,AAAAAA,1.5,2019-05-01 08:00:00,2019-05-01 09:00:00",
+		"1,BBBBBB,1.5,2019-05-02 08:00:00,2019-05-02 09:00:00",
+		"1,CCCCCC,1.5,2019-05-03 08:00:00,2019-05-03 09:00:00"));
+	when(ticketImportDAO.getParkingNumbers()).thenReturn(new HashSet<>(Arrays.asList(1)));
+	when(ticketImportDAO.getImportedRanges("tickets.csv")).thenReturn(new TreeMap<>());
+	lenient().doThrow(new SQLException("Deadlock")).doNothing().when(ticketImportDAO).saveTickets(eq("tickets.csv"), eq(3L),
+		eq(3L), anyList());
+	TicketImportService ticketImportService = new TicketImportService(ticketImportDAO, 1, 2);
+	assertThatThrownBy(() -> ticketImportService.importFile(file)).isInstanceOf(IllegalStateException.class)
+		.hasMessageContaining("run it again to resume");
+	verify(ticketImportDAO).saveTickets(eq("tickets.csv"), eq(1L), eq(2L), anyList());
+	TreeMap<Long, Long> importedRanges = new TreeMap<>();
+	importedRanges.put(1L, 2L);
+	when(ticketImportDAO.getImportedRanges("tickets.csv")).thenReturn(importedRanges);
+
+	// WHEN
+	TicketImportReport report = new TicketImportService(ticketImportDAO, 1, 2).importFile(file);
+
+	// THEN
+	assertThat(report.getSkippedLines()).isEqualTo(2);
+	assertThat(report.getImportedTickets()).isEqualTo(1);
+	verify(ticketImportDAO, times(1)).saveTickets(eq("tickets.csv"), eq(1L), anyLong(), anyList());
+    }
+}
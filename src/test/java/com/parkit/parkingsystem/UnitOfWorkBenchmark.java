@@ -0,0 +1,182 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.config.UnitOfWork;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotCatalog;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.NoOpNotificationSink;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+/**
+ * Compte les échanges avec la base de donnée d'une entrée et d'une sortie, avec
+ * et sans unité de travail, lancé à la main :
+ * 
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ * -Dexec.args="-classpath %classpath com.parkit.parkingsystem.UnitOfWorkBenchmark"
+ * 
+ * Les connexions JDBC sont simulées et comptent les connexions ouvertes, les
+ * requêtes, les validations d'écritures (explicites, ou implicites pour chaque
+ * écriture en auto-commit) et les allers-retours, chaque requête, validation ou
+ * changement d'auto-commit en étant un.
+ */
+public class UnitOfWorkBenchmark {
+
+    private static final int CYCLES = Integer.getInteger("cycles", 1000);
+
+    private static int connections;
+    private static int statements;
+    private static int commits;
+    private static int roundTrips;
+
+    public static void main(String[] args) throws Exception {
+	run("auto-commit", false);
+	run("unit of work", true);
+    }
+
+    private static void run(String name, boolean transactional) throws Exception {
+	DataBaseConfig dataBaseConfig = new DataBaseConfig() {
+	    @Override
+	    protected Connection openConnection() {
+		return countingConnection();
+	    }
+	};
+	ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+	parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+	TicketDAO ticketDAO = new TicketDAO();
+	ticketDAO.dataBaseConfig = dataBaseConfig;
+	ticketDAO.parkingSpotCatalog = new ParkingSpotCatalog(dataBaseConfig);
+	ticketDAO.parkingSpotCatalog.load();
+	ParkingService parkingService = new ParkingService(null, parkingSpotDAO, ticketDAO,
+		new NoOpNotificationSink());
+	parkingService.setUnitOfWork(transactional ? dataBaseConfig : UnitOfWork.NONE);
+	int[] entry = new int[4];
+	int[] exit = new int[4];
+	for (int i = 0; i < CYCLES; i++) {
+	    reset();
+	    parkingService.processIncomingVehicle(ParkingType.CAR, "AB-123-CD");
+	    add(entry);
+	    reset();
+	    parkingService.processExitingVehicle("AB-123-CD");
+	    add(exit);
+	}
+	print(name + " entry", entry);
+	print(name + " exit", exit);
+    }
+
+    private static void reset() {
+	connections = 0;
+	statements = 0;
+	commits = 0;
+	roundTrips = 0;
+    }
+
+    private static void add(int[] totals) {
+	totals[0] += connections;
+	totals[1] += statements;
+	totals[2] += commits;
+	totals[3] += roundTrips;
+    }
+
+    private static void print(String name, int[] totals) {
+	System.out.printf("%-18s connections: %.1f, statements: %.1f, commits: %.1f, round trips: %.1f%n", name,
+		(double) totals[0] / CYCLES, (double) totals[1] / CYCLES, (double) totals[2] / CYCLES,
+		(double) totals[3] / CYCLES);
+    }
+
+    private static Connection countingConnection() {
+	connections++;
+	boolean[] autoCommit = { true };
+	return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+		new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "prepareStatement":
+			return countingStatement(autoCommit);
+		    case "setAutoCommit":
+			autoCommit[0] = (Boolean) args[0];
+			roundTrips++;
+			return null;
+		    case "getAutoCommit":
+			return autoCommit[0];
+		    case "commit":
+			commits++;
+			roundTrips++;
+			return null;
+		    case "rollback":
+			roundTrips++;
+			return null;
+		    default:
+			return defaultValue(method.getReturnType());
+		    }
+		});
+    }
+
+    private static PreparedStatement countingStatement(boolean[] autoCommit) {
+	return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+		new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "executeQuery":
+		    case "executeUpdate":
+		    case "execute":
+			statements++;
+			roundTrips++;
+			if (autoCommit[0] && !method.getName().equals("executeQuery")) {
+			    commits++;
+			}
+			if (method.getName().equals("executeQuery")) {
+			    return resultSet();
+			}
+			return method.getName().equals("executeUpdate") ? 1 : false;
+		    default:
+			return defaultValue(method.getReturnType());
+		    }
+		});
+    }
+
+    // Une ligne : la place 1 pour une voiture, ou un ticket de deux heures.
+    private static ResultSet resultSet() {
+	boolean[] read = { false };
+	return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+		new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+		    switch (method.getName()) {
+		    case "next":
+			boolean next = !read[0];
+			read[0] = true;
+			return next;
+		    case "last":
+			return true;
+		    case "getInt":
+			return args[0] instanceof Integer && (Integer) args[0] <= 2 ? 1 : 0;
+		    case "getString":
+			return ParkingType.CAR.name();
+		    case "getTimestamp":
+			return (Integer) args[0] == 4 ? new Timestamp(System.currentTimeMillis() - 2 * 3600000) : null;
+		    default:
+			return defaultValue(method.getReturnType());
+		    }
+		});
+    }
+
+    private static Object defaultValue(Class<?> type) {
+	if (type == boolean.class) {
+	    return false;
+	}
+	if (type == int.class) {
+	    return 0;
+	}
+	if (type == long.class) {
+	    return 0L;
+	}
+	if (type == double.class) {
+	    return 0.0;
+	}
+	return null;
+    }
+}
@@ -0,0 +1,113 @@
+package com.parkit.parkingsystem;
+
+import com.parkit.parkingsystem.config.DataBaseConfig;
+import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingSpotListener;
+import com.parkit.parkingsystem.dao.TicketDAO;
+import com.parkit.parkingsystem.model.ParkingSpot;
+import com.parkit.parkingsystem.model.Ticket;
+import com.parkit.parkingsystem.service.ParkingService;
+import com.parkit.parkingsystem.util.NotificationSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UnitOfWorkTest {
+
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement preparedStatement;
+    @Mock
+    private ResultSet resultSet;
+    @Mock
+    private ParkingSpotListener parkingSpotListener;
+    @Mock
+    private NotificationSink notificationSink;
+
+    private int openedConnections;
+    private ParkingService parkingService;
+
+    @BeforeEach
+    public void setUpPerTest() throws Exception {
+	DataBaseConfig dataBaseConfig = new DataBaseConfig() {
+	    @Override
+	    protected Connection openConnection() {
+		openedConnections++;
+		return connection;
+	    }
+	};
+	ParkingSpotDAO parkingSpotDAO = new ParkingSpotDAO();
+	parkingSpotDAO.dataBaseConfig = dataBaseConfig;
+	parkingSpotDAO.addParkingSpotListener(parkingSpotListener);
+	TicketDAO ticketDAO = new TicketDAO();
+	ticketDAO.dataBaseConfig = dataBaseConfig;
+	parkingService = new ParkingService(null, parkingSpotDAO, ticketDAO, notificationSink);
+	parkingService.setUnitOfWork(dataBaseConfig);
+	when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+	when(preparedStatement.executeQuery()).thenReturn(resultSet);
+	when(preparedStatement.executeUpdate()).thenReturn(1);
+	when(resultSet.next()).thenReturn(true, true, false);
+	when(resultSet.getInt(1)).thenReturn(1);
+    }
+
+    @Test
+    @DisplayName("Entrée d'un véhicule, place et ticket enregistrés sur une connexion avec une seule validation")
+    public void testIncomingVehicleCommitsOnce() throws Exception {
+	// GIVEN
+	when(resultSet.getInt("count(*)")).thenReturn(2);
+
+	// WHEN
+	Ticket ticket = parkingService.processIncomingVehicle(ParkingType.CAR, "AB-123-CD");
+
+	// THEN
+	assertThat(ticket.isRecurringUser()).isTrue();
+	assertThat(openedConnections).isEqualTo(2);
+	InOrder inOrder = inOrder(connection, parkingSpotListener);
+	inOrder.verify(connection).setAutoCommit(false);
+	inOrder.verify(connection).commit();
+	inOrder.verify(parkingSpotListener).onParkingSpotUpdated(any(ParkingSpot.class));
+	verify(connection, never()).rollback();
+	verify(connection, times(2)).close();
+    }
+
+    @Test
+    @DisplayName("Enregistrement du ticket en échec, la place est remise disponible par l'annulation")
+    public void testFailedTicketRollsBackParkingSpot() throws Exception {
+	// GIVEN
+	when(preparedStatement.execute()).thenThrow(new SQLException("Deadlock"));
+
+	// WHEN
+	assertThatThrownBy(() -> parkingService.processIncomingVehicle(ParkingType.CAR, "AB-123-CD"))
+		.isInstanceOf(SQLException.class);
+
+	// THEN
+	verify(connection).rollback();
+	verify(connection, never()).commit();
+	verify(preparedStatement, times(1)).executeUpdate();
+	verify(parkingSpotListener, never()).onParkingSpotUpdated(any(ParkingSpot.class));
+	verify(connection).setAutoCommit(true);
+	verify(connection, times(2)).close();
+    }
+}
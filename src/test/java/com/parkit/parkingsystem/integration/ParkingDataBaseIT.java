@@ -1,7 +1,9 @@
 package com.parkit.parkingsystem.integration;
 
 import com.parkit.parkingsystem.constants.ParkingType;
+import com.parkit.parkingsystem.dao.MigrationRunner;
 import com.parkit.parkingsystem.dao.ParkingSpotDAO;
+import com.parkit.parkingsystem.dao.ParkingTypeDAO;
 import com.parkit.parkingsystem.dao.TicketDAO;
 import com.parkit.parkingsystem.integration.config.DataBaseTestConfig;
 import com.parkit.parkingsystem.integration.service.DataBasePrepareService;
@@ -11,6 +13,7 @@ import com.parkit.parkingsystem.service.ParkingService;
 import com.parkit.parkingsystem.util.InputReaderUtil;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -48,6 +51,13 @@ public class ParkingDataBaseIT {
 	ticketDAO = new TicketDAO();
 	ticketDAO.dataBaseConfig = dataBaseTestConfig;
 	dataBasePrepareService = new DataBasePrepareService();
+	// Le schéma de Data.sql est mis à jour comme en production.
+	new MigrationRunner(dataBaseTestConfig).migrate();
+    }
+
+    @BeforeEach
+    private void setUpPerTest() {
+	dataBasePrepareService.clearDataBaseEntries();
     }
 
     @AfterAll
@@ -159,6 +169,7 @@ public class ParkingDataBaseIT {
 	parkingSpotDAO.getNextAvailableSlot(parkingType);
 	Timestamp inTime = new Timestamp(System.currentTimeMillis() - 3600000);
 	parkingSpot = new ParkingSpot(1, ParkingType.CAR, false);
+	givenPreviousVisit("ABCDEF2", parkingSpot);
 	ticket = new Ticket();
 	ticket.setParkingSpot(parkingSpot);
 	ticket.setVehicleRegNumber("ABCDEF2");
@@ -206,6 +217,7 @@ public class ParkingDataBaseIT {
 	// GIVEN
 	when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("BCDEFG2");
 	parkingSpot = new ParkingSpot(5, ParkingType.BIKE, false);
+	givenPreviousVisit("BCDEFG2", parkingSpot);
 	ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
 	Timestamp inTime = new Timestamp(System.currentTimeMillis() - 3600000);
 	ticket = new Ticket();
@@ -228,6 +240,7 @@ public class ParkingDataBaseIT {
     @DisplayName("Entrée d'un utilisateur récurrent, indication de la réduction active")
     public void testRecurrentUserReductionMessage() throws Exception {
 	// GIVEN
+		givenPreviousVisit("ABCDEF2", new ParkingSpot(2, ParkingType.CAR, false));
 		when(inputReaderUtil.readSelection()).thenReturn(1);
 		when(inputReaderUtil.readVehicleRegistrationNumber()).thenReturn("ABCDEF2");
 		ParkingService parkingService = new ParkingService(inputReaderUtil, parkingSpotDAO, ticketDAO);
@@ -252,4 +265,30 @@ public class ParkingDataBaseIT {
 	//THEN
 	assertFalse(result);
     }
+
+    @Test
+    @DisplayName("Schéma de Data.sql mis à jour par les migrations V1 à V4, types de place lus en base")
+    public void testMigratedSchema() throws Exception {
+	// GIVEN
+	ParkingTypeDAO parkingTypeDAO = new ParkingTypeDAO();
+	parkingTypeDAO.dataBaseConfig = dataBaseTestConfig;
+
+	// WHEN
+	int applied = new MigrationRunner(dataBaseTestConfig).migrate();
+
+	// THEN
+	assertThat(applied).isZero();
+	assertThat(parkingTypeDAO.loadParkingTypes()).contains(ParkingType.CAR, ParkingType.BIKE);
+    }
+
+    // Un ticket terminé la veille, pour la réduction des utilisateurs récurrents.
+    private static void givenPreviousVisit(String vehicleRegNumber, ParkingSpot parkingSpot) throws Exception {
+	Ticket previousTicket = new Ticket();
+	previousTicket.setParkingSpot(parkingSpot);
+	previousTicket.setVehicleRegNumber(vehicleRegNumber);
+	previousTicket.setPrice(1.5);
+	previousTicket.setInTimestamp(new Timestamp(System.currentTimeMillis() - 25 * 3600000));
+	previousTicket.setOutTimestamp(new Timestamp(System.currentTimeMillis() - 24 * 3600000));
+	ticketDAO.saveTicket(previousTicket);
+    }
 }
@@ -4,28 +4,90 @@ import com.parkit.parkingsystem.config.DataBaseConfig;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
+/*
+ * Base de test MySQL sur localhost:3306, ou avec -Dparkit.test.db=h2 (profil
+ * embedded-db) une base H2 en mémoire en mode MySQL, créée à la première
+ * connexion avec la partie TEST DB de resources/Data.sql.
+ */
 public class DataBaseTestConfig extends DataBaseConfig {
 
     private static final Logger logger = LogManager.getLogger("DataBaseTestConfig");
+    private static final String EMBEDDED_URL = "jdbc:h2:mem:test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String DATA_SQL = "resources/Data.sql";
+    private static final String TEST_DB_SECTION = "use test;";
 
-    public Connection getConnection() throws ClassNotFoundException, SQLException {
+    private static boolean embeddedSchemaCreated;
+
+    public static boolean isEmbedded() {
+        return "h2".equals(System.getProperty("parkit.test.db"));
+    }
+
+    @Override
+    protected Connection openConnection() throws ClassNotFoundException, SQLException {
+        if (isEmbedded()) {
+            return openEmbeddedConnection();
+        }
         logger.info("Create DB connection");
         Class.forName("com.mysql.cj.jdbc.Driver");
         return DriverManager.getConnection(
                 "jdbc:mysql://localhost:3306/test?useTimezone=true&serverTimezone=UTC","root","rootroot");
     }
 
-    public void closeConnection(Connection con){
-        if(con!=null){
-            try {
-                con.close();
-                logger.info("Closing DB connection");
+    private static synchronized Connection openEmbeddedConnection() throws ClassNotFoundException, SQLException {
+        Class.forName("org.h2.Driver");
+        Connection con = DriverManager.getConnection(EMBEDDED_URL, "sa", "");
+        if (!embeddedSchemaCreated) {
+            try (Statement statement = con.createStatement()) {
+                for (String sql : readTestSchema()) {
+                    statement.execute(sql);
+                }
             } catch (SQLException e) {
-                logger.error("Error while closing connection",e);
+                con.close();
+                throw e;
+            }
+            embeddedSchemaCreated = true;
+            logger.info("Created embedded test database from " + DATA_SQL);
+        }
+        return con;
+    }
+
+    // Les instructions qui suivent "use test;", sans le commit final.
+    private static String[] readTestSchema() throws SQLException {
+        String data;
+        try {
+            data = new String(Files.readAllBytes(Paths.get(DATA_SQL)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Unable to read " + DATA_SQL, e);
+        }
+        int start = data.indexOf(TEST_DB_SECTION);
+        if (start < 0) {
+            throw new SQLException("No test database in " + DATA_SQL);
+        }
+        String[] statements = data.substring(start + TEST_DB_SECTION.length()).split(";");
+        List<String> result = new ArrayList<>();
+        for (String statement : statements) {
+            String sql = statement.trim();
+            if (!sql.isEmpty() && !sql.equalsIgnoreCase("commit")) {
+                result.add(sql);
             }
         }
+        return result.toArray(new String[0]);
+    }
+
+    public void closeConnection(Connection con){
+        try {
+            super.closeConnection(con);
+        } catch (SQLException e) {
+            logger.error("Error while closing connection",e);
+        }
     }
 
     public void closePreparedStatement(PreparedStatement ps) {
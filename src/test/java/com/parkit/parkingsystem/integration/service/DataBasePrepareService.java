@@ -19,6 +19,9 @@ public class DataBasePrepareService {
             //clear ticket entries;
             connection.prepareStatement("truncate table ticket").execute();
 
+            //clear spot leases;
+            connection.prepareStatement("delete from spot_lease").execute();
+
         }catch(Exception e){
             e.printStackTrace();
         }finally {